@@ -0,0 +1,127 @@
+package com.lunar_prototype.deepwither;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DamageManager のダメージ計算式 (攻撃力・武器補正・クリティカル・距離補正・防御・連続ヒット減衰)。
+ * <p>
+ * DamageManager 本体はスケジューラを使うため作らず、Bukkit に触れない static の計算部分だけを呼ぶ。
+ * 入力は事前に作った配列を順に回し、乱数と StatMap の作成は計測に含めない。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageFormulaBenchmark {
+
+    private static final int SAMPLES = 1024; // 2の累乗
+    private static final double DEFENSE_DIVISOR = 100.0;
+
+    private StatMap[] attackers;
+    private StatMap[] defenders;
+    private double[] vanillaDamage;
+    private double[] distances;
+    private boolean[] crits;
+    private long[] hitCounts;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        attackers = new StatMap[SAMPLES];
+        defenders = new StatMap[SAMPLES];
+        vanillaDamage = new double[SAMPLES];
+        distances = new double[SAMPLES];
+        crits = new boolean[SAMPLES];
+        hitCounts = new long[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            StatMap attacker = new StatMap();
+            attacker.setFlat(StatType.ATTACK_DAMAGE, 10 + random.nextDouble() * 90);
+            attacker.setPercent(StatType.ATTACK_DAMAGE, random.nextDouble() * 50);
+            attacker.setFlat(StatType.PROJECTILE_DAMAGE, 10 + random.nextDouble() * 60);
+            attacker.setFlat(StatType.SWORD_DAMAGE, random.nextDouble() * 20);
+            attacker.setPercent(StatType.SWORD_DAMAGE, random.nextDouble() * 20);
+            attacker.setFlat(StatType.CRIT_CHANCE, random.nextDouble() * 40);
+            attacker.setFlat(StatType.CRIT_DAMAGE, 150 + random.nextDouble() * 100);
+            attackers[i] = attacker;
+
+            StatMap defender = new StatMap();
+            defender.setFlat(StatType.DEFENSE, random.nextDouble() * 200);
+            defender.setPercent(StatType.DEFENSE, random.nextDouble() * 30);
+            defender.setFlat(StatType.MAGIC_RESIST, random.nextDouble() * 100);
+            defenders[i] = defender;
+
+            vanillaDamage[i] = 1 + random.nextDouble() * 7;
+            distances[i] = random.nextDouble() * 50;
+            crits[i] = random.nextDouble() * 100 < attacker.getFinal(StatType.CRIT_CHANCE);
+            hitCounts[i] = 1 + random.nextInt(8);
+        }
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (SAMPLES - 1);
+    }
+
+    /**
+     * 近接攻撃 (onPlayerAttack の非遠距離経路)
+     */
+    @Benchmark
+    public double melee() {
+        int i = next();
+        StatMap attacker = attackers[i];
+        double baseDamage = vanillaDamage[i] + attacker.getFlat(StatType.ATTACK_DAMAGE) + attacker.getFlat(StatType.SWORD_DAMAGE);
+        baseDamage *= 1.0 + ((attacker.getPercent(StatType.ATTACK_DAMAGE) + attacker.getPercent(StatType.SWORD_DAMAGE)) / 100.0);
+        if (crits[i]) baseDamage *= attacker.getFinal(StatType.CRIT_DAMAGE) / 100.0;
+        return DamageManager.applyDefense(baseDamage, defenders[i].getFinal(StatType.DEFENSE), DEFENSE_DIVISOR);
+    }
+
+    /**
+     * 遠距離攻撃 (距離補正あり)
+     */
+    @Benchmark
+    public double projectile() {
+        int i = next();
+        StatMap attacker = attackers[i];
+        double baseDamage = vanillaDamage[i] + attacker.getFlat(StatType.PROJECTILE_DAMAGE);
+        baseDamage *= 1.0 + (attacker.getPercent(StatType.PROJECTILE_DAMAGE) / 100.0);
+        if (crits[i]) baseDamage *= attacker.getFinal(StatType.CRIT_DAMAGE) / 100.0;
+        baseDamage *= DamageManager.distanceMultiplier(distances[i]);
+        return DamageManager.applyDefense(baseDamage, defenders[i].getFinal(StatType.DEFENSE), DEFENSE_DIVISOR);
+    }
+
+    /**
+     * 魔法攻撃 (魔法耐性 + 連続ヒット減衰)
+     */
+    @Benchmark
+    public double magicMultiHit() {
+        int i = next();
+        double damage = DamageManager.applyDefense(attackers[i].getFinal(StatType.ATTACK_DAMAGE),
+                defenders[i].getFinal(StatType.MAGIC_RESIST), 100.0);
+        return damage * DamageManager.multiHitMultiplier(hitCounts[i]);
+    }
+
+    @Benchmark
+    public double distanceMultiplier() {
+        return DamageManager.distanceMultiplier(distances[next()]);
+    }
+
+    @Benchmark
+    public double multiHitMultiplier() {
+        return DamageManager.multiHitMultiplier(hitCounts[next()]);
+    }
+}
@@ -0,0 +1,142 @@
+package com.lunar_prototype.deepwither;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * items/*.yml の読み込み (起動時・/dw reload 時の ItemFactory#loadAllItems)。
+ * <p>
+ * 実際の定義に近い形のYAMLを一時フォルダに書き出し、ファイルの読み込みから索引の完成までと、
+ * 読み込み済みのセクションから {@link ItemLoader.ItemDefinition} を作る部分だけを別々に測る。
+ * custom_armor / armortrim / can_destroy はサーバーのレジストリが必要なため、生成する定義には含めない。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemDefinitionBenchmark {
+
+    private static final int FILES = 8;
+    private static final String[] MATERIALS = {"DIAMOND_SWORD", "IRON_AXE", "BOW", "NETHERITE_CHESTPLATE", "IRON_HELMET", "SHIELD", "PAPER", "PLAYER_HEAD"};
+    private static final String[] TYPES = {"剣", "大剣", "槍", "斧", "弓", "チェストプレート", "オフハンド装備", "素材"};
+    private static final String[] RARITIES = {"&fコモン", "&aアンコモン", "&bレア", "&dエピック", "&6レジェンダリー"};
+    private static final String[] STATS = {"attack_damage", "defense", "crit_chance", "crit_damage", "max_health", "magic_damage", "attack_speed", "move_speed"};
+
+    /**
+     * 定義の総数
+     */
+    @Param({"500", "2000"})
+    public int items;
+
+    private final Logger logger = Logger.getLogger("ItemDefinitionBenchmark");
+    private Path folder;
+    private YamlConfiguration[] configs;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("deepwither-items");
+        configs = new YamlConfiguration[FILES];
+        Random random = new Random(42);
+        for (int f = 0; f < FILES; f++) {
+            StringBuilder yaml = new StringBuilder();
+            for (int i = f; i < items; i += FILES) appendItem(yaml, "bench_item_" + i, random);
+            Files.writeString(folder.resolve("items_" + f + ".yml"), yaml, StandardCharsets.UTF_8);
+            configs[f] = YamlConfiguration.loadConfiguration(folder.resolve("items_" + f + ".yml").toFile());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * ファイルの読み込み + YAMLの解析 + 定義の解釈 + レアリティ別プールの作成
+     */
+    @Benchmark
+    public int load() {
+        return ItemDefinitionRegistry.load(folder.toFile(), logger).size();
+    }
+
+    /**
+     * 解析済みのYAMLから定義を作る部分だけ
+     */
+    @Benchmark
+    public void parseSections(Blackhole blackhole) {
+        for (YamlConfiguration config : configs) {
+            for (String key : config.getKeys(false)) {
+                ConfigurationSection section = config.getConfigurationSection(key);
+                if (section != null) blackhole.consume(ItemLoader.ItemDefinition.parse(key, section));
+            }
+        }
+    }
+
+    private static void appendItem(StringBuilder yaml, String id, Random random) {
+        int kind = random.nextInt(MATERIALS.length);
+        yaml.append(id).append(":\n");
+        yaml.append("  material: ").append(MATERIALS[kind]).append('\n');
+        yaml.append("  name: \"&6").append(id).append("\"\n");
+        yaml.append("  type: ").append(TYPES[kind]).append('\n');
+        yaml.append("  rarity: \"").append(RARITIES[random.nextInt(RARITIES.length)]).append("\"\n");
+        yaml.append("  droppable: ").append(random.nextBoolean()).append('\n');
+        if (MATERIALS[kind].equals("PLAYER_HEAD")) {
+            yaml.append("  texture-url: \"http://textures.minecraft.net/texture/").append(Long.toHexString(random.nextLong())).append("\"\n");
+        }
+        if (random.nextInt(3) == 0) yaml.append("  durability: ").append(100 + random.nextInt(900)).append('\n');
+        if (random.nextInt(4) == 0) yaml.append("  set_partner: set_").append(random.nextInt(10)).append('\n');
+
+        yaml.append("  stats:\n");
+        int first = random.nextInt(STATS.length);
+        for (int s = 1 + random.nextInt(4); s > 0; s--) {
+            String stat = STATS[(first + s) % STATS.length];
+            yaml.append("    ").append(stat).append(":\n");
+            if (random.nextBoolean()) {
+                yaml.append("      flat:\n");
+                yaml.append("        base: ").append(random.nextInt(50)).append('\n');
+                yaml.append("        spread: ").append(random.nextInt(10)).append('\n');
+            } else {
+                yaml.append("      flat: ").append(random.nextInt(50)).append('\n');
+            }
+            if (random.nextInt(3) == 0) yaml.append("      percent: ").append(random.nextInt(20)).append('\n');
+        }
+
+        if (random.nextInt(5) == 0) {
+            yaml.append("  on_hit:\n");
+            yaml.append("    chance: ").append(random.nextInt(30)).append('\n');
+            yaml.append("    cooldown: ").append(random.nextInt(100)).append('\n');
+            yaml.append("    mythic_skill_id: skill_").append(random.nextInt(20)).append('\n');
+        }
+        yaml.append("  flavor:\n");
+        yaml.append("    - \"&7古い遺跡から見つかった\"\n");
+        yaml.append("    - \"&7").append(id).append("\"\n");
+    }
+}
@@ -0,0 +1,158 @@
+package com.lunar_prototype.deepwither;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatManager.calculateTotalStats (getTotalStatsFromEquipment のキャッシュミス時) の合算部分を、
+ * 配列版 {@link StatMap} と以前の {@link LegacyStatMap} で比べる。
+ * <p>
+ * 装備10個 (メインハンド・防具4・アーティファクト3・バックパック・オフハンド) + スキルツリー + 一時バフを足し込み、
+ * ステ振りボーナスと基礎HP/マナを反映して、最後に参照される値を読む。PDC の読み込みは含まない。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatMapBenchmark {
+
+    private static final int EQUIPMENT = 10;
+    private static final int STATS_PER_ITEM = 5;
+    private static final StatType[] ITEM_STATS = {
+            StatType.ATTACK_DAMAGE, StatType.DEFENSE, StatType.CRIT_CHANCE, StatType.CRIT_DAMAGE,
+            StatType.MAX_HEALTH, StatType.MAGIC_DAMAGE, StatType.MAGIC_RESIST, StatType.ATTACK_SPEED,
+            StatType.MAX_MANA, StatType.COOLDOWN_REDUCTION, StatType.HP_REGEN, StatType.MOVE_SPEED
+    };
+
+    private StatMap[] items;
+    private StatMap passive;
+    private StatMap buff;
+
+    private LegacyStatMap[] legacyItems;
+    private LegacyStatMap legacyPassive;
+    private LegacyStatMap legacyBuff;
+
+    private int[] allocated;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        items = new StatMap[EQUIPMENT];
+        legacyItems = new LegacyStatMap[EQUIPMENT];
+        for (int i = 0; i < EQUIPMENT; i++) {
+            items[i] = new StatMap();
+            legacyItems[i] = new LegacyStatMap();
+            for (int j = 0; j < STATS_PER_ITEM; j++) {
+                StatType type = ITEM_STATS[random.nextInt(ITEM_STATS.length)];
+                double flat = Math.round(random.nextDouble() * 2000) / 100.0;
+                double percent = random.nextInt(4) == 0 ? Math.round(random.nextDouble() * 1000) / 100.0 : 0;
+                items[i].setFlat(type, flat);
+                items[i].setPercent(type, percent);
+                legacyItems[i].setFlat(type, flat);
+                legacyItems[i].setPercent(type, percent);
+            }
+        }
+
+        passive = new StatMap();
+        legacyPassive = new LegacyStatMap();
+        passive.setFlat(StatType.ATTACK_DAMAGE, 5);
+        passive.setPercent(StatType.MAX_HEALTH, 10);
+        legacyPassive.setFlat(StatType.ATTACK_DAMAGE, 5);
+        legacyPassive.setPercent(StatType.MAX_HEALTH, 10);
+
+        buff = new StatMap();
+        legacyBuff = new LegacyStatMap();
+        buff.setPercent(StatType.DEFENSE, 20);
+        legacyBuff.setPercent(StatType.DEFENSE, 20);
+
+        allocated = new int[StatType.values().length];
+        allocated[StatType.STR.ordinal()] = 12;
+        allocated[StatType.VIT.ordinal()] = 8;
+        allocated[StatType.MND.ordinal()] = 3;
+        allocated[StatType.INT.ordinal()] = 5;
+        allocated[StatType.AGI.ordinal()] = 4;
+    }
+
+    @Benchmark
+    public StatMap arrayBacked() {
+        StatMap total = new StatMap();
+        for (StatMap item : items) total.add(item);
+
+        for (StatType type : StatType.values()) {
+            int points = allocated[type.ordinal()];
+            switch (type) {
+                case STR -> total.setPercent(StatType.ATTACK_DAMAGE, total.getPercent(StatType.ATTACK_DAMAGE) + points * 1.0);
+                case VIT -> {
+                    total.setPercent(StatType.MAX_HEALTH, total.getPercent(StatType.MAX_HEALTH) + points * 1.0);
+                    total.setPercent(StatType.DEFENSE, total.getPercent(StatType.DEFENSE) + points * 0.5);
+                }
+                case MND -> {
+                    total.setFlat(StatType.CRIT_DAMAGE, total.getFlat(StatType.CRIT_DAMAGE) + points * 1.5);
+                    total.setPercent(StatType.PROJECTILE_DAMAGE, total.getPercent(StatType.PROJECTILE_DAMAGE) + points * 1.5);
+                }
+                case INT -> {
+                    total.setFlat(StatType.COOLDOWN_REDUCTION, total.getFlat(StatType.COOLDOWN_REDUCTION) + points * 0.1);
+                    total.setPercent(StatType.MAX_MANA, total.getPercent(StatType.MAX_MANA) + points * 2.0);
+                }
+                case AGI -> {
+                    total.setFlat(StatType.CRIT_CHANCE, total.getFlat(StatType.CRIT_CHANCE) + points * 0.2);
+                    total.setFlat(StatType.MOVE_SPEED, total.getFlat(StatType.MOVE_SPEED) + points * 0.0025);
+                }
+            }
+        }
+
+        total.add(passive);
+        total.add(buff);
+        total.setFlat(StatType.MAX_HEALTH, total.getFinal(StatType.MAX_HEALTH) + 20.0 + 2 * 30);
+        total.setFlat(StatType.MAX_MANA, total.getFinal(StatType.MAX_MANA) + 100.0);
+        return total;
+    }
+
+    @Benchmark
+    public LegacyStatMap legacy() {
+        LegacyStatMap total = new LegacyStatMap();
+        for (LegacyStatMap item : legacyItems) total.add(item);
+
+        for (StatType type : StatType.values()) {
+            int points = allocated[type.ordinal()];
+            switch (type) {
+                case STR -> total.setPercent(StatType.ATTACK_DAMAGE, total.getPercent(StatType.ATTACK_DAMAGE) + points * 1.0);
+                case VIT -> {
+                    total.setPercent(StatType.MAX_HEALTH, total.getPercent(StatType.MAX_HEALTH) + points * 1.0);
+                    total.setPercent(StatType.DEFENSE, total.getPercent(StatType.DEFENSE) + points * 0.5);
+                }
+                case MND -> {
+                    total.setFlat(StatType.CRIT_DAMAGE, total.getFlat(StatType.CRIT_DAMAGE) + points * 1.5);
+                    total.setPercent(StatType.PROJECTILE_DAMAGE, total.getPercent(StatType.PROJECTILE_DAMAGE) + points * 1.5);
+                }
+                case INT -> {
+                    total.setFlat(StatType.COOLDOWN_REDUCTION, total.getFlat(StatType.COOLDOWN_REDUCTION) + points * 0.1);
+                    total.setPercent(StatType.MAX_MANA, total.getPercent(StatType.MAX_MANA) + points * 2.0);
+                }
+                case AGI -> {
+                    total.setFlat(StatType.CRIT_CHANCE, total.getFlat(StatType.CRIT_CHANCE) + points * 0.2);
+                    total.setFlat(StatType.MOVE_SPEED, total.getFlat(StatType.MOVE_SPEED) + points * 0.0025);
+                }
+            }
+        }
+
+        total.add(legacyPassive);
+        total.add(legacyBuff);
+        total.setFlat(StatType.MAX_HEALTH, total.getFinal(StatType.MAX_HEALTH) + 20.0 + 2 * 30);
+        total.setFlat(StatType.MAX_MANA, total.getFinal(StatType.MAX_MANA) + 100.0);
+        return total;
+    }
+}
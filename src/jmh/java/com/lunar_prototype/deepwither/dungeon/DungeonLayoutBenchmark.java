@@ -0,0 +1,69 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ダンジョンの配置決め ({@link DungeonLayoutPlanner#plan})。
+ * <p>
+ * Schematic は読まず、通路 (直線・曲がり角)・部屋・入口・行き止まりの形だけを持ったパーツで配置する。
+ * シードは呼び出しごとに変えるので、配置の大きさのばらつきも含めた平均になる。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DungeonLayoutBenchmark {
+
+    @Param({"10", "20", "40"})
+    public int maxDepth;
+
+    private DungeonLayoutPlanner planner;
+    private long seed = 0;
+
+    @Setup
+    public void setup() {
+        Logger logger = Logger.getLogger("DungeonLayoutBenchmark");
+        logger.setLevel(Level.OFF);
+
+        List<DungeonPart> parts = List.of(
+                part("entrance", "ENTRANCE", BlockVector3.at(0, 0, -3), List.of(BlockVector3.at(0, 0, 3)), -3, 3, -3, 3),
+                part("hall_straight", "HALLWAY", BlockVector3.at(0, 0, 0), List.of(BlockVector3.at(0, 0, 10)), -3, 3, 0, 10),
+                part("hall_corner_e", "HALLWAY", BlockVector3.at(0, 0, 0), List.of(BlockVector3.at(3, 0, 3)), -3, 3, 0, 6),
+                part("hall_corner_w", "HALLWAY", BlockVector3.at(0, 0, 0), List.of(BlockVector3.at(-3, 0, 3)), -3, 3, 0, 6),
+                part("room_cross", "ROOM", BlockVector3.at(0, 0, 0),
+                        List.of(BlockVector3.at(0, 0, 16), BlockVector3.at(8, 0, 8), BlockVector3.at(-8, 0, 8)), -8, 8, 0, 16),
+                part("room_t", "ROOM", BlockVector3.at(0, 0, 0),
+                        List.of(BlockVector3.at(10, 0, 6), BlockVector3.at(-10, 0, 6)), -10, 10, 0, 12),
+                part("cap", "CAP", BlockVector3.at(0, 0, 0), List.of(), -3, 3, -1, 0));
+        planner = new DungeonLayoutPlanner(parts, logger);
+    }
+
+    @Benchmark
+    public int plan() {
+        return planner.plan(seed++, maxDepth, 0).size();
+    }
+
+    private static DungeonPart part(String name, String type, BlockVector3 entry, List<BlockVector3> exits,
+                                    int minX, int maxX, int minZ, int maxZ) {
+        return new DungeonPart(name + ".schem", type, 10, entry, exits,
+                BlockVector3.at(minX, -1, minZ), BlockVector3.at(maxX, 5, maxZ));
+    }
+}
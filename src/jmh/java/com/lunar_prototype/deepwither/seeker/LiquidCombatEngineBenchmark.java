@@ -0,0 +1,147 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LiquidCombatEngine#think} を各バージョンで1回呼ぶコスト (推論スレッド1回分、SeekerMetrics の計測と同じ範囲)。
+ * <p>
+ * {@link BanditContext} は SensorProvider#scan が作るものと同じ形で合成する。
+ * 推論は Bukkit API を呼ばないため、サーバー無しでそのまま動く。
+ * 脳は個体ごとに持ち、思考のたびに学習が進む (実際の個体と同じ)。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiquidCombatEngineBenchmark {
+
+    private static final int SAMPLES = 256; // 2の累乗
+    private static final int BRAINS = 16;
+    private static final String[] HOLDINGS = {"DIAMOND_SWORD", "BOW", "CROSSBOW", "NETHERITE_AXE", "SHIELD", "AIR"};
+
+    @Param({"v1", "v2", "v3"})
+    public String version;
+
+    /**
+     * 周囲のプレイヤー数
+     */
+    @Param({"1", "4"})
+    public int enemies;
+
+    private final LiquidCombatEngine engine = new LiquidCombatEngine();
+    private BanditContext[] contexts;
+    private LiquidBrain[] brains;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        UUID[] players = new UUID[enemies];
+        for (int i = 0; i < enemies; i++) players[i] = new UUID(random.nextLong(), random.nextLong());
+
+        contexts = new BanditContext[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) contexts[i] = createContext(random, players);
+
+        brains = new LiquidBrain[BRAINS];
+        for (int i = 0; i < BRAINS; i++) brains[i] = new LiquidBrain(new UUID(random.nextLong(), random.nextLong()));
+    }
+
+    @Benchmark
+    public BanditDecision think() {
+        int i = cursor = (cursor + 1) & (SAMPLES - 1);
+        return engine.think(version, contexts[i], brains[i & (BRAINS - 1)]);
+    }
+
+    private static BanditContext createContext(Random random, UUID[] players) {
+        BanditContext context = new BanditContext();
+
+        BanditContext.EntityState entity = new BanditContext.EntityState();
+        entity.id = UUID.randomUUID().toString();
+        entity.max_hp = 40;
+        entity.hp_pct = 10 + random.nextInt(91);
+        entity.inventory = List.of("IRON_SWORD");
+        entity.stance = "NEUTRAL";
+        context.entity = entity;
+
+        BanditContext.SelfState self = new BanditContext.SelfState();
+        self.x = random.nextDouble() * 64;
+        self.y = 64;
+        self.z = random.nextDouble() * 64;
+        self.vx = random.nextGaussian() * 0.1;
+        self.vz = random.nextGaussian() * 0.1;
+        self.ticksLived = random.nextInt(20 * 600);
+        context.self = self;
+
+        BanditContext.EnvironmentState environment = new BanditContext.EnvironmentState();
+        List<BanditContext.EnemyInfo> nearbyEnemies = new ArrayList<>(players.length);
+        for (UUID player : players) {
+            BanditContext.EnemyInfo enemy = new BanditContext.EnemyInfo();
+            enemy.id = player;
+            enemy.name = "player";
+            enemy.x = self.x + random.nextGaussian() * 8;
+            enemy.y = self.y;
+            enemy.z = self.z + random.nextGaussian() * 8;
+            enemy.dist = Math.sqrt((enemy.x - self.x) * (enemy.x - self.x) + (enemy.z - self.z) * (enemy.z - self.z));
+            enemy.health_ratio = random.nextDouble();
+            enemy.health = enemy.health_ratio < 0.3 ? "low" : enemy.health_ratio < 0.7 ? "mid" : "high";
+            enemy.holding = HOLDINGS[random.nextInt(HOLDINGS.length)];
+            enemy.in_sight = random.nextInt(4) != 0;
+            enemy.vx = random.nextGaussian() * 0.2;
+            enemy.vz = random.nextGaussian() * 0.2;
+            double yaw = random.nextDouble() * Math.PI * 2;
+            enemy.lookX = -Math.sin(yaw);
+            enemy.lookZ = Math.cos(yaw);
+            nearbyEnemies.add(enemy);
+        }
+        environment.nearby_enemies = nearbyEnemies;
+
+        List<BanditContext.AllyInfo> allies = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            BanditContext.AllyInfo ally = new BanditContext.AllyInfo();
+            ally.dist = random.nextDouble() * 12;
+            ally.status = random.nextInt(3) == 0 ? "WOUNDED" : "HEALTHY";
+            allies.add(ally);
+        }
+        environment.nearby_allies = allies;
+
+        if (random.nextBoolean()) {
+            BanditContext.CoverInfo cover = new BanditContext.CoverInfo();
+            cover.dist = random.nextDouble() * 10;
+            cover.safety_score = random.nextDouble();
+            environment.nearest_cover = cover;
+        }
+        context.environment = environment;
+
+        if (!nearbyEnemies.isEmpty()) {
+            BanditContext.EnemyInfo target = nearbyEnemies.get(random.nextInt(nearbyEnemies.size()));
+            self.targetId = target.id;
+            self.target = target;
+        }
+
+        BanditContext.Personality personality = new BanditContext.Personality();
+        personality.bravery = random.nextDouble();
+        personality.aggressiveness = random.nextDouble();
+        context.personality = personality;
+        context.last_action = "OBSERVE";
+        context.nearby_peers = List.of();
+        return context;
+    }
+}
@@ -0,0 +1,115 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LiquidBrain.QTable} の状態の量子化・行動選択・更新。思考1回ごとにそれぞれ1回ずつ呼ばれる。
+ * <p>
+ * 状態は実際の戦闘に近い分布で事前に作り、学習済みに近い表になるよう事前に更新を回しておく。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QTableBenchmark {
+
+    private static final int SAMPLES = 1024; // 2の累乗
+    private static final int ACTIONS = 8;
+
+    private LiquidBrain brain;
+    private LiquidBrain.QTable table;
+
+    private float[] advantage;
+    private float[] distance;
+    private float[] health;
+    private boolean[] recovering;
+    private int[] crowd;
+    private int[] states;
+    private int[] actions;
+    private float[] rewards;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        brain = new LiquidBrain(new UUID(42, 42));
+        table = brain.qTable;
+
+        advantage = new float[SAMPLES];
+        distance = new float[SAMPLES];
+        health = new float[SAMPLES];
+        recovering = new boolean[SAMPLES];
+        crowd = new int[SAMPLES];
+        states = new int[SAMPLES];
+        actions = new int[SAMPLES];
+        rewards = new float[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            advantage[i] = random.nextFloat();
+            distance[i] = random.nextFloat() * 20f;
+            health[i] = random.nextFloat();
+            recovering[i] = random.nextInt(4) == 0;
+            crowd[i] = random.nextInt(5);
+            states[i] = table.packState(advantage[i], distance[i], health[i], recovering[i], crowd[i]);
+            actions[i] = random.nextInt(ACTIONS);
+            rewards[i] = random.nextFloat() * 2f - 1f;
+        }
+        for (int i = 0; i < ACTIONS; i++) {
+            brain.fatigueMap[i] = random.nextFloat() * 0.5f;
+        }
+
+        for (int n = 0; n < 100_000; n++) {
+            int i = n & (SAMPLES - 1);
+            table.update(states[i], actions[i], rewards[i], states[(i + 1) & (SAMPLES - 1)], brain.fatigueMap[actions[i]]);
+        }
+    }
+
+    private int next() {
+        return cursor = (cursor + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public int packState() {
+        int i = next();
+        return table.packState(advantage[i], distance[i], health[i], recovering[i], crowd[i]);
+    }
+
+    @Benchmark
+    public int bestAction() {
+        return table.getBestActionIdx(states[next()], brain.fatigueMap);
+    }
+
+    @Benchmark
+    public void update() {
+        int i = next();
+        table.update(states[i], actions[i], rewards[i], states[(i + 1) & (SAMPLES - 1)], brain.fatigueMap[actions[i]]);
+    }
+
+    /**
+     * 量子化 → 行動選択 → 前回の行動の更新 (思考1回分)
+     */
+    @Benchmark
+    public int decideAndLearn() {
+        int i = next();
+        int state = table.packState(advantage[i], distance[i], health[i], recovering[i], crowd[i]);
+        int action = table.getBestActionIdx(state, brain.fatigueMap);
+        int previous = (i - 1) & (SAMPLES - 1);
+        table.update(states[previous], actions[previous], rewards[previous], state, brain.fatigueMap[actions[previous]]);
+        return action;
+    }
+}
@@ -1,25 +1,71 @@
 package com.lunar_prototype.deepwither;
 
+import com.lunar_prototype.deepwither.util.IManager;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
 
-public class ArtifactManager {
-    private final File dataFile;
-    private Map<UUID, List<ItemStack>> playerArtifacts = new HashMap<>();
+/**
+ * プレイヤーのアーティファクトと背中装備。
+ * <p>
+ * DBの player_artifacts にプレイヤー・スロット単位で保存する (背中装備はスロット -1)。
+ * ロードは {@link PlayerSessionLoader} がログイン前に {@link #fetch(UUID)} で読み、参加時に {@link #hydrate} で展開する。
+ * 変更された時にそのプレイヤーの分だけを書き込むため、保存・起動の時間はプレイヤー総数に依存しない。
+ * <p>
+ * 旧形式の artifacts.dat (全員分を1ファイルにシリアライズしたもの) があれば、起動時にDBへ移行する。
+ * 移行はDBにまだ行の無いプレイヤーへの挿入だけで、DBにある行を旧ファイルの内容で置き換えることはない。
+ */
+public class ArtifactManager implements IManager {
+
+    private static final int BACKPACK_SLOT = -1;
+
+    private final Deepwither plugin;
+    private final DatabaseManager db;
+    private final File legacyFile;
+    private final Map<UUID, List<ItemStack>> playerArtifacts = new HashMap<>();
     // ★ 背中装備保存用のマップを追加
-    private Map<UUID, ItemStack> playerBackpacks = new HashMap<>();
+    private final Map<UUID, ItemStack> playerBackpacks = new HashMap<>();
+
+    /**
+     * DBから読んだ1人分のデータ
+     */
+    public record ArtifactData(List<ItemStack> artifacts, ItemStack backpack) {}
 
-    public ArtifactManager(Deepwither plugin) {
-        this.dataFile = new File(plugin.getDataFolder(), "artifacts.dat");
-        loadData();
+    public ArtifactManager(Deepwither plugin, DatabaseManager db) {
+        this.plugin = plugin;
+        this.db = db;
+        this.legacyFile = new File(plugin.getDataFolder(), "artifacts.dat");
+    }
+
+    @Override
+    public void init() {
+        migrateLegacyFile();
+
+        // リロード時などで既に参加しているプレイヤーはここで読み込む
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            try {
+                hydrate(player.getUniqueId(), fetch(player.getUniqueId()));
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "アーティファクトの読み込みに失敗しました: " + player.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        // 変更の度に書き込み済みなので、ここで保存する必要はない
+        playerArtifacts.clear();
+        playerBackpacks.clear();
     }
 
     public List<ItemStack> getPlayerArtifacts(Player player) {
@@ -39,26 +85,117 @@ public class ArtifactManager {
         } else {
             playerBackpacks.remove(player.getUniqueId());
         }
+        save(player.getUniqueId());
+        Deepwither.getInstance().getStatManager().invalidateStatCache(player.getUniqueId());
+    }
+
+    // ----------------------------------------------------
+    // --- 永続化 ---
+    // ----------------------------------------------------
+
+    /**
+     * DBから1人分を読み込みます。マップには触らないので、非同期スレッドから呼べます。
+     */
+    public ArtifactData fetch(UUID uuid) throws SQLException {
+        return db.query("SELECT slot, item FROM player_artifacts WHERE uuid = ? ORDER BY slot",
+                ps -> ps.setString(1, uuid.toString()),
+                rs -> {
+                    List<ItemStack> artifacts = new ArrayList<>();
+                    ItemStack backpack = null;
+                    while (rs.next()) {
+                        ItemStack item = decode(uuid, rs.getBytes("item"));
+                        if (item == null) continue;
+                        if (rs.getInt("slot") == BACKPACK_SLOT) {
+                            backpack = item;
+                        } else {
+                            artifacts.add(item);
+                        }
+                    }
+                    return new ArtifactData(artifacts, backpack);
+                });
+    }
+
+    /**
+     * 読み込み済みのデータをメモリに展開します（メインスレッド専用）。
+     */
+    public void hydrate(UUID uuid, ArtifactData data) {
+        playerArtifacts.put(uuid, data != null ? new ArrayList<>(data.artifacts()) : new ArrayList<>());
+        if (data != null && data.backpack() != null) {
+            playerBackpacks.put(uuid, data.backpack());
+        } else {
+            playerBackpacks.remove(uuid);
+        }
+    }
+
+    /**
+     * 退出時にメモリから外す。保存は変更時に済んでいる
+     */
+    public void unload(UUID uuid) {
+        playerArtifacts.remove(uuid);
+        playerBackpacks.remove(uuid);
+    }
+
+    /**
+     * メモリ上の1人分をDBに書き込む（メインスレッドでシリアライズし、書き込みはDBスレッドで行う）
+     */
+    public void save(UUID uuid) {
+        List<DatabaseManager.StatementBinder> rows = new ArrayList<>();
+        List<ItemStack> artifacts = playerArtifacts.get(uuid);
+        if (artifacts != null) {
+            int slot = 0;
+            for (ItemStack item : artifacts) {
+                if (item == null || item.getType().isAir()) continue;
+                rows.add(row(uuid, slot++, item.serializeAsBytes()));
+            }
+        }
+        ItemStack backpack = playerBackpacks.get(uuid);
+        if (backpack != null && !backpack.getType().isAir()) {
+            rows.add(row(uuid, BACKPACK_SLOT, backpack.serializeAsBytes()));
+        }
+        write(uuid, rows);
+    }
+
+    private void write(UUID uuid, List<DatabaseManager.StatementBinder> rows) {
+        // 削除と挿入は1つの書き込みにまとめる。挿入が失敗した場合は削除ごと取り消され、元の行が残る
+        db.coalesceWrites(uuid, () -> {
+            db.write("DELETE FROM player_artifacts WHERE uuid = ?", ps -> ps.setString(1, uuid.toString()));
+            if (!rows.isEmpty()) {
+                db.writeBatch("INSERT INTO player_artifacts (uuid, slot, item) VALUES (?, ?, ?)", rows);
+            }
+        }).exceptionally(ex -> {
+            plugin.getLogger().log(Level.SEVERE, "アーティファクトの保存に失敗しました: " + uuid, ex);
+            return null;
+        });
     }
 
-    // --- 永続化のロジック (互換性維持) ---
-
-    public void saveData() {
-        try (BukkitObjectOutputStream oos = new BukkitObjectOutputStream(new FileOutputStream(dataFile))) {
-            // アーティファクトとバックパックを一つのMapにまとめて保存
-            Map<String, Object> allData = new HashMap<>();
-            allData.put("artifacts", playerArtifacts);
-            allData.put("backpacks", playerBackpacks);
-            oos.writeObject(allData);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static DatabaseManager.StatementBinder row(UUID uuid, int slot, byte[] item) {
+        return ps -> {
+            ps.setString(1, uuid.toString());
+            ps.setInt(2, slot);
+            ps.setBytes(3, item);
+        };
+    }
+
+    private ItemStack decode(UUID uuid, byte[] bytes) {
+        try {
+            return ItemStack.deserializeBytes(bytes);
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "アーティファクトのアイテムを復元できませんでした: " + uuid, e);
+            return null;
         }
     }
 
-    public void loadData() {
-        if (!dataFile.exists()) return;
+    // ----------------------------------------------------
+    // --- 旧形式 (artifacts.dat) からの移行 ---
+    // ----------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private void migrateLegacyFile() {
+        if (!legacyFile.exists()) return;
 
-        try (BukkitObjectInputStream ois = new BukkitObjectInputStream(new FileInputStream(dataFile))) {
+        Map<UUID, List<ItemStack>> legacyArtifacts = Map.of();
+        Map<UUID, ItemStack> legacyBackpacks = Map.of();
+        try (BukkitObjectInputStream ois = new BukkitObjectInputStream(new FileInputStream(legacyFile))) {
             Object obj = ois.readObject();
 
             if (obj instanceof Map) {
@@ -66,16 +203,80 @@ public class ArtifactManager {
 
                 // 新しい形式 (Mapの中に "artifacts" キーがある場合)
                 if (rawMap.containsKey("artifacts")) {
-                    this.playerArtifacts = (Map<UUID, List<ItemStack>>) rawMap.get("artifacts");
-                    this.playerBackpacks = (Map<UUID, ItemStack>) rawMap.get("backpacks");
+                    legacyArtifacts = (Map<UUID, List<ItemStack>>) rawMap.get("artifacts");
+                    if (rawMap.get("backpacks") != null) {
+                        legacyBackpacks = (Map<UUID, ItemStack>) rawMap.get("backpacks");
+                    }
                 }
                 // 旧形式 (Map自体が playerArtifacts だった場合)
                 else {
-                    this.playerArtifacts = (Map<UUID, List<ItemStack>>) rawMap;
+                    legacyArtifacts = (Map<UUID, List<ItemStack>>) rawMap;
                 }
             }
         } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+            // 読めなかったファイルはそのまま残し、次回の起動で再度試す
+            plugin.getLogger().log(Level.SEVERE, "artifacts.dat の移行に失敗しました。", e);
+            return;
+        }
+
+        // 既にDBに行があるプレイヤーは、移行済みか移行後に変更されているので旧ファイルの内容で上書きしない
+        Set<String> stored;
+        try {
+            stored = db.query("SELECT DISTINCT uuid FROM player_artifacts", ps -> {}, rs -> {
+                Set<String> uuids = new HashSet<>();
+                while (rs.next()) uuids.add(rs.getString("uuid"));
+                return uuids;
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.SEVERE, "artifacts.dat の移行に失敗しました。", e);
+            return;
+        }
+
+        Set<UUID> players = new HashSet<>(legacyArtifacts.keySet());
+        players.addAll(legacyBackpacks.keySet());
+        players.removeIf(uuid -> stored.contains(uuid.toString()));
+
+        // 1人ずつ別の書き込みにし、1人分が失敗しても他のプレイヤーの移行は反映させる
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        int failed = 0;
+        for (UUID uuid : players) {
+            List<DatabaseManager.StatementBinder> rows = new ArrayList<>();
+            try {
+                int slot = 0;
+                for (ItemStack item : legacyArtifacts.getOrDefault(uuid, List.of())) {
+                    if (item == null || item.getType().isAir()) continue;
+                    rows.add(row(uuid, slot++, item.serializeAsBytes()));
+                }
+                ItemStack backpack = legacyBackpacks.get(uuid);
+                if (backpack != null && !backpack.getType().isAir()) {
+                    rows.add(row(uuid, BACKPACK_SLOT, backpack.serializeAsBytes()));
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "artifacts.dat のアイテムを変換できませんでした: " + uuid, e);
+                failed++;
+                continue;
+            }
+            if (rows.isEmpty()) continue;
+            writes.add(db.writeBatch(uuid, "INSERT INTO player_artifacts (uuid, slot, item) VALUES (?, ?, ?)", rows));
+        }
+
+        // 移行分がコミットされてからファイルを退避する。失敗した人がいれば残し、次回の起動でその人だけ再度試す
+        for (CompletableFuture<Void> write : writes) {
+            try {
+                write.join();
+            } catch (CompletionException e) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            plugin.getLogger().warning("artifacts.dat の移行で " + failed + " 人分が失敗しました。次回の起動で再度試します。");
+            return;
+        }
+
+        File migrated = new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated");
+        if (!legacyFile.renameTo(migrated)) {
+            plugin.getLogger().warning("artifacts.dat の退避に失敗しました。手動で削除してください。");
         }
+        plugin.getLogger().info("artifacts.dat から " + writes.size() + " 人分のアーティファクトをDBへ移行しました。");
     }
-}
\ No newline at end of file
+}
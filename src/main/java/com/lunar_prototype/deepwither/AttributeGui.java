@@ -105,6 +105,7 @@ public class AttributeGui implements Listener {
         }
 
         data.addPoint(type);
+        Deepwither.getInstance().getStatManager().invalidateStatCache(player.getUniqueId());
         player.sendMessage("§a" + type.getDisplayName() + " に 1ポイント割り振りました！");
         player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 1.0f, 1.2f);
         AttributeGui.open(player); // 更新
@@ -2,7 +2,7 @@ package com.lunar_prototype.deepwither;
 
 import com.lunar_prototype.deepwither.util.IManager;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,32 +25,53 @@ public class AttributeManager implements IManager {
     }
 
     public void load(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement("SELECT * FROM player_attributes WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                int total = rs.getInt("total_points");
-                EnumMap<StatType, Integer> map = new EnumMap<>(StatType.class);
-                map.put(StatType.STR, rs.getInt("str"));
-                map.put(StatType.VIT, rs.getInt("vit"));
-                map.put(StatType.MND, rs.getInt("mnd"));
-                map.put(StatType.INT, rs.getInt("int"));
-                map.put(StatType.AGI, rs.getInt("agi"));
-
-                dataMap.put(uuid, new PlayerAttributeData(total, map));
-            } else {
-                dataMap.put(uuid, new PlayerAttributeData(0)); // 初期値
-            }
+        try {
+            hydrate(uuid, fetch(uuid));
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * DBから属性データを読み込みます。マップには触らないので、非同期スレッドから呼べます。
+     */
+    public PlayerAttributeData fetch(UUID uuid) throws SQLException {
+        return db.query("SELECT * FROM player_attributes WHERE uuid = ?",
+                ps -> ps.setString(1, uuid.toString()),
+                rs -> {
+                    if (!rs.next()) return new PlayerAttributeData(0); // 初期値
+
+                    int total = rs.getInt("total_points");
+                    EnumMap<StatType, Integer> map = new EnumMap<>(StatType.class);
+                    map.put(StatType.STR, rs.getInt("str"));
+                    map.put(StatType.VIT, rs.getInt("vit"));
+                    map.put(StatType.MND, rs.getInt("mnd"));
+                    map.put(StatType.INT, rs.getInt("int"));
+                    map.put(StatType.AGI, rs.getInt("agi"));
+                    return new PlayerAttributeData(total, map);
+                });
+    }
+
+    /**
+     * 読み込み済みのデータをメモリに展開します（メインスレッド専用）。
+     */
+    public void hydrate(UUID uuid, PlayerAttributeData data) {
+        dataMap.put(uuid, data);
+    }
+
     public void save(UUID uuid) {
         PlayerAttributeData data = dataMap.get(uuid);
         if (data == null) return;
 
-        try (PreparedStatement ps = db.getConnection().prepareStatement("""
+        // 値はここで確定させ、書き込み自体はDBスレッドに任せる
+        int remaining = data.getRemainingPoints();
+        int str = data.getAllocated(StatType.STR);
+        int vit = data.getAllocated(StatType.VIT);
+        int mnd = data.getAllocated(StatType.MND);
+        int intelligence = data.getAllocated(StatType.INT);
+        int agi = data.getAllocated(StatType.AGI);
+
+        db.write(uuid, """
             INSERT INTO player_attributes (
                 uuid, total_points, str, vit, mnd, int, agi
             ) VALUES (?, ?, ?, ?, ?, ?, ?)
@@ -61,18 +82,15 @@ public class AttributeManager implements IManager {
                 mnd = excluded.mnd,
                 int = excluded.int,
                 agi = excluded.agi
-        """)) {
+        """, ps -> {
             ps.setString(1, uuid.toString());
-            ps.setInt(2, data.getRemainingPoints());
-            ps.setInt(3, data.getAllocated(StatType.STR));
-            ps.setInt(4, data.getAllocated(StatType.VIT));
-            ps.setInt(5, data.getAllocated(StatType.MND));
-            ps.setInt(6, data.getAllocated(StatType.INT));
-            ps.setInt(7, data.getAllocated(StatType.AGI));
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            ps.setInt(2, remaining);
+            ps.setInt(3, str);
+            ps.setInt(4, vit);
+            ps.setInt(5, mnd);
+            ps.setInt(6, intelligence);
+            ps.setInt(7, agi);
+        });
     }
 
     public PlayerAttributeData get(UUID uuid) {
@@ -92,6 +110,7 @@ public class AttributeManager implements IManager {
         if (current >= getMaxAllocatable(uuid, type)) return;
 
         data.addPoint(type);
+        Deepwither.getInstance().getStatManager().invalidateStatCache(uuid);
     }
 
     public void givePoints(UUID uuid, int amount) {
@@ -97,7 +97,7 @@ public class CustomDamageMechanics implements ITargetedEntitySkill {
         // 3. 防御側（Target）の計算
         if (bukkitTarget instanceof Player playerTarget) {
             StatMap defenderStats = StatManager.getTotalStatsFromEquipment(playerTarget);
-            finalDamage = damageManager.applyDefense(baseDamage,
+            finalDamage = DamageManager.applyDefense(baseDamage,
                     isMagic ? defenderStats.getFinal(StatType.MAGIC_RESIST) : defenderStats.getFinal(StatType.DEFENSE),
                     isMagic ? 100.0 : 500.0); // MAGIC_DEFENSE_DIVISOR vs HEAVY_DEFENSE_DIVISOR
 
@@ -115,7 +115,7 @@ public class CustomDamageMechanics implements ITargetedEntitySkill {
         } else {
             // モブがターゲットの場合
             StatMap defenderStats = damageManager.getDefenderStats(bukkitTarget);
-            finalDamage = damageManager.applyDefense(baseDamage,
+            finalDamage = DamageManager.applyDefense(baseDamage,
                     isMagic ? defenderStats.getFinal(StatType.MAGIC_RESIST) : defenderStats.getFinal(StatType.DEFENSE),
                     isMagic ? 100.0 : 100.0);
         }
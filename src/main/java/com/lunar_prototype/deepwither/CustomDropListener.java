@@ -13,7 +13,6 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.inventory.ItemStack;
 
-import java.io.File;
 
 public class CustomDropListener implements Listener {
 
@@ -39,9 +38,8 @@ public class CustomDropListener implements Listener {
                         return null; // IDがなければ何もドロップしない
                     }
 
-                    File itemFolder = new File(plugin.getDataFolder(), "items");
-                    // ItemLoaderを使ってアイテムを動的に生成
-                    ItemStack customItem = ItemLoader.loadSingleItem(itemId, new ItemFactory(Deepwither.getInstance()), itemFolder);
+                    // 定義からアイテムを動的に生成
+                    ItemStack customItem = Deepwither.getInstance().getItemFactory().getCustomItemStack(itemId);
 
                     if (customItem != null) {
                         // MythicMobsが認識できる形式で返す
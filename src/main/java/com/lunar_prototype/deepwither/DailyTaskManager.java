@@ -57,16 +57,23 @@ public class DailyTaskManager {
     public void loadPlayer(Player player) {
         UUID playerId = player.getUniqueId();
         if (playerTaskData.containsKey(playerId)) return;
-        dataStore.loadTaskData(playerId).thenAccept(loadedData -> {
-            DailyTaskData data = (loadedData != null) ? loadedData : new DailyTaskData(playerId);
-            playerTaskData.put(playerId, data);
-            data.checkAndReset();
-        }).exceptionally(ex -> {
+        dataStore.loadTaskData(playerId).thenAccept(loadedData -> hydrate(playerId, loadedData)).exceptionally(ex -> {
             plugin.getLogger().severe("Error loading daily task data: " + ex.getMessage());
             return null;
         });
     }
 
+    public DailyTaskData fetchPlayer(UUID playerId) {
+        return dataStore.fetchTaskData(playerId);
+    }
+
+    // ログイン時の一括ロードで読み込んだデータを展開する
+    public void hydrate(UUID playerId, DailyTaskData loadedData) {
+        DailyTaskData data = (loadedData != null) ? loadedData : new DailyTaskData(playerId);
+        playerTaskData.put(playerId, data);
+        data.checkAndReset();
+    }
+
     public void saveAndUnloadPlayer(UUID playerId) {
         DailyTaskData data = playerTaskData.remove(playerId);
         if (data != null) {
@@ -9,13 +9,16 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityRegainHealthEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import com.lunar_prototype.deepwither.PlayerSettingsManager;
+import com.lunar_prototype.deepwither.util.ExpiringTimerMap;
 import org.bukkit.projectiles.ProjectileSource;
 import org.bukkit.util.Vector;
 
@@ -27,7 +30,8 @@ public class DamageManager implements Listener {
 
     private final Set<UUID> isProcessingDamage = new HashSet<>();
     private final StatManager statManager;
-    private final Map<UUID, Long> onHitCooldowns = new HashMap<>();
+    // On-Hitスキルの最終発動時刻 (Key: Attacker UUID)。クールダウンが明けたら消える
+    private final ExpiringTimerMap onHitCooldowns = new ExpiringTimerMap();
 
     // 定数定義
     private static final Set<String> UNDEAD_MOB_IDS = Set.of("melee_skeleton", "ranged_skeleton","melee_zombi");
@@ -36,12 +40,23 @@ public class DamageManager implements Listener {
     private static final double HEAVY_DEFENSE_DIVISOR = 500.0; // 高耐久用
 
     // ★ I-Frame/無敵時間 関連
-    private final Map<UUID, Long> iFrameEndTimes = new HashMap<>();
+    private final ExpiringTimerMap iFrameEndTimes = new ExpiringTimerMap();
     private static final long DAMAGE_I_FRAME_MS = 300; // 0.3秒 = 300ミリ秒
 
     // ★ 攻撃クールダウン減衰無視 関連
     private static final long COOLDOWN_IGNORE_MS = 300; // 0.3秒 = 300ミリ秒
-    private final Map<UUID, Long> lastSpecialAttackTime = new HashMap<>(); // Key: Attacker UUID
+    private final ExpiringTimerMap lastSpecialAttackTime = new ExpiringTimerMap(); // Key: Attacker UUID
+
+    // ★ 魔法の多段ヒット減衰 関連
+    private static final long MULTI_HIT_WINDOW_MS = 1000;
+    private static final double MULTI_HIT_DECAY = 0.85;
+    private static final double MULTI_HIT_MIN_MULTIPLIER = 0.5;
+
+    // 遠距離攻撃の距離補正
+    private static final double MIN_DISTANCE = 10.0;
+    private static final double MAX_BOOST_DISTANCE = 40.0;
+    private static final double MAX_MULTIPLIER = 1.2;
+    private static final double MIN_MULTIPLIER = 0.6;
 
     // 盾のクールダウン (ms) - 連続ブロック防止用など
     private final PlayerSettingsManager settingsManager; // ★追加
@@ -49,19 +64,13 @@ public class DamageManager implements Listener {
     public DamageManager(StatManager statManager, PlayerSettingsManager settingsManager) {
         this.statManager = statManager;
         this.settingsManager = settingsManager; // ★追加
+        // 期限切れの戦闘タイマーを1秒ごとに掃除する
+        Bukkit.getScheduler().runTaskTimer(Deepwither.getInstance(), this::sweepCombatState, 20L, 20L);
     }
 
-    private final Map<UUID, Map<UUID, MagicHitInfo>> magicHitMap = new HashMap<>();
-
-    private static class MagicHitInfo {
-        int hitCount;
-        long lastHitTime;
-
-        MagicHitInfo(int hitCount, long lastHitTime) {
-            this.hitCount = hitCount;
-            this.lastHitTime = lastHitTime;
-        }
-    }
+    // Attacker -> (Target -> 連続ヒット数)。最後のヒットから MULTI_HIT_WINDOW_MS で消える
+    private final Map<UUID, ExpiringTimerMap> magicHitMap = new HashMap<>();
+    private long expiredMultiHits = 0;
 
     public void sendLog(Player player, PlayerSettingsManager.SettingType type, String message) {
         if (settingsManager.isEnabled(player, type)) {
@@ -154,11 +163,11 @@ public class DamageManager implements Listener {
         boolean ignoreAttackCooldown = false;
 
         if (!isProjectile) {
-            long lastAttack = lastSpecialAttackTime.getOrDefault(attacker.getUniqueId(), 0L);
+            long lastAttack = lastSpecialAttackTime.get(attacker.getUniqueId(), currentTime, 0L);
             if (currentTime < lastAttack + COOLDOWN_IGNORE_MS) {
                 ignoreAttackCooldown = true;
             }
-            lastSpecialAttackTime.put(attacker.getUniqueId(), currentTime);
+            lastSpecialAttackTime.put(attacker.getUniqueId(), currentTime, currentTime + COOLDOWN_IGNORE_MS);
         }
 
         if (!isProjectile) {
@@ -346,7 +355,7 @@ public class DamageManager implements Listener {
         return new StatMap();
     }
 
-    public double applyDefense(double damage, double defense, double divisor) {
+    public static double applyDefense(double damage, double defense, double divisor) {
         double reduction = defense / (defense + divisor);
         return damage * (1.0 - reduction);
     }
@@ -471,7 +480,8 @@ public class DamageManager implements Listener {
 
     public void finalizeDamage(LivingEntity target, double damage, LivingEntity source, boolean isMagic) {
         // 無敵時間の付与 (即座に設定して後続のバニライベントを弾く)
-        iFrameEndTimes.put(target.getUniqueId(), System.currentTimeMillis() + DAMAGE_I_FRAME_MS);
+        long iFrameEnd = System.currentTimeMillis() + DAMAGE_I_FRAME_MS;
+        iFrameEndTimes.put(target.getUniqueId(), iFrameEnd, iFrameEnd);
 
         if (target instanceof Player player) {
             // プレイヤーへの適用
@@ -496,7 +506,8 @@ public class DamageManager implements Listener {
     }
 
     public boolean isInvulnerable(LivingEntity entity) {
-        return System.currentTimeMillis() < iFrameEndTimes.getOrDefault(entity.getUniqueId(), 0L);
+        long now = System.currentTimeMillis();
+        return now < iFrameEndTimes.get(entity.getUniqueId(), now, 0L);
     }
 
     public void applyCustomDamage(LivingEntity target, double damage, Player damager) {
@@ -528,26 +539,21 @@ public class DamageManager implements Listener {
         UUID targetId = target.getUniqueId();
         long now = System.currentTimeMillis();
 
-        magicHitMap.putIfAbsent(attackerId, new HashMap<>());
-        Map<UUID, MagicHitInfo> targetMap = magicHitMap.get(attackerId);
+        ExpiringTimerMap targetMap = magicHitMap.computeIfAbsent(attackerId, k -> new ExpiringTimerMap());
 
-        MagicHitInfo info = targetMap.get(targetId);
+        // 前回のヒットから MULTI_HIT_WINDOW_MS 以内なら連続ヒットとして数える (期限切れなら 0)
+        long hitCount = targetMap.get(targetId, now, 0L) + 1;
+        targetMap.put(targetId, hitCount, now + MULTI_HIT_WINDOW_MS);
 
-        if (info != null && now - info.lastHitTime <= 1000) {
-            info.hitCount++;
-            info.lastHitTime = now;
-        } else {
-            info = new MagicHitInfo(1, now);
-            targetMap.put(targetId, info);
-        }
-
-        if (info.hitCount >= 2) {
-            double multiplier = Math.pow(0.85, info.hitCount - 1);
-            multiplier = Math.max(multiplier, 0.5);
-            return damage * multiplier;
-        }
+        return damage * multiHitMultiplier(hitCount);
+    }
 
-        return damage;
+    /**
+     * 連続ヒット数に応じた魔法ダメージの倍率 (2ヒット目から 0.85 倍ずつ減り、0.5 倍で止まる)
+     */
+    public static double multiHitMultiplier(long hitCount) {
+        if (hitCount < 2) return 1.0;
+        return Math.max(Math.pow(MULTI_HIT_DECAY, hitCount - 1), MULTI_HIT_MIN_MULTIPLIER);
     }
 
 
@@ -580,13 +586,13 @@ public class DamageManager implements Listener {
 
 
     public double calculateDistanceMultiplier(Player player, LivingEntity targetLiving) {
-        double distance = targetLiving.getLocation().distance(player.getLocation());
-
-        final double MIN_DISTANCE = 10.0;
-        final double MAX_BOOST_DISTANCE = 40.0;
-        final double MAX_MULTIPLIER = 1.2;
-        final double MIN_MULTIPLIER = 0.6;
+        return distanceMultiplier(targetLiving.getLocation().distance(player.getLocation()));
+    }
 
+    /**
+     * 遠距離攻撃の距離補正。10ブロックまでは 0.6 → 1.0 倍、40ブロックで 1.2 倍まで上がる
+     */
+    public static double distanceMultiplier(double distance) {
         double distanceMultiplier;
 
         if (distance <= MIN_DISTANCE) {
@@ -613,6 +619,10 @@ public class DamageManager implements Listener {
         }
 
         ItemMeta meta = item.getItemMeta();
+        ItemFingerprint fingerprint = ItemFingerprint.read(meta.getPersistentDataContainer());
+        if (fingerprint != null) return fingerprint.isSpear();
+
+        // 要約の無い古いアイテムは Lore から判定
         if (meta.hasLore()) {
             List<String> lore = meta.getLore();
             for (String line : lore) {
@@ -630,6 +640,10 @@ public class DamageManager implements Listener {
         }
 
         ItemMeta meta = item.getItemMeta();
+        ItemFingerprint fingerprint = ItemFingerprint.read(meta.getPersistentDataContainer());
+        if (fingerprint != null) return fingerprint.isSword();
+
+        // 要約の無い古いアイテムは Lore から判定
         if (meta.hasLore()) {
             List<String> lore = meta.getLore();
             for (String line : lore) {
@@ -684,8 +698,8 @@ public class DamageManager implements Listener {
 
         if (chance == null || skillId == null) return;
 
-        long lastTrigger = onHitCooldowns.getOrDefault(attacker.getUniqueId(), 0L);
         long currentTime = System.currentTimeMillis();
+        long lastTrigger = onHitCooldowns.get(attacker.getUniqueId(), currentTime, 0L);
         long cooldownMillis = (cooldown != null) ? cooldown * 1000L : 0L;
 
         if (currentTime < lastTrigger + cooldownMillis) {
@@ -696,7 +710,7 @@ public class DamageManager implements Listener {
 
         if (roll <= chance) {
             MythicBukkit.inst().getAPIHelper().castSkill(attacker.getPlayer(),skillId);
-            onHitCooldowns.put(attacker.getUniqueId(), currentTime);
+            onHitCooldowns.put(attacker.getUniqueId(), currentTime, currentTime + cooldownMillis);
             sendLog(attacker, PlayerSettingsManager.SettingType.SHOW_SPECIAL_LOG, "§a[On-Hit] スキル「§b" + skillId + "§a」を発動！");;
         }
     }
@@ -710,13 +724,84 @@ public class DamageManager implements Listener {
         }
     }
 
+    // ----------------------------------------------------
+    // --- 戦闘タイマーの掃除 ---
+    // ----------------------------------------------------
+
+    private void sweepCombatState() {
+        long now = System.currentTimeMillis();
+        iFrameEndTimes.sweep(now);
+        lastSpecialAttackTime.sweep(now);
+        onHitCooldowns.sweep(now);
+        Iterator<ExpiringTimerMap> it = magicHitMap.values().iterator();
+        while (it.hasNext()) {
+            ExpiringTimerMap targetMap = it.next();
+            expiredMultiHits += targetMap.sweep(now);
+            if (targetMap.isEmpty()) it.remove();
+        }
+    }
+
+    private void forgetCombatState(UUID id) {
+        iFrameEndTimes.remove(id);
+        lastSpecialAttackTime.remove(id);
+        onHitCooldowns.remove(id);
+        magicHitMap.remove(id);
+        for (ExpiringTimerMap targetMap : magicHitMap.values()) targetMap.remove(id);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent e) {
+        // 死亡した個体のタイマーは期限を待たずに消す (プレイヤーもリスポーン後に引き継ぐ必要はない)
+        forgetCombatState(e.getEntity().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        forgetCombatState(e.getPlayer().getUniqueId());
+    }
+
     /**
-     * アイテムのロアから武器カテゴリに応じたStatTypeを返します
+     * 保持している戦闘タイマーの件数 (/dw combat 用)
+     */
+    public int getIFrameEntryCount() {
+        return iFrameEndTimes.size();
+    }
+
+    public int getSpecialAttackEntryCount() {
+        return lastSpecialAttackTime.size();
+    }
+
+    public int getOnHitCooldownEntryCount() {
+        return onHitCooldowns.size();
+    }
+
+    public int getMultiHitEntryCount() {
+        int total = 0;
+        for (ExpiringTimerMap targetMap : magicHitMap.values()) total += targetMap.size();
+        return total;
+    }
+
+    public int getMultiHitAttackerCount() {
+        return magicHitMap.size();
+    }
+
+    public long getExpiredEntryCount() {
+        return iFrameEndTimes.getExpiredCount() + lastSpecialAttackTime.getExpiredCount()
+                + onHitCooldowns.getExpiredCount() + expiredMultiHits;
+    }
+
+    /**
+     * 武器カテゴリに応じたStatTypeを返します (要約が無いアイテムはロアから判定)
      */
     public StatType getWeaponStatType(ItemStack item) {
-        if (item == null || !item.hasItemMeta() || !item.getItemMeta().hasLore()) return null;
+        if (item == null || !item.hasItemMeta()) return null;
+
+        ItemMeta meta = item.getItemMeta();
+        ItemFingerprint fingerprint = ItemFingerprint.read(meta.getPersistentDataContainer());
+        if (fingerprint != null) return fingerprint.getWeaponStatType();
+        if (!meta.hasLore()) return null;
 
-        List<String> lore = item.getItemMeta().getLore();
+        List<String> lore = meta.getLore();
         for (String line : lore) {
             if (!line.contains("§7カテゴリ:§f")) continue;
 
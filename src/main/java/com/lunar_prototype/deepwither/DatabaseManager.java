@@ -9,25 +9,146 @@ import java.io.File;
 import java.lang.reflect.Type;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * SQLite への永続化レイヤー。
+ * <p>
+ * 書き込みは専用スレッドが1本のコネクションでキューを順に処理し、溜まった分を1トランザクションにまとめてコミットする。
+ * 読み込みは WAL モードの読み取り専用コネクションをプールから借りて行うため、書き込み中でもブロックされない。
+ * 読み込みは書き込みキューを待たない。キー (プレイヤーのUUIDなど) を付けて積んだ書き込みは、
+ * {@link #awaitWritesFor(Object)} でそのキーの分だけ反映を待てる (保存直後のロードで古い値を読まないため)。
+ * PreparedStatement はコネクションごとにSQL文字列をキーにしてキャッシュする。
+ * <p>
+ * {@link #coalesceWrites(Runnable)} / {@link #readBatch(ReadTask)} を使うと、
+ * ログアウト時の保存やログイン時のロードのように複数テーブルにまたがる処理を1回分の書き込み・読み込みにまとめられる。
+ */
 public class DatabaseManager {
-    private final Connection connection;
+
+    // 読み込み用コネクション数（同時にロードできるスレッド数）
+    private static final int READ_POOL_SIZE = 4;
+    // 1トランザクションにまとめる書き込みの上限
+    private static final int MAX_WRITE_BATCH = 256;
+
+    private final Logger logger;
+    private final Connection writeConnection;
+    private final Map<String, PreparedStatement> writeStatements = new HashMap<>();
+    private final BlockingQueue<PooledConnection> readPool = new ArrayBlockingQueue<>(READ_POOL_SIZE);
+    private final List<PooledConnection> allReadConnections = new ArrayList<>();
+
+    private final BlockingQueue<WriteOperation> writeQueue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final Object commitLock = new Object();
+    private long enqueuedSeq = 0; // commitLock で保護
+    private volatile long committedSeq = 0;
+    private volatile boolean running = true;
+    // キー -> そのキーで最後に積まれた書き込みの番号 (コミットされたら消す)
+    private final Map<Object, Long> pendingKeys = new ConcurrentHashMap<>();
+
+    // coalesceWrites 実行中のスレッドで積まれた書き込み
+    private final ThreadLocal<CoalescedWrite> coalescing = new ThreadLocal<>();
+    // readBatch 実行中のスレッドが借りているコネクション
+    private final ThreadLocal<PooledConnection> pinnedRead = new ThreadLocal<>();
+
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateAdapter()) // これを追加
             .create();
 
+    /**
+     * PreparedStatement に値をバインドする処理
+     */
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * ResultSet から結果を組み立てる処理
+     */
+    @FunctionalInterface
+    public interface ResultMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 複数のクエリを1本のコネクションでまとめて実行する処理
+     */
+    @FunctionalInterface
+    public interface ReadTask<T> {
+        T run() throws SQLException;
+    }
+
+    private record QueuedStatement(String sql, List<StatementBinder> binders) {}
+
+    private record WriteOperation(long seq, List<QueuedStatement> statements, Collection<Object> keys, CompletableFuture<Void> future) {}
+
+    private record CoalescedWrite(List<QueuedStatement> statements, Set<Object> keys, CompletableFuture<Void> future) {}
+
+    /**
+     * 読み込み用コネクションと、そのコネクション専用の PreparedStatement キャッシュ
+     */
+    private static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement ps = statements.get(sql);
+            if (ps == null) {
+                ps = connection.prepareStatement(sql);
+                statements.put(sql, ps);
+            }
+            return ps;
+        }
+    }
+
     public DatabaseManager(JavaPlugin plugin) throws SQLException {
+        this.logger = plugin.getLogger();
         File dbFile = new File(plugin.getDataFolder(), "database.db");
         if (!plugin.getDataFolder().exists()) plugin.getDataFolder().mkdirs();
 
-        this.connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        this.writeConnection = DriverManager.getConnection(url);
+        try (Statement stmt = writeConnection.createStatement()) {
+            // WAL: 書き込み中でも読み込みがブロックされない
+            stmt.execute("PRAGMA journal_mode=WAL");
+            stmt.execute("PRAGMA synchronous=NORMAL");
+            stmt.execute("PRAGMA busy_timeout=5000");
+        }
 
         // 全てのテーブルをここで一括初期化
         setupTables();
+        writeConnection.setAutoCommit(false);
+
+        for (int i = 0; i < READ_POOL_SIZE; i++) {
+            Connection readConnection = DriverManager.getConnection(url);
+            try (Statement stmt = readConnection.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout=5000");
+                stmt.execute("PRAGMA query_only=ON");
+            }
+            PooledConnection pooled = new PooledConnection(readConnection);
+            allReadConnections.add(pooled);
+            readPool.add(pooled);
+        }
+
+        this.writerThread = new Thread(this::runWriter, "Deepwither-DB-Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
     }
 
     private void setupTables() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
+        try (Statement stmt = writeConnection.createStatement()) {
             // AttributeManager用
             stmt.executeUpdate("""
                 CREATE TABLE IF NOT EXISTS player_attributes (
@@ -81,14 +202,32 @@ public class DatabaseManager {
                     end_time INTEGER
                 )""");
 
+            // ArtifactManager用 (slot = -1 は背中装備)
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS player_artifacts (
+                    uuid TEXT NOT NULL,
+                    slot INTEGER NOT NULL,
+                    item BLOB NOT NULL,
+                    PRIMARY KEY (uuid, slot)
+                )""");
+
             stmt.executeUpdate("""
                 CREATE TABLE IF NOT EXISTS market_listings (
                     id TEXT PRIMARY KEY,
                     seller_uuid TEXT,
                     item_stack TEXT,
                     price REAL,
-                    listed_date INTEGER
+                    listed_date INTEGER,
+                    item_bytes BLOB,
+                    display_name TEXT,
+                    custom_id TEXT,
+                    material TEXT
                 )""");
+            // 旧バージョンで作られたテーブルに列を足す (item_stack は移行前の行だけが使う)
+            addColumnIfMissing(stmt, "market_listings", "item_bytes", "BLOB");
+            addColumnIfMissing(stmt, "market_listings", "display_name", "TEXT");
+            addColumnIfMissing(stmt, "market_listings", "custom_id", "TEXT");
+            addColumnIfMissing(stmt, "market_listings", "material", "TEXT");
 
             stmt.executeUpdate("""
                 CREATE TABLE IF NOT EXISTS market_earnings (
@@ -113,33 +252,372 @@ public class DatabaseManager {
         }
     }
 
-    public Connection getConnection() { return connection; }
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String type) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return;
+            }
+        }
+        stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+    }
+
+    // ----------------------------------------------------
+    // --- 書き込み (専用スレッド) ---
+    // ----------------------------------------------------
+
+    /**
+     * 書き込みをキューに積む。呼び出し元スレッドはブロックされない。
+     * キューに積んだ順に実行され、溜まっている分はまとめて1トランザクションでコミットされる。
+     */
+    public CompletableFuture<Void> write(String sql, StatementBinder binder) {
+        return writeBatch(null, sql, List.of(binder));
+    }
+
+    /**
+     * キーを付けて書き込みを積む。{@link #awaitWritesFor(Object)} で同じキーを指定した読み込みは、この書き込みの反映を待つ
+     */
+    public CompletableFuture<Void> write(Object key, String sql, StatementBinder binder) {
+        return writeBatch(key, sql, List.of(binder));
+    }
+
+    /**
+     * 同じSQLで複数行を書き込む。全行が反映されるか、1行も反映されないかのどちらかになる。
+     */
+    public CompletableFuture<Void> writeBatch(String sql, List<StatementBinder> binders) {
+        return writeBatch(null, sql, binders);
+    }
+
+    /**
+     * キーを付けて同じSQLで複数行を書き込む
+     */
+    public CompletableFuture<Void> writeBatch(Object key, String sql, List<StatementBinder> binders) {
+        CoalescedWrite coalesced = coalescing.get();
+        if (coalesced != null) {
+            coalesced.statements().add(new QueuedStatement(sql, binders));
+            if (key != null) coalesced.keys().add(key);
+            return coalesced.future();
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(List.of(new QueuedStatement(sql, binders)), key != null ? List.of(key) : List.of(), future);
+        return future;
+    }
+
+    /**
+     * action の中で同じスレッドから呼ばれた write / writeBatch を1つの書き込みにまとめてキューに積む。
+     * まとめた書き込みは全て反映されるか全く反映されないかのどちらかになり (失敗時はセーブポイントまで戻す)、
+     * 途中で他の書き込みが割り込むこともない。
+     * action 内の write が返す Future は、まとめた書き込み全体の完了を表す。
+     * <p>
+     * 別スレッドに渡した書き込み（runTaskAsynchronously 等）はまとめの対象外になる。
+     */
+    public CompletableFuture<Void> coalesceWrites(Runnable action) {
+        return coalesceWrites(null, action);
+    }
+
+    /**
+     * キーを付けて書き込みをまとめる。まとめた書き込み全体に key が付く
+     */
+    public CompletableFuture<Void> coalesceWrites(Object key, Runnable action) {
+        CoalescedWrite outer = coalescing.get();
+        if (outer != null) {
+            // 入れ子の場合は外側にまとめる
+            if (key != null) outer.keys().add(key);
+            action.run();
+            return outer.future();
+        }
+
+        CoalescedWrite coalesced = new CoalescedWrite(new ArrayList<>(), new HashSet<>(), new CompletableFuture<>());
+        if (key != null) coalesced.keys().add(key);
+        coalescing.set(coalesced);
+        try {
+            action.run();
+        } finally {
+            coalescing.remove();
+            if (coalesced.statements().isEmpty()) {
+                coalesced.future().complete(null);
+            } else {
+                enqueue(coalesced.statements(), coalesced.keys(), coalesced.future());
+            }
+        }
+        return coalesced.future();
+    }
+
+    private void enqueue(List<QueuedStatement> statements, Collection<Object> keys, CompletableFuture<Void> future) {
+        if (!running) {
+            future.completeExceptionally(new SQLException("DatabaseManager is already closed"));
+            return;
+        }
+        // 採番とキュー投入の順序を揃えるためロック内で行う
+        synchronized (commitLock) {
+            long seq = ++enqueuedSeq;
+            for (Object key : keys) pendingKeys.put(key, seq);
+            writeQueue.add(new WriteOperation(seq, statements, keys, future));
+        }
+    }
+
+    private void runWriter() {
+        List<WriteOperation> batch = new ArrayList<>();
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                WriteOperation first = writeQueue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                writeQueue.drainTo(batch, MAX_WRITE_BATCH - 1);
+                executeBatch(batch);
+            } catch (InterruptedException e) {
+                // close() からの割り込み。残りはループ条件に従って処理する
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "DB書き込みスレッドで予期しないエラーが発生しました。", t);
+                batch.forEach(op -> op.future().completeExceptionally(t));
+            } finally {
+                if (!batch.isEmpty()) {
+                    markCommitted(batch.get(batch.size() - 1).seq());
+                    // 後から同じキーで積まれた書き込みがあれば、その番号は残す
+                    for (WriteOperation op : batch) {
+                        for (Object key : op.keys()) pendingKeys.remove(key, op.seq());
+                    }
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void executeBatch(List<WriteOperation> batch) {
+        List<Throwable> failures = new ArrayList<>(Collections.nCopies(batch.size(), null));
+
+        // 書き込み1件ごとにセーブポイントを置き、途中で失敗したらその書き込みだけを丸ごと取り消す
+        for (int i = 0; i < batch.size(); i++) {
+            Savepoint savepoint;
+            try {
+                savepoint = writeConnection.setSavepoint();
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "DBのセーブポイント作成に失敗しました。", e);
+                failures.set(i, e);
+                continue;
+            }
+
+            for (QueuedStatement statement : batch.get(i).statements()) {
+                try {
+                    execute(statement);
+                } catch (SQLException | RuntimeException e) {
+                    logger.log(Level.SEVERE, "DB書き込みに失敗しました: " + statement.sql(), e);
+                    failures.set(i, e);
+                    break;
+                }
+            }
+
+            try {
+                if (failures.get(i) != null) {
+                    writeConnection.rollback(savepoint);
+                }
+                writeConnection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                // 取り消せない場合はバッチ全体を捨てる
+                logger.log(Level.SEVERE, "DBのセーブポイントへのロールバックに失敗しました。", e);
+                try { writeConnection.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+                batch.forEach(op -> op.future().completeExceptionally(e));
+                return;
+            }
+        }
+
+        try {
+            writeConnection.commit();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "DBのコミットに失敗しました。", e);
+            try { writeConnection.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+            batch.forEach(op -> op.future().completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Throwable failure = failures.get(i);
+            if (failure != null) {
+                batch.get(i).future().completeExceptionally(failure);
+            } else {
+                batch.get(i).future().complete(null);
+            }
+        }
+    }
+
+    private void execute(QueuedStatement statement) throws SQLException {
+        PreparedStatement ps = writeStatements.get(statement.sql());
+        if (ps == null) {
+            ps = writeConnection.prepareStatement(statement.sql());
+            writeStatements.put(statement.sql(), ps);
+        }
+        if (statement.binders().size() == 1) {
+            statement.binders().get(0).bind(ps);
+            ps.executeUpdate();
+        } else {
+            try {
+                for (StatementBinder binder : statement.binders()) {
+                    binder.bind(ps);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            } finally {
+                // 途中で失敗した時に積み残した行を次の書き込みへ持ち越さない
+                ps.clearBatch();
+            }
+        }
+    }
+
+    private void markCommitted(long seq) {
+        synchronized (commitLock) {
+            committedSeq = seq;
+            commitLock.notifyAll();
+        }
+    }
+
+    /**
+     * 現時点までにキューに積まれた書き込みが全てコミットされるまで待つ。
+     * キュー全体を待つため、起動時のロードのように他の書き込みと無関係に全件を読み直す時だけ使う。
+     */
+    public void awaitPendingWrites() {
+        long target;
+        synchronized (commitLock) {
+            target = enqueuedSeq;
+        }
+        awaitCommitted(target);
+    }
+
+    /**
+     * key を付けて積まれた書き込みのうち、現時点で最後のものがコミットされるまで待つ。
+     * そのキーの書き込みが無ければすぐ戻るので、他のプレイヤーの書き込みが溜まっていても待たされない
+     */
+    public void awaitWritesFor(Object key) {
+        Long seq = pendingKeys.get(key);
+        if (seq != null) awaitCommitted(seq);
+    }
+
+    private void awaitCommitted(long seq) {
+        if (committedSeq >= seq) return;
+        synchronized (commitLock) {
+            while (committedSeq < seq && writerThread.isAlive()) {
+                try {
+                    commitLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // ----------------------------------------------------
+    // --- 読み込み (コネクションプール) ---
+    // ----------------------------------------------------
+
+    /**
+     * プールのコネクションでSELECTを実行する。書き込みキューは待たないので、
+     * 保存直後の値を読む必要がある場合は先に {@link #awaitWritesFor(Object)} を呼ぶ。
+     */
+    public <T> T query(String sql, StatementBinder binder, ResultMapper<T> mapper) throws SQLException {
+        PooledConnection pinned = pinnedRead.get();
+        if (pinned != null) {
+            return execute(pinned, sql, binder, mapper);
+        }
+
+        PooledConnection pooled = borrowReadConnection();
+        try {
+            return execute(pooled, sql, binder, mapper);
+        } finally {
+            readPool.add(pooled);
+        }
+    }
+
+    /**
+     * task の中で同じスレッドから呼ばれた query を、プールから1本だけ借りたコネクションで実行する。
+     * コネクションの貸し借りは最初の1回だけで済むため、
+     * 複数テーブルからプレイヤー1人分のデータを集めるような処理に使う。
+     */
+    public <T> T readBatch(ReadTask<T> task) throws SQLException {
+        if (pinnedRead.get() != null) {
+            return task.run();
+        }
+
+        PooledConnection pooled = borrowReadConnection();
+        pinnedRead.set(pooled);
+        try {
+            return task.run();
+        } finally {
+            pinnedRead.remove();
+            readPool.add(pooled);
+        }
+    }
+
+    private PooledConnection borrowReadConnection() throws SQLException {
+        try {
+            return readPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    private <T> T execute(PooledConnection pooled, String sql, StatementBinder binder, ResultMapper<T> mapper) throws SQLException {
+        PreparedStatement ps = pooled.prepare(sql);
+        ps.clearParameters();
+        if (binder != null) {
+            binder.bind(ps);
+        }
+        try (ResultSet rs = ps.executeQuery()) {
+            return mapper.map(rs);
+        }
+    }
 
     // YAMLの代わりにオブジェクトを保存できる汎用メソッド
     public void saveConfig(String key, Object data) {
         String json = gson.toJson(data);
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO generic_configs (config_key, config_value) VALUES (?, ?) ON CONFLICT(config_key) DO UPDATE SET config_value = excluded.config_value")) {
+        write(configKey(key), "INSERT INTO generic_configs (config_key, config_value) VALUES (?, ?) ON CONFLICT(config_key) DO UPDATE SET config_value = excluded.config_value", ps -> {
             ps.setString(1, key);
             ps.setString(2, json);
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        });
     }
 
     public <T> T loadConfig(String key, Type typeOfT) {
-        try (PreparedStatement ps = connection.prepareStatement("SELECT config_value FROM generic_configs WHERE config_key = ?")) {
-            ps.setString(1, key);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) return gson.fromJson(rs.getString("config_value"), typeOfT);
+        awaitWritesFor(configKey(key));
+        try {
+            return query("SELECT config_value FROM generic_configs WHERE config_key = ?",
+                    ps -> ps.setString(1, key),
+                    rs -> rs.next() ? gson.<T>fromJson(rs.getString("config_value"), typeOfT) : null);
         } catch (SQLException e) { e.printStackTrace(); }
         return null;
     }
 
+    private static String configKey(String key) {
+        return "generic_configs:" + key;
+    }
+
     public Gson getGson() {
         return gson;
     }
 
+    /**
+     * 書き込みキューを全て反映してから全コネクションを閉じる。
+     */
     public void close() {
-        try { if (connection != null) connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writeQueue.isEmpty()) {
+            logger.warning("DB書き込みキューに " + writeQueue.size() + " 件が残ったまま終了します。");
+        }
+
+        for (PreparedStatement ps : writeStatements.values()) {
+            try { ps.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
+        try { writeConnection.close(); } catch (SQLException e) { e.printStackTrace(); }
+
+        for (PooledConnection pooled : allReadConnections) {
+            for (PreparedStatement ps : pooled.statements.values()) {
+                try { ps.close(); } catch (SQLException e) { e.printStackTrace(); }
+            }
+            try { pooled.connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+        }
     }
-}
\ No newline at end of file
+}
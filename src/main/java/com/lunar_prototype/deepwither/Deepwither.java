@@ -42,14 +42,15 @@ import com.lunar_prototype.deepwither.aethelgard.*;
 import com.lunar_prototype.deepwither.raidboss.RaidBossListener;
 import com.lunar_prototype.deepwither.raidboss.RaidBossManager;
 import com.lunar_prototype.deepwither.seeker.CombatExperienceListener;
+import com.lunar_prototype.deepwither.seeker.CoverIndexWorldEditHook;
 import com.lunar_prototype.deepwither.seeker.SeekerAIEngine;
+import com.lunar_prototype.deepwither.seeker.SeekerScheduler;
 import com.lunar_prototype.deepwither.town.TownBurstManager;
 import com.lunar_prototype.deepwither.tutorial.TutorialController;
 import com.lunar_prototype.deepwither.util.IManager;
+import com.lunar_prototype.deepwither.util.JapaneseImeConverter;
 import com.lunar_prototype.deepwither.util.MythicMobSafeZoneManager;
-import io.lumine.mythic.bukkit.MythicBukkit;
 import io.lumine.mythic.bukkit.events.MythicMechanicLoadEvent;
-import io.lumine.mythic.core.mobs.ActiveMob;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -63,11 +64,8 @@ import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
 import java.io.IOException;
@@ -152,7 +150,11 @@ public final class Deepwither extends JavaPlugin {
     private LootDropManager lootDropManager;
     private MarketGui marketGui;
     private SeekerAIEngine aiEngine;
+    private CoverIndexWorldEditHook coverIndexWorldEditHook;
+    private SeekerScheduler seekerScheduler;
     private ClanManager clanManager;
+    private RegionMembershipService regionMembershipService;
+    private JapaneseImeConverter japaneseImeConverter;
     private static Economy econ = null;
     private final java.util.Random random = new java.util.Random();
     private OutpostManager outpostManager;
@@ -173,6 +175,26 @@ public final class Deepwither extends JavaPlugin {
         return manaManager;
     }
 
+    public SeekerScheduler getSeekerScheduler() {
+        return seekerScheduler;
+    }
+
+    public SeekerAIEngine getSeekerAIEngine() {
+        return aiEngine;
+    }
+
+    public RegionMembershipService getRegionMembershipService() {
+        return regionMembershipService;
+    }
+
+    public GuildQuestManager getGuildQuestManager() {
+        return guildQuestManager;
+    }
+
+    public JapaneseImeConverter getJapaneseImeConverter() {
+        return japaneseImeConverter;
+    }
+
     public SkillLoader getSkillLoader() {
         return skillLoader;
     }
@@ -348,6 +370,11 @@ public final class Deepwither extends JavaPlugin {
 
         aiEngine = new SeekerAIEngine();
         Bukkit.getPluginManager().registerEvents(new CombatExperienceListener(aiEngine), this);
+        Bukkit.getPluginManager().registerEvents(aiEngine.getCoverIndex(), this);
+        if (Bukkit.getPluginManager().getPlugin("WorldEdit") != null) {
+            coverIndexWorldEditHook = new CoverIndexWorldEditHook(aiEngine.getCoverIndex());
+            coverIndexWorldEditHook.register();
+        }
 
         statManager = new StatManager();
         companionManager = new CompanionManager(this);
@@ -396,7 +423,6 @@ public final class Deepwither extends JavaPlugin {
         this.traderManager = new TraderManager(this, itemFactory);
         this.dailyTaskManager = new DailyTaskManager(this, fileDailyTaskDataStore);
         playerQuestManager = new PlayerQuestManager(this, guildQuestManager, playerQuestDataStore);
-        artifactManager = new ArtifactManager(this);
         lootChestManager = new LootChestManager(this);
         artifactGUI = new ArtifactGUI();
         mythicMobSafeZoneManager = new MythicMobSafeZoneManager(this);
@@ -445,12 +471,13 @@ public final class Deepwither extends JavaPlugin {
         mobKillListener = new MobKillListener(levelManager, getConfig(), OutpostManager.getInstance(), partyManager,
                 boosterManager);
         Bukkit.getPluginManager().registerEvents(mobKillListener, this);
-        getServer().getPluginManager().registerEvents(new SafeZoneListener(this), this);
+        getServer().getPluginManager().registerEvents(regionMembershipService, this);
+        getServer().getPluginManager().registerEvents(new SafeZoneListener(this, regionMembershipService), this);
         getServer().getPluginManager().registerEvents(new AnimationListener(), this);
         getServer().getPluginManager().registerEvents(new BackpackListener(this, backpackManager), this);
         this.getCommand("status")
                 .setExecutor(new StatusCommand(levelManager, statManager, creditManager, professionManager));
-        getServer().getPluginManager().registerEvents(new OutpostRegionListener(OutpostManager.getInstance()), this);
+        regionMembershipService.addTransitionHandler(new OutpostRegionListener(OutpostManager.getInstance()));
         getServer().getPluginManager().registerEvents(new OutpostDamageListener(OutpostManager.getInstance()), this);
 
         Bukkit.getPluginManager().registerEvents(new Listener() {
@@ -475,27 +502,10 @@ public final class Deepwither extends JavaPlugin {
             }
         }, this);
 
-        // ログイン・ログアウト同期
-        Bukkit.getPluginManager().registerEvents(new Listener() {
-            @EventHandler
-            public void onJoin(PlayerJoinEvent e) {
-                levelManager.load(e.getPlayer().getUniqueId());
-                attributeManager.load(e.getPlayer().getUniqueId());
-                skilltreeManager.load(e.getPlayer().getUniqueId());
-                dailyTaskManager.loadPlayer(e.getPlayer());
-                craftingManager.loadPlayer(e.getPlayer());
-                professionManager.loadPlayer(e.getPlayer());
-            }
-
-            @EventHandler
-            public void onQuit(PlayerQuitEvent e) {
-                levelManager.unload(e.getPlayer().getUniqueId());
-                attributeManager.unload(e.getPlayer().getUniqueId());
-                dailyTaskManager.saveAndUnloadPlayer(e.getPlayer().getUniqueId());
-                craftingManager.saveAndUnloadPlayer(e.getPlayer().getUniqueId());
-                professionManager.saveAndUnloadPlayer(e.getPlayer());
-            }
-        }, this);
+        // ログイン・ログアウト同期（ログイン前に非同期で一括ロード、退出時にまとめて保存）
+        Bukkit.getPluginManager().registerEvents(new PlayerSessionLoader(this, databaseManager, levelManager,
+                attributeManager, skilltreeManager, dailyTaskManager, craftingManager, professionManager,
+                artifactManager, traderQuestManager), this);
 
         Bukkit.getScheduler().runTaskTimer(this, () -> {
             for (Player p : Bukkit.getOnlinePlayers()) {
@@ -532,20 +542,10 @@ public final class Deepwither extends JavaPlugin {
             e.printStackTrace();
         }
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                long currentTick = Bukkit.getCurrentTick();
-                for (ActiveMob am : MythicBukkit.inst().getMobManager().getActiveMobs()) {
-                    if (am.getMobType().contains("bandit")) {
-                        // 個体ごとに異なるタイミング(40tick周期)で思考させる
-                        if ((am.getUniqueId().hashCode() + currentTick) % 20 == 0) {
-                            aiEngine.tick(am);
-                        }
-                    }
-                }
-            }
-        }.runTaskTimer(this, 0, 1);
+        // bandit をバケットに分けて1tickに1バケットずつ思考させる（1tickあたりの処理時間に上限あり）
+        seekerScheduler = new SeekerScheduler(this, aiEngine, getConfig().getDouble("seeker.tick-budget-ms", 2.0));
+        getServer().getPluginManager().registerEvents(seekerScheduler, this);
+        seekerScheduler.start();
 
         // リスナー登録
         getServer().getPluginManager().registerEvents(new ItemDurabilityFix(), this);
@@ -590,12 +590,15 @@ public final class Deepwither extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new PvPWorldListener(), this);
         getServer().getPluginManager().registerEvents(new ItemGlowHandler(this), this);
         getServer().getPluginManager().registerEvents(new DungeonSignListener(),this);
-        getServer().getPluginManager().registerEvents(new ClanChatManager(clanManager),this);
+        getServer().getPluginManager().registerEvents(new ClanChatManager(clanManager, japaneseImeConverter),this);
         getServer().getPluginManager().registerEvents(traderQuestManager,this);
     }
 
     @Override
     public void onDisable() {
+        if (seekerScheduler != null) seekerScheduler.stop();
+        if (aiEngine != null) aiEngine.shutdown();
+        if (coverIndexWorldEditHook != null) coverIndexWorldEditHook.unregister();
         for (Player p : Bukkit.getOnlinePlayers()) {
             levelManager.unload(p.getUniqueId());
             attributeManager.unload(p.getUniqueId());
@@ -606,7 +609,6 @@ public final class Deepwither extends JavaPlugin {
         lootChestManager.removeAllLootChests();
         dailyTaskManager.saveAllData();
         skillSlotManager.saveAll();
-        artifactManager.saveData();
         guildQuestManager.shutdown();
         saveSafeZoneSpawns();
         List<IManager> managerList = new ArrayList<>(managers.values());
@@ -623,9 +625,12 @@ public final class Deepwither extends JavaPlugin {
         this.skilltreeManager = register(SkilltreeManager.class, new SkilltreeManager(databaseManager, this));
         this.professionDatabase = register(ProfessionDatabase.class, new ProfessionDatabase(this, databaseManager));
         this.boosterManager = register(BoosterManager.class, new BoosterManager(databaseManager));
+        this.artifactManager = register(ArtifactManager.class, new ArtifactManager(this, databaseManager));
         this.globalMarketManager = register(GlobalMarketManager.class, new GlobalMarketManager(this, databaseManager));
         this.clanManager = register(ClanManager.class,new ClanManager(databaseManager));
         this.traderQuestManager = register(TraderQuestManager.class,new TraderQuestManager(this,databaseManager));
+        this.regionMembershipService = register(RegionMembershipService.class, new RegionMembershipService(this));
+        this.japaneseImeConverter = register(JapaneseImeConverter.class, new JapaneseImeConverter(this));
         // 新しくSQLite対応させたデータストア (引数にdatabaseManagerを渡す)
         this.fileDailyTaskDataStore = register(FileDailyTaskDataStore.class,
                 new FileDailyTaskDataStore(this, databaseManager));
@@ -0,0 +1,93 @@
+package com.lunar_prototype.deepwither;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * items/*.yml を読み込んだ結果の不変な索引 (ID -> アイテム定義)。
+ * <p>
+ * YAML の読み込みと解釈は起動時とリロード時の {@link #load} で1回だけ行い、
+ * アイテムの生成は {@link ItemLoader.ItemDefinition#instantiate} がここから引いた定義で行う（ファイルには触れない）。
+ * リロード時は新しいインスタンスを作って差し替えるため、生成中の呼び出しが途中の状態を見ることはない。
+ */
+final class ItemDefinitionRegistry {
+
+    static final ItemDefinitionRegistry EMPTY = new ItemDefinitionRegistry(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, ItemLoader.ItemDefinition> definitions;
+    private final Map<String, List<String>> rarityPools; // <Rarity, List<ItemID>>
+
+    private ItemDefinitionRegistry(Map<String, ItemLoader.ItemDefinition> definitions, Map<String, List<String>> rarityPools) {
+        this.definitions = definitions;
+        this.rarityPools = rarityPools;
+    }
+
+    /**
+     * フォルダ内の全YAMLを読み込んで索引を作る。壊れた定義はログに出して飛ばす
+     */
+    static ItemDefinitionRegistry load(File itemFolder, Logger logger) {
+        Map<String, ItemLoader.ItemDefinition> definitions = new LinkedHashMap<>();
+        Map<String, List<String>> pools = new HashMap<>();
+
+        File[] files = itemFolder.listFiles();
+        if (files == null) return EMPTY;
+
+        for (File file : files) {
+            if (!file.getName().endsWith(".yml")) continue;
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+
+            for (String key : config.getKeys(false)) {
+                ConfigurationSection section = config.getConfigurationSection(key);
+                if (section == null) continue;
+                try {
+                    ItemLoader.ItemDefinition definition = ItemLoader.ItemDefinition.parse(key, section);
+                    if (definition == null) continue;
+                    if (definitions.put(key, definition) != null) {
+                        logger.warning("アイテムID '" + key + "' が重複しています (" + file.getName() + " の定義で上書き)");
+                    }
+                } catch (Exception e) {
+                    logger.warning("アイテム定義 '" + key + "' の読み込みに失敗しました (" + file.getName() + "): " + e.getMessage());
+                }
+            }
+        }
+
+        for (ItemLoader.ItemDefinition definition : definitions.values()) {
+            if (definition.droppable) {
+                pools.computeIfAbsent(definition.rarity, k -> new ArrayList<>()).add(definition.id);
+            }
+        }
+        pools.replaceAll((rarity, ids) -> List.copyOf(ids));
+
+        return new ItemDefinitionRegistry(Collections.unmodifiableMap(definitions), Collections.unmodifiableMap(pools));
+    }
+
+    ItemLoader.ItemDefinition get(String id) {
+        return definitions.get(id);
+    }
+
+    boolean contains(String id) {
+        return definitions.containsKey(id);
+    }
+
+    Set<String> ids() {
+        return definitions.keySet();
+    }
+
+    int size() {
+        return definitions.size();
+    }
+
+    List<String> getItemsByRarity(String rarity) {
+        return rarityPools.getOrDefault(rarity, Collections.emptyList());
+    }
+}
@@ -1,7 +1,6 @@
 package com.lunar_prototype.deepwither;
 
 import com.lunar_prototype.deepwither.outpost.OutpostManager;
-import com.lunar_prototype.deepwither.aethelgard.GeneratedQuest;
 import com.lunar_prototype.deepwither.aethelgard.QuestGenerator;
 import io.papermc.paper.block.BlockPredicate;
 import io.papermc.paper.datacomponent.DataComponentTypes;
@@ -13,7 +12,7 @@ import io.papermc.paper.registry.set.RegistrySet;
 import org.bukkit.*;
 import org.bukkit.block.BlockType;
 import org.bukkit.command.*;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemFlag;
@@ -38,7 +37,8 @@ import java.util.logging.Level;
 
 public class ItemFactory implements CommandExecutor, TabCompleter {
     private final Plugin plugin;
-    private final Map<String, ItemStack> itemMap = new HashMap<>();
+    // items/*.yml の解釈結果。リロード時はまるごと差し替える
+    private volatile ItemDefinitionRegistry registry = ItemDefinitionRegistry.EMPTY;
     private final NamespacedKey statKey = new NamespacedKey("rpgstats", "statmap");
     public static final NamespacedKey GRADE_KEY = new NamespacedKey(Deepwither.getInstance(), "fabrication_grade");
     public static final NamespacedKey RECIPE_BOOK_KEY = new NamespacedKey(Deepwither.getInstance(), "recipe_book_target_grade");
@@ -46,11 +46,10 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
     public static final NamespacedKey ITEM_TYPE_KEY = new NamespacedKey(Deepwither.getInstance(), "item_type_name");
     public static final NamespacedKey FLAVOR_TEXT_KEY = new NamespacedKey(Deepwither.getInstance(), "item_flavor_text"); // 文字列結合で保存
     public static final NamespacedKey SET_PARTNER_KEY = new NamespacedKey(Deepwither.getInstance(), "set_partner_id");
-    public final Map<String, List<String>> rarityPools = new HashMap<>(); // <Rarity, List<ItemID>>
     private static final String KEY_PREFIX = "rpgstats";
 
     public List<String> getItemsByRarity(String rarity) {
-        return rarityPools.getOrDefault(rarity, Collections.emptyList());
+        return registry.getItemsByRarity(rarity);
     }
 
     public ItemFactory(JavaPlugin plugin) {
@@ -63,18 +62,49 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
         }
     }
 
-    private void loadAllItems() {
+    /**
+     * items/*.yml を読み直して定義の索引を作り直す。起動時と /giveitem reload, /dw reload で呼ばれる
+     */
+    public void loadAllItems() {
         File itemFolder = new File(plugin.getDataFolder(), "items");
         if (!itemFolder.exists()) itemFolder.mkdirs();
 
-        for (File file : Objects.requireNonNull(itemFolder.listFiles())) {
-            if (!file.getName().endsWith(".yml")) continue;
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-            Map<String, ItemStack> loaded = ItemLoader.loadItems(config,this);
-            itemMap.putAll(loaded);
+        registry = ItemDefinitionRegistry.load(itemFolder, plugin.getLogger());
+        plugin.getLogger().info("アイテム定義を " + registry.size() + " 件読み込みました。");
+    }
+
+    /**
+     * 定義から新しいアイテムを生成する。存在しないIDなら null
+     */
+    @Nullable
+    public ItemStack createItem(String id, @Nullable FabricationGrade grade) {
+        ItemLoader.ItemDefinition definition = registry.get(id);
+        if (definition == null) return null;
+        try {
+            return definition.instantiate(this, grade);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "アイテム '" + id + "' の生成に失敗しました", e);
+            return null;
         }
     }
 
+    public boolean hasItem(String id) {
+        return registry.contains(id);
+    }
+
+    public Set<String> getItemIds() {
+        return registry.ids();
+    }
+
+    /**
+     * 定義上の表示名 (色コード込み)。生成せずに名前だけ欲しい場合に使う。存在しないIDなら null
+     */
+    @Nullable
+    public String getItemDisplayName(String id) {
+        ItemLoader.ItemDefinition definition = registry.get(id);
+        return definition != null ? definition.displayName() : null;
+    }
+
     /**
      * アイテムにステータスを適用し、再構築可能な状態でPDCに保存します。
      * このメソッドは、ItemLoaderから「ベース値（倍率前）」と「モディファイアー」を受け取り、
@@ -105,6 +135,9 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
             meta.getPersistentDataContainer().set(GRADE_KEY, PersistentDataType.INTEGER, grade.getId());
         }
 
+        // アイテムに保存する値は小数第2位に揃える
+        baseStats.roundAll();
+
         // 2. 最終ステータスの計算: Final = (Base * GradeMultiplier) + Modifiers
         // ただし、特定のStat(Critical Chanceなど)はGrade倍率をかけない場合がある
         StatMap finalStats = new StatMap();
@@ -146,6 +179,8 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
             }
         }
 
+        finalStats.roundAll();
+
         // 3. メタデータ(Flavor, Type, Rarity)の保存
         if (itemType != null) {
             meta.getPersistentDataContainer().set(ITEM_TYPE_KEY, PersistentDataType.STRING, itemType);
@@ -160,7 +195,8 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
         }
 
         // 4. Loreの生成 (LoreBuilderには最終計算結果を渡す)
-        meta.setLore(LoreBuilder.build(finalStats, false, itemType, flavorText, tracker, rarity, modifiers, grade));
+        List<String> lore = LoreBuilder.build(finalStats, false, itemType, flavorText, tracker, rarity, modifiers, grade);
+        meta.setLore(lore);
 
         meta.addItemFlags(ItemFlag.HIDE_ATTRIBUTES);
         meta.addItemFlags(ItemFlag.HIDE_UNBREAKABLE);
@@ -172,6 +208,8 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
             container.set(new NamespacedKey(KEY_PREFIX, type.name().toLowerCase() + "_flat"), PersistentDataType.DOUBLE, finalStats.getFlat(type));
             container.set(new NamespacedKey(KEY_PREFIX, type.name().toLowerCase() + "_percent"), PersistentDataType.DOUBLE, finalStats.getPercent(type));
         }
+        // 6. 戦闘中の判定用の要約 (Loreと同じ内容から求める)
+        ItemFingerprint.write(meta, lore, finalStats);
 
         item.setItemMeta(meta);
         item.setData(DataComponentTypes.TOOLTIP_DISPLAY, TooltipDisplay.tooltipDisplay().addHiddenComponents(DataComponentTypes.ATTRIBUTE_MODIFIERS).build());
@@ -413,13 +451,7 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
                     return true;
                 }
 
-                // ItemLoader.loadSingleItem(id, this, itemFolder); の部分は適切に修正してください
-                // File itemFolder = new File(Deepwither.getInstance().getDataFolder(), "items"); // Deepwither.getInstance()を適切なプラグインインスタンスに
-                // ItemStack item = ItemLoader.loadSingleItem(id, /* PluginInstance */, itemFolder);
-
-                // 例として仮のロード処理
-                File itemFolder = new File(Deepwither.getInstance().getDataFolder(), "items"); // 適切なプラグインインスタンスを使用
-                ItemStack item = ItemLoader.loadSingleItem(id, this, itemFolder); // Deepwither.getInstance()を適切なプラグインインスタンスに
+                ItemStack item = createItem(id, FabricationGrade.STANDARD);
 
                 if (item == null) {
                     sender.sendMessage("§cそのIDのアイテムは存在しません。");
@@ -453,39 +485,38 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
 
         // ステータスリセット処理
         if (args.length == 1 && args[0].equalsIgnoreCase("genquest")) {
-            // サーバーのメインスレッドをブロックしないように、LLM呼び出しを非同期タスクで実行
-            Bukkit.getScheduler().runTaskAsynchronously(this.plugin, () -> {
-                try {
-                    GeneratedQuest quest = new QuestGenerator().generateQuest(5);
-
-                    // -----------------------------------------------------------------------
-                    // 結果の処理をメインスレッドに戻して安全に行う
-                    // -----------------------------------------------------------------------
-                    Bukkit.getScheduler().runTask(this.plugin, () -> {
-                        // クエストの内容をプレイヤーに表示
-                        player.sendMessage("§6--- 冒険者ギルドからの緊急依頼 ---");
-                        player.sendMessage("§fタイトル：「§b" + quest.getTitle() + "§f」");
-                        player.sendMessage("§e[場所]§r " + quest.getLocationDetails().getLlmLocationText());
-                        player.sendMessage("§e[目標]§r " + quest.getTargetMobId() + "を" + quest.getRequiredQuantity() + "体");
-                        player.sendMessage(" ");
-
-                        // クエスト本文の表示 (改行を考慮して1行ずつ送る)
-                        for (String line : quest.getQuestText().split("\n")) {
-                            player.sendMessage("§7" + line);
-                        }
-
-                        player.sendMessage(" ");
-                        player.sendMessage("§a[報酬]§r 200 ゴールド、経験値 500、小さな回復薬 x1");
-                        player.sendMessage("§6-------------------------------------");
-                    });
-
-                } catch (Exception e) {
+            // LLM呼び出しは QuestGenerator の専用キューで行われ、結果だけをメインスレッドに戻す
+            QuestGenerator questGenerator = Deepwither.getInstance().getGuildQuestManager().getQuestGenerator();
+            questGenerator.generateQuestAsync(5).whenComplete((quest, e) -> {
+                if (e != null) {
                     // LLM通信でエラーが発生した場合、メインスレッドに戻ってエラーメッセージを送信
                     Bukkit.getScheduler().runTask(this.plugin, () -> {
                         player.sendMessage("§c[ギルド受付]§r 依頼の生成中にエラーが発生しました。時間を置いて再度お試しください。");
                         this.plugin.getLogger().log(Level.SEVERE, "LLMクエスト生成中にエラー:", e);
                     });
+                    return;
                 }
+
+                // -----------------------------------------------------------------------
+                // 結果の処理をメインスレッドに戻して安全に行う
+                // -----------------------------------------------------------------------
+                Bukkit.getScheduler().runTask(this.plugin, () -> {
+                    // クエストの内容をプレイヤーに表示
+                    player.sendMessage("§6--- 冒険者ギルドからの緊急依頼 ---");
+                    player.sendMessage("§fタイトル：「§b" + quest.getTitle() + "§f」");
+                    player.sendMessage("§e[場所]§r " + quest.getLocationDetails().getLlmLocationText());
+                    player.sendMessage("§e[目標]§r " + quest.getTargetMobId() + "を" + quest.getRequiredQuantity() + "体");
+                    player.sendMessage(" ");
+
+                    // クエスト本文の表示 (改行を考慮して1行ずつ送る)
+                    for (String line : quest.getQuestText().split("\n")) {
+                        player.sendMessage("§7" + line);
+                    }
+
+                    player.sendMessage(" ");
+                    player.sendMessage("§a[報酬]§r 200 ゴールド、経験値 500、小さな回復薬 x1");
+                    player.sendMessage("§6-------------------------------------");
+                });
             });
 
             return true;
@@ -503,6 +534,7 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
                     data.setAllocated(type, 0);
                 }
                 data.addPoints(totalAllocated);
+                Deepwither.getInstance().getStatManager().invalidateStatCache(uuid);
                 player.sendMessage("§6すべてのステータスポイントをリセットしました。");
             } else {
                 player.sendMessage("§cステータスデータが読み込まれていません。");
@@ -608,9 +640,7 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
         }
 
         // --- アイテムの生成と付与 ---
-        File itemFolder = new File(plugin.getDataFolder(), "items");
-        // 改修した loadSingleItem を呼び出し
-        ItemStack item = ItemLoader.loadSingleItem(id, this, itemFolder, grade);
+        ItemStack item = createItem(id, grade);
 
         if (item == null) {
             sender.sendMessage("§cそのIDのアイテムは存在しません。");
@@ -631,7 +661,7 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
-            List<String> candidates = new ArrayList<>(itemMap.keySet());
+            List<String> candidates = new ArrayList<>(registry.ids());
             candidates.add("reload");
             candidates.add("resetpoints");
             candidates.add("addpoints");
@@ -654,8 +684,7 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
     }
 
     public void getCustomItem(Player player,String customitemid){
-        File itemFolder = new File(plugin.getDataFolder(), "items");
-        ItemStack item = ItemLoader.loadSingleItem(customitemid, this, itemFolder);
+        ItemStack item = createItem(customitemid, FabricationGrade.STANDARD);
         if (item == null) {
             player.sendMessage("§cそのIDのアイテムは存在しません。");
             return;
@@ -664,19 +693,16 @@ public class ItemFactory implements CommandExecutor, TabCompleter {
     }
 
     public ItemStack getCustomItemStack(String customitemid){
-        File itemFolder = new File(plugin.getDataFolder(), "items");
-        ItemStack item = ItemLoader.loadSingleItem(customitemid, this, itemFolder);
-        return item;
+        return createItem(customitemid, FabricationGrade.STANDARD);
     }
 
     public ItemStack getCustomItemStack(String customitemid, FabricationGrade grade){
-        File itemFolder = new File(plugin.getDataFolder(), "items");
-        return ItemLoader.loadSingleItem(customitemid, this, itemFolder, grade);
+        return createItem(customitemid, grade);
     }
 
     public ItemStack getCustomCountItemStack(String customitemid,Integer count){
-        File itemFolder = new File(plugin.getDataFolder(), "items");
-        ItemStack item = ItemLoader.loadSingleItem(customitemid, this, itemFolder);
+        ItemStack item = createItem(customitemid, FabricationGrade.STANDARD);
+        if (item == null) return null;
         item.setAmount(count);
         return item;
     }
@@ -841,356 +867,313 @@ class ItemLoader {
         return null;
     }
 
-    // ★ 変更: グレードを受け取る loadSingleItem
-    public static ItemStack loadSingleItem(String id, ItemFactory factory, File itemFolder, @Nullable FabricationGrade grade) {
-        for (File file : Objects.requireNonNull(itemFolder.listFiles())) {
-            if (!file.getName().endsWith(".yml")) continue;
-
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-            if (config.contains(id)) {
-                // loadItemsにgradeを渡す
-                Map<String, ItemStack> map = loadItems(config, factory, grade);
-                return map.get(id);
-            }
+    /**
+     * items/*.yml の1エントリを解釈した結果。生成のたびに変わらない部分はここで確定させておき、
+     * {@link #instantiate} ではステータスとモディファイアーのロールだけを行う。
+     */
+    static final class ItemDefinition {
+        // ステータス1種類分のロール範囲 (spread が 0 なら固定値)
+        private record StatRoll(StatType type, double flatBase, double flatSpread, double percentBase, double percentSpread) {}
+
+        final String id;
+        final String rarity;
+        final boolean droppable;
+
+        private final Material material;
+        private final String name;
+        private final String textureUrl;
+        private final int customModelData;
+        private final List<StatRoll> stats;
+        private final boolean disableModifiers;
+        private final boolean unbreakable;
+        private final String chargeType;
+        private final String companionType;
+        private final String raidBossId;
+        private final String itemType;
+        private final boolean wand;
+        private final String setPartner;
+        private final List<String> flavorText;
+        private final double recoveryAmount;
+        private final int cooldownSeconds;
+        private final Integer recipeBookGrade;
+        private final String onHitSkillId;
+        private final double onHitChance;
+        private final int onHitCooldown;
+        private final int durability;
+        private final Equippable equippable;
+        private final ItemArmorTrim armorTrim;
+        private final ItemAdventurePredicate canBreak;
+
+        // ロール前の共通部分 (名前・PDC・頭のテクスチャ)。初回の生成時に作り、以後は複製して使う
+        private volatile ItemStack prototype;
+
+        String displayName() {
+            return name;
         }
-        return null;
-    }
-
-    // 既存互換用
-    public static ItemStack loadSingleItem(String id, ItemFactory factory, File itemFolder) {
-        return loadSingleItem(id, factory, itemFolder, FabricationGrade.STANDARD);
-    }
-
-    public static Map<String, ItemStack> loadItems(YamlConfiguration config, ItemFactory factory, @Nullable FabricationGrade forceGrade) {
-        Map<String, ItemStack> result = new HashMap<>();
-
-        for (String key : config.getKeys(false)) {
-            try {
-                String materialName = config.getString(key + ".material", "STONE");
-                Material material = Material.matchMaterial(materialName);
-                if (material == null) {
-                    System.err.println("Invalid material for item: " + key);
-                    continue;
-                }
-
-                ItemStack item = new ItemStack(material);
-                ItemMeta meta = item.getItemMeta();
-                if (meta == null) {
-                    System.err.println("ItemMeta is null for: " + key);
-                    continue;
-                }
-
-                if (material == Material.PLAYER_HEAD) {
-                    SkullMeta skullMeta = (SkullMeta) meta;
-                    String textureUrl = config.getString(key + ".texture-url");
-                    if (textureUrl != null) {
-                        try {
-                            // Create a custom PlayerProfile with the texture URL
-                            PlayerProfile profile = Bukkit.createPlayerProfile(UUID.randomUUID());
-                            PlayerTextures textures = profile.getTextures();
-                            textures.setSkin(new URL(textureUrl));
-                            profile.setTextures(textures);
-                            skullMeta.setOwnerProfile(profile);
-                        } catch (Exception e) {
-                            System.err.println("Failed to set custom texture for player head: " + key);
-                            e.printStackTrace();
-                        }
-                    }
-                }
 
-                int custom_model_data = config.getInt(key + ".custom_mode_data");
-                if (custom_model_data != 0){
-                    meta.setCustomModelData(custom_model_data);
-                }
-
-                FabricationGrade grade = (forceGrade != null) ? forceGrade : FabricationGrade.STANDARD;
-                double multiplier = grade.getMultiplier();
-
-                // ランダムステータスの品質判定用トラッカー初期化
-                RandomStatTracker tracker = new RandomStatTracker();
-
-                StatMap baseStats = new StatMap(); // ★ ここには「等級倍率適用前」の値を入れる
-
-                if (config.isConfigurationSection(key + ".stats")) {
-                    for (String statKey : config.getConfigurationSection(key + ".stats").getKeys(false)) {
-                        StatType type = StatType.valueOf(statKey.toUpperCase());
-                        // flat値
-                        double flat;
-                        if (config.isConfigurationSection(key + ".stats." + statKey + ".flat")) {
-                            double base = config.getDouble(key + ".stats." + statKey + ".flat.base", 0);
-                            double spread = config.getDouble(key + ".stats." + statKey + ".flat.spread", 0);
-                            flat = base + (spread > 0 ? random.nextDouble() * spread : 0);
-                            tracker.add(type, base, spread, flat);
-                        } else {
-                            flat = config.getDouble(key + ".stats." + statKey + ".flat", 0);
-                            tracker.add(type, flat, 0, flat);
-                        }
-                        baseStats.setFlat(type, flat);
-
-                        // percent値
-                        double percent;
-                        if (config.isConfigurationSection(key + ".stats." + statKey + ".percent")) {
-                            double base = config.getDouble(key + ".stats." + statKey + ".percent.base", 0);
-                            double spread = config.getDouble(key + ".stats." + statKey + ".percent.spread", 0);
-                            percent = base + (spread > 0 ? random.nextDouble() * spread : 0);
-                            tracker.add(type, base, spread, percent);
-                        } else {
-                            percent = config.getDouble(key + ".stats." + statKey + ".percent", 0);
-                            tracker.add(type, percent, 0, percent);
-                        }
-                        baseStats.setPercent(type, percent);
-                    }
-                }
-
-                // ----------------------------------------------------
-                // --- 新規追加: レアリティに基づくモディファイアー処理 ---
-                // ----------------------------------------------------
-                boolean disableModifiers = config.getBoolean(key + ".disable_modifiers", false);
-                Map<StatType, Double> modifiers = new HashMap<>();
-                String rarity = config.getString(key + ".rarity", "コモン");
-
-                if (!disableModifiers) {
-                    int maxModifiers = MAX_MODIFIERS_BY_RARITY.getOrDefault(rarity, 1);
-                    int modifiersToApply = random.nextInt(maxModifiers) + 1;
-
-                    // (省略: Weighted List 生成ロジックは元のコードと同じ)
-                    List<ModifierDefinition> weightedModifiers = new ArrayList<>();
-                    for (ModifierDefinition def : MODIFIER_DEFINITIONS) {
-                        for (int j = 0; j < (int) (def.weight * 10); j++) weightedModifiers.add(def);
+        private ItemDefinition(String id, ConfigurationSection section, Material material) {
+            this.id = id;
+            this.material = material;
+            this.rarity = section.getString("rarity", "コモン");
+            this.droppable = section.getBoolean("droppable", false);
+            this.name = section.getString("name", id);
+            this.textureUrl = material == Material.PLAYER_HEAD ? section.getString("texture-url") : null;
+            this.customModelData = section.getInt("custom_mode_data");
+
+            List<StatRoll> rolls = new ArrayList<>();
+            ConfigurationSection statSection = section.getConfigurationSection("stats");
+            if (statSection != null) {
+                for (String statKey : statSection.getKeys(false)) {
+                    StatType type = StatType.valueOf(statKey.toUpperCase());
+                    double flatBase, flatSpread = 0, percentBase, percentSpread = 0;
+                    if (statSection.isConfigurationSection(statKey + ".flat")) {
+                        flatBase = statSection.getDouble(statKey + ".flat.base", 0);
+                        flatSpread = statSection.getDouble(statKey + ".flat.spread", 0);
+                    } else {
+                        flatBase = statSection.getDouble(statKey + ".flat", 0);
                     }
-                    Set<StatType> appliedTypes = new HashSet<>();
-
-                    for (int m = 0; m < modifiersToApply; m++) {
-                        if (weightedModifiers.isEmpty()) break;
-                        ModifierDefinition selectedDef = weightedModifiers.get(random.nextInt(weightedModifiers.size()));
-                        if (appliedTypes.contains(selectedDef.type)) {
-                            weightedModifiers.removeIf(def -> def.type == selectedDef.type);
-                            m--; continue;
-                        }
-                        double modifierValue = selectedDef.minFlat + random.nextDouble() * (selectedDef.maxFlat - selectedDef.minFlat);
-
-                        // Modifier Map に追加 (Base Stats には足さない)
-                        modifiers.put(selectedDef.type, modifierValue);
-
-                        appliedTypes.add(selectedDef.type);
-                        weightedModifiers.removeIf(def -> def.type == selectedDef.type);
+                    if (statSection.isConfigurationSection(statKey + ".percent")) {
+                        percentBase = statSection.getDouble(statKey + ".percent.base", 0);
+                        percentSpread = statSection.getDouble(statKey + ".percent.spread", 0);
+                    } else {
+                        percentBase = statSection.getDouble(statKey + ".percent", 0);
                     }
+                    rolls.add(new StatRoll(type, flatBase, flatSpread, percentBase, percentSpread));
                 }
-                // 品質ランク判定
-                QualityRank rank = QualityRank.fromRatio(tracker.getRatio());
-
-                boolean droppable = config.getBoolean(key + ".droppable", false);
-                if (droppable) {
-                    factory.rarityPools.computeIfAbsent(rarity, k -> new ArrayList<>()).add(key);
-                }
-
-                // 名前に品質名をプレフィックス付け
-                String originalName = config.getString(key + ".name", key);
-                String newName = originalName;
-                meta.setDisplayName(newName);
-                NamespacedKey pdc_key = new NamespacedKey(Deepwither.getInstance(), CUSTOM_ID_KEY);
-                meta.getPersistentDataContainer().set(pdc_key,PersistentDataType.STRING,key);
-
-                String unbreaking = config.getString(key + ".unbreaking","false");
-                if (unbreaking == "true"){
-                    meta.setUnbreakable(true);
-                }
-
-                String chargeType = config.getString(key + ".charge_type", null); // YMLで charge_type: hammer と設定
-                if (chargeType != null) {
-                    meta.getPersistentDataContainer().set(CHARGE_ATTACK_KEY, PersistentDataType.STRING, chargeType);
-                }
-
-                String companiontype = config.getString(key + ".companion_type", null);
-                if (companiontype != null){
-                    meta.getPersistentDataContainer().set(Deepwither.getInstance().getCompanionManager().COMPANION_ID_KEY,PersistentDataType.STRING, companiontype);
-                }
-
-                String raid_boss_id = config.getString(key + ".raid_boss_id", null);
-                if (raid_boss_id != null){
-                    NamespacedKey raid_boss_id_key = new NamespacedKey(Deepwither.getInstance(), "raid_boss_id");
-                    meta.getPersistentDataContainer().set(raid_boss_id_key,PersistentDataType.STRING, raid_boss_id);
-                }
+            }
+            this.stats = List.copyOf(rolls);
+
+            this.disableModifiers = section.getBoolean("disable_modifiers", false);
+            this.unbreakable = "true".equals(section.getString("unbreaking", "false"));
+            this.chargeType = section.getString("charge_type", null); // YMLで charge_type: hammer と設定
+            this.companionType = section.getString("companion_type", null);
+            this.raidBossId = section.getString("raid_boss_id", null);
+            this.itemType = section.getString("type", null);
+            // カテゴリが「杖」または設定で is_wand: true の場合
+            this.wand = (itemType != null && itemType.equalsIgnoreCase("杖")) || section.getBoolean("is_wand");
+            this.setPartner = section.getString("set_partner");
+            this.flavorText = List.copyOf(section.getStringList("flavor"));
+
+            this.recoveryAmount = section.getDouble("recovery-amount", 0.0);
+            this.cooldownSeconds = section.getInt("cooldown-seconds", 0);
+
+            //   recipe_book_grade: 2  (Grade 2のレシピからランダム)
+            //   recipe_book_grade: 0  (全Gradeからランダム)
+            this.recipeBookGrade = section.contains("recipe_book_grade") ? section.getInt("recipe_book_grade") : null;
+
+            if (section.isConfigurationSection("on_hit")) {
+                this.onHitChance = section.getDouble("on_hit.chance", 0.0);
+                this.onHitCooldown = section.getInt("on_hit.cooldown", 0);
+                this.onHitSkillId = section.getString("on_hit.mythic_skill_id", null);
+            } else {
+                this.onHitChance = 0.0;
+                this.onHitCooldown = 0;
+                this.onHitSkillId = null;
+            }
 
-                String itemType = config.getString(key + ".type", null);
+            this.durability = section.getInt("durability", 0);
+            this.equippable = parseEquippable(id, section.getString("custom_armor"), material);
+            this.armorTrim = parseArmorTrim(id, section.getString("armortrim"), section.getString("armortrimmaterial"));
+            this.canBreak = parseCanBreak(section.getStringList("can_destroy"));
+        }
 
-                // カテゴリが「杖」または設定で is_wand: true の場合
-                if ((itemType != null && itemType.equalsIgnoreCase("杖")) || config.getBoolean(key + ".is_wand")) {
-                    if (meta != null) {
-                        meta.getPersistentDataContainer().set(IS_WAND, PersistentDataType.BOOLEAN, true);
-                    }
-                }
+        /**
+         * 定義を解釈する。マテリアルが不正な場合は null
+         */
+        static ItemDefinition parse(String id, ConfigurationSection section) {
+            Material material = Material.matchMaterial(section.getString("material", "STONE"));
+            if (material == null) {
+                System.err.println("Invalid material for item: " + id);
+                return null;
+            }
+            return new ItemDefinition(id, section, material);
+        }
 
-                String setPartner = config.getString(key + ".set_partner");
-                if (setPartner != null) {
-                    meta.getPersistentDataContainer().set(ItemFactory.SET_PARTNER_KEY, PersistentDataType.STRING, setPartner);
-                }
+        /**
+         * 定義からアイテムを1つ生成する。ステータスの幅とモディファイアーはここで毎回ロールする
+         */
+        ItemStack instantiate(ItemFactory factory, @Nullable FabricationGrade forceGrade) {
+            ItemStack item = getPrototype().clone();
+            FabricationGrade grade = (forceGrade != null) ? forceGrade : FabricationGrade.STANDARD;
+
+            // ランダムステータスの品質判定用トラッカー初期化
+            RandomStatTracker tracker = new RandomStatTracker();
+            StatMap baseStats = new StatMap(); // ★ ここには「等級倍率適用前」の値を入れる
+            for (StatRoll roll : stats) {
+                double flat = roll.flatBase() + (roll.flatSpread() > 0 ? random.nextDouble() * roll.flatSpread() : 0);
+                tracker.add(roll.type(), roll.flatBase(), roll.flatSpread(), flat);
+                baseStats.setFlat(roll.type(), flat);
+
+                double percent = roll.percentBase() + (roll.percentSpread() > 0 ? random.nextDouble() * roll.percentSpread() : 0);
+                tracker.add(roll.type(), roll.percentBase(), roll.percentSpread(), percent);
+                baseStats.setPercent(roll.type(), percent);
+            }
 
-                item.setItemMeta(meta);
-                List<String> flavorText = config.getStringList(key + ".flavor");
-                // Lore + PDC 書き込みをItemFactory側で処理
-                item = factory.applyStatsToItem(item, baseStats, modifiers, itemType, flavorText, tracker, rarity, grade);
+            // レアリティに基づくモディファイアー
+            Map<StatType, Double> modifiers = disableModifiers ? new HashMap<>() : generateRandomModifiers(rarity);
 
-                double recoveryAmount = config.getDouble(key + ".recovery-amount", 0.0);
-                int cooldownSeconds = config.getInt(key + ".cooldown-seconds", 0);
+            // Lore + PDC 書き込みをItemFactory側で処理
+            item = factory.applyStatsToItem(item, baseStats, modifiers, itemType, flavorText, tracker, rarity, grade);
 
-                if (recoveryAmount > 0.0) {
-                    ItemMeta meta2 = item.getItemMeta();
-                    PersistentDataContainer container = meta2.getPersistentDataContainer();
+            // ステータスのLoreの後ろに足す
+            if (recipeBookGrade != null) {
+                ItemMeta metaBook = item.getItemMeta();
+                List<String> lore = metaBook.hasLore() ? metaBook.getLore() : new ArrayList<>();
+                String gradeName = (recipeBookGrade == 0) ? "全等級" : "等級 " + recipeBookGrade;
+                lore.add(ChatColor.GOLD + "右クリックで使用: " + ChatColor.WHITE + "未習得の" + gradeName + "レシピを獲得");
+                metaBook.setLore(lore);
+                item.setItemMeta(metaBook);
+            }
 
-                    // 回復量（例: DOUBLEで保存）
-                    container.set(RECOVERY_AMOUNT_KEY, PersistentDataType.DOUBLE, recoveryAmount);
+            if (durability > 0) {
+                item.setData(DataComponentTypes.MAX_DAMAGE, durability);
+            }
+            if (equippable != null) {
+                item.setData(DataComponentTypes.EQUIPPABLE, equippable);
+            }
+            if (armorTrim != null) {
+                item.setData(DataComponentTypes.TRIM, armorTrim);
+            }
+            if (canBreak != null) {
+                item.setData(DataComponentTypes.CAN_BREAK, canBreak);
+            }
+            return item;
+        }
 
-                    // クールダウン（例: INTEGERで保存）
-                    if (cooldownSeconds > 0) {
-                        container.set(COOLDOWN_KEY, PersistentDataType.INTEGER, cooldownSeconds);
-                    }
+        private ItemStack getPrototype() {
+            ItemStack p = prototype;
+            if (p == null) {
+                p = buildPrototype();
+                prototype = p;
+            }
+            return p;
+        }
 
-                    item.setItemMeta(meta2);
-                }
+        private ItemStack buildPrototype() {
+            ItemStack item = new ItemStack(material);
+            ItemMeta meta = item.getItemMeta();
+            if (meta == null) return item;
 
-                //   recipe_book_grade: 2  (Grade 2のレシピからランダム)
-                //   recipe_book_grade: 0  (全Gradeからランダム)
-                int recipeBookGrade = config.getInt(key + ".recipe_book_grade", -1);
-
-                if (recipeBookGrade >= -1) { // -1以外なら設定ありとみなす（0も許可）
-                    // recipe_book_gradeキーが存在しない場合は -1 が返るが、
-                    // 明示的に設定したい場合は getInt のデフォルト値をチェックする必要があるため、
-                    // config.contains チェックの方が安全です。
-                    if (config.contains(key + ".recipe_book_grade")) {
-                        ItemMeta metaBook = item.getItemMeta();
-                        metaBook.getPersistentDataContainer().set(ItemFactory.RECIPE_BOOK_KEY, PersistentDataType.INTEGER, recipeBookGrade);
-
-                        // 分かりやすくLoreに追加しても良い
-                        List<String> lore = metaBook.hasLore() ? metaBook.getLore() : new ArrayList<>();
-                        String gradeName = (recipeBookGrade == 0) ? "全等級" : "等級 " + recipeBookGrade;
-                        lore.add(ChatColor.GOLD + "右クリックで使用: " + ChatColor.WHITE + "未習得の" + gradeName + "レシピを獲得");
-                        metaBook.setLore(lore);
-
-                        item.setItemMeta(metaBook);
-                    }
+            if (textureUrl != null) {
+                try {
+                    // Create a custom PlayerProfile with the texture URL
+                    PlayerProfile profile = Bukkit.createPlayerProfile(UUID.randomUUID());
+                    PlayerTextures textures = profile.getTextures();
+                    textures.setSkin(new URL(textureUrl));
+                    profile.setTextures(textures);
+                    ((SkullMeta) meta).setOwnerProfile(profile);
+                } catch (Exception e) {
+                    System.err.println("Failed to set custom texture for player head: " + id);
+                    e.printStackTrace();
                 }
+            }
 
-                if (config.isConfigurationSection(key + ".on_hit")) {
-                    ItemMeta meta3 = item.getItemMeta();
-                    PersistentDataContainer container = meta3.getPersistentDataContainer();
-
-                    double chance = config.getDouble(key + ".on_hit.chance", 0.0);
-                    int cooldown = config.getInt(key + ".on_hit.cooldown", 0);
-                    String skillId = config.getString(key + ".on_hit.mythic_skill_id", null);
+            if (customModelData != 0) {
+                meta.setCustomModelData(customModelData);
+            }
 
-                    if (skillId != null) {
-                        // PDCに保存
-                        container.set(SKILL_CHANCE_KEY, PersistentDataType.DOUBLE, chance);
-                        container.set(SKILL_COOLDOWN_KEY, PersistentDataType.INTEGER, cooldown);
-                        container.set(SKILL_ID_KEY, PersistentDataType.STRING, skillId);
+            meta.setDisplayName(name);
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            container.set(new NamespacedKey(Deepwither.getInstance(), CUSTOM_ID_KEY), PersistentDataType.STRING, id);
 
-                        item.setItemMeta(meta3);
-                        // System.out.println(key + "にOnHitスキル: " + skillId + " (確率: " + chance + "%) を設定"); // デバッグ用
-                    }
-                }
+            if (unbreakable) {
+                meta.setUnbreakable(true);
+            }
+            if (chargeType != null) {
+                container.set(CHARGE_ATTACK_KEY, PersistentDataType.STRING, chargeType);
+            }
+            if (companionType != null) {
+                container.set(Deepwither.getInstance().getCompanionManager().COMPANION_ID_KEY, PersistentDataType.STRING, companionType);
+            }
+            if (raidBossId != null) {
+                container.set(new NamespacedKey(Deepwither.getInstance(), "raid_boss_id"), PersistentDataType.STRING, raidBossId);
+            }
+            if (wand) {
+                container.set(IS_WAND, PersistentDataType.BOOLEAN, true);
+            }
+            if (setPartner != null) {
+                container.set(ItemFactory.SET_PARTNER_KEY, PersistentDataType.STRING, setPartner);
+            }
 
-                int durability = config.getInt(key + ".durability",0);
-                if (durability > 0){
-                    item.setData(DataComponentTypes.MAX_DAMAGE,durability);
+            if (recoveryAmount > 0.0) {
+                // 回復量（例: DOUBLEで保存）
+                container.set(RECOVERY_AMOUNT_KEY, PersistentDataType.DOUBLE, recoveryAmount);
+                // クールダウン（例: INTEGERで保存）
+                if (cooldownSeconds > 0) {
+                    container.set(COOLDOWN_KEY, PersistentDataType.INTEGER, cooldownSeconds);
                 }
+            }
 
-                String customArmorAssetId = config.getString(key + ".custom_armor");
-
-                if (customArmorAssetId != null) {
-                    // 1. 適切な EquipmentSlot を Material から決定する
-                    EquipmentSlot slot = getSlotFromMaterial(material);
+            if (recipeBookGrade != null) {
+                container.set(ItemFactory.RECIPE_BOOK_KEY, PersistentDataType.INTEGER, recipeBookGrade);
+            }
 
-                    if (slot != null) {
+            if (onHitSkillId != null) {
+                container.set(SKILL_CHANCE_KEY, PersistentDataType.DOUBLE, onHitChance);
+                container.set(SKILL_COOLDOWN_KEY, PersistentDataType.INTEGER, onHitCooldown);
+                container.set(SKILL_ID_KEY, PersistentDataType.STRING, onHitSkillId);
+            }
 
-                        NamespacedKey custom_armor_id = NamespacedKey.minecraft(customArmorAssetId);
+            item.setItemMeta(meta);
+            return item;
+        }
 
-                        item.setData(DataComponentTypes.EQUIPPABLE, Equippable.equippable(slot).assetId(custom_armor_id).build());
-                    } else {
-                        System.err.println("Custom Armor Asset IDが設定されていますが、Material (" + materialName + ") は認識可能な防具/武器ではありません。");
-                    }
-                }
+        private static Equippable parseEquippable(String id, @Nullable String customArmorAssetId, Material material) {
+            if (customArmorAssetId == null) return null;
 
+            // 適切な EquipmentSlot を Material から決定する
+            EquipmentSlot slot = getSlotFromMaterial(material);
+            if (slot == null) {
+                System.err.println("Custom Armor Asset IDが設定されていますが、Material (" + material.name() + ") は認識可能な防具/武器ではありません。");
+                return null;
+            }
+            NamespacedKey custom_armor_id = NamespacedKey.minecraft(customArmorAssetId);
+            return Equippable.equippable(slot).assetId(custom_armor_id).build();
+        }
 
-                String armortrim = config.getString(key + ".armortrim");
-                String armortrimmaterial = config.getString(key + ".armortrimmaterial");
-                if (armortrim != null && armortrimmaterial != null) {
-                    // 1. 文字列をNamespacedKeyに変換
-                    NamespacedKey trimKey = NamespacedKey.minecraft(armortrim);
-                    NamespacedKey materialKey = NamespacedKey.minecraft(armortrimmaterial);
+        private static ItemArmorTrim parseArmorTrim(String id, @Nullable String armortrim, @Nullable String armortrimmaterial) {
+            if (armortrim == null || armortrimmaterial == null) return null;
 
-                    // 2. Registry.TRIM_PATTERNS と Registry.TRIM_MATERIALS からオブジェクトを取得
-                    //    注: Registryクラスは Paper 1.20.5+ で非推奨になる可能性があります。
-                    TrimPattern trimPattern = Bukkit.getRegistry(TrimPattern.class).get(trimKey);
-                    TrimMaterial trimMaterial = Bukkit.getRegistry(TrimMaterial.class).get(materialKey);
+            // Registry.TRIM_PATTERNS と Registry.TRIM_MATERIALS からオブジェクトを取得
+            TrimPattern trimPattern = Bukkit.getRegistry(TrimPattern.class).get(NamespacedKey.minecraft(armortrim));
+            TrimMaterial trimMaterial = Bukkit.getRegistry(TrimMaterial.class).get(NamespacedKey.minecraft(armortrimmaterial));
+            if (trimPattern == null || trimMaterial == null) {
+                System.err.println("Failed to get trim pattern or material for item: " + id);
+                return null;
+            }
+            return ItemArmorTrim.itemArmorTrim(new ArmorTrim(trimMaterial, trimPattern));
+        }
 
-                    // 取得したオブジェクトがnullでないことを確認
-                    if (trimPattern != null && trimMaterial != null) {
-                        // 3. ArmorTrimオブジェクトを作成
-                        ArmorTrim armorTrim = new ArmorTrim(trimMaterial, trimPattern);
+        private static ItemAdventurePredicate parseCanBreak(List<String> canBreakBlocks) {
+            if (canBreakBlocks.isEmpty()) return null;
 
-                        // 4. DataComponentTypes.TRIM に ArmorTrim を直接セット
-                        item.setData(DataComponentTypes.TRIM, ItemArmorTrim.itemArmorTrim(armorTrim));
+            RegistryKey<BlockType> blockRegistryKey = RegistryKey.BLOCK;
+            Registry<BlockType> blockRegistry = Bukkit.getRegistry(BlockType.class);
+            List<TypedKey<BlockType>> typedBlockKeys = new ArrayList<>();
 
-                        // Debugging message to confirm the trim was applied.
-                        //System.out.println("Applied armor trim: " + armortrim + " with material: " + armortrimmaterial + " to item " + key);
-                    } else {
-                        System.err.println("Failed to get trim pattern or material for item: " + key);
-                    }
+            for (String blockId : canBreakBlocks) {
+                NamespacedKey blockKey;
+                if (!blockId.contains(":")) {
+                    blockKey = NamespacedKey.minecraft(blockId.toLowerCase());
+                } else {
+                    blockKey = NamespacedKey.fromString(blockId);
                 }
 
-                List<String> canBreakBlocks = config.getStringList(key + ".can_destroy");
-
-                if (!canBreakBlocks.isEmpty()) {
-
-                    RegistryKey<BlockType> blockRegistryKey = RegistryKey.BLOCK;
-                    Registry<BlockType> blockRegistry = Bukkit.getRegistry(BlockType.class);
-                    List<TypedKey<BlockType>> typedBlockKeys = new ArrayList<>();
-
-                    for (String blockId : canBreakBlocks) {
-                        NamespacedKey blockKey;
-                        if (!blockId.contains(":")) {
-                            blockKey = NamespacedKey.minecraft(blockId.toLowerCase());
-                        } else {
-                            blockKey = NamespacedKey.fromString(blockId);
-                        }
-
-                        if (blockKey != null && blockRegistry.get(blockKey) != null) {
-                            typedBlockKeys.add(TypedKey.create(blockRegistryKey, blockKey));
-                        } else {
-                            System.err.println("無効なブロックID: " + blockId);
-                        }
-                    }
-
-                    if (!typedBlockKeys.isEmpty()) {
-                        // 【修正1】変数の型を RegistryKeySet に変更
-                        // RegistrySet.keySet(...) は RegistryKeySet を返します
-                        RegistryKeySet<BlockType> blockKeySet = RegistrySet.keySet(blockRegistryKey, typedBlockKeys);
-
-                        // 【修正2】BlockPredicate.predicate() からビルダーを開始
-                        // blocks() は RegistryKeySet を要求します
-                        BlockPredicate blockPredicate = BlockPredicate.predicate()
-                                .blocks(blockKeySet)
-                                .build();
-
-                        // 【修正3】List.of() でラップして渡す
-                        // itemAdventurePredicate は List<BlockPredicate> を要求します
-                        ItemAdventurePredicate canBreakPredicate = ItemAdventurePredicate.itemAdventurePredicate(List.of(blockPredicate));
-
-                        item.setData(DataComponentTypes.CAN_BREAK, canBreakPredicate);
-                    }
+                if (blockKey != null && blockRegistry.get(blockKey) != null) {
+                    typedBlockKeys.add(TypedKey.create(blockRegistryKey, blockKey));
+                } else {
+                    System.err.println("無効なブロックID: " + blockId);
                 }
-
-                result.put(key, item);
-            } catch (Exception e) {
-                System.err.println("Error loading item '" + key + "': " + e.getMessage());
-                e.printStackTrace();
             }
+            if (typedBlockKeys.isEmpty()) return null;
+
+            // RegistrySet.keySet(...) は RegistryKeySet を返し、BlockPredicate.blocks() はそれを要求する
+            RegistryKeySet<BlockType> blockKeySet = RegistrySet.keySet(blockRegistryKey, typedBlockKeys);
+            BlockPredicate blockPredicate = BlockPredicate.predicate()
+                    .blocks(blockKeySet)
+                    .build();
+            // itemAdventurePredicate は List<BlockPredicate> を要求する
+            return ItemAdventurePredicate.itemAdventurePredicate(List.of(blockPredicate));
         }
-        return result;
-    }
-
-    public static Map<String, ItemStack> loadItems(YamlConfiguration config, ItemFactory factory) {
-        return loadItems(config, factory, null);
     }
 }
@@ -0,0 +1,319 @@
+package com.lunar_prototype.deepwither;
+
+import org.bukkit.ChatColor;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import javax.annotation.Nullable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 戦闘中の判定に使うアイテムの要約 (カテゴリ・武器種・レアリティ・セットID・ステータス)。
+ * <p>
+ * ItemFactory がアイテムを作る時に Lore と同じ内容から1回だけ求め、PDC に1つのバイト列として保存する。
+ * 攻撃やドロップのたびに Lore の文字列を走査する代わりに、これを読むだけで判定できる。
+ * <p>
+ * StatType の並びが変わると保存済みの序数がずれるため、並びのハッシュを先頭に持ち、一致しないものは無いものとして扱う。
+ * 無いアイテムは従来どおり Lore から判定し、ログイン時の {@link #migrate(Player)} で書き直す。
+ */
+public final class ItemFingerprint {
+
+    public static final NamespacedKey KEY = new NamespacedKey(Deepwither.getInstance(), "item_fingerprint");
+    private static final NamespacedKey CUSTOM_ID_KEY = new NamespacedKey(Deepwither.getInstance(), "custom_id");
+
+    private static final StatType[] STAT_TYPES = StatType.values();
+    private static final int LAYOUT_HASH = layoutHash();
+
+    // カテゴリのフラグ
+    private static final int SWORD = 1;
+    private static final int SPEAR = 1 << 1;
+    private static final int OFF_HAND = 1 << 2;
+
+    /**
+     * レアリティと、ドロップ時の発光色
+     */
+    public enum Rarity {
+        COMMON("コモン", ChatColor.WHITE),
+        UNCOMMON("アンコモン", ChatColor.GREEN),
+        RARE("レア", ChatColor.AQUA),
+        EPIC("エピック", ChatColor.LIGHT_PURPLE),
+        LEGENDARY("レジェンダリー", ChatColor.GOLD);
+
+        // 判定順（長い名前を先に判定）
+        private static final Rarity[] MATCH_ORDER = {LEGENDARY, UNCOMMON, EPIC, COMMON, RARE};
+        private static final Rarity[] VALUES = values();
+
+        private final String label;
+        private final ChatColor glowColor;
+
+        Rarity(String label, ChatColor glowColor) {
+            this.label = label;
+            this.glowColor = glowColor;
+        }
+
+        public ChatColor getGlowColor() {
+            return glowColor;
+        }
+
+        /**
+         * 色コードを除いた「レアリティ」の行からレアリティを求める
+         */
+        @Nullable
+        static Rarity fromLine(String strippedLine) {
+            for (Rarity rarity : MATCH_ORDER) {
+                if (strippedLine.contains(rarity.label)) return rarity;
+            }
+            return null;
+        }
+    }
+
+    private final int flags;
+    private final StatType weaponStat;
+    private final Rarity rarity;
+    private final byte[] setId; // 参照された時だけ文字列にする
+    private final StatType[] statTypes;
+    private final double[] flat;
+    private final double[] percent;
+
+    private ItemFingerprint(int flags, StatType weaponStat, Rarity rarity, byte[] setId,
+                            StatType[] statTypes, double[] flat, double[] percent) {
+        this.flags = flags;
+        this.weaponStat = weaponStat;
+        this.rarity = rarity;
+        this.setId = setId;
+        this.statTypes = statTypes;
+        this.flat = flat;
+        this.percent = percent;
+    }
+
+    // ----------------------------------------------------
+    // --- 判定 ---
+    // ----------------------------------------------------
+
+    public boolean isSword() {
+        return (flags & SWORD) != 0;
+    }
+
+    public boolean isSpear() {
+        return (flags & SPEAR) != 0;
+    }
+
+    public boolean isOffHandEquipment() {
+        return (flags & OFF_HAND) != 0;
+    }
+
+    /**
+     * 武器カテゴリに応じたダメージ補正のStatType。武器でなければ null
+     */
+    @Nullable
+    public StatType getWeaponStatType() {
+        return weaponStat;
+    }
+
+    @Nullable
+    public Rarity getRarity() {
+        return rarity;
+    }
+
+    @Nullable
+    public String getSetId() {
+        return setId == null ? null : new String(setId, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 保存されている最終ステータス (rpgstats.&lt;type&gt;_flat/_percent と同じ値)
+     */
+    public StatMap getStats() {
+        StatMap stats = new StatMap();
+        for (int i = 0; i < statTypes.length; i++) {
+            stats.setFlat(statTypes[i], flat[i]);
+            stats.setPercent(statTypes[i], percent[i]);
+        }
+        return stats;
+    }
+
+    // ----------------------------------------------------
+    // --- 読み書き ---
+    // ----------------------------------------------------
+
+    /**
+     * アイテムの要約を読む。無い・古い形式の場合は null
+     */
+    @Nullable
+    public static ItemFingerprint read(@Nullable ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return null;
+        return read(item.getItemMeta().getPersistentDataContainer());
+    }
+
+    @Nullable
+    public static ItemFingerprint read(PersistentDataContainer container) {
+        byte[] data = container.get(KEY, PersistentDataType.BYTE_ARRAY);
+        return data == null ? null : decode(data);
+    }
+
+    /**
+     * Lore とステータスから要約を作って meta に書き込む。
+     * 判定は以前の Lore 走査 (DamageManager / StatManager / ItemGlowHandler) と同じ条件で行う
+     */
+    public static void write(ItemMeta meta, @Nullable List<String> lore, StatMap stats) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        String setId = container.get(ItemFactory.SET_PARTNER_KEY, PersistentDataType.STRING);
+        container.set(KEY, PersistentDataType.BYTE_ARRAY, encode(lore, setId, stats));
+    }
+
+    /**
+     * ステータスだけが書き換わった時に呼ぶ (修理など)。要約が無いアイテムでは何もしない
+     */
+    public static void updateStats(PersistentDataContainer container, StatMap stats) {
+        ItemFingerprint current = read(container);
+        if (current == null) return;
+        String setId = current.getSetId();
+        container.set(KEY, PersistentDataType.BYTE_ARRAY,
+                encode(current.flags, current.weaponStat, current.rarity, setId, stats));
+    }
+
+    private static byte[] encode(@Nullable List<String> lore, @Nullable String setId, StatMap stats) {
+        int flags = 0;
+        StatType weaponStat = null;
+        Rarity rarity = null;
+
+        if (lore != null) {
+            for (String line : lore) {
+                if (line.contains("§7カテゴリ:§f")) {
+                    if (line.contains("§7カテゴリ:§f剣") || line.contains("§7カテゴリ:§f大剣")) flags |= SWORD;
+                    if (line.contains("§7カテゴリ:§f槍")) flags |= SPEAR;
+                    if (weaponStat == null) weaponStat = weaponStatFromCategoryLine(line);
+                }
+                String stripped = ChatColor.stripColor(line);
+                if (stripped.contains("カテゴリ:オフハンド装備")) flags |= OFF_HAND;
+                if (rarity == null && stripped.contains("レアリティ")) rarity = Rarity.fromLine(stripped);
+            }
+        }
+        return encode(flags, weaponStat, rarity, setId, stats);
+    }
+
+    private static byte[] encode(int flags, @Nullable StatType weaponStat, @Nullable Rarity rarity,
+                                 @Nullable String setId, StatMap stats) {
+        byte[] setIdBytes = setId != null ? setId.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        List<StatType> types = List.copyOf(stats.getAllTypes());
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 2 + 1 + 2 + setIdBytes.length + 2 + types.size() * 18);
+        buffer.putInt(LAYOUT_HASH);
+        buffer.put((byte) flags);
+        buffer.putShort((short) (weaponStat != null ? weaponStat.ordinal() : -1));
+        buffer.put((byte) (rarity != null ? rarity.ordinal() : -1));
+        buffer.putShort((short) setIdBytes.length);
+        buffer.put(setIdBytes);
+        buffer.putShort((short) types.size());
+        for (StatType type : types) {
+            buffer.putShort((short) type.ordinal());
+            buffer.putDouble(stats.getFlat(type));
+            buffer.putDouble(stats.getPercent(type));
+        }
+        return buffer.array();
+    }
+
+    @Nullable
+    private static ItemFingerprint decode(byte[] data) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.getInt() != LAYOUT_HASH) return null;
+
+            int flags = buffer.get();
+            short weapon = buffer.getShort();
+            byte rarity = buffer.get();
+
+            byte[] setId = null;
+            int setIdLength = buffer.getShort();
+            if (setIdLength > 0) {
+                setId = new byte[setIdLength];
+                buffer.get(setId);
+            }
+
+            int count = buffer.getShort();
+            StatType[] types = new StatType[count];
+            double[] flat = new double[count];
+            double[] percent = new double[count];
+            for (int i = 0; i < count; i++) {
+                types[i] = STAT_TYPES[buffer.getShort()];
+                flat[i] = buffer.getDouble();
+                percent[i] = buffer.getDouble();
+            }
+
+            return new ItemFingerprint(flags,
+                    weapon >= 0 ? STAT_TYPES[weapon] : null,
+                    rarity >= 0 ? Rarity.VALUES[rarity] : null,
+                    setId, types, flat, percent);
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static StatType weaponStatFromCategoryLine(String line) {
+        if (line.contains("鎌")) return StatType.SCYTHE_DAMAGE;
+        if (line.contains("大剣")) return StatType.GREATSWORD_DAMAGE;
+        if (line.contains("槍")) return StatType.SPEAR_DAMAGE;
+        if (line.contains("斧")) return StatType.AXE_DAMAGE;
+        if (line.contains("メイス")) return StatType.MACE_DAMAGE;
+        if (line.contains("剣")) return StatType.SWORD_DAMAGE;
+        if (line.contains("マチェット")) return StatType.MACHETE_DAMAGE;
+        if (line.contains("ハンマー")) return StatType.HAMMER_DAMAGE;
+        if (line.contains("ハルバード")) return StatType.HALBERD_DAMAGE;
+        return null;
+    }
+
+    private static int layoutHash() {
+        int hash = 1;
+        for (StatType type : STAT_TYPES) hash = 31 * hash + type.name().hashCode();
+        return hash;
+    }
+
+    // ----------------------------------------------------
+    // --- 既存アイテムの移行 ---
+    // ----------------------------------------------------
+
+    /**
+     * プレイヤーの持ち物 (インベントリ・エンダーチェスト・アーティファクト・バックパック) のうち、
+     * 要約が無いか古いカスタムアイテムに要約を書き込む。書き込んだ数を返す
+     */
+    public static int migrate(Player player) {
+        int migrated = 0;
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (migrate(item)) migrated++;
+        }
+        for (ItemStack item : player.getEnderChest().getContents()) {
+            if (migrate(item)) migrated++;
+        }
+        ArtifactManager artifactManager = Deepwither.getInstance().getArtifactManager();
+        int artifactsMigrated = 0;
+        for (ItemStack item : artifactManager.getPlayerArtifacts(player)) {
+            if (migrate(item)) artifactsMigrated++;
+        }
+        if (migrate(artifactManager.getPlayerBackpack(player))) artifactsMigrated++;
+        // アーティファクトは変更時にしか保存されないため、書き換えた場合はここで保存する
+        if (artifactsMigrated > 0) artifactManager.save(player.getUniqueId());
+        return migrated + artifactsMigrated;
+    }
+
+    /**
+     * 1つのアイテムを移行する。対象外か移行済みなら false
+     */
+    public static boolean migrate(@Nullable ItemStack item) {
+        if (item == null || !item.hasItemMeta()) return false;
+        ItemMeta meta = item.getItemMeta();
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        if (!container.has(CUSTOM_ID_KEY, PersistentDataType.STRING)) return false;
+        if (read(container) != null) return false;
+
+        write(meta, meta.getLore(), StatManager.readLegacyStats(container));
+        item.setItemMeta(meta);
+        return true;
+    }
+}
@@ -7,7 +7,7 @@ import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -28,27 +28,43 @@ public class LevelManager implements IManager {
     }
 
     public void load(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement("SELECT level, exp FROM player_levels WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                int level = Math.min(rs.getInt("level"), MAX_LEVEL);
-                double exp = rs.getDouble("exp");
-                dataMap.put(uuid, new PlayerLevelData(level, exp));
-            } else {
-                dataMap.put(uuid, new PlayerLevelData(1, 0));
-                Deepwither.getInstance().getAttributeManager().givePoints(uuid, 2);
-                SkilltreeManager.SkillData skilldata = Deepwither.getInstance().getSkilltreeManager().load(uuid);
-                if (skilldata != null) {
-                    skilldata.setSkillPoint(skilldata.getSkillPoint() + 2);
-                    Deepwither.getInstance().getSkilltreeManager().save(uuid, skilldata);
-                }
-            }
+        try {
+            hydrate(uuid, fetch(uuid));
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * DBからレベルデータを読み込みます。マップには触らないので、非同期スレッドから呼べます。
+     * @return 保存済みのデータ。新規プレイヤーの場合は null
+     */
+    public PlayerLevelData fetch(UUID uuid) throws SQLException {
+        return db.query("SELECT level, exp FROM player_levels WHERE uuid = ?",
+                ps -> ps.setString(1, uuid.toString()),
+                rs -> rs.next()
+                        ? new PlayerLevelData(Math.min(rs.getInt("level"), MAX_LEVEL), rs.getDouble("exp"))
+                        : null);
+    }
+
+    /**
+     * 読み込み済みのデータをメモリに展開します（メインスレッド専用）。
+     * 新規プレイヤーの初期ボーナスを付与するため、属性・スキルツリーの展開が済んでから呼んでください。
+     */
+    public void hydrate(UUID uuid, PlayerLevelData loaded) {
+        if (loaded != null) {
+            dataMap.put(uuid, loaded);
+        } else {
+            dataMap.put(uuid, new PlayerLevelData(1, 0));
+            Deepwither.getInstance().getAttributeManager().givePoints(uuid, 2);
+            SkilltreeManager.SkillData skilldata = Deepwither.getInstance().getSkilltreeManager().load(uuid);
+            if (skilldata != null) {
+                skilldata.setSkillPoint(skilldata.getSkillPoint() + 2);
+                Deepwither.getInstance().getSkilltreeManager().save(uuid, skilldata);
+            }
+        }
+    }
+
     public void save(UUID uuid) {
         PlayerLevelData data = dataMap.get(uuid);
         if (data == null) return;
@@ -56,17 +72,14 @@ public class LevelManager implements IManager {
         int level = Math.min(data.getLevel(), MAX_LEVEL);
         double exp = (level >= MAX_LEVEL) ? 0 : data.getExp(); // 上限ならEXPを0に
 
-        try (PreparedStatement ps = db.getConnection().prepareStatement("""
+        db.write(uuid, """
             INSERT INTO player_levels (uuid, level, exp) VALUES (?, ?, ?)
             ON CONFLICT(uuid) DO UPDATE SET level = excluded.level, exp = excluded.exp
-        """)) {
+        """, ps -> {
             ps.setString(1, uuid.toString());
             ps.setInt(2, level);
             ps.setDouble(3, exp);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     public void addExp(Player player, double amount) {
@@ -110,6 +123,9 @@ public class LevelManager implements IManager {
             // 5. ポイント付与処理 (既存ロジック)
             Deepwither.getInstance().getAttributeManager().givePoints(player.getUniqueId(), attrPoints);
 
+            // レベル依存の最大HPが変わるのでステータスを再計算させる
+            Deepwither.getInstance().getStatManager().invalidateStatCache(player.getUniqueId());
+
             UUID uuid = player.getUniqueId();
             SkilltreeManager.SkillData skilldata = Deepwither.getInstance().getSkilltreeManager().load(uuid);
             if (skilldata != null) {
@@ -182,6 +198,7 @@ public class LevelManager implements IManager {
             }
             data.addPoints(0);
         }
+        Deepwither.getInstance().getStatManager().invalidateStatCache(uuid);
     }
 
     public PlayerLevelData get(Player player) {
@@ -7,11 +7,9 @@ import com.lunar_prototype.deepwither.aethelgard.PlayerQuestManager;
 import com.lunar_prototype.deepwither.aethelgard.QuestProgress;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldguard.WorldGuard;
-import com.sk89q.worldguard.protection.ApplicableRegionSet;
 import com.sk89q.worldguard.protection.managers.RegionManager;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
-import com.sk89q.worldguard.protection.regions.RegionQuery;
 import io.lumine.mythic.bukkit.MythicBukkit;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
@@ -48,6 +46,7 @@ public class MobSpawnManager {
     private final Map<UUID, String> outpostMobTracker = new ConcurrentHashMap<>();
 
     private final Set<String> spawnDisabledRegions = ConcurrentHashMap.newKeySet();
+    private final MobSpawnRegionTable regionTable;
 
     private final Map<Integer, MobTierConfig> mobTierConfigs = new HashMap<>();
 
@@ -55,6 +54,7 @@ public class MobSpawnManager {
         this.plugin = plugin;
         this.playerQuestManager = playerQuestManager;
         this.levelManager = new MobLevelManager(plugin);
+        this.regionTable = new MobSpawnRegionTable(plugin, spawnDisabledRegions);
         plugin.getServer().getPluginManager().registerEvents(levelManager, plugin); // イベント登録
 
         loadMobTierConfigs();
@@ -270,6 +270,7 @@ public class MobSpawnManager {
      */
     public void disableNormalSpawning(String regionId) {
         spawnDisabledRegions.add(regionId.toLowerCase());
+        regionTable.invalidateAll();
     }
 
     /**
@@ -277,6 +278,7 @@ public class MobSpawnManager {
      */
     public void enableNormalSpawning(String regionId) {
         spawnDisabledRegions.remove(regionId.toLowerCase());
+        regionTable.invalidateAll();
     }
 
     /**
@@ -303,17 +305,7 @@ public class MobSpawnManager {
      * プレイヤーがいるLocationが、現在Outpostイベントで通常スポーンが無効化されているリージョン内にあるかチェックします。
      */
     private boolean isOutpostDisabledRegion(Location loc) {
-        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-        RegionQuery query = container.createQuery();
-
-        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
-
-        for (ProtectedRegion region : set) {
-            if (spawnDisabledRegions.contains(region.getId().toLowerCase())) {
-                return true;
-            }
-        }
-        return false;
+        return regionTable.isSpawnDisabled(loc);
     }
 
     /**
@@ -664,60 +656,29 @@ public class MobSpawnManager {
         return false;
     }
 
-    // ... isSafeZone, getTierFromLocation は変更なし ...
-
+    // リージョンの判定はチャンクごとの表から引く (WorldGuard への問い合わせは表を作る時だけ)
     private boolean isSafeZone(Location loc) {
-        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-        RegionQuery query = container.createQuery();
-        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
-
-        for (ProtectedRegion region : set) {
-            String regionId = region.getId().toLowerCase();
-            // safezone または kbf が含まれているかチェック
-            if (regionId.contains("safezone") || regionId.contains("kbf")) {
-                return true;
-            }
-        }
-        return false;
+        return regionTable.isSafeZone(loc);
     }
 
     public int getTierFromLocation(Location loc) {
-        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-        RegionQuery query = container.createQuery();
-        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
-
-        int maxTier = 0;
-
-        for (ProtectedRegion region : set) {
-            String id = region.getId().toLowerCase();
+        return regionTable.getTier(loc);
+    }
 
-            if (id.contains("safezone")) {
-                return 0;
-            }
+    public int getRegionTableChunkCount() {
+        return regionTable.getCachedChunkCount();
+    }
 
-            int tierIndex = id.indexOf("t");
-            if (tierIndex != -1 && tierIndex + 1 < id.length()) {
-                char nextChar = id.charAt(tierIndex + 1);
+    public long getRegionTableHits() {
+        return regionTable.getHits();
+    }
 
-                if (Character.isDigit(nextChar)) {
-                    StringBuilder tierStr = new StringBuilder();
-                    int i = tierIndex + 1;
-                    while (i < id.length() && Character.isDigit(id.charAt(i))) {
-                        tierStr.append(id.charAt(i));
-                        i++;
-                    }
+    public long getRegionTableBuilds() {
+        return regionTable.getBuilds();
+    }
 
-                    try {
-                        int tier = Integer.parseInt(tierStr.toString());
-                        if (tier > maxTier) {
-                            maxTier = tier;
-                        }
-                    } catch (NumberFormatException ignored) {
-                    }
-                }
-            }
-        }
-        return maxTier;
+    public long getRegionTableMixedLookups() {
+        return regionTable.getMixedLookups();
     }
 
     // MobSpawnManagerの内部クラスとして定義
@@ -0,0 +1,191 @@
+package com.lunar_prototype.deepwither;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@link MobSpawnManager} のリージョン判定 (ティア・セーフゾーン・通常スポーン無効) をチャンクごとに覚えておく表。
+ * <p>
+ * 掛かっているリージョンが全てチャンクの縦一列を丸ごと覆っているチャンクは、チャンク内のどこでも結果が同じなので
+ * 初回に1度だけ求めて1つの int にまとめる。リージョンの境界がチャンクの途中にあるチャンク (高さ制限のあるリージョンを含む) は
+ * 「混在」として覚え、そこだけは座標ごとに {@link RegionMembershipService#getRegionsAt} から求める。
+ * <p>
+ * {@link RegionMembershipService} がキャッシュを捨てた時 (リージョン系コマンド・{@code /dw reload}) と、
+ * 通常スポーン無効のリージョンが変わった時に作り直す。メインスレッド専用。
+ */
+class MobSpawnRegionTable {
+
+    private static final int MIXED = -1;
+    private static final int TIER_MASK = 0xFFFF;
+    private static final int SAFE = 1 << 16;
+    private static final int SPAWN_DISABLED = 1 << 17;
+
+    private final Deepwither plugin;
+    private final Set<String> spawnDisabledRegions;
+
+    // ワールドUID -> チャンクキー -> まとめた判定結果 (または MIXED)
+    private final Map<UUID, Map<Long, Integer>> chunks = new HashMap<>();
+    private int regionGeneration = -1;
+
+    private long hits = 0;
+    private long builds = 0;
+    private long mixedLookups = 0;
+
+    MobSpawnRegionTable(Deepwither plugin, Set<String> spawnDisabledRegions) {
+        this.plugin = plugin;
+        this.spawnDisabledRegions = spawnDisabledRegions;
+    }
+
+    int getTier(Location loc) {
+        return lookup(loc) & TIER_MASK;
+    }
+
+    boolean isSafeZone(Location loc) {
+        return (lookup(loc) & SAFE) != 0;
+    }
+
+    boolean isSpawnDisabled(Location loc) {
+        return (lookup(loc) & SPAWN_DISABLED) != 0;
+    }
+
+    /**
+     * 通常スポーン無効のリージョンが変わった時などに呼ぶ
+     */
+    void invalidateAll() {
+        chunks.clear();
+    }
+
+    private int lookup(Location loc) {
+        World world = loc.getWorld();
+        RegionMembershipService regions = plugin.getRegionMembershipService();
+        if (world == null || regions == null) return 0;
+
+        if (regions.getGeneration() != regionGeneration) {
+            chunks.clear();
+            regionGeneration = regions.getGeneration();
+        }
+
+        int cx = loc.getBlockX() >> 4;
+        int cz = loc.getBlockZ() >> 4;
+        Map<Long, Integer> worldChunks = chunks.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        long key = ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        Integer info = worldChunks.get(key);
+        if (info == null) {
+            info = buildChunk(regions, world, cx, cz);
+            worldChunks.put(key, info);
+            builds++;
+        } else {
+            hits++;
+        }
+
+        if (info != MIXED) return info;
+        mixedLookups++;
+        return pack(regions.getRegionsAt(loc));
+    }
+
+    private int buildChunk(RegionMembershipService regions, World world, int cx, int cz) {
+        List<ProtectedRegion> inColumn = regions.getRegionsInColumn(world, cx, cz);
+        Set<String> ids = new HashSet<>();
+        for (ProtectedRegion region : inColumn) {
+            if (!coversColumn(region, world, cx, cz)) return MIXED;
+            ids.add(region.getId().toLowerCase());
+        }
+        return pack(ids);
+    }
+
+    /**
+     * リージョンがチャンクの縦一列の全ブロックを含むか
+     */
+    private static boolean coversColumn(ProtectedRegion region, World world, int cx, int cz) {
+        int minX = cx << 4, minZ = cz << 4;
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        if (min.getY() > world.getMinHeight() || max.getY() < world.getMaxHeight() - 1) return false;
+        if (min.getX() > minX || max.getX() < minX + 15 || min.getZ() > minZ || max.getZ() < minZ + 15) return false;
+        if (region instanceof ProtectedCuboidRegion) return true;
+
+        // 多角形などは高さによらないので、一番下の段の256列を確かめる
+        int y = world.getMinHeight();
+        for (int x = minX; x <= minX + 15; x++) {
+            for (int z = minZ; z <= minZ + 15; z++) {
+                if (!region.contains(x, y, z)) return false;
+            }
+        }
+        return true;
+    }
+
+    private int pack(Set<String> regionIds) {
+        int info = Math.min(parseTier(regionIds), TIER_MASK);
+        for (String id : regionIds) {
+            // safezone または kbf が含まれているかチェック
+            if (id.contains("safezone") || id.contains("kbf")) info |= SAFE;
+            if (spawnDisabledRegions.contains(id)) info |= SPAWN_DISABLED;
+        }
+        return info;
+    }
+
+    private static int parseTier(Set<String> regionIds) {
+        int maxTier = 0;
+
+        for (String id : regionIds) {
+            if (id.contains("safezone")) {
+                return 0;
+            }
+
+            int tierIndex = id.indexOf("t");
+            if (tierIndex != -1 && tierIndex + 1 < id.length()) {
+                char nextChar = id.charAt(tierIndex + 1);
+
+                if (Character.isDigit(nextChar)) {
+                    StringBuilder tierStr = new StringBuilder();
+                    int i = tierIndex + 1;
+                    while (i < id.length() && Character.isDigit(id.charAt(i))) {
+                        tierStr.append(id.charAt(i));
+                        i++;
+                    }
+
+                    try {
+                        int tier = Integer.parseInt(tierStr.toString());
+                        if (tier > maxTier) {
+                            maxTier = tier;
+                        }
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return maxTier;
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    int getCachedChunkCount() {
+        int total = 0;
+        for (Map<Long, Integer> worldChunks : chunks.values()) total += worldChunks.size();
+        return total;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getBuilds() {
+        return builds;
+    }
+
+    long getMixedLookups() {
+        return mixedLookups;
+    }
+}
@@ -0,0 +1,175 @@
+package com.lunar_prototype.deepwither;
+
+import com.lunar_prototype.deepwither.crafting.CraftingData;
+import com.lunar_prototype.deepwither.crafting.CraftingManager;
+import com.lunar_prototype.deepwither.data.DailyTaskData;
+import com.lunar_prototype.deepwither.data.PlayerQuestData;
+import com.lunar_prototype.deepwither.profession.PlayerProfessionData;
+import com.lunar_prototype.deepwither.profession.ProfessionManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * プレイヤー単位のデータ（レベル・属性・スキルツリー・デイリータスク・クラフト・職業・アーティファクト・トレーダークエスト）のロードとセーブをまとめて行う。
+ * <p>
+ * ロードは AsyncPlayerPreLoginEvent のスレッドで全テーブルを1本のコネクションから読み込み、
+ * 参加時にメインスレッドで各マネージャーへ一度に展開する。メインスレッドではDBもファイルも読まない。
+ * 読む前にそのプレイヤーの書き込み (前回の退出時の保存など) の反映だけを待ち、他のプレイヤーの書き込みは待たない。
+ * セーブは退出時に全マネージャーの書き込みを1つにまとめてDBの書き込みキューに積む。
+ */
+public class PlayerSessionLoader implements Listener {
+
+    private final Deepwither plugin;
+    private final DatabaseManager db;
+    private final LevelManager levelManager;
+    private final AttributeManager attributeManager;
+    private final SkilltreeManager skilltreeManager;
+    private final DailyTaskManager dailyTaskManager;
+    private final CraftingManager craftingManager;
+    private final ProfessionManager professionManager;
+    private final ArtifactManager artifactManager;
+    private final TraderQuestManager traderQuestManager;
+
+    // ログイン前に読み込んだデータ（参加時に取り出す）
+    private final Map<UUID, PlayerSnapshot> preloaded = new ConcurrentHashMap<>();
+    // 読み込み中のプレイヤー
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+    // 読み込み中に同じUUIDの前のセッションが退出したもの（読んだ内容が古い可能性がある）
+    private final Set<UUID> staleLoads = ConcurrentHashMap.newKeySet();
+
+    private record PlayerSnapshot(PlayerAttributeData attributes, SkilltreeManager.SkillData skills,
+                                  PlayerLevelData level, DailyTaskData dailyTasks,
+                                  CraftingData crafting, PlayerProfessionData profession,
+                                  ArtifactManager.ArtifactData artifacts,
+                                  PlayerQuestData traderQuests) {}
+
+    public PlayerSessionLoader(Deepwither plugin, DatabaseManager db, LevelManager levelManager,
+                               AttributeManager attributeManager, SkilltreeManager skilltreeManager,
+                               DailyTaskManager dailyTaskManager, CraftingManager craftingManager,
+                               ProfessionManager professionManager, ArtifactManager artifactManager,
+                               TraderQuestManager traderQuestManager) {
+        this.plugin = plugin;
+        this.db = db;
+        this.levelManager = levelManager;
+        this.attributeManager = attributeManager;
+        this.skilltreeManager = skilltreeManager;
+        this.dailyTaskManager = dailyTaskManager;
+        this.craftingManager = craftingManager;
+        this.professionManager = professionManager;
+        this.artifactManager = artifactManager;
+        this.traderQuestManager = traderQuestManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent e) {
+        if (e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        UUID uuid = e.getUniqueId();
+        loading.add(uuid);
+        try {
+            PlayerSnapshot snapshot = fetch(uuid);
+            if (!staleLoads.remove(uuid)) {
+                preloaded.put(uuid, snapshot);
+            }
+        } catch (Exception ex) {
+            // 失敗しても参加時にメインスレッドで読み直す
+            plugin.getLogger().log(Level.WARNING, "ログイン前のプレイヤーデータ読み込みに失敗しました: " + uuid, ex);
+        } finally {
+            loading.remove(uuid);
+            staleLoads.remove(uuid);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLogin(PlayerLoginEvent e) {
+        // 他のプラグインにキックされた場合は参加イベントが来ないので捨てる
+        if (e.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preloaded.remove(e.getPlayer().getUniqueId());
+        }
+    }
+
+    // 他のリスナーが参加時にデータを参照できるよう、最初に展開する
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent e) {
+        Player player = e.getPlayer();
+        UUID uuid = player.getUniqueId();
+
+        PlayerSnapshot snapshot = preloaded.remove(uuid);
+        if (snapshot == null) {
+            // ログイン前に読めなかった場合のみ、従来通りメインスレッドで読み込む
+            try {
+                snapshot = fetch(uuid);
+            } catch (SQLException ex) {
+                plugin.getLogger().log(Level.SEVERE, "プレイヤーデータの読み込みに失敗しました: " + player.getName(), ex);
+                return;
+            }
+        }
+        hydrate(uuid, snapshot);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        UUID uuid = e.getPlayer().getUniqueId();
+
+        // 二重ログインで古いセッションが退出した場合、その前に読み込んだ内容は使わない
+        preloaded.remove(uuid);
+        if (loading.contains(uuid)) {
+            staleLoads.add(uuid);
+        }
+
+        db.coalesceWrites(uuid, () -> {
+            levelManager.unload(uuid);
+            attributeManager.unload(uuid);
+            skilltreeManager.unload(uuid);
+            dailyTaskManager.saveAndUnloadPlayer(uuid);
+            professionManager.saveAndUnloadPlayer(e.getPlayer());
+        }).exceptionally(ex -> {
+            plugin.getLogger().log(Level.SEVERE, "退出時のプレイヤーデータ保存に失敗しました: " + uuid, ex);
+            return null;
+        });
+        // クラフトデータはファイル保存のため別扱い
+        craftingManager.saveAndUnloadPlayer(uuid);
+        // アーティファクトは変更時に保存済み
+        artifactManager.unload(uuid);
+    }
+
+    private PlayerSnapshot fetch(UUID uuid) throws SQLException {
+        // ファイル読み込みの間はDBコネクションを借りないよう先に済ませる
+        CraftingData crafting = craftingManager.fetchPlayer(uuid);
+        db.awaitWritesFor(uuid);
+        return db.readBatch(() -> new PlayerSnapshot(
+                attributeManager.fetch(uuid),
+                skilltreeManager.fetch(uuid),
+                levelManager.fetch(uuid),
+                dailyTaskManager.fetchPlayer(uuid),
+                crafting,
+                professionManager.fetchPlayer(uuid),
+                artifactManager.fetch(uuid),
+                traderQuestManager.fetch(uuid)));
+    }
+
+    private void hydrate(UUID uuid, PlayerSnapshot snapshot) {
+        attributeManager.hydrate(uuid, snapshot.attributes());
+        skilltreeManager.hydrate(uuid, snapshot.skills());
+        // 新規プレイヤーの初期ポイント付与があるので、属性とスキルツリーの後に展開する
+        levelManager.hydrate(uuid, snapshot.level());
+        dailyTaskManager.hydrate(uuid, snapshot.dailyTasks());
+        craftingManager.hydrate(uuid, snapshot.crafting());
+        professionManager.hydrate(uuid, snapshot.profession());
+        artifactManager.hydrate(uuid, snapshot.artifacts());
+        traderQuestManager.hydrate(uuid, snapshot.traderQuests());
+    }
+}
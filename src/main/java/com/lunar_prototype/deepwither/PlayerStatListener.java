@@ -1,8 +1,11 @@
 package com.lunar_prototype.deepwither;
 
+import io.papermc.paper.event.player.PlayerInventorySlotChangeEvent;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerItemHeldEvent;
 import org.bukkit.event.player.PlayerSwapHandItemsEvent;
@@ -14,6 +17,9 @@ import org.bukkit.event.inventory.InventoryType;
 
 public class PlayerStatListener implements Listener {
 
+    // PlayerInventory のスロット番号 36-39 が防具、40 がオフハンド
+    private static final int ARMOR_SLOT_START = 36;
+
     private StatManager statManager;
 
     public PlayerStatListener(StatManager statManager) {
@@ -23,6 +29,12 @@ public class PlayerStatListener implements Listener {
     @EventHandler
     public void onJoin(PlayerJoinEvent e) {
         Bukkit.getScheduler().runTaskLater(Deepwither.getInstance(), () -> {
+            if (!e.getPlayer().isOnline()) return;
+            // 要約 (ItemFingerprint) の無い古いアイテムを移行してからステータスを計算する
+            if (ItemFingerprint.migrate(e.getPlayer()) > 0) {
+                statManager.invalidateStatCache(e.getPlayer().getUniqueId());
+            }
+
             statManager.updatePlayerStats(e.getPlayer());
             double maxMana = StatManager.getTotalStatsFromEquipment(e.getPlayer()).getFlat(StatType.MAX_MANA);
             Deepwither.getInstance().getManaManager().get(e.getPlayer().getUniqueId()).setMaxMana(maxMana);
@@ -42,8 +54,27 @@ public class PlayerStatListener implements Listener {
         }, 5L);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        statManager.invalidateStatCache(e.getPlayer().getUniqueId());
+    }
+
+    /**
+     * 手持ち/防具/オフハンドの中身が変わった（耐久値の減少も含む）時にキャッシュを破棄する。
+     * ここではステータス同期は行わず、次回参照時の再計算に任せる。
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEquipmentSlotChange(PlayerInventorySlotChangeEvent e) {
+        Player player = e.getPlayer();
+        int slot = e.getSlot();
+        if (slot == player.getInventory().getHeldItemSlot() || slot >= ARMOR_SLOT_START) {
+            statManager.invalidateStatCache(player.getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onHeldChange(PlayerItemHeldEvent e) {
+        statManager.invalidateStatCache(e.getPlayer().getUniqueId());
         Bukkit.getScheduler().runTaskLater(Deepwither.getInstance(), () -> {
             statManager.updatePlayerStats(e.getPlayer());
             double maxMana = StatManager.getTotalStatsFromEquipment(e.getPlayer()).getFlat(StatType.MAX_MANA);
@@ -0,0 +1,292 @@
+package com.lunar_prototype.deepwither;
+
+import com.lunar_prototype.deepwither.util.IManager;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * WorldGuard リージョンの所属判定をまとめて行う。
+ * <p>
+ * チャンクセクション(16x16x16)ごとに「そのセクションに掛かっているリージョン」をキャッシュし、座標の判定はその中だけで行う。
+ * プレイヤーごとに現在いるリージョンIDの集合を持ち、ブロックを跨ぐ移動で集合が変わった時だけ登録されたハンドラを呼ぶ。
+ * 移動を監視するリスナーはそれぞれ WorldGuard に問い合わせず、ここからの通知を受け取る。
+ * <p>
+ * WorldGuard にはリージョン変更のイベントがないため、リージョン系のコマンドが実行された次のtickと
+ * {@code /dw reload} でキャッシュを捨てる。メインスレッド専用。
+ */
+public class RegionMembershipService implements IManager, Listener {
+
+    /**
+     * リージョンの出入りの通知先。
+     * 参加・テレポート後など追跡を始めた最初の移動でも呼ばれる（その場合 previous と current が同じこともある）
+     */
+    public interface TransitionHandler {
+        /**
+         * @param previous 移動前にいたリージョンID (小文字)
+         * @param current  移動後にいるリージョンID (小文字)
+         */
+        void onTransition(Player player, Location to, Set<String> previous, Set<String> current);
+    }
+
+    private static final String PROBE_ID = "__deepwither_probe__";
+    private static final Set<String> REGION_COMMANDS = Set.of("rg", "region", "regions", "worldguard", "wg");
+
+    private final Deepwither plugin;
+    private final List<TransitionHandler> handlers = new CopyOnWriteArrayList<>();
+
+    // ワールドUID -> セクションキー -> セクションに掛かるリージョン
+    private final Map<UUID, Map<Long, List<ProtectedRegion>>> sectionCache = new HashMap<>();
+    // プレイヤーが現在いるリージョン。テレポート等で不明になったものは持たない
+    private final Map<UUID, Set<String>> current = new HashMap<>();
+
+    private boolean enabled;
+    private boolean invalidationScheduled;
+    // invalidateAll のたびに増える。これを覚えておけば、ここを元にした別のキャッシュも捨て時が分かる
+    private int generation = 0;
+
+    public RegionMembershipService(Deepwither plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void init() {
+        enabled = Bukkit.getPluginManager().isPluginEnabled("WorldGuard");
+    }
+
+    @Override
+    public void shutdown() {
+        sectionCache.clear();
+        current.clear();
+        handlers.clear();
+    }
+
+    public void addTransitionHandler(TransitionHandler handler) {
+        handlers.add(handler);
+    }
+
+    // ----------------------------------------------------
+    // --- 判定 ---
+    // ----------------------------------------------------
+
+    /**
+     * 指定地点を含むリージョンIDの集合 (小文字)
+     */
+    public Set<String> getRegionsAt(Location loc) {
+        if (!enabled || loc.getWorld() == null) return Collections.emptySet();
+
+        int x = loc.getBlockX(), y = loc.getBlockY(), z = loc.getBlockZ();
+        List<ProtectedRegion> candidates = getSectionRegions(loc.getWorld(), x >> 4, y >> 4, z >> 4);
+        if (candidates.isEmpty()) return Collections.emptySet();
+
+        BlockVector3 point = BlockVector3.at(x, y, z);
+        Set<String> ids = new HashSet<>();
+        for (ProtectedRegion region : candidates) {
+            if (region.contains(point)) ids.add(region.getId().toLowerCase());
+        }
+        return ids.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * プレイヤーが現在いるリージョンIDの集合 (小文字)。まだ追跡していなければ現在地から求める
+     */
+    public Set<String> getCurrentRegions(Player player) {
+        return current.computeIfAbsent(player.getUniqueId(), k -> getRegionsAt(player.getLocation()));
+    }
+
+    /**
+     * ID に fragment を含むリージョンが集合内にあるか
+     */
+    public static boolean containsMatching(Set<String> regionIds, String fragment) {
+        for (String id : regionIds) {
+            if (id.contains(fragment)) return true;
+        }
+        return false;
+    }
+
+    private List<ProtectedRegion> getSectionRegions(World world, int cx, int sy, int cz) {
+        Map<Long, List<ProtectedRegion>> worldCache = sectionCache.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        long key = sectionKey(cx, sy, cz);
+        List<ProtectedRegion> regions = worldCache.get(key);
+        if (regions == null) {
+            regions = loadSectionRegions(world, cx, sy, cz);
+            worldCache.put(key, regions);
+        }
+        return regions;
+    }
+
+    private List<ProtectedRegion> loadSectionRegions(World world, int cx, int sy, int cz) {
+        RegionManager manager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (manager == null) return Collections.emptyList();
+
+        ProtectedCuboidRegion probe = new ProtectedCuboidRegion(PROBE_ID,
+                BlockVector3.at(cx << 4, sy << 4, cz << 4),
+                BlockVector3.at((cx << 4) + 15, (sy << 4) + 15, (cz << 4) + 15));
+        List<ProtectedRegion> regions = new ArrayList<>();
+        for (ProtectedRegion region : manager.getApplicableRegions(probe)) {
+            regions.add(region);
+        }
+        return regions.isEmpty() ? Collections.emptyList() : regions;
+    }
+
+    /**
+     * チャンクの縦一列 (ワールドの最低〜最高の高さ) に少しでも掛かっているリージョン。キャッシュしない
+     */
+    public List<ProtectedRegion> getRegionsInColumn(World world, int cx, int cz) {
+        if (!enabled) return Collections.emptyList();
+        RegionManager manager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (manager == null) return Collections.emptyList();
+
+        ProtectedCuboidRegion probe = new ProtectedCuboidRegion(PROBE_ID,
+                BlockVector3.at(cx << 4, world.getMinHeight(), cz << 4),
+                BlockVector3.at((cx << 4) + 15, world.getMaxHeight() - 1, (cz << 4) + 15));
+        List<ProtectedRegion> regions = new ArrayList<>();
+        for (ProtectedRegion region : manager.getApplicableRegions(probe)) {
+            regions.add(region);
+        }
+        return regions;
+    }
+
+    private static long sectionKey(int cx, int sy, int cz) {
+        return (((long) cx & 0x3FFFFFL) << 42) | (((long) cz & 0x3FFFFFL) << 20) | ((long) sy & 0xFFFFFL);
+    }
+
+    /**
+     * リージョンの定義が変わった時に呼ぶ
+     */
+    public void invalidateAll() {
+        sectionCache.clear();
+        current.clear();
+        generation++;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    // ----------------------------------------------------
+    // --- 追跡 ---
+    // ----------------------------------------------------
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        if (!enabled || handlers.isEmpty()) return;
+
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        // ブロック座標が同じであれば処理しない（パフォーマンス対策）
+        if (from.getBlockX() == to.getBlockX() &&
+                from.getBlockY() == to.getBlockY() &&
+                from.getBlockZ() == to.getBlockZ() &&
+                from.getWorld() == to.getWorld()) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        Set<String> previous = current.get(player.getUniqueId());
+        boolean tracked = previous != null;
+        if (!tracked) previous = getRegionsAt(from);
+        Set<String> now = getRegionsAt(to);
+        current.put(player.getUniqueId(), now);
+
+        // 追跡を始めた時は、集合が変わっていなくても現在地を知らせるために呼ぶ
+        if (tracked && previous.equals(now)) return;
+        for (TransitionHandler handler : handlers) {
+            try {
+                handler.onTransition(player, to, previous, now);
+            } catch (Exception e) {
+                plugin.getLogger().warning("リージョン移動の処理中にエラーが発生しました: " + e.getMessage());
+            }
+        }
+    }
+
+    // 移動イベントを経ずに位置が変わった場合は、次の移動で移動前の地点から求め直す
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        current.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        current.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        current.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        current.remove(event.getPlayer().getUniqueId());
+    }
+
+    // ----------------------------------------------------
+    // --- リージョン変更の検知 ---
+    // ----------------------------------------------------
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        onCommand(event.getMessage().substring(1));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        onCommand(event.getCommand());
+    }
+
+    private void onCommand(String commandLine) {
+        String label = commandLine.split(" ", 2)[0].toLowerCase();
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) label = label.substring(namespace + 1);
+        if (!REGION_COMMANDS.contains(label) || invalidationScheduled) return;
+
+        // コマンドの実行後に反映されるよう次のtickで捨てる
+        invalidationScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            invalidationScheduled = false;
+            invalidateAll();
+        });
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public int getCachedSectionCount() {
+        int total = 0;
+        for (Map<Long, List<ProtectedRegion>> worldCache : sectionCache.values()) total += worldCache.size();
+        return total;
+    }
+
+    public int getTrackedPlayerCount() {
+        return current.size();
+    }
+}
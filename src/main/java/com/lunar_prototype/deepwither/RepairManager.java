@@ -105,6 +105,7 @@ public class RepairManager {
         StatMap statmap = StatManager.readStatsFromItem(item);
         statmap.setFlat(StatType.WEAR,newWearRate);
 
+        statmap.roundAll();
         PersistentDataContainer container = itemdmg.getPersistentDataContainer();
 
         for (StatType type : statmap.getAllTypes()) {
@@ -117,6 +118,7 @@ public class RepairManager {
             // PDCに新しいPercent値を書き込む
             container.set(percentKey, PersistentDataType.DOUBLE, statmap.getPercent(type));
         }
+        ItemFingerprint.updateStats(container, statmap);
 
         itemdmg.setLore(LoreBuilder.updateExistingLore(item, statmap, newWearRate, (int) statmap.getFinal(StatType.MASTERY)));
 
@@ -147,6 +149,7 @@ public class RepairManager {
         double boost = STAT_BOOST_MIN + (STAT_BOOST_MAX - STAT_BOOST_MIN) * random.nextDouble();
 
         statmap.multiplyAll(1.0 + boost);
+        statmap.roundAll();
 
         PersistentDataContainer container = meta.getPersistentDataContainer();
 
@@ -160,6 +163,7 @@ public class RepairManager {
             // PDCに新しいPercent値を書き込む
             container.set(percentKey, PersistentDataType.DOUBLE, statmap.getPercent(type));
         }
+        ItemFingerprint.updateStats(container, statmap);
 
         meta.setLore(LoreBuilder.updateExistingLore(item,statmap,0,Integer.parseInt(String.valueOf(statmap.getFinal(StatType.MASTERY)))));
 
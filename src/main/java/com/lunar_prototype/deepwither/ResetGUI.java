@@ -96,6 +96,7 @@ public class ResetGUI implements Listener {
                 data.setAllocated(type, 0);
             }
             data.addPoints(totalAllocated);
+            Deepwither.getInstance().getStatManager().invalidateStatCache(uuid);
         } else {
             player.sendMessage("§cステータスデータが読み込まれていません。");
             return;
@@ -1,19 +1,13 @@
 package com.lunar_prototype.deepwither;
 
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
-import com.sk89q.worldguard.WorldGuard;
-import com.sk89q.worldguard.protection.ApplicableRegionSet;
-import com.sk89q.worldguard.protection.regions.ProtectedRegion;
-import com.sk89q.worldguard.protection.regions.RegionContainer;
-import com.sk89q.worldguard.protection.regions.RegionQuery;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 
+import java.util.Set;
 import java.util.UUID;
 
 public class SafeZoneListener implements Listener {
@@ -21,31 +15,17 @@ public class SafeZoneListener implements Listener {
     private final Deepwither plugin; // メインクラスの参照を追加
 
     // コンストラクタを追加
-    public SafeZoneListener(Deepwither plugin) {
+    public SafeZoneListener(Deepwither plugin, RegionMembershipService regionService) {
         this.plugin = plugin;
+        regionService.addTransitionHandler(this::onRegionTransition);
     }
 
-    // プレイヤーがブロックを跨いでいない移動は無視する
-    @EventHandler
-    public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-        Location from = event.getFrom();
-        Location to = event.getTo();
-
-        // ブロック座標が同じであれば処理しない（パフォーマンス対策）
-        if (from.getBlockX() == to.getBlockX() &&
-                from.getBlockY() == to.getBlockY() &&
-                from.getBlockZ() == to.getBlockZ()) {
-            return;
-        }
-
-        // WorldGuardが有効でなければ何もしない
-        if (!org.bukkit.Bukkit.getPluginManager().isPluginEnabled("WorldGuard")) {
-            return;
-        }
-
-        boolean isOldInSafeZone = isSafeZone(from);
-        boolean isNewInSafeZone = isSafeZone(to);
+    /**
+     * リージョンの出入りがあった時に {@link RegionMembershipService} から呼ばれる
+     */
+    private void onRegionTransition(Player player, Location to, Set<String> previous, Set<String> current) {
+        boolean isOldInSafeZone = isSafeZone(previous);
+        boolean isNewInSafeZone = isSafeZone(current);
 
         // ----------------------------------------------------
         // ★ 1. セーフゾーンへの侵入をチェック
@@ -81,24 +61,11 @@ public class SafeZoneListener implements Listener {
     }
 
     /**
-     * 指定されたLocationが、名前に「safezone」を含むリージョン内にあるかを判定します。
+     * 名前に「safezone」を含むリージョンが集合内にあるかを判定します。
+     * (リージョンIDは {@link RegionMembershipService} で小文字化済み)
      */
-    private boolean isSafeZone(Location loc) {
-        // WorldGuardのAPI経由でリージョンコンテナを取得
-        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-
-        // クエリを作成し、現在の場所がどのリージョンに含まれるかを取得
-        RegionQuery query = container.createQuery();
-        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
-
-        // 適用可能なリージョンを全てチェック
-        for (ProtectedRegion region : set) {
-            // リージョンID（名前）が「safezone」を含んでいるか（大文字小文字を無視）
-            if (region.getId().toLowerCase().contains("safezone")) {
-                return true;
-            }
-        }
-        return false;
+    private boolean isSafeZone(Set<String> regionIds) {
+        return RegionMembershipService.containsMatching(regionIds, "safezone");
     }
 
     @EventHandler
@@ -67,6 +67,8 @@ public class SkilltreeGUI implements CommandExecutor, Listener {
 
         // 2. YamlConfiguration を最新の状態にする
         this.treeConfig = YamlConfiguration.loadConfiguration(treeFile);
+        // パッシブ計算用の索引も更新
+        skilltreeManager.reload();
 
         // 3. スキル定義自体(SkillLoader)もリロードが必要な場合
         // skillLoader 側に reload メソッドがある想定
@@ -2,22 +2,49 @@ package com.lunar_prototype.deepwither;
 
 import java.io.File;
 import java.io.IOException;
-import java.sql.*;
+import java.lang.reflect.Type;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.lunar_prototype.deepwither.util.IManager;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 public class SkilltreeManager implements IManager {
-    
+
+    private static final Type SKILLS_TYPE = new TypeToken<Map<String, Integer>>(){}.getType();
+    // 書き込み待ちデータをDBへ反映する間隔 (10秒)
+    private static final long FLUSH_INTERVAL_TICKS = 200L;
+    private static final String UPSERT_SQL = """
+            INSERT INTO player_skilltree (uuid, skill_point, skills)
+            VALUES (?, ?, ?)
+            ON CONFLICT(uuid) DO UPDATE SET
+                skill_point = excluded.skill_point,
+                skills = excluded.skills
+            """;
+
     private final Gson gson = new Gson();
     private File treeFile;
     private final JavaPlugin plugin;
     private YamlConfiguration treeConfig;
     private final DatabaseManager db;
 
+    // オンラインプレイヤーのスキルデータ（戦闘中はここだけを参照し、DBには触れない）
+    private final Map<UUID, SkillData> cache = new ConcurrentHashMap<>();
+    // DBへの書き込み待ち（保存時点のスナップショット）
+    private final Map<UUID, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    // tree.yaml から事前計算したバフノード (ノードID -> 1レベルあたりのステータス)
+    private volatile Map<String, List<PassiveBuff>> buffNodes = Map.of();
+    private BukkitTask flushTask;
+
+    record PassiveBuff(StatType type, double valuePerLevel) {}
+
+    private record PendingWrite(int skillPoint, String skillsJson) {}
+
     public SkilltreeManager(DatabaseManager db, JavaPlugin plugin) {
         this.db = db;
         this.plugin = plugin;
@@ -35,28 +62,102 @@ public class SkilltreeManager implements IManager {
             }
         }
         treeConfig = YamlConfiguration.loadConfiguration(treeFile);
+        buffNodes = buildBuffIndex(treeConfig);
+
+        flushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flushPendingWrites,
+                FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS);
+    }
+
+    @Override
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        // 残っている書き込みを同期で反映
+        flushPendingWrites();
+        cache.clear();
+    }
+
+    /**
+     * tree.yaml を再読み込みし、バフノードの索引とキャッシュ中の全プレイヤーのパッシブを再計算します。
+     */
+    public void reload() {
+        treeConfig = YamlConfiguration.loadConfiguration(treeFile);
+        buffNodes = buildBuffIndex(treeConfig);
+
+        StatManager statManager = Deepwither.getInstance().getStatManager();
+        for (Map.Entry<UUID, SkillData> entry : cache.entrySet()) {
+            entry.getValue().recalculatePassiveStats(buffNodes);
+            statManager.invalidateStatCache(entry.getKey());
+        }
     }
 
+    /**
+     * スキルデータを取得します。
+     * オンラインのプレイヤーはメモリ上のキャッシュから返し、DBには問い合わせません。
+     * キャッシュに無い場合のみDBから読み込みます（ログイン時のロードがこれにあたる）。
+     */
     public SkillData load(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "SELECT skill_point, skills FROM player_skilltree WHERE uuid = ?")) {
+        SkillData cached = cache.get(uuid);
+        if (cached != null) {
+            return cached;
+        }
+
+        SkillData data = loadFromDatabase(uuid);
+        // ログアウト後に残り続けないよう、オンラインのプレイヤーのみキャッシュする
+        if (Bukkit.getPlayer(uuid) != null) {
+            SkillData existing = cache.putIfAbsent(uuid, data);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * 読み込み済みのデータをキャッシュに展開します。ログイン時の一括ロードから呼ばれます。
+     */
+    public void hydrate(UUID uuid, SkillData data) {
+        cache.put(uuid, data);
+    }
+
+    /**
+     * ログアウト時にキャッシュから外し、未保存の変更をDBの書き込みキューに積みます。
+     */
+    public void unload(UUID uuid) {
+        cache.remove(uuid);
+        PendingWrite write = pendingWrites.get(uuid);
+        if (write == null) return;
+
+        // コミットされるまでは書き込み待ちに残し、直後の再ログインでも最新の内容が読めるようにする
+        db.write(UPSERT_SQL, ps -> {
             ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                int skillPoint = rs.getInt("skill_point");
-                String skillsJson = rs.getString("skills");
-                Map<String, Integer> skillsMap = new HashMap<>();
-
-                if (skillsJson != null && !skillsJson.isEmpty()) {
-                    // JSONをMap<String,Integer>に変換
-                    skillsMap = gson.fromJson(skillsJson, new TypeToken<Map<String, Integer>>(){}.getType());
-                }
+            ps.setInt(2, write.skillPoint());
+            ps.setString(3, write.skillsJson());
+        }).thenRun(() -> pendingWrites.remove(uuid, write));
+    }
 
-                SkillData data = new SkillData(skillPoint,skillsMap);
+    /**
+     * DBからスキルデータを読み込みます。キャッシュには載せないので、非同期スレッドから呼べます。
+     */
+    public SkillData fetch(UUID uuid) {
+        return loadFromDatabase(uuid);
+    }
 
-                // 【✅ 追加】ロード直後に再計算
-                data.recalculatePassiveStats(treeConfig);
-                return data;
+    // flushPendingWrites と排他にし、書き込み待ちからキューへ移る途中の古い値を読まないようにする
+    private synchronized SkillData loadFromDatabase(UUID uuid) {
+        // ログアウト直後でまだDBに書き込まれていない場合は、書き込み待ちの内容を優先する
+        PendingWrite pending = pendingWrites.get(uuid);
+        if (pending != null) {
+            return createSkillData(pending.skillPoint(), pending.skillsJson());
+        }
+
+        try {
+            SkillData stored = db.query("SELECT skill_point, skills FROM player_skilltree WHERE uuid = ?",
+                    ps -> ps.setString(1, uuid.toString()),
+                    rs -> rs.next() ? createSkillData(rs.getInt("skill_point"), rs.getString("skills")) : null);
+            if (stored != null) {
+                return stored;
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -65,27 +166,101 @@ public class SkilltreeManager implements IManager {
         // 新規データの場合
         SkillData newData = new SkillData(1, new HashMap<>());
         // 【✅ 追加】新規作成時にも再計算（StatMapを初期化するため）
-        newData.recalculatePassiveStats(treeConfig);
+        newData.recalculatePassiveStats(buffNodes);
         return newData;
     }
 
+    private SkillData createSkillData(int skillPoint, String skillsJson) {
+        Map<String, Integer> skillsMap = new HashMap<>();
+
+        if (skillsJson != null && !skillsJson.isEmpty()) {
+            // JSONをMap<String,Integer>に変換
+            skillsMap = gson.fromJson(skillsJson, SKILLS_TYPE);
+        }
+
+        SkillData data = new SkillData(skillPoint, skillsMap);
+
+        // 【✅ 追加】ロード直後に再計算
+        data.recalculatePassiveStats(buffNodes);
+        return data;
+    }
+
+    /**
+     * スキルデータを保存します。
+     * キャッシュとパッシブステータスは即座に更新し、DBへの書き込みは非同期でまとめて行います。
+     */
     public void save(UUID uuid, SkillData data) {
-        data.recalculatePassiveStats(treeConfig);
-        String skillsJson = gson.toJson(data.getSkills());
-        try (PreparedStatement ps = db.getConnection().prepareStatement("""
-            INSERT INTO player_skilltree (uuid, skill_point, skills)
-            VALUES (?, ?, ?)
-            ON CONFLICT(uuid) DO UPDATE SET
-                skill_point = excluded.skill_point,
-                skills = excluded.skills
-            """)) {
-            ps.setString(1, uuid.toString());
-            ps.setInt(2, data.getSkillPoint());
-            ps.setString(3, skillsJson);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        data.recalculatePassiveStats(buffNodes);
+        if (Bukkit.getPlayer(uuid) != null) {
+            cache.put(uuid, data);
         }
+        // パッシブが変わった可能性があるので合計ステータスを再計算させる
+        Deepwither.getInstance().getStatManager().invalidateStatCache(uuid);
+
+        // 非同期スレッドからSkillDataを触らないよう、JSON化はここで済ませておく
+        pendingWrites.put(uuid, new PendingWrite(data.getSkillPoint(), gson.toJson(data.getSkills())));
+    }
+
+    /**
+     * 書き込み待ちのスキルデータをまとめてDBの書き込みキューに渡します。
+     * 古いスナップショットが新しいものより後に積まれないよう、同時には1スレッドしか実行しません。
+     */
+    private synchronized void flushPendingWrites() {
+        if (pendingWrites.isEmpty()) return;
+
+        List<DatabaseManager.StatementBinder> rows = new ArrayList<>();
+        for (UUID uuid : new ArrayList<>(pendingWrites.keySet())) {
+            PendingWrite write = pendingWrites.remove(uuid);
+            if (write == null) continue;
+
+            rows.add(ps -> {
+                ps.setString(1, uuid.toString());
+                ps.setInt(2, write.skillPoint());
+                ps.setString(3, write.skillsJson());
+            });
+        }
+        if (rows.isEmpty()) return;
+
+        db.writeBatch(UPSERT_SQL, rows);
+    }
+
+    /**
+     * tree.yaml の全バフノードを走査し、ノードIDごとの1レベルあたりのステータスを事前計算します。
+     */
+    private Map<String, List<PassiveBuff>> buildBuffIndex(YamlConfiguration treeConfig) {
+        Map<String, List<PassiveBuff>> index = new HashMap<>();
+
+        // 全ツリーを走査
+        List<Map<?, ?>> trees = treeConfig.getMapList("trees");
+        for (Map<?, ?> tree : trees) {
+            List<Map<String, Object>> nodes = (List<Map<String, Object>>) tree.get("nodes");
+            if (nodes == null) continue;
+
+            for (Map<String, Object> node : nodes) {
+                String nodeId = (String) node.get("id");
+                // バフノードのみを処理
+                if (nodeId == null || !"buff".equals(node.get("type"))) continue;
+
+                List<Map<?, ?>> buffStats = (List<Map<?, ?>>) node.get("stats");
+                if (buffStats == null) continue;
+
+                // ノードが持つ複数のステータスを登録
+                for (Map<?, ?> statEntry : buffStats) {
+                    String statKey = (String) statEntry.get("stat");
+                    if (statKey == null || !(statEntry.get("value") instanceof Number value)) continue;
+
+                    try {
+                        StatType statType = StatType.valueOf(statKey.toUpperCase());
+                        index.computeIfAbsent(nodeId, k -> new ArrayList<>())
+                                .add(new PassiveBuff(statType, value.doubleValue()));
+                    } catch (IllegalArgumentException e) {
+                        // StatType.valueOfに失敗した場合の処理（statKeyが不正）
+                        plugin.getLogger().warning("Invalid StatType '" + statKey + "' in skill node: " + nodeId);
+                    }
+                }
+            }
+        }
+        return index;
     }
 
     /**
@@ -120,7 +295,6 @@ public class SkilltreeManager implements IManager {
         learnedSkills.clear();
 
         // 4. パッシブステータスの再計算とデータの保存
-        data.recalculatePassiveStats(treeConfig);
         save(uuid, data);
 
         // 5. 返却されたポイントを返す
@@ -225,54 +399,24 @@ public class SkilltreeManager implements IManager {
         /**
          * スキルから得られるバフ（passiveStats）を再計算
          *
-         * @param treeConfig スキルツリーのYAML設定（YamlConfiguration）
+         * @param buffNodes 事前計算済みのバフノード (ノードID -> 1レベルあたりのステータス)
          */
-        public void recalculatePassiveStats(YamlConfiguration treeConfig) {
-            // StatMapの初期化
-            passiveStats = new StatMap();
-
-            // 全ツリーを走査
-            List<Map<?, ?>> trees = treeConfig.getMapList("trees");
-            for (Map<?, ?> tree : trees) {
-                List<Map<String, Object>> nodes = (List<Map<String, Object>>) tree.get("nodes");
-                if (nodes == null) continue;
-
-                // 全ノードを走査
-                for (Map<String, Object> node : nodes) {
-                    String nodeId = (String) node.get("id");
-                    if (nodeId == null || !hasSkill(nodeId)) continue; // 習得していないノードはスキップ
-
-                    // バフノードのみを処理
-                    if ("buff".equals(node.get("type"))) {
-                        int level = getSkillLevel(nodeId);
-
-                        // 【✅ 変更点】: 新しい "stats" フィールドを取得
-                        List<Map<?, ?>> buffStats = (List<Map<?, ?>>) node.get("stats");
-                        if (buffStats == null) continue;
-
-                        // ノードが持つ複数のステータスをループ処理
-                        for (Map<?, ?> statEntry : buffStats) {
-                            String statKey = (String) statEntry.get("stat");
-                            if (statKey == null) continue;
-
-                            // 値を取得し、levelに応じて計算 (ここでは単純に level * value とします)
-                            double baseValue = 0;
-                            baseValue = ((Number) statEntry.get("value")).doubleValue();
-                            double totalValue = baseValue * level;
-
-                            try {
-                                StatType statType = StatType.valueOf(statKey.toUpperCase());
-
-                                // passiveStats に値を加算
-                                passiveStats.addFlat(statType, totalValue); // addFlat を使用して加算
-                            } catch (IllegalArgumentException e) {
-                                // StatType.valueOfに失敗した場合の処理（statKeyが不正）
-                                Deepwither.getInstance().getLogger().warning("Invalid StatType '" + statKey + "' in skill node: " + nodeId);
-                            }
-                        }
-                    }
+        void recalculatePassiveStats(Map<String, List<PassiveBuff>> buffNodes) {
+            StatMap stats = new StatMap();
+
+            // 習得済みのノードのみを参照する
+            for (Map.Entry<String, Integer> entry : skills.entrySet()) {
+                List<PassiveBuff> buffs = buffNodes.get(entry.getKey());
+                if (buffs == null) continue;
+
+                int level = entry.getValue();
+                for (PassiveBuff buff : buffs) {
+                    // levelに応じて計算 (ここでは単純に level * value とします)
+                    stats.addFlat(buff.type(), buff.valuePerLevel() * level);
                 }
             }
+
+            passiveStats = stats;
         }
     }
 }
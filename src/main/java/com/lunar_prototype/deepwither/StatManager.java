@@ -13,16 +13,27 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class StatManager {
 
     private final Map<UUID, Double> actualCurrentHealth = new HashMap<>();
     private final Map<UUID, StatMap> temporaryBuffs = new HashMap<>();
 
+    // 合計ステータスのスナップショット（装備/アーティファクト/ステ振り/スキル/バフ変更時のみ破棄）
+    // PlaceholderAPI が非同期で参照する場合があるため ConcurrentHashMap を使用
+    private final Map<UUID, StatMap> statCache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong rebuildNanos = new AtomicLong();
+
     private static final UUID ATTACK_DAMAGE_MODIFIER_ID = UUID.fromString("a3bb7af7-3c5b-4df1-a17e-cdeae1db1d32");
     private static final UUID MAX_HEALTH_MODIFIER_ID = UUID.fromString("ff5dd7e3-d781-4fee-b3d4-bfe3a5fda85d");
 
     public void updatePlayerStats(Player player) {
+        // 呼び出し元は装備変更などの直後なので、必ず再計算させる
+        invalidateStatCache(player.getUniqueId());
         StatMap total = getTotalStatsFromEquipment(player);
         syncAttackDamage(player, total);
         syncAttributes(player,total);
@@ -45,6 +56,7 @@ public class StatManager {
     // ----------------------------------------------------
     public void applyTemporaryBuff(UUID playerUUID, StatMap buff) {
         temporaryBuffs.put(playerUUID, buff);
+        invalidateStatCache(playerUUID);
     }
 
     // ----------------------------------------------------
@@ -52,6 +64,44 @@ public class StatManager {
     // ----------------------------------------------------
     public void removeTemporaryBuff(UUID playerUUID) {
         temporaryBuffs.remove(playerUUID);
+        invalidateStatCache(playerUUID);
+    }
+
+    // ----------------------------------------------------
+    // ★ 合計ステータスキャッシュ
+    // ----------------------------------------------------
+
+    /**
+     * 合計ステータスのキャッシュを破棄し、次回参照時に再計算させる。
+     * 装備・アーティファクト・ステ振り・スキルツリー・バフ・レベルが変化した時に呼ぶこと。
+     */
+    public void invalidateStatCache(UUID playerUUID) {
+        statCache.remove(playerUUID);
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * 再計算に費やした合計時間（ナノ秒）
+     */
+    public long getRebuildNanos() {
+        return rebuildNanos.get();
+    }
+
+    public int getCachedPlayerCount() {
+        return statCache.size();
+    }
+
+    public void resetCacheCounters() {
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        rebuildNanos.set(0);
     }
 
 
@@ -209,7 +259,33 @@ public class StatManager {
         player.setHealth(Math.max(0.0, bukkitHealth));
     }
 
+    /**
+     * プレイヤーの合計ステータスを取得する。
+     * 結果はキャッシュされた共有スナップショットなので、呼び出し側で変更しないこと。
+     */
     public static StatMap getTotalStatsFromEquipment(Player player) {
+        StatManager manager = Deepwither.getInstance().statManager;
+        UUID uuid = player.getUniqueId();
+
+        StatMap cached = manager.statCache.get(uuid);
+        if (cached != null) {
+            manager.cacheHits.incrementAndGet();
+            return cached;
+        }
+
+        manager.cacheMisses.incrementAndGet();
+        long start = System.nanoTime();
+        StatMap total = calculateTotalStats(player);
+        manager.rebuildNanos.addAndGet(System.nanoTime() - start);
+
+        // オフラインのプレイヤーはログアウト後に残り続けるのでキャッシュしない
+        if (player.isOnline()) {
+            manager.statCache.put(uuid, total);
+        }
+        return total;
+    }
+
+    private static StatMap calculateTotalStats(Player player) {
         StatMap total = new StatMap();
         PlayerLevelData data = Deepwither.getInstance().getLevelManager().get(player);
 
@@ -316,10 +392,20 @@ public class StatManager {
 
 
     public static StatMap readStatsFromItem(ItemStack item) {
-        StatMap stats = new StatMap();
-        if (item == null || !item.hasItemMeta()) return stats;
+        if (item == null || !item.hasItemMeta()) return new StatMap();
 
         PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+        // 要約があればそこから (キーを1つ読むだけで済む)
+        ItemFingerprint fingerprint = ItemFingerprint.read(container);
+        if (fingerprint != null) return fingerprint.getStats();
+        return readLegacyStats(container);
+    }
+
+    /**
+     * rpgstats.&lt;type&gt;_flat/_percent のキーを1つずつ読む (要約の無いアイテム用)
+     */
+    public static StatMap readLegacyStats(PersistentDataContainer container) {
+        StatMap stats = new StatMap();
         for (StatType type : StatType.values()) {
             Double flat = container.get(new NamespacedKey("rpgstats", type.name().toLowerCase() + "_flat"), PersistentDataType.DOUBLE);
             Double percent = container.get(new NamespacedKey("rpgstats", type.name().toLowerCase() + "_percent"), PersistentDataType.DOUBLE);
@@ -428,6 +514,10 @@ public class StatManager {
         }
 
         ItemMeta meta = item.getItemMeta();
+        ItemFingerprint fingerprint = ItemFingerprint.read(meta.getPersistentDataContainer());
+        if (fingerprint != null) return fingerprint.isOffHandEquipment();
+
+        // 要約の無い古いアイテムは Lore から判定
         if (meta.hasLore()) {
             for (String line : meta.getLore()) {
                 // 「カテゴリ:オフハンド装備」という文字列が完全に含まれているかをチェック
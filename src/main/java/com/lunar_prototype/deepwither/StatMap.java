@@ -1,32 +1,64 @@
 package com.lunar_prototype.deepwither;
 
-import java.util.EnumMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.EnumSet;
 import java.util.Set;
 
+/**
+ * StatType ごとの Flat値 / Percent値。
+ * <p>
+ * StatType の序数をそのまま添字にした double 配列で持ち、値を設定したことがある種類はビットで覚える。
+ * 装備の合算 ({@link #add}) は配列同士の足し算だけで、途中でオブジェクトを作らない。
+ * <p>
+ * 値は書き込み時には丸めない。アイテムへ保存する・Lore に出す時に {@link #roundAll()} / {@link #round(double)} で小数第2位に揃える。
+ */
 public class StatMap {
-    private final Map<StatType, Double> flatValues = new EnumMap<>(StatType.class);
-    private final Map<StatType, Double> percentValues = new EnumMap<>(StatType.class);
+    private static final StatType[] TYPES = StatType.values();
+
+    static {
+        // 設定済みの種類を long 1つのビットで持つため
+        if (TYPES.length > Long.SIZE) throw new IllegalStateException("StatType が多すぎます: " + TYPES.length);
+    }
+
+    private final double[] flatValues = new double[TYPES.length];
+    private final double[] percentValues = new double[TYPES.length];
+    private long present; // 設定済みの種類 (bit = 序数)
 
     public void setFlat(StatType type, double value) {
-        flatValues.put(type, round(value));
+        int i = type.ordinal();
+        flatValues[i] = value;
+        present |= 1L << i;
     }
 
     public void setPercent(StatType type, double value) {
-        percentValues.put(type, round(value));
+        int i = type.ordinal();
+        percentValues[i] = value;
+        present |= 1L << i;
     }
 
-    private double round(double value) {
+    /**
+     * 小数第2位に丸める (表示・保存用)
+     */
+    public static double round(double value) {
         return Math.round(value * 100.0) / 100.0;
     }
 
+    /**
+     * 全ての値を小数第2位に丸める。アイテムへ保存する直前に呼ぶ
+     */
+    public void roundAll() {
+        for (long bits = present; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            flatValues[i] = round(flatValues[i]);
+            percentValues[i] = round(percentValues[i]);
+        }
+    }
+
     public double getFlat(StatType type) {
-        return flatValues.getOrDefault(type, 0.0);
+        return flatValues[type.ordinal()];
     }
 
     public double getPercent(StatType type) {
-        return percentValues.getOrDefault(type, 0.0);
+        return percentValues[type.ordinal()];
     }
 
     public double getFinal(StatType type) {
@@ -36,28 +68,42 @@ public class StatMap {
     }
 
     public void addFlat(StatType type, double value) {
-        double newValue = getFlat(type) + value;
-        setFlat(type, newValue);
+        int i = type.ordinal();
+        flatValues[i] += value;
+        present |= 1L << i;
     }
 
     public void addPercent(StatType type, double value) {
-        double newValue = getPercent(type) + value;
-        setPercent(type, newValue);
+        int i = type.ordinal();
+        percentValues[i] += value;
+        present |= 1L << i;
     }
 
+    /**
+     * other の値をこのStatMapに足し込む
+     */
     public void add(StatMap other) {
-        for (StatType type : other.getAllTypes()) {
-            double flat = this.getFlat(type) + other.getFlat(type);
-            double percent = this.getPercent(type) + other.getPercent(type);
-            this.setFlat(type, flat);
-            this.setPercent(type, percent);
+        for (long bits = other.present; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            flatValues[i] += other.flatValues[i];
+            percentValues[i] += other.percentValues[i];
         }
+        present |= other.present;
+    }
+
+    public boolean has(StatType type) {
+        return (present & (1L << type.ordinal())) != 0;
+    }
+
+    public boolean isEmpty() {
+        return present == 0;
     }
 
     public Set<StatType> getAllTypes() {
-        Set<StatType> types = new HashSet<>();
-        types.addAll(flatValues.keySet());
-        types.addAll(percentValues.keySet());
+        Set<StatType> types = EnumSet.noneOf(StatType.class);
+        for (long bits = present; bits != 0; bits &= bits - 1) {
+            types.add(TYPES[Long.numberOfTrailingZeros(bits)]);
+        }
         return types;
     }
 
@@ -66,15 +112,10 @@ public class StatMap {
      * * @param multiplier 乗数 (例: 1.10 for +10% boost)
      */
     public void multiplyAll(double multiplier) {
-        for (StatType type : getAllTypes()) {
-            double currentFlat = getFlat(type);
-            double currentPercent = getPercent(type);
-
-            // Flat値を更新
-            setFlat(type, currentFlat * multiplier);
-
-            // Percent値を更新
-            setPercent(type, currentPercent * multiplier);
+        for (long bits = present; bits != 0; bits &= bits - 1) {
+            int i = Long.numberOfTrailingZeros(bits);
+            flatValues[i] *= multiplier;
+            percentValues[i] *= multiplier;
         }
     }
 }
@@ -250,6 +250,8 @@ class LoreBuilder {
 
     private static String formatStat(StatType type, double flat, double percent, boolean compact) {
         String label = type.getIcon() + " " + type.getDisplayName();
+        flat = StatMap.round(flat);
+        percent = StatMap.round(percent);
 
         if (compact) {
             return " §f• " + label + ": §f" + flat + (percent != 0 ? " (§a+" + percent + "%§f)" : "");
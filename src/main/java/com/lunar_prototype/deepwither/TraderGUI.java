@@ -17,7 +17,6 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -383,10 +382,9 @@ public class TraderGUI implements Listener {
         if (meta.getPersistentDataContainer().has(customIdKey, PersistentDataType.STRING)) {
             // --- ★ カスタムアイテムの場合 ---
             String customId = meta.getPersistentDataContainer().get(customIdKey, PersistentDataType.STRING);
-            File itemFolder = new File(Deepwither.getInstance().getDataFolder(), "items");
 
-            // ItemLoaderを使用してカスタムアイテムをロード
-            itemToGive = ItemLoader.loadSingleItem(customId, Deepwither.getInstance().getItemFactory(), itemFolder);
+            // 定義からカスタムアイテムを生成
+            itemToGive = Deepwither.getInstance().getItemFactory().getCustomItemStack(customId);
 
         } else {
             // --- ★ バニラアイテムの場合 ---
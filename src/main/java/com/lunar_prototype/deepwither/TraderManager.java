@@ -317,11 +317,8 @@ public class TraderManager {
                 plugin.getLogger().warning("不明なマテリアル: " + offer.getId());
             }
         } else if (offer.getItemType() == ItemType.CUSTOM) {
-            // ItemLoaderを使ってカスタムアイテムをロード
-            // ItemLoader.loadSingleItem(id, this.itemFactory, itemFolder) の処理を想定
-            File itemFolder = new File(plugin.getDataFolder(), "items");
-
-            item = ItemLoader.loadSingleItem(offer.getId(), this.itemFactory,itemFolder);
+            // 定義からカスタムアイテムを生成
+            item = this.itemFactory.getCustomItemStack(offer.getId());
             if (item != null) {
                 item.setAmount(offer.getAmount());
             } else {
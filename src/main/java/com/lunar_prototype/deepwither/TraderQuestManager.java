@@ -11,12 +11,9 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDeathEvent;
-import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -215,40 +212,44 @@ public class TraderQuestManager implements IManager, Listener {
     }
 
     private void loadPlayerData(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "SELECT data_json FROM player_quests WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                String json = rs.getString("data_json");
-                playerDataMap.put(uuid, gson.fromJson(json, PlayerQuestData.class));
-            } else {
-                playerDataMap.put(uuid, new PlayerQuestData());
-            }
+        try {
+            hydrate(uuid, fetch(uuid));
         } catch (SQLException e) {
             plugin.getLogger().severe("PlayerQuestDataのロードに失敗: " + uuid);
         }
     }
 
+    /**
+     * DBから1人分を読み込みます。マップには触らないので、非同期スレッドから呼べます。
+     * @return 保存済みのデータ。新規プレイヤーの場合は null
+     */
+    public PlayerQuestData fetch(UUID uuid) throws SQLException {
+        String json = db.query("SELECT data_json FROM player_quests WHERE uuid = ?",
+                ps -> ps.setString(1, uuid.toString()),
+                rs -> rs.next() ? rs.getString("data_json") : null);
+        return json != null ? gson.fromJson(json, PlayerQuestData.class) : null;
+    }
+
+    /**
+     * 読み込み済みのデータをメモリに展開します（メインスレッド専用）。
+     */
+    public void hydrate(UUID uuid, PlayerQuestData data) {
+        playerDataMap.put(uuid, data != null ? data : new PlayerQuestData());
+    }
+
     public void savePlayerData(UUID uuid) {
         PlayerQuestData data = playerDataMap.get(uuid);
         if (data == null) return;
 
         String json = gson.toJson(data);
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "INSERT INTO player_quests (uuid, data_json) VALUES (?, ?) " +
-                        "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json")) {
+        db.write(uuid, "INSERT INTO player_quests (uuid, data_json) VALUES (?, ?) " +
+                "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json", ps -> {
             ps.setString(1, uuid.toString());
             ps.setString(2, json);
-            ps.executeUpdate();
-        } catch (SQLException e) {
+        }).exceptionally(ex -> {
             plugin.getLogger().severe("PlayerQuestDataの保存に失敗: " + uuid);
-        }
-    }
-
-    @EventHandler
-    public void onJoin(PlayerJoinEvent e) {
-        loadPlayerData(e.getPlayer().getUniqueId());
+            return null;
+        });
     }
 
     @EventHandler
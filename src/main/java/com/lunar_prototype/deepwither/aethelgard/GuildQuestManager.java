@@ -29,7 +29,7 @@ public class GuildQuestManager implements Runnable {
     public GuildQuestManager(JavaPlugin plugin, QuestDataStore dataStore) {
         this.plugin = plugin;
         this.dataStore = dataStore;
-        this.questGenerator = new QuestGenerator();
+        this.questGenerator = new QuestGenerator(plugin);
 
         // 初期ギルドロケーションの設定 (ハードコードまたはConfigからロード)
         // ここで設定されるのは受付NPCの場所ではなく、クエストリストのIDと名前
@@ -127,11 +127,14 @@ public class GuildQuestManager implements Runnable {
      */
     public void shutdown() {
         // 周期タスクを停止
-        if (this.schedulerTaskId != -1) {
+        if (this.schedulerTaskId != null && this.schedulerTaskId != -1) {
             Bukkit.getScheduler().cancelTask(this.schedulerTaskId);
             this.schedulerTaskId = -1;
         }
 
+        // 生成待ちのLLMリクエストを打ち切る (依頼文キャッシュもここで保存される)
+        questGenerator.shutdown();
+
         // ★ 最終保存処理：同期的に実行されるメソッドを呼び出すように変更
         // (データストアに 'saveAllQuestsSynchronous' のようなメソッドを追加する必要があります)
 
@@ -183,22 +186,15 @@ public class GuildQuestManager implements Runnable {
             if (requiredRefill > 0) {
                 plugin.getLogger().info(String.format("[%s] Quests missing: %d. Starting generation...", location.getLocationName(), requiredRefill));
 
-                // ★ クエスト生成処理を非同期で実行
-                // final変数をラムダ式内で使うための変数定義
-                final int refillAmount = requiredRefill;
-
-                CompletableFuture<Void> refillFuture = CompletableFuture.runAsync(() -> {
-                            // 非同期スレッドで必要な数だけクエストを生成
-                            for (int i = 0; i < refillAmount; i++) {
-                                int difficulty = 1 + (int)(Math.random() * 3);
-
-                                // 時間のかかる処理: クエスト生成
-                                GeneratedQuest newQuest = questGenerator.generateQuest(difficulty);
+                // ★ クエスト生成は QuestGenerator の専用キューで行う (共有の非同期Executorは使わない)
+                // 同時に投げたプロンプトはキュー側でまとめて1回のリクエストになる
+                List<CompletableFuture<Void>> questFutures = new ArrayList<>(requiredRefill);
+                for (int i = 0; i < requiredRefill; i++) {
+                    int difficulty = 1 + (int)(Math.random() * 3);
+                    questFutures.add(questGenerator.generateQuestAsync(difficulty).thenAccept(location::addQuest));
+                }
 
-                                // クエストリストへの追加
-                                location.addQuest(newQuest);
-                            }
-                        }, Deepwither.getInstance().getAsyncExecutor()) // ★ プラグインの非同期Executorを利用
+                CompletableFuture<Void> refillFuture = CompletableFuture.allOf(questFutures.toArray(new CompletableFuture[0]))
                         .thenRun(() -> {
                             // 非同期処理完了後、Bukkit APIは使用せずログのみ出力
                             plugin.getLogger().info(String.format("[%s] Refilled to %d quests (Async generation finished).", location.getLocationName(), location.getQuestCount()));
@@ -214,6 +210,10 @@ public class GuildQuestManager implements Runnable {
         return refillFutures;
     }
 
+    public QuestGenerator getQuestGenerator() {
+        return questGenerator;
+    }
+
     /**
      * 特定のギルドロケーションからクエストを取得します。
      * @param locationId ギルドのID
@@ -12,6 +12,15 @@ public class QuestComponentPool {
     private static List<String> MOTIVATIONS = new ArrayList<>();
     private static List<String> REWARD_ITEM_IDS = new ArrayList<>();
 
+    // LLMの応答を待てない時に使う依頼文。{location} {mob} {quantity} {motivation} {reward} を埋める
+    private static final List<String> DEFAULT_TEXT_TEMPLATES = List.of(
+            "{location}にて{motivation}。{mob}の活動範囲は拡大しつつあり、放置すれば周辺の交易路が機能を失う。{mob}を{quantity}体討伐せよ。報酬は{reward}。",
+            "{location}周辺で{mob}の群れが確認された。{motivation}との報告を受け、ギルドは駆除を決定した。{mob}を{quantity}体討伐し、受付に報告すること。",
+            "{motivation}。原因は{location}に巣食う{mob}と判明している。被害の拡大を防ぐため、{quantity}体の討伐をもって本依頼の完了とする。",
+            "ギルドは{location}の警戒レベルを引き上げた。{motivation}。{mob}を{quantity}体排除し、安全を確保せよ。報酬: {reward}。"
+    );
+    private static List<String> TEXT_TEMPLATES = DEFAULT_TEXT_TEMPLATES;
+
     // -------------------------------------------------------------------------
     // 設定ファイルからのデータロード（メインクラスから一度だけ呼び出す）
     // -------------------------------------------------------------------------
@@ -82,8 +91,12 @@ public class QuestComponentPool {
             System.err.println("[QuestPool Warning] reward_item_idsの設定が空です。");
         }
 
-        System.out.println(String.format("[QuestPool Info] クエストコンポーネントをロードしました: 場所:%d, 動機:%d, 報酬:%d",
-                LOCATIONS.size(), MOTIVATIONS.size(), REWARD_ITEM_IDS.size()));
+        // 4. 依頼文テンプレートのロード (無ければ組み込みのものを使う)
+        List<String> templates = section.getStringList("text_templates");
+        TEXT_TEMPLATES = templates.isEmpty() ? DEFAULT_TEXT_TEMPLATES : List.copyOf(templates);
+
+        System.out.println(String.format("[QuestPool Info] クエストコンポーネントをロードしました: 場所:%d, 動機:%d, 報酬:%d, テンプレート:%d",
+                LOCATIONS.size(), MOTIVATIONS.size(), REWARD_ITEM_IDS.size(), TEXT_TEMPLATES.size()));
     }
 
     /**
@@ -115,6 +128,20 @@ public class QuestComponentPool {
         return REWARD_ITEM_IDS.get(RANDOM.nextInt(REWARD_ITEM_IDS.size()));
     }
 
+    /**
+     * テンプレートから依頼文を作ります。LLMの応答を待てない時に使います。
+     */
+    public static String fillRandomTextTemplate(ExterminationType targetType, LocationDetails location, String motivation,
+                                                 int quantity, String rewardText) {
+        String template = TEXT_TEMPLATES.get(RANDOM.nextInt(TEXT_TEMPLATES.size()));
+        return template
+                .replace("{location}", location.getName())
+                .replace("{mob}", targetType.getDescription())
+                .replace("{quantity}", String.valueOf(quantity))
+                .replace("{motivation}", motivation)
+                .replace("{reward}", rewardText);
+    }
+
     /**
      * 難易度に基づいて報酬通貨と経験値の基本値を計算します。
      * @param difficultyLevel クエストの難易度
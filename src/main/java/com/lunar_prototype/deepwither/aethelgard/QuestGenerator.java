@@ -2,28 +2,78 @@ package com.lunar_prototype.deepwither.aethelgard;
 
 import com.lunar_prototype.deepwither.Deepwither;
 import com.lunar_prototype.deepwither.llm.LlmClient;
-import java.util.Random;
+import com.lunar_prototype.deepwither.llm.LlmRequestQueue;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 駆除クエストを作る。依頼文は次の順で用意する:
+ * <ol>
+ *   <li>同じ条件 (討伐対象・場所・動機・討伐数の区分) で以前に生成した文面があればそれを使う</li>
+ *   <li>無ければLLMに頼み、{@code deadline-ms} 以内に返ってくればそれを使う</li>
+ *   <li>間に合わなければテンプレートの文面を使う。LLMの応答は後で届けばキャッシュに入る</li>
+ * </ol>
+ * LLMとの通信は専用のスレッドと {@link LlmRequestQueue} で行い、プラグイン共有の非同期Executorは使わない。
+ */
 public class QuestGenerator {
 
-    private final LlmClient llmClient;
+    private final JavaPlugin plugin;
     private final Random random; // Randomインスタンスをフィールドで保持推奨
+    private final ExecutorService llmExecutor;
+    private final LlmRequestQueue requestQueue;
+    private final QuestTextCache textCache;
+    private final long deadlineMillis;
 
     // ★追加: クエスト有効期限の範囲設定 (ミリ秒)
     private static final long MIN_DURATION_MILLIS = 1000L * 60 * 60 * 1; // 最短 1時間
     private static final long MAX_DURATION_MILLIS = 1000L * 60 * 60 * 6; // 最長 6時間
 
-    public QuestGenerator() {
-        this.llmClient = new LlmClient();
+    // --- 計測 ---
+    private final LongAdder cachedTexts = new LongAdder();
+    private final LongAdder llmTexts = new LongAdder();
+    private final LongAdder templateTexts = new LongAdder();
+
+    public QuestGenerator(JavaPlugin plugin) {
+        this.plugin = plugin;
         this.random = new Random();
+
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("guild-quest.llm");
+        if (section == null) section = new MemoryConfiguration();
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.llmExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "Deepwither-QuestLLM-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LlmClient llmClient = new LlmClient(LlmClient.Settings.fromConfig(section), llmExecutor, plugin.getLogger());
+        this.requestQueue = new LlmRequestQueue(llmClient,
+                section.getInt("max-concurrent", 2),
+                section.getInt("max-queued", 16),
+                section.getInt("batch-size", 4));
+        this.deadlineMillis = section.getLong("deadline-ms", 8000);
+
+        this.textCache = new QuestTextCache(new File(plugin.getDataFolder(), "quest_text_cache.yml"),
+                section.getInt("cache-variants", 5), plugin.getLogger());
+        this.textCache.load();
     }
 
     /**
-     * LLMを使用して駆除クエストを生成するメインメソッド。
+     * 駆除クエストを生成します。呼び出し元のスレッドを止めません。
      * @param difficultyLevel クエストの難易度
-     * @return 生成されたGeneratedQuestオブジェクト
+     * @return 生成されたGeneratedQuest。依頼文の生成に失敗してもテンプレートで完了する
      */
-    public GeneratedQuest generateQuest(int difficultyLevel) {
+    public CompletableFuture<GeneratedQuest> generateQuestAsync(int difficultyLevel) {
         // 1. 構成要素をランダムに決定
         ExterminationType targetType = ExterminationType.values()[random.nextInt(ExterminationType.values().length)];
         LocationDetails locationDetails = QuestComponentPool.getRandomLocationDetails();
@@ -45,23 +95,51 @@ public class QuestGenerator {
                 rewardItemDisplayName,
                 rewardItemQuantity
         );
+        String rewardText = rewardDetails.getLlmRewardText();
 
         // 4. LLM呼び出しのためのプロンプトをアセンブル
-        String prompt = QuestPromptAssembler.assemblePrompt(targetType, locationDetails, motivation, quantity, rewardDetails.getLlmRewardText());
+        String prompt = QuestPromptAssembler.assemblePrompt(targetType, locationDetails, motivation, quantity, rewardText);
+        String cacheKey = QuestTextCache.key(targetType, locationDetails, motivation, quantity);
+
+        // 5. キャッシュにあれば即座に使う。文面の種類が足りなければ裏でLLMに追加を頼む
+        String cached = textCache.pick(cacheKey, quantity, rewardText);
+        if (cached != null) {
+            cachedTexts.increment();
+            if (textCache.wantsMore(cacheKey)) {
+                requestText(prompt, cacheKey, quantity, rewardText);
+            }
+            return CompletableFuture.completedFuture(buildQuest(cached, targetType, locationDetails, quantity, rewardDetails));
+        }
 
-        // 5. LLMを呼び出し、依頼文を生成
-        String generatedText = llmClient.generateText(prompt);
+        // 6. LLMに頼み、期限までに返らなければテンプレートを使う (応答は後で届けばキャッシュに入る)
+        return requestText(prompt, cacheKey, quantity, rewardText)
+                .copy()
+                .completeOnTimeout(null, deadlineMillis, TimeUnit.MILLISECONDS)
+                .thenApply(generatedText -> {
+                    if (generatedText == null) {
+                        templateTexts.increment();
+                        generatedText = QuestComponentPool.fillRandomTextTemplate(targetType, locationDetails, motivation, quantity, rewardText);
+                    } else {
+                        llmTexts.increment();
+                    }
+                    return buildQuest(generatedText, targetType, locationDetails, quantity, rewardDetails);
+                });
+    }
 
-        // 6. LLM通信失敗時のフォールバック処理
-        if (generatedText == null || generatedText.trim().isEmpty()) {
-            System.err.println("LLM応答が不正または通信失敗。フォールバック処理を実行します。");
-            generatedText = llmClient.fallbackTextGenerator(
-                    locationDetails, targetType.getDescription(), motivation
-            );
-        }
+    private CompletableFuture<String> requestText(String prompt, String cacheKey, int quantity, String rewardText) {
+        return requestQueue.submit(prompt).thenApply(text -> {
+            if (text != null) {
+                textCache.put(cacheKey, text, quantity, rewardText);
+                textCache.saveIfDirty();
+            }
+            return text;
+        });
+    }
 
+    private GeneratedQuest buildQuest(String generatedText, ExterminationType targetType, LocationDetails locationDetails,
+                                      int quantity, RewardDetails rewardDetails) {
         // 7. 生成テキストからタイトルと本文を分離
-        String title = "無題のクエスト";
+        String title;
         String body = generatedText;
 
         int titleStart = generatedText.indexOf("タイトル：「");
@@ -94,4 +172,37 @@ public class QuestGenerator {
                 duration // ★コンストラクタの変更に対応
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * 待っているLLMリクエストを打ち切り、キャッシュを保存して通信用のスレッドを止める
+     */
+    public void shutdown() {
+        requestQueue.cancelPending();
+        llmExecutor.shutdownNow();
+        textCache.saveIfDirty();
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public LlmRequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+
+    public QuestTextCache getTextCache() {
+        return textCache;
+    }
+
+    public long getCachedTextCount() {
+        return cachedTexts.sum();
+    }
+
+    public long getLlmTextCount() {
+        return llmTexts.sum();
+    }
+
+    public long getTemplateTextCount() {
+        return templateTexts.sum();
+    }
+}
@@ -0,0 +1,149 @@
+package com.lunar_prototype.deepwither.aethelgard;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LLMが生成した依頼文のキャッシュ (quest_text_cache.yml に保存)。
+ * <p>
+ * キーは (討伐対象, 場所, 動機, 討伐数の区分)。討伐数と報酬は文中では {quantity} / {reward} に置き換えて持ち、
+ * 使う時に実際の値を埋める。1つのキーにつき {@code maxVariants} 件まで文面の違うものを溜める。
+ */
+public class QuestTextCache {
+
+    public static final String QUANTITY = "{quantity}";
+    public static final String REWARD = "{reward}";
+
+    private static final int QUANTITY_BUCKET = 10;
+    private static final Pattern NUMBER = Pattern.compile("[0-9]+");
+
+    private final File file;
+    private final Logger logger;
+    private final int maxVariants;
+    private final Random random = new Random();
+    private final Map<String, List<String>> texts = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    public QuestTextCache(File file, int maxVariants, Logger logger) {
+        this.file = file;
+        this.maxVariants = Math.max(1, maxVariants);
+        this.logger = logger;
+    }
+
+    public static String key(ExterminationType type, LocationDetails location, String motivation, int quantity) {
+        return type.name() + "|" + location.getName() + "|" + motivation + "|" + (quantity / QUANTITY_BUCKET);
+    }
+
+    /**
+     * キーの文面を1つ選び、討伐数と報酬を埋めて返す。無ければ null
+     */
+    public String pick(String key, int quantity, String rewardText) {
+        List<String> variants = texts.get(key);
+        if (variants == null || variants.isEmpty()) return null;
+        String template = variants.get(random.nextInt(variants.size()));
+        return template.replace(QUANTITY, String.valueOf(quantity)).replace(REWARD, rewardText);
+    }
+
+    /**
+     * まだ文面を増やす余地があるか
+     */
+    public boolean wantsMore(String key) {
+        List<String> variants = texts.get(key);
+        return variants == null || variants.size() < maxVariants;
+    }
+
+    /**
+     * 生成された文面を覚える。討伐数と報酬は置き換えてから保存する。
+     * 討伐数がちょうど1箇所に数字で書かれていない文面や、報酬の数値が言い換えられて残っている文面は、
+     * 別の依頼に使うと古い値が出てしまうので覚えない
+     */
+    public void put(String key, String generatedText, int quantity, String rewardText) {
+        String template = generatedText.replace(rewardText, REWARD);
+
+        // "15体" の "5" のような、他の数字の一部は討伐数として扱わない
+        Matcher matcher = boundedNumber(String.valueOf(quantity)).matcher(template);
+        int matches = 0;
+        while (matcher.find()) matches++;
+        if (matches != 1) return;
+        template = matcher.replaceFirst(Matcher.quoteReplacement(QUANTITY));
+
+        Matcher rewardNumbers = NUMBER.matcher(rewardText);
+        while (rewardNumbers.find()) {
+            if (boundedNumber(rewardNumbers.group()).matcher(template).find()) return;
+        }
+
+        List<String> variants = texts.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        synchronized (variants) {
+            if (variants.size() >= maxVariants || variants.contains(template)) return;
+            variants.add(template);
+        }
+        dirty = true;
+    }
+
+    private static Pattern boundedNumber(String digits) {
+        return Pattern.compile("(?<![0-9０-９])" + Pattern.quote(digits) + "(?![0-9０-９])");
+    }
+
+    public int getKeyCount() {
+        return texts.size();
+    }
+
+    public int getTextCount() {
+        int count = 0;
+        for (List<String> variants : texts.values()) count += variants.size();
+        return count;
+    }
+
+    // ----------------------------------------------------
+    // --- 永続化 ---
+    // ----------------------------------------------------
+
+    public void load() {
+        if (!file.exists()) return;
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+
+        // キーに '.' を含みうるため、キーと文面の組をリストで持つ
+        for (Map<?, ?> entry : config.getMapList("texts")) {
+            Object key = entry.get("key");
+            Object variants = entry.get("variants");
+            if (!(key instanceof String k) || !(variants instanceof List<?> list)) continue;
+            List<String> loaded = new CopyOnWriteArrayList<>();
+            for (Object text : list) {
+                if (text instanceof String s && loaded.size() < maxVariants) loaded.add(s);
+            }
+            if (!loaded.isEmpty()) texts.put(k, loaded);
+        }
+        logger.info("依頼文キャッシュを読み込みました: " + texts.size() + "件");
+    }
+
+    /**
+     * 変更があれば保存する (呼び出し元のスレッドで書き込む)
+     */
+    public synchronized void saveIfDirty() {
+        if (!dirty) return;
+        dirty = false;
+
+        YamlConfiguration config = new YamlConfiguration();
+        List<Map<String, Object>> entries = new ArrayList<>();
+        texts.forEach((key, variants) -> entries.add(Map.of("key", key, "variants", List.copyOf(variants))));
+        config.set("texts", entries);
+        try {
+            config.save(file);
+        } catch (IOException e) {
+            dirty = true;
+            logger.log(Level.WARNING, "依頼文キャッシュの保存に失敗しました", e);
+        }
+    }
+}
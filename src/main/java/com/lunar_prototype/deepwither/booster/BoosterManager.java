@@ -3,8 +3,6 @@ package com.lunar_prototype.deepwither.booster;
 import com.lunar_prototype.deepwither.DatabaseManager;
 import com.lunar_prototype.deepwither.util.IManager;
 import org.bukkit.entity.Player;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,9 +29,8 @@ public class BoosterManager implements IManager {
     public void init() throws SQLException {
         // データベースから有効なブースターをすべてロード
         String query = "SELECT * FROM player_boosters";
-        try (PreparedStatement ps = db.getConnection().prepareStatement(query);
-             ResultSet rs = ps.executeQuery()) {
-            long now = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        db.query(query, null, rs -> {
             while (rs.next()) {
                 long endTime = rs.getLong("end_time");
                 if (endTime > now) {
@@ -42,7 +39,8 @@ public class BoosterManager implements IManager {
                     activeBoosters.put(uuid, new BoosterData(multiplier, endTime, true));
                 }
             }
-        }
+            return null;
+        });
     }
 
     @Override
@@ -53,14 +51,13 @@ public class BoosterManager implements IManager {
 
     private void save(UUID uuid, BoosterData data) {
         String query = "INSERT OR REPLACE INTO player_boosters (uuid, multiplier, end_time) VALUES (?, ?, ?)";
-        try (PreparedStatement ps = db.getConnection().prepareStatement(query)) {
+        double multiplier = data.multiplier;
+        long endTime = data.endTime;
+        db.write(query, ps -> {
             ps.setString(1, uuid.toString());
-            ps.setDouble(2, data.multiplier);
-            ps.setLong(3, data.endTime);
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            ps.setDouble(2, multiplier);
+            ps.setLong(3, endTime);
+        });
     }
 
     public void addBooster(Player player, double multiplier, int minutes) {
@@ -86,12 +83,7 @@ public class BoosterManager implements IManager {
     }
 
     private void removeFromDb(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement("DELETE FROM player_boosters WHERE uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ps.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        db.write("DELETE FROM player_boosters WHERE uuid = ?", ps -> ps.setString(1, uuid.toString()));
     }
 
     public long getRemainingSeconds(Player player) {
@@ -2,7 +2,7 @@ package com.lunar_prototype.deepwither.clan;
 
 import com.lunar_prototype.deepwither.clan.Clan;
 import com.lunar_prototype.deepwither.clan.ClanManager;
-import com.lunar_prototype.deepwither.util.GoogleImeConverter;
+import com.lunar_prototype.deepwither.util.JapaneseImeConverter;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -11,9 +11,11 @@ import org.bukkit.event.player.AsyncPlayerChatEvent;
 
 public class ClanChatManager implements Listener {
     private final ClanManager clanManager;
+    private final JapaneseImeConverter imeConverter;
 
-    public ClanChatManager(ClanManager clanManager) {
+    public ClanChatManager(ClanManager clanManager, JapaneseImeConverter imeConverter) {
         this.clanManager = clanManager;
+        this.imeConverter = imeConverter;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -21,7 +23,8 @@ public class ClanChatManager implements Listener {
         Player player = event.getPlayer();
         String originalMessage = event.getMessage();
 
-        String convertedMessage = GoogleImeConverter.convert(originalMessage);
+        // ローカル変換のみ (通信を待たない)
+        String convertedMessage = imeConverter.convert(originalMessage);
 
         Clan clan = clanManager.getClanByPlayer(player.getUniqueId());
         // tag ではなく ID 全文を表示に使用する
@@ -25,22 +25,19 @@ public class ClanManager implements IManager {
     }
 
     private void loadClansFromDatabase() throws SQLException {
-        Connection conn = db.getConnection();
-
         // クラン本体のロード
-        try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM clans")) {
-            ResultSet rs = ps.executeQuery();
+        db.query("SELECT * FROM clans", null, rs -> {
             while (rs.next()) {
                 String id = rs.getString("id");
                 String name = rs.getString("name");
                 UUID owner = UUID.fromString(rs.getString("owner"));
                 clans.put(id, new Clan(id, name, owner));
             }
-        } // ここで ps は閉じられるが、conn は閉じられない
+            return null;
+        });
 
         // メンバーのロード
-        try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM clan_members")) {
-            ResultSet rs = ps.executeQuery();
+        db.query("SELECT * FROM clan_members", null, rs -> {
             while (rs.next()) {
                 UUID uuid = UUID.fromString(rs.getString("player_uuid"));
                 String clanId = rs.getString("clan_id");
@@ -49,7 +46,8 @@ public class ClanManager implements IManager {
                     playerClanMap.put(uuid, clanId);
                 }
             }
-        }
+            return null;
+        });
     }
 
     public boolean createClan(Player owner, String name) {
@@ -178,47 +176,35 @@ public class ClanManager implements IManager {
     // --- データベース保存用ヘルパー ---
 
     private void saveClanToDatabase(Clan clan) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "INSERT INTO clans (id, name, tag, owner) VALUES (?, ?, ?, ?) ON CONFLICT(id) DO UPDATE SET owner=excluded.owner")) {
-            ps.setString(1, clan.getId());
-            ps.setString(2, clan.getName());
-            ps.setString(3, clan.getTag());
-            ps.setString(4, clan.getOwner().toString());
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        String id = clan.getId();
+        String name = clan.getName();
+        String tag = clan.getTag();
+        String owner = clan.getOwner().toString();
+        db.write("INSERT INTO clans (id, name, tag, owner) VALUES (?, ?, ?, ?) ON CONFLICT(id) DO UPDATE SET owner=excluded.owner", ps -> {
+            ps.setString(1, id);
+            ps.setString(2, name);
+            ps.setString(3, tag);
+            ps.setString(4, owner);
+        });
     }
 
     private void saveMemberToDatabase(UUID uuid, String clanId) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "INSERT INTO clan_members (player_uuid, clan_id) VALUES (?, ?) ON CONFLICT(player_uuid) DO UPDATE SET clan_id=excluded.clan_id")) {
+        db.write("INSERT INTO clan_members (player_uuid, clan_id) VALUES (?, ?) ON CONFLICT(player_uuid) DO UPDATE SET clan_id=excluded.clan_id", ps -> {
             ps.setString(1, uuid.toString());
             ps.setString(2, clanId);
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        });
     }
 
     private void deleteMemberFromDatabase(UUID uuid) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "DELETE FROM clan_members WHERE player_uuid = ?")) {
-            ps.setString(1, uuid.toString());
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        db.write("DELETE FROM clan_members WHERE player_uuid = ?", ps -> ps.setString(1, uuid.toString()));
     }
 
     private void deleteClanFromDatabase(String clanId) {
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "DELETE FROM clans WHERE id = ?")) {
-            ps.setString(1, clanId);
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        db.write("DELETE FROM clans WHERE id = ?", ps -> ps.setString(1, clanId));
 
         // SQLiteの外部キー制約 (ON DELETE CASCADE) が設定されている場合、
         // clan_members も自動で消えますが、念のため明示的に消すことも可能です。
-        try (PreparedStatement ps = db.getConnection().prepareStatement(
-                "DELETE FROM clan_members WHERE clan_id = ?")) {
-            ps.setString(1, clanId);
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        db.write("DELETE FROM clan_members WHERE clan_id = ?", ps -> ps.setString(1, clanId));
     }
 
     public Clan getClanByPlayer(UUID uuid) {
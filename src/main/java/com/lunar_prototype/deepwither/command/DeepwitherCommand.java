@@ -1,17 +1,32 @@
 package com.lunar_prototype.deepwither.command;
 
+import com.lunar_prototype.deepwither.DamageManager;
 import com.lunar_prototype.deepwither.Deepwither;
+import com.lunar_prototype.deepwither.MobSpawnManager;
+import com.lunar_prototype.deepwither.StatManager;
+import com.lunar_prototype.deepwither.aethelgard.QuestGenerator;
 import com.lunar_prototype.deepwither.dungeon.DungeonGenerator;
+import com.lunar_prototype.deepwither.llm.LlmRequestQueue;
+import com.lunar_prototype.deepwither.seeker.SeekerMetrics;
+import com.lunar_prototype.deepwither.seeker.CoverIndex;
+import com.lunar_prototype.deepwither.seeker.SeekerScheduler;
+import com.lunar_prototype.deepwither.seeker.SeekerSpatialIndex;
+import com.lunar_prototype.deepwither.util.JapaneseImeConverter;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 public class DeepwitherCommand implements CommandExecutor, TabCompleter {
 
@@ -38,10 +53,18 @@ public class DeepwitherCommand implements CommandExecutor, TabCompleter {
 
         switch (subCommand) {
             case "dungeon" -> handleDungeon(sender, args);
+            case "statcache" -> handleStatCache(sender, args);
+            case "seeker" -> handleSeeker(sender, args);
+            case "combat" -> handleCombat(sender);
+            case "spawnregions" -> handleSpawnRegions(sender);
+            case "ime" -> handleIme(sender);
+            case "questgen" -> handleQuestGen(sender);
             case "reload" -> {
                 // リロード処理など
                 sender.sendMessage("§aDeepwitherの設定をリロードしました。");
                 Deepwither.getInstance().getSkilltreeGUI().reload();
+                Deepwither.getInstance().getRegionMembershipService().invalidateAll();
+                Deepwither.getInstance().getItemFactory().loadAllItems();
             }
             default -> sendHelp(sender);
         }
@@ -93,29 +116,285 @@ public class DeepwitherCommand implements CommandExecutor, TabCompleter {
                 com.lunar_prototype.deepwither.dungeon.instance.DungeonInstanceManager.getInstance()
                         .leaveDungeon(player);
             }
+            case "pool" -> {
+                if (!player.hasPermission("deepwither.admin")) {
+                    player.sendMessage("§c権限がありません。");
+                    return;
+                }
+                com.lunar_prototype.deepwither.dungeon.instance.DungeonInstanceManager dim =
+                        com.lunar_prototype.deepwither.dungeon.instance.DungeonInstanceManager.getInstance();
+                player.sendMessage("§e[Dungeon Pool]");
+                player.sendMessage("§f生成済み: §a" + dim.getPooledInstanceCount()
+                        + " §7/ 片付け済みワールド: §a" + dim.getIdleWorldCount()
+                        + " §7/ 使用中: §a" + dim.getActiveInstanceCount());
+            }
+            case "spawners" -> {
+                if (!player.hasPermission("deepwither.admin")) {
+                    player.sendMessage("§c権限がありません。");
+                    return;
+                }
+                com.lunar_prototype.deepwither.dungeon.DungeonSpawnerMetrics metrics =
+                        com.lunar_prototype.deepwither.dungeon.instance.DungeonInstanceManager.getInstance().getSpawnerMetrics();
+                if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+                    metrics.reset();
+                    player.sendMessage("§aスポナー監視の計測値をリセットしました。");
+                    return;
+                }
+                player.sendMessage("§e[Dungeon Spawners]");
+                player.sendMessage("§7スポーン待ち: §f" + metrics.getPending() + " §7湧いた数: §f" + metrics.getSpawned()
+                        + " §7破棄: §f" + metrics.getDiscarded());
+                player.sendMessage("§7判定: §f" + metrics.getChecks() + "回 §7(プレイヤー延べ " + metrics.getPlayersChecked()
+                        + "人, 距離比較 " + metrics.getComparisons() + "回)");
+                player.sendMessage(String.format("§7反応時間: §f平均 %.0fms §7最大 §f%dms",
+                        metrics.getAverageLatencyMs(), metrics.getMaxLatencyMs()));
+            }
             default -> sendDungeonHelp(player);
         }
     }
 
+    private void handleStatCache(CommandSender sender, String[] args) {
+        StatManager statManager = plugin.getStatManager();
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            statManager.resetCacheCounters();
+            sender.sendMessage("§aステータスキャッシュのカウンタをリセットしました。");
+            return;
+        }
+
+        long hits = statManager.getCacheHits();
+        long misses = statManager.getCacheMisses();
+        long total = hits + misses;
+        double hitRate = (total > 0) ? hits * 100.0 / total : 0.0;
+        double avgRebuildMicros = (misses > 0) ? statManager.getRebuildNanos() / 1000.0 / misses : 0.0;
+
+        sender.sendMessage("§d§l[Stat Cache]");
+        sender.sendMessage("§7キャッシュ済みプレイヤー: §f" + statManager.getCachedPlayerCount());
+        sender.sendMessage("§7ヒット: §a" + hits + " §7ミス: §c" + misses + " §7(ヒット率 " + String.format("%.1f%%", hitRate) + ")");
+        sender.sendMessage("§7再計算: 合計 §f" + String.format("%.2fms", statManager.getRebuildNanos() / 1_000_000.0)
+                + " §7平均 §f" + String.format("%.1fµs", avgRebuildMicros));
+    }
+
+    private void handleCombat(CommandSender sender) {
+        DamageManager damageManager = plugin.getDamageManager();
+
+        sender.sendMessage("§d§l[Combat State]");
+        sender.sendMessage("§7無敵時間: §f" + damageManager.getIFrameEntryCount()
+                + " §7連撃判定: §f" + damageManager.getSpecialAttackEntryCount()
+                + " §7On-Hit CT: §f" + damageManager.getOnHitCooldownEntryCount());
+        sender.sendMessage("§7多段ヒット減衰: §f" + damageManager.getMultiHitEntryCount()
+                + " §7(攻撃者 " + damageManager.getMultiHitAttackerCount() + ")");
+        sender.sendMessage("§7期限切れで削除: §f" + damageManager.getExpiredEntryCount());
+    }
+
+    private void handleSpawnRegions(CommandSender sender) {
+        MobSpawnManager mobSpawnManager = plugin.getMobSpawnManager();
+
+        sender.sendMessage("§d§l[Mob Spawn Regions]");
+        sender.sendMessage("§7チャンク表: §f" + mobSpawnManager.getRegionTableChunkCount() + "チャンク §7作成: §f"
+                + mobSpawnManager.getRegionTableBuilds() + "回 §7表から判定: §f" + mobSpawnManager.getRegionTableHits() + "回");
+        sender.sendMessage("§7境界をまたぐチャンクでの座標判定: §f" + mobSpawnManager.getRegionTableMixedLookups() + "回");
+    }
+
+    private void handleIme(CommandSender sender) {
+        JapaneseImeConverter ime = plugin.getJapaneseImeConverter();
+        long hits = ime.getHitCount();
+        long total = hits + ime.getMissCount();
+
+        sender.sendMessage("§d§l[Chat IME]");
+        sender.sendMessage("§7有効: §f" + ime.isEnabled() + " §7辞書: §f" + ime.getDictionarySize() + "語");
+        sender.sendMessage("§7キャッシュ: §f" + ime.getCacheSize() + "件 §7ヒット率: §f"
+                + (total == 0 ? "-" : String.format("%.1f%%", hits * 100.0 / total)) + " §7(" + hits + "/" + total + ")");
+        sender.sendMessage("§7外部API: §f" + (ime.isRemoteEnabled() ? "有効" : "無効")
+                + " §7問い合わせ: §f" + ime.getRemoteRequestCount()
+                + " §7待ち: §f" + ime.getPendingRemoteCount()
+                + " §7見送り: §f" + ime.getRemoteDroppedCount());
+    }
+
+    private void handleQuestGen(CommandSender sender) {
+        QuestGenerator generator = plugin.getGuildQuestManager().getQuestGenerator();
+        LlmRequestQueue queue = generator.getRequestQueue();
+
+        sender.sendMessage("§d§l[Quest Text]");
+        sender.sendMessage("§7依頼文: キャッシュ §f" + generator.getCachedTextCount()
+                + " §7LLM §f" + generator.getLlmTextCount()
+                + " §7テンプレート §f" + generator.getTemplateTextCount());
+        sender.sendMessage("§7キャッシュ: §f" + generator.getTextCache().getTextCount() + "件 §7(条件 "
+                + generator.getTextCache().getKeyCount() + ")");
+        sender.sendMessage("§7LLM: 実行中 §f" + queue.getInFlight() + " §7待ち §f" + queue.getWaiting()
+                + " §7リクエスト §f" + queue.getRequestCount() + " §7(プロンプト " + queue.getSubmittedCount() + ")");
+        sender.sendMessage("§7失敗: §f" + queue.getFailedCount() + " §7満杯で見送り: §f" + queue.getRejectedCount());
+    }
+
+    private void handleSeeker(CommandSender sender, String[] args) {
+        SeekerScheduler scheduler = plugin.getSeekerScheduler();
+
+        if (args.length >= 2 && args[1].equalsIgnoreCase("metrics")) {
+            handleSeekerMetrics(sender, args);
+            return;
+        }
+        if (args.length >= 2 && args[1].equalsIgnoreCase("trace")) {
+            handleSeekerTrace(sender, args);
+            return;
+        }
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            scheduler.resetStats();
+            Deepwither.getInstance().getSeekerAIEngine().getSpatialIndex().resetStats();
+            Deepwither.getInstance().getSeekerAIEngine().getCoverIndex().resetStats();
+            sender.sendMessage("§aSeeker スケジューラの統計をリセットしました。");
+            return;
+        }
+
+        sender.sendMessage("§d§l[Seeker Scheduler]");
+        sender.sendMessage("§7登録数: §f" + scheduler.getRegisteredCount() + " §7繰り越し待ち: §f" + scheduler.getDeferredCount()
+                + " §7推論中: §f" + Deepwither.getInstance().getSeekerAIEngine().getInFlightCount()
+                + " §7予算: §f" + String.format("%.2fms", scheduler.getBudgetNanos() / 1_000_000.0));
+        sender.sendMessage("§7思考回数: §f" + scheduler.getTotalThinks() + " §7繰り越し: §e" + scheduler.getTotalDeferred()
+                + " §7予算超過tick: §c" + scheduler.getOverBudgetTicks());
+        SeekerSpatialIndex index = Deepwither.getInstance().getSeekerAIEngine().getSpatialIndex();
+        sender.sendMessage("§7周囲検索: §f" + index.getQueryCount() + "回 §7インデックス再構築: §f" + index.getRebuildCount()
+                + "回 §7(直近 " + index.getLastEntryCount() + "件)");
+        CoverIndex cover = Deepwither.getInstance().getSeekerAIEngine().getCoverIndex();
+        sender.sendMessage("§7遮蔽物キャッシュ: §f" + cover.getCachedSectionCount() + "セクション §7走査: §f" + cover.getSectionScanCount()
+                + "回 §7無効化: §f" + cover.getInvalidationCount() + "回");
+        for (int i = 0; i < SeekerScheduler.BUCKET_COUNT; i++) {
+            sender.sendMessage(String.format("§7#%02d §f%3d体 §7直近 §f%.3fms §7平均 §f%.3fms §7最大 §f%.3fms",
+                    i, scheduler.getBucketSize(i),
+                    scheduler.getBucketLastNanos(i) / 1_000_000.0,
+                    scheduler.getBucketAverageNanos(i) / 1_000_000.0,
+                    scheduler.getBucketMaxNanos(i) / 1_000_000.0));
+        }
+    }
+
+    private void handleSeekerMetrics(CommandSender sender, String[] args) {
+        SeekerMetrics metrics = plugin.getSeekerAIEngine().getMetrics();
+
+        if (args.length >= 3 && args[2].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sender.sendMessage("§aSeeker AI の計測値をリセットしました。");
+            return;
+        }
+
+        sender.sendMessage("§d§l[Seeker AI Metrics]");
+        for (int v = 0; v < SeekerMetrics.VERSIONS.length; v++) {
+            SeekerMetrics.Histogram h = metrics.getHistogram(v);
+            long p99 = h.getPercentileUpperMicros(0.99);
+            sender.sendMessage(String.format("§e%s §7回数 §f%d §7平均 §f%.1fµs §7p99 §f%s §7最大 §f%.1fµs",
+                    SeekerMetrics.VERSIONS[v], h.getTotalCount(), h.getAverageNanos() / 1_000.0,
+                    p99 < 0 ? ">" + SeekerMetrics.BUCKET_BOUNDS_MICROS[SeekerMetrics.BUCKET_BOUNDS_MICROS.length - 1] + "µs" : "<" + p99 + "µs",
+                    h.getMaxNanos() / 1_000.0));
+        }
+        StringBuilder actions = new StringBuilder("§7行動: ");
+        metrics.getActionCounts().forEach((action, count) -> actions.append("§f").append(action).append("§7=").append(count).append(' '));
+        sender.sendMessage(actions.toString());
+    }
+
+    private void handleSeekerTrace(CommandSender sender, String[] args) {
+        SeekerMetrics metrics = plugin.getSeekerAIEngine().getMetrics();
+        String action = args.length >= 3 ? args[2].toLowerCase() : "status";
+
+        switch (action) {
+            case "off" -> {
+                metrics.traceOff();
+                sender.sendMessage("§aトレースを停止しました。");
+            }
+            case "every" -> {
+                int every;
+                try {
+                    every = args.length >= 4 ? Integer.parseInt(args[3]) : 100;
+                } catch (NumberFormatException e) {
+                    sender.sendMessage("§c数値を指定してください。");
+                    return;
+                }
+                metrics.traceSampled(every);
+                sender.sendMessage("§a" + metrics.getSampleEvery() + " 回に1回の判断をトレースします。");
+            }
+            case "mob" -> {
+                if (args.length < 4) {
+                    sender.sendMessage("§c/dw seeker trace mob <uuid>");
+                    return;
+                }
+                try {
+                    metrics.traceMob(UUID.fromString(args[3]));
+                } catch (IllegalArgumentException e) {
+                    sender.sendMessage("§cUUIDの形式が正しくありません。");
+                    return;
+                }
+                sender.sendMessage("§a" + args[3] + " の判断を全てトレースします。");
+            }
+            case "look" -> {
+                if (!(sender instanceof Player player)) return;
+                Entity target = player.getTargetEntity(32);
+                if (target == null) {
+                    sender.sendMessage("§c視線の先にMobがいません。");
+                    return;
+                }
+                metrics.traceMob(target.getUniqueId());
+                sender.sendMessage("§a" + target.getName() + " (" + target.getUniqueId() + ") の判断を全てトレースします。");
+            }
+            case "show" -> {
+                List<String> lines = metrics.getRecentTraces(10);
+                if (lines.isEmpty()) {
+                    sender.sendMessage("§7トレースはまだありません。");
+                    return;
+                }
+                lines.forEach(line -> sender.sendMessage("§7" + line));
+            }
+            case "dump" -> {
+                File folder = new File(plugin.getDataFolder(), "analysis");
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                    try {
+                        File file = metrics.dump(folder);
+                        sender.sendMessage("§a" + file.getName() + " に書き出しました。");
+                    } catch (IOException e) {
+                        sender.sendMessage("§c書き出しに失敗しました: " + e.getMessage());
+                    }
+                });
+            }
+            default -> {
+                String mode = switch (metrics.getTraceMode()) {
+                    case OFF -> "停止中";
+                    case SAMPLED -> metrics.getSampleEvery() + " 回に1回";
+                    case MOB -> "個体指定 " + metrics.getTraceMob();
+                };
+                sender.sendMessage("§7トレース: §f" + mode);
+                sender.sendMessage("§f/dw seeker trace <off|every <N>|mob <uuid>|look|show|dump>");
+            }
+        }
+    }
+
     private void sendDungeonHelp(Player player) {
         player.sendMessage("§e[Dungeon Help]");
         player.sendMessage("§f/dw dungeon generate <type> §7- 新規インスタンス生成");
         player.sendMessage("§f/dw dungeon leave §7- ダンジョンから退出");
+        player.sendMessage("§f/dw dungeon pool §7- 事前生成インスタンスの状況");
+        player.sendMessage("§f/dw dungeon spawners [reset] §7- モブスポナー監視の計測値");
     }
 
     private void sendHelp(CommandSender sender) {
         sender.sendMessage("§d§l[Deepwither Admin Help]");
         sender.sendMessage("§f/dw dungeon ... §7- ダンジョン管理コマンド");
         sender.sendMessage("§f/dw reload §7- 設定リロード");
+        sender.sendMessage("§f/dw statcache [reset] §7- ステータスキャッシュの統計");
+        sender.sendMessage("§f/dw combat §7- 戦闘タイマーの保持件数");
+        sender.sendMessage("§f/dw spawnregions §7- Mobスポーンのリージョン判定表の状況");
+        sender.sendMessage("§f/dw ime §7- チャット変換のキャッシュと外部APIの状況");
+        sender.sendMessage("§f/dw questgen §7- ギルドクエスト依頼文の生成状況");
+        sender.sendMessage("§f/dw seeker [reset] §7- Seeker AI のバケット別処理時間");
+        sender.sendMessage("§f/dw seeker metrics [reset] §7- Seeker AI の推論時間と行動の集計");
+        sender.sendMessage("§f/dw seeker trace ... §7- Seeker AI の判断トレース");
     }
 
     @Override
     public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias,
             @NotNull String[] args) {
         if (args.length == 1)
-            return Arrays.asList("dungeon", "reload");
+            return Arrays.asList("dungeon", "reload", "statcache", "combat", "spawnregions", "ime", "questgen", "seeker");
         if (args.length == 2 && args[0].equalsIgnoreCase("dungeon"))
-            return Arrays.asList("generate", "join", "leave");
+            return Arrays.asList("generate", "join", "leave", "pool", "spawners");
+        if (args.length == 2 && args[0].equalsIgnoreCase("seeker"))
+            return Arrays.asList("reset", "metrics", "trace");
+        if (args.length == 3 && args[0].equalsIgnoreCase("seeker") && args[1].equalsIgnoreCase("trace"))
+            return Arrays.asList("off", "every", "mob", "look", "show", "dump");
         if (args.length == 3 && args[1].equalsIgnoreCase("generate")) {
             // dungeonsフォルダ内のymlファイル名を取得してリスト化するのが理想
             return Arrays.asList("silent_terrarium_ruins", "ancient_city");
@@ -29,13 +29,16 @@ public class CraftingDataStore {
     }
 
     public CompletableFuture<CraftingData> loadData(UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> {
-            File file = getPlayerFile(playerId);
-            if (!file.exists()) return new CraftingData(playerId);
+        return CompletableFuture.supplyAsync(() -> readData(playerId));
+    }
 
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-            return (CraftingData) config.get("data", new CraftingData(playerId));
-        });
+    // 呼び出し元スレッドでそのまま読み込む
+    public CraftingData readData(UUID playerId) {
+        File file = getPlayerFile(playerId);
+        if (!file.exists()) return new CraftingData(playerId);
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        return (CraftingData) config.get("data", new CraftingData(playerId));
     }
 
     public void saveData(CraftingData data) {
@@ -178,6 +178,17 @@ public class CraftingManager {
         });
     }
 
+    // ログイン時の一括ロード用。呼び出し元スレッドで基本データとレシピを読み込んで結合する
+    public CraftingData fetchPlayer(UUID playerId) {
+        CraftingData data = dataStore.readData(playerId);
+        data.setUnlockedRecipes(recipeStore.readUnlockedRecipes(playerId));
+        return data;
+    }
+
+    public void hydrate(UUID playerId, CraftingData data) {
+        sessionCache.put(playerId, data);
+    }
+
     public void saveAndUnloadPlayer(UUID playerId) {
         CraftingData data = sessionCache.remove(playerId);
         if (data != null) {
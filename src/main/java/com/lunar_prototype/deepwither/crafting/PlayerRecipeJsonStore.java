@@ -30,21 +30,24 @@ public class PlayerRecipeJsonStore {
 
     // 非同期でロード
     public CompletableFuture<Set<String>> loadUnlockedRecipes(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            File file = getFile(uuid);
-            if (!file.exists()) {
-                return new HashSet<>();
-            }
+        return CompletableFuture.supplyAsync(() -> readUnlockedRecipes(uuid));
+    }
 
-            try (Reader reader = new FileReader(file)) {
-                Type setType = new TypeToken<HashSet<String>>(){}.getType();
-                Set<String> data = gson.fromJson(reader, setType);
-                return data != null ? data : new HashSet<>();
-            } catch (IOException e) {
-                e.printStackTrace();
-                return new HashSet<>();
-            }
-        });
+    // 呼び出し元スレッドでそのまま読み込む
+    public Set<String> readUnlockedRecipes(UUID uuid) {
+        File file = getFile(uuid);
+        if (!file.exists()) {
+            return new HashSet<>();
+        }
+
+        try (Reader reader = new FileReader(file)) {
+            Type setType = new TypeToken<HashSet<String>>(){}.getType();
+            Set<String> data = gson.fromJson(reader, setType);
+            return data != null ? data : new HashSet<>();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new HashSet<>();
+        }
     }
 
     // 非同期で保存
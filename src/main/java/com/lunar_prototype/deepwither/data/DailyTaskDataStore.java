@@ -5,5 +5,7 @@ import java.util.concurrent.CompletableFuture;
 
 public interface DailyTaskDataStore {
     CompletableFuture<DailyTaskData> loadTaskData(UUID playerId);
+    // 呼び出し元スレッドでそのまま読み込む（ログイン時の一括ロード用）。データがなければ null
+    DailyTaskData fetchTaskData(UUID playerId);
     void saveTaskData(DailyTaskData data);
 }
\ No newline at end of file
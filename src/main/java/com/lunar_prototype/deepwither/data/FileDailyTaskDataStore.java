@@ -4,9 +4,6 @@ package com.lunar_prototype.deepwither.data;
 import com.lunar_prototype.deepwither.DatabaseManager;
 import com.lunar_prototype.deepwither.Deepwither;
 import com.lunar_prototype.deepwither.util.IManager;
-import org.bukkit.Bukkit;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -28,41 +25,32 @@ public class FileDailyTaskDataStore implements DailyTaskDataStore, IManager {
 
     @Override
     public CompletableFuture<DailyTaskData> loadTaskData(UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (PreparedStatement ps = db.getConnection().prepareStatement(
-                    "SELECT data_json FROM player_daily_tasks WHERE uuid = ?")) {
-                ps.setString(1, playerId.toString());
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    return db.getGson().fromJson(rs.getString("data_json"), DailyTaskData.class);
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
+        return CompletableFuture.supplyAsync(() -> fetchTaskData(playerId));
+    }
+
+    @Override
+    public DailyTaskData fetchTaskData(UUID playerId) {
+        try {
+            String json = db.query("SELECT data_json FROM player_daily_tasks WHERE uuid = ?",
+                    ps -> ps.setString(1, playerId.toString()),
+                    rs -> rs.next() ? rs.getString("data_json") : null);
+            if (json != null) {
+                return db.getGson().fromJson(json, DailyTaskData.class);
             }
-            return null;
-        });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
     }
 
     @Override
     public void saveTaskData(DailyTaskData data) {
         String json = db.getGson().toJson(data);
-        // plugin.isEnabled() チェックを含めた非同期/同期の振り分け
-        Runnable saveTask = () -> {
-            try (PreparedStatement ps = db.getConnection().prepareStatement(
-                    "INSERT INTO player_daily_tasks (uuid, data_json) VALUES (?, ?) " +
-                            "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json")) {
-                ps.setString(1, data.getPlayerId().toString());
-                ps.setString(2, json);
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        };
-
-        if (plugin.isEnabled()) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, saveTask);
-        } else {
-            saveTask.run();
-        }
+        // 書き込みはDBスレッドのキューに積むだけなので、停止処理中でもそのまま呼べる
+        db.write(data.getPlayerId(), "INSERT INTO player_daily_tasks (uuid, data_json) VALUES (?, ?) " +
+                "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json", ps -> {
+            ps.setString(1, data.getPlayerId().toString());
+            ps.setString(2, json);
+        });
     }
 }
\ No newline at end of file
@@ -4,8 +4,6 @@ import com.lunar_prototype.deepwither.DatabaseManager;
 import com.lunar_prototype.deepwither.aethelgard.PlayerQuestData;
 import com.lunar_prototype.deepwither.util.IManager;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -24,12 +22,14 @@ public class FilePlayerQuestDataStore implements PlayerQuestDataStore, IManager
     @Override
     public CompletableFuture<PlayerQuestData> loadQuestData(UUID playerId) {
         return CompletableFuture.supplyAsync(() -> {
-            try (PreparedStatement ps = db.getConnection().prepareStatement(
-                    "SELECT data_json FROM player_quests WHERE uuid = ?")) {
-                ps.setString(1, playerId.toString());
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    return db.getGson().fromJson(rs.getString("data_json"), PlayerQuestData.class);
+            // 退出時の保存がまだキューにあれば、その反映を待ってから読む
+            db.awaitWritesFor(playerId);
+            try {
+                String json = db.query("SELECT data_json FROM player_quests WHERE uuid = ?",
+                        ps -> ps.setString(1, playerId.toString()),
+                        rs -> rs.next() ? rs.getString("data_json") : null);
+                if (json != null) {
+                    return db.getGson().fromJson(json, PlayerQuestData.class);
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -40,17 +40,11 @@ public class FilePlayerQuestDataStore implements PlayerQuestDataStore, IManager
 
     @Override
     public CompletableFuture<Void> saveQuestData(PlayerQuestData data) {
-        return CompletableFuture.runAsync(() -> {
-            String json = db.getGson().toJson(data);
-            try (PreparedStatement ps = db.getConnection().prepareStatement(
-                    "INSERT INTO player_quests (uuid, data_json) VALUES (?, ?) " +
-                            "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json")) {
-                ps.setString(1, data.getPlayerId().toString());
-                ps.setString(2, json);
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException("Quest save failed", e);
-            }
+        String json = db.getGson().toJson(data);
+        return db.write(data.getPlayerId(), "INSERT INTO player_quests (uuid, data_json) VALUES (?, ?) " +
+                "ON CONFLICT(uuid) DO UPDATE SET data_json = excluded.data_json", ps -> {
+            ps.setString(1, data.getPlayerId().toString());
+            ps.setString(2, json);
         });
     }
 }
\ No newline at end of file
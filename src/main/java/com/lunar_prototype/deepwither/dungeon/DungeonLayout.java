@@ -0,0 +1,51 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import com.sk89q.worldedit.math.BlockVector3;
+
+import java.util.List;
+
+/**
+ * {@link DungeonLayoutPlanner} が決めたパーツの配置。ワールドには触れていないので、何度作り直してもよい。
+ *
+ * @param seed       作った時のシード (同じパーツ構成・シードなら同じ配置になる)
+ * @param placements 配置した順 (親パーツが子より先)
+ */
+public record DungeonLayout(long seed, List<Placement> placements) {
+
+    /**
+     * 1パーツの配置。origin は Schematic の原点を置くワールド座標
+     */
+    public record Placement(DungeonPart part, BlockVector3 origin, int rotation) {}
+
+    public int size() {
+        return placements.size();
+    }
+
+    public boolean isEmpty() {
+        return placements.isEmpty();
+    }
+
+    /**
+     * 全パーツを囲むAABBの最小点 (ワールド座標)。パーツが無ければ null
+     */
+    public BlockVector3 getMinPoint() {
+        BlockVector3 min = null;
+        for (Placement placement : placements) {
+            BlockVector3 point = placement.part().getRotatedMinPoint(placement.rotation()).add(placement.origin());
+            min = (min == null) ? point : min.getMinimum(point);
+        }
+        return min;
+    }
+
+    /**
+     * 全パーツを囲むAABBの最大点 (ワールド座標)。パーツが無ければ null
+     */
+    public BlockVector3 getMaxPoint() {
+        BlockVector3 max = null;
+        for (Placement placement : placements) {
+            BlockVector3 point = placement.part().getRotatedMaxPoint(placement.rotation()).add(placement.origin());
+            max = (max == null) ? point : max.getMaximum(point);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,308 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import com.sk89q.worldedit.math.BlockVector3;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * パーツの配置だけを決める (ワールドには触れない)。
+ * <p>
+ * 乱数はシードから作るため、同じパーツ構成・シードなら必ず同じ {@link DungeonLayout} になる。
+ * 当たり判定は配置済みパーツをXZの格子 ({@value #CELL_SIZE} ブロック四方) に登録して、候補と重なるマスにいるものとだけ比べる。
+ * 状態は {@link #plan} の呼び出しごとに作るので、非同期スレッドから並行して呼んでもよい。
+ */
+public class DungeonLayoutPlanner {
+
+    private static final int CELL_SIZE = 16;
+
+    private final Map<String, List<DungeonPart>> partsByType = new LinkedHashMap<>();
+    private final Logger logger;
+
+    public DungeonLayoutPlanner(List<DungeonPart> parts, Logger logger) {
+        for (DungeonPart part : parts) {
+            partsByType.computeIfAbsent(part.getType(), k -> new ArrayList<>()).add(part);
+        }
+        this.logger = logger;
+    }
+
+    /**
+     * シードを変えながら最大 attempts 回配置を作り、minParts 個以上置けた最初の配置を返す。
+     * どれも足りなければ一番多く置けた配置を返す
+     */
+    public DungeonLayout planBest(long seed, int maxDepth, int startRotation, int minParts, int attempts) {
+        Random seeds = new Random(seed);
+        long attemptSeed = seed;
+        DungeonLayout best = null;
+        for (int attempt = 0; attempt < Math.max(1, attempts); attempt++) {
+            DungeonLayout layout = plan(attemptSeed, maxDepth, startRotation);
+            if (layout.size() >= minParts) return layout;
+            logger.info("Layout too small (" + layout.size() + " < " + minParts + " parts, seed " + attemptSeed + "). Retrying...");
+            if (best == null || layout.size() > best.size()) best = layout;
+            attemptSeed = seeds.nextLong();
+        }
+        return best;
+    }
+
+    /**
+     * 1つの配置を作る
+     */
+    public DungeonLayout plan(long seed, int maxDepth, int startRotation) {
+        return new Run(seed).plan(maxDepth, startRotation);
+    }
+
+    /**
+     * 配置済みパーツのワールド座標のAABB
+     */
+    private static final class Box {
+        private final BlockVector3 origin;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private int visited; // 同じ問い合わせで二度比べないための印
+
+        private Box(DungeonPart part, BlockVector3 origin, int rotation) {
+            BlockVector3 min = part.getRotatedMinPoint(rotation).add(origin);
+            BlockVector3 max = part.getRotatedMaxPoint(rotation).add(origin);
+            this.origin = origin;
+            this.minX = min.getX();
+            this.minY = min.getY();
+            this.minZ = min.getZ();
+            this.maxX = max.getX();
+            this.maxY = max.getY();
+            this.maxZ = max.getZ();
+        }
+
+        private boolean intersects(Box other) {
+            // AABB Collision Check with 2 block buffer to allow wall merging
+            // Relaxed from 1 to 2 based on user feedback (too sensitive)
+            return this.minX < other.maxX - 3 && this.maxX > other.minX + 3
+                    && this.minY < other.maxY && this.maxY > other.minY
+                    && this.minZ < other.maxZ - 3 && this.maxZ > other.minZ + 3;
+        }
+    }
+
+    private final class Run {
+        private final long seed;
+        private final Random random;
+        private final List<DungeonLayout.Placement> placements = new ArrayList<>();
+        // XZのマス → そのマスに掛かっている配置済みパーツ
+        private final Map<Long, List<Box>> grid = new HashMap<>();
+        private int queryId = 0;
+
+        private Run(long seed) {
+            this.seed = seed;
+            this.random = new Random(seed);
+        }
+
+        private DungeonLayout plan(int maxDepth, int startRotation) {
+            // 基準点
+            BlockVector3 startOrigin = BlockVector3.at(0, 64, 0);
+
+            DungeonPart startPart = randomPart("ENTRANCE");
+            if (startPart == null) {
+                logger.warning("No ENTRANCE part found!");
+                return layout();
+            }
+
+            // ENTRANCE は +Z (South) へ抜ける向きで作られているので、180度回して straight 生成と向きを揃える
+            int finalStartRotation = startRotation + 180;
+
+            if (place(startOrigin, startPart, finalStartRotation, null)) {
+                generateRecursive(startPart, startOrigin, finalStartRotation, 1, maxDepth, 0);
+            }
+            return layout();
+        }
+
+        private DungeonLayout layout() {
+            return new DungeonLayout(seed, List.copyOf(placements));
+        }
+
+        // Recursive Step
+        private void generateRecursive(DungeonPart currentPart, BlockVector3 currentOrigin, int currentRot,
+                                       int depth, int maxDepth, int chainLength) {
+            // Check depth limit
+            if (depth >= maxDepth) {
+                // Cap all exits since we reached max depth
+                capExits(currentPart, currentOrigin, currentRot);
+                return;
+            }
+
+            List<BlockVector3> rotatedExits = currentPart.getRotatedExitOffsets(currentRot);
+
+            for (int i = 0; i < rotatedExits.size(); i++) {
+                // Calculate world position of this exit (Connection Point)
+                BlockVector3 connectionPoint = currentOrigin.add(rotatedExits.get(i));
+
+                BlockVector3 originalExit = currentPart.getExitOffsets().get(i);
+                int localExitYaw = currentPart.getExitDirection(originalExit);
+
+                // Apply current rotation (Corrected Math: Local - Rot)
+                int exitWorldYaw = (localExitYaw - currentRot + 360) % 360;
+
+                // Force extend if it's the only exit (to prevent premature dead-ends)
+                boolean forceExtend = rotatedExits.size() == 1;
+                double chance = forceExtend ? 1.0 : 0.8;
+
+                boolean placedInfo = false;
+
+                if (random.nextDouble() < chance) {
+                    // Chain Logic:
+                    // Length < 3: Priority HALLWAY (Extend)
+                    // Length >= 5: Priority ROOM (Branch)
+                    // Middle: Mixed
+                    List<String> typesToTry = new ArrayList<>();
+                    if (chainLength < 3) {
+                        typesToTry.add("HALLWAY");
+                        if (random.nextDouble() > 0.8)
+                            typesToTry.add("ROOM"); // Low chance for room early
+                    } else if (chainLength >= 5) {
+                        typesToTry.add("ROOM");
+                        typesToTry.add("HALLWAY"); // Fallback
+                    } else {
+                        // 50/50
+                        if (random.nextDouble() > 0.5) {
+                            typesToTry.add("ROOM");
+                            typesToTry.add("HALLWAY");
+                        } else {
+                            typesToTry.add("HALLWAY");
+                            typesToTry.add("ROOM");
+                        }
+                    }
+
+                    for (String type : typesToTry) {
+                        for (DungeonPart nextPart : shuffledParts(type)) {
+                            try {
+                                // Calculate Rotation: Intrinsic - Target = Rot
+                                int nextRotation = (nextPart.getIntrinsicYaw() - exitWorldYaw + 360) % 360;
+
+                                BlockVector3 nextEntryRotated = nextPart.getRotatedEntryOffset(nextRotation);
+                                BlockVector3 nextOrigin = connectionPoint.subtract(nextEntryRotated);
+
+                                if (logger.isLoggable(Level.FINE)) {
+                                    logger.fine(String.format(
+                                            "Trying [%s](%s) at %s Rot:%d | Chain:%d | ExYaw:%d -> TgtYaw:%d",
+                                            nextPart.getFileName(), type, nextOrigin, nextRotation, chainLength,
+                                            localExitYaw, exitWorldYaw));
+                                }
+
+                                if (place(nextOrigin, nextPart, nextRotation, currentOrigin)) {
+                                    int newChain = type.equals("HALLWAY") ? chainLength + 1 : 0;
+                                    generateRecursive(nextPart, nextOrigin, nextRotation, depth + 1, maxDepth, newChain);
+                                    placedInfo = true;
+                                    break; // Break candidate loop
+                                }
+                            } catch (RuntimeException e) {
+                                logger.log(Level.WARNING, "Error trying to place part " + nextPart.getFileName(), e);
+                            }
+                        }
+                        if (placedInfo)
+                            break; // Break type loop if placed
+                    }
+                }
+
+                // If failed to place anything (Collision or Change skipped), Cap it.
+                if (!placedInfo) {
+                    placeCap(connectionPoint, exitWorldYaw, currentOrigin);
+                }
+            }
+        }
+
+        private void capExits(DungeonPart currentPart, BlockVector3 currentOrigin, int currentRot) {
+            List<BlockVector3> rotatedExits = currentPart.getRotatedExitOffsets(currentRot);
+            for (int i = 0; i < rotatedExits.size(); i++) {
+                BlockVector3 connectionPoint = currentOrigin.add(rotatedExits.get(i));
+
+                BlockVector3 originalExit = currentPart.getExitOffsets().get(i);
+                int localExitYaw = currentPart.getExitDirection(originalExit);
+                int exitWorldYaw = (localExitYaw - currentRot + 360) % 360;
+
+                placeCap(connectionPoint, exitWorldYaw, currentOrigin);
+            }
+        }
+
+        private void placeCap(BlockVector3 connectionPoint, int exitWorldYaw, BlockVector3 parentOrigin) {
+            // Try CAP then ENTRANCE (as fallback)
+            for (String type : List.of("CAP", "ENTRANCE")) {
+                for (DungeonPart capPart : shuffledParts(type)) {
+                    // Align Cap Intrinsic Yaw to Exit World Yaw
+                    int baseRotation = (capPart.getIntrinsicYaw() - exitWorldYaw + 360) % 360;
+
+                    // Fix for Cap: Rotate 180 degrees to face 'inwards'
+                    int nextRotation = (baseRotation + 180) % 360;
+
+                    BlockVector3 nextEntryRotated = capPart.getRotatedEntryOffset(nextRotation);
+                    BlockVector3 nextOrigin = connectionPoint.subtract(nextEntryRotated);
+
+                    if (place(nextOrigin, capPart, nextRotation, parentOrigin)) {
+                        if (logger.isLoggable(Level.FINE)) logger.fine("Placed CAP at " + connectionPoint);
+                        return; // Capped successfully
+                    }
+                }
+            }
+            if (logger.isLoggable(Level.FINE)) logger.fine("Failed to CAP at " + connectionPoint);
+        }
+
+        /**
+         * 重ならなければ配置を確定する。ignoreOrigin に原点を置いたパーツ (接続元) とは重なってもよい
+         */
+        private boolean place(BlockVector3 origin, DungeonPart part, int rotation, BlockVector3 ignoreOrigin) {
+            // Schematic を読めなかったパーツは置かない
+            if (part.getMinPoint() == null) return false;
+
+            Box candidate = new Box(part, origin, rotation);
+            int id = ++queryId;
+            int cellMinX = Math.floorDiv(candidate.minX, CELL_SIZE), cellMaxX = Math.floorDiv(candidate.maxX, CELL_SIZE);
+            int cellMinZ = Math.floorDiv(candidate.minZ, CELL_SIZE), cellMaxZ = Math.floorDiv(candidate.maxZ, CELL_SIZE);
+
+            // 判定の余白は内側に取っているので、候補のAABBと同じマスにいないパーツとは重ならない
+            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
+                    List<Box> cell = grid.get(cellKey(cx, cz));
+                    if (cell == null) continue;
+                    for (Box existing : cell) {
+                        if (existing.visited == id) continue;
+                        existing.visited = id;
+                        // Ignore collision with parent part (Source of connection)
+                        if (ignoreOrigin != null && existing.origin.equals(ignoreOrigin)) continue;
+                        if (candidate.intersects(existing)) {
+                            if (logger.isLoggable(Level.FINE)) logger.fine("Collision detected at " + origin);
+                            return false;
+                        }
+                    }
+                }
+            }
+
+            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
+                    grid.computeIfAbsent(cellKey(cx, cz), k -> new ArrayList<>(4)).add(candidate);
+                }
+            }
+            placements.add(new DungeonLayout.Placement(part, origin, rotation));
+            return true;
+        }
+
+        private List<DungeonPart> shuffledParts(String type) {
+            List<DungeonPart> parts = partsByType.get(type);
+            if (parts == null) return List.of();
+            List<DungeonPart> candidates = new ArrayList<>(parts);
+            Collections.shuffle(candidates, random);
+            return candidates;
+        }
+
+        private DungeonPart randomPart(String type) {
+            List<DungeonPart> parts = partsByType.get(type);
+            if (parts == null || parts.isEmpty()) return null;
+            return parts.get(random.nextInt(parts.size()));
+        }
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
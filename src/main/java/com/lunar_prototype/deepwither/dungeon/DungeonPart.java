@@ -4,12 +4,22 @@ import com.lunar_prototype.deepwither.Deepwither;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.block.BlockTypes;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * ダンジョンの1パーツ (Schematic 1つ分) と、その中のマーカーの位置。
+ * <p>
+ * {@link SchematicCache} が走査済みのものを生成間で共有するため、{@link #scanMarkers} の後は変更しない。
+ * 回転ごとのオフセットと貼り付け用の範囲分割は初回に計算して覚えておく。
+ * 回転後のオフセットは {@link DungeonLayoutPlanner} が非同期スレッドからも読む。
+ */
 public class DungeonPart {
     private final String fileName;
     private final String type;
@@ -30,16 +40,40 @@ public class DungeonPart {
     private BlockVector3 minPoint;
     private BlockVector3 maxPoint;
 
+    private Clipboard clipboard;
+
+    // 回転角 (0/90/180/270) → 回転後のオフセット
+    private record Rotated(BlockVector3 entry, List<BlockVector3> exits, List<BlockVector3> mobSpawners,
+                           List<BlockVector3> lootChests, BlockVector3 min, BlockVector3 max) {}
+
+    private final Map<Integer, Rotated> rotations = new ConcurrentHashMap<>();
+    private List<Region> pasteSlices;
+    private int pasteSlicesBudget;
+
     public DungeonPart(String fileName, String type, int length) {
         this.fileName = fileName;
         this.type = type;
         this.length = length;
     }
 
+    // Schematic を使わずに形だけ与える (レイアウトのベンチマーク用)
+    DungeonPart(String fileName, String type, int length, BlockVector3 entry, List<BlockVector3> exits,
+                BlockVector3 minPoint, BlockVector3 maxPoint) {
+        this(fileName, type, length);
+        this.entryX = entry.getX();
+        this.entryY = entry.getY();
+        this.entryZ = entry.getZ();
+        this.exitOffsets.addAll(exits);
+        this.minPoint = minPoint;
+        this.maxPoint = maxPoint;
+        calculateIntrinsicYaw();
+    }
+
     // Flow direction (Yaw) from Entry to Exit
     private int intrinsicYaw = 0;
 
     public void scanMarkers(Clipboard clipboard) {
+        this.clipboard = clipboard;
         BlockVector3 origin = clipboard.getOrigin();
 
         // Calculate Bounding Box relative to Origin
@@ -115,21 +149,18 @@ public class DungeonPart {
         }
 
         calculateIntrinsicYaw();
+        Deepwither.getInstance().getLogger().info("[" + fileName + "] Intrinsic Yaw: " + intrinsicYaw);
     }
 
     public List<BlockVector3> getRotatedMobSpawnerOffsets(int rotation) {
-        return mobSpawnerOffsets.stream()
-                .map(vec -> transformVector(vec, rotation))
-                .collect(Collectors.toList());
+        return rotated(rotation).mobSpawners();
     }
 
     /**
      * 回転後のルートチェスト（エメラルドブロック）の座標リストを取得
      */
     public List<BlockVector3> getRotatedLootChestOffsets(int rotation) {
-        return lootChestOffsets.stream()
-                .map(vec -> transformVector(vec, rotation))
-                .collect(Collectors.toList());
+        return rotated(rotation).lootChests();
     }
 
     private void calculateIntrinsicYaw() {
@@ -147,7 +178,6 @@ public class DungeonPart {
         } else {
             this.intrinsicYaw = (dz > 0) ? 0 : 180;
         }
-        Deepwither.getInstance().getLogger().info("[" + fileName + "] Intrinsic Yaw: " + intrinsicYaw);
     }
 
     public int getIntrinsicYaw() {
@@ -158,16 +188,88 @@ public class DungeonPart {
      * 回転後の「入口」オフセットを取得
      */
     public BlockVector3 getRotatedEntryOffset(int rotation) {
-        return transformVector(getEntryOffset(), rotation);
+        return rotated(rotation).entry();
     }
 
     /**
      * 回転後の「出口」オフセットリストを取得
      */
     public List<BlockVector3> getRotatedExitOffsets(int rotation) {
-        return exitOffsets.stream()
-                .map(vec -> transformVector(vec, rotation))
-                .collect(Collectors.toList());
+        return rotated(rotation).exits();
+    }
+
+    /**
+     * 回転後のバウンディングボックス (8隅を回転させたAABB) の最小点
+     */
+    public BlockVector3 getRotatedMinPoint(int rotation) {
+        return rotated(rotation).min();
+    }
+
+    /**
+     * 回転後のバウンディングボックス (8隅を回転させたAABB) の最大点
+     */
+    public BlockVector3 getRotatedMaxPoint(int rotation) {
+        return rotated(rotation).max();
+    }
+
+    private Rotated rotated(int rotation) {
+        int normalizedAngle = rotation % 360;
+        if (normalizedAngle < 0)
+            normalizedAngle += 360;
+        return rotations.computeIfAbsent(normalizedAngle, this::computeRotated);
+    }
+
+    private Rotated computeRotated(int angle) {
+        BlockVector3 min = BlockVector3.ZERO;
+        BlockVector3 max = BlockVector3.ZERO;
+        if (minPoint != null && maxPoint != null) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+            for (int corner = 0; corner < 8; corner++) {
+                BlockVector3 v = transformVector(BlockVector3.at(
+                        (corner & 4) == 0 ? minPoint.getX() : maxPoint.getX(),
+                        (corner & 2) == 0 ? minPoint.getY() : maxPoint.getY(),
+                        (corner & 1) == 0 ? minPoint.getZ() : maxPoint.getZ()), angle);
+                minX = Math.min(minX, v.getX());
+                minY = Math.min(minY, v.getY());
+                minZ = Math.min(minZ, v.getZ());
+                maxX = Math.max(maxX, v.getX());
+                maxY = Math.max(maxY, v.getY());
+                maxZ = Math.max(maxZ, v.getZ());
+            }
+            min = BlockVector3.at(minX, minY, minZ);
+            max = BlockVector3.at(maxX, maxY, maxZ);
+        }
+        return new Rotated(
+                transformVector(getEntryOffset(), angle),
+                transformAll(exitOffsets, angle),
+                transformAll(mobSpawnerOffsets, angle),
+                transformAll(lootChestOffsets, angle),
+                min, max);
+    }
+
+    private List<BlockVector3> transformAll(List<BlockVector3> offsets, int angle) {
+        return offsets.stream()
+                .map(vec -> transformVector(vec, angle))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * 読み込んだ Schematic。ファイルが無かった場合は null
+     */
+    public Clipboard getClipboard() {
+        return clipboard;
+    }
+
+    /**
+     * {@link SchematicPaster} で貼るための範囲分割 (予算ごとに覚えておく)
+     */
+    public List<Region> getPasteSlices(int blocksPerTick) {
+        if (pasteSlices == null || pasteSlicesBudget != blocksPerTick) {
+            pasteSlices = List.copyOf(SchematicPaster.slice(clipboard, blocksPerTick));
+            pasteSlicesBudget = blocksPerTick;
+        }
+        return pasteSlices;
     }
 
     /**
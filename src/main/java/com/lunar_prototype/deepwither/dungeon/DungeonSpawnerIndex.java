@@ -0,0 +1,137 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 1つのダンジョンのスポーン待ちモブを、XZの格子 ({@value #CELL_SIZE} ブロック四方) に分けて持つ。
+ * <p>
+ * 判定はインスタンスにいるプレイヤーの周りのマスにあるスポナーとだけ行い、スポナーごとに周囲のエンティティを検索しない。
+ * 範囲は従来の {@code getNearbyEntities(location, r, r, r)} と同じく、スポナーから各軸 r の箱とプレイヤーの当たり判定が重なるかで見る。
+ * メインスレッド専用。
+ */
+public class DungeonSpawnerIndex {
+
+    private static final int CELL_SIZE = 16;
+
+    public static final class Spawner {
+        private final Location location;
+        private final String mobId;
+        private final long seq; // 登録順 (同時に範囲に入った時はこの順に湧かせる)
+        private long firstInRangeAt = 0; // 初めてプレイヤーが範囲に入った時刻 (ms)。まだなら 0
+        private int visited;
+
+        private Spawner(Location location, String mobId, long seq) {
+            this.location = location;
+            this.mobId = mobId;
+            this.seq = seq;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public String getMobId() {
+            return mobId;
+        }
+
+        public long getFirstInRangeAt() {
+            return firstInRangeAt;
+        }
+    }
+
+    private final Map<Long, List<Spawner>> cells = new HashMap<>();
+    private int size = 0;
+    private long nextSeq = 0;
+    private int queryId = 0;
+    private long lastComparisons = 0;
+
+    public void add(Location location, String mobId) {
+        cells.computeIfAbsent(cellKey(cell(location.getBlockX()), cell(location.getBlockZ())), k -> new ArrayList<>(4))
+                .add(new Spawner(location, mobId, nextSeq++));
+        size++;
+    }
+
+    public void remove(Spawner spawner) {
+        long key = cellKey(cell(spawner.location.getBlockX()), cell(spawner.location.getBlockZ()));
+        List<Spawner> cell = cells.get(key);
+        if (cell != null && cell.remove(spawner)) {
+            size--;
+            if (cell.isEmpty()) cells.remove(key);
+        }
+    }
+
+    /**
+     * いずれかのプレイヤーから range 以内にあるスポナーを登録順に返す。
+     * 初めて範囲に入ったスポナーには now を記録する
+     */
+    public List<Spawner> findInRange(Collection<? extends Player> players, double range, long now) {
+        List<Spawner> found = new ArrayList<>();
+        long comparisons = 0;
+        int id = ++queryId;
+
+        for (Player player : players) {
+            BoundingBox box = player.getBoundingBox();
+            int cellMinX = cell((int) Math.floor(box.getMinX() - range));
+            int cellMaxX = cell((int) Math.floor(box.getMaxX() + range));
+            int cellMinZ = cell((int) Math.floor(box.getMinZ() - range));
+            int cellMaxZ = cell((int) Math.floor(box.getMaxZ() + range));
+
+            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
+                    List<Spawner> cell = cells.get(cellKey(cx, cz));
+                    if (cell == null) continue;
+                    for (Spawner spawner : cell) {
+                        if (spawner.visited == id) continue;
+                        comparisons++;
+                        if (BoundingBox.of(spawner.location, range, range, range).overlaps(box)) {
+                            spawner.visited = id;
+                            if (spawner.firstInRangeAt == 0) spawner.firstInRangeAt = now;
+                            found.add(spawner);
+                        }
+                    }
+                }
+            }
+        }
+
+        lastComparisons = comparisons;
+        found.sort(Comparator.comparingLong(s -> s.seq));
+        return found;
+    }
+
+    /**
+     * 直前の {@link #findInRange} で距離を比べたスポナーの数
+     */
+    public long getLastComparisons() {
+        return lastComparisons;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    private static int cell(int block) {
+        return Math.floorDiv(block, CELL_SIZE);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+}
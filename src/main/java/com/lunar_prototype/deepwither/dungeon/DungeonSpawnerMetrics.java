@@ -0,0 +1,83 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+/**
+ * ダンジョンのスポナー監視の計測値 (全インスタンス合計)。
+ * <p>
+ * 反応時間は、プレイヤーが初めてスポナーの範囲に入ったと判定されてから実際にモブが湧くまで
+ * (1回の判定で湧かせる数の上限による待ちと、湧きを散らす遅延を含む)。メインスレッド専用。
+ */
+public class DungeonSpawnerMetrics {
+
+    private long pending = 0;
+    private long checks = 0;
+    private long playersChecked = 0;
+    private long comparisons = 0;
+    private long spawned = 0;
+    private long discarded = 0;
+    private long latencySumMs = 0;
+    private long latencyMaxMs = 0;
+
+    void recordRegistered() {
+        pending++;
+    }
+
+    void recordCheck(int players, long comparedSpawners) {
+        checks++;
+        playersChecked += players;
+        comparisons += comparedSpawners;
+    }
+
+    void recordSpawn(long latencyMs) {
+        pending--;
+        spawned++;
+        latencySumMs += latencyMs;
+        latencyMaxMs = Math.max(latencyMaxMs, latencyMs);
+    }
+
+    void recordDiscarded(int count) {
+        pending -= count;
+        discarded += count;
+    }
+
+    public void reset() {
+        checks = 0;
+        playersChecked = 0;
+        comparisons = 0;
+        spawned = 0;
+        discarded = 0;
+        latencySumMs = 0;
+        latencyMaxMs = 0;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public long getPlayersChecked() {
+        return playersChecked;
+    }
+
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    public long getSpawned() {
+        return spawned;
+    }
+
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    public double getAverageLatencyMs() {
+        return spawned == 0 ? 0 : (double) latencySumMs / spawned;
+    }
+
+    public long getMaxLatencyMs() {
+        return latencyMaxMs;
+    }
+}
@@ -0,0 +1,93 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import com.lunar_prototype.deepwither.Deepwither;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * 読み込んだ .schem と、そこから作った {@link DungeonPart} のキャッシュ。
+ * <p>
+ * ファイルごとに一度だけ読み込み・マーカー走査を行い、同じダンジョンを何度生成しても使い回す。
+ * ファイルの更新日時かサイズが変わっていれば読み直す。
+ */
+public final class SchematicCache {
+
+    private record Entry(long lastModified, long length, Clipboard clipboard, Map<String, DungeonPart> parts) {}
+
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private SchematicCache() {
+    }
+
+    /**
+     * Schematic を読み込む (キャッシュ済みならそれを返す)。読めなければ null
+     */
+    public static Clipboard getClipboard(File file) {
+        Entry entry = entry(file);
+        return entry != null ? entry.clipboard() : null;
+    }
+
+    /**
+     * マーカー走査済みのパーツを返す。同じファイル・種類・長さなら同じインスタンスを共有する。読めなければ null
+     */
+    public static DungeonPart getPart(File file, String type, int length) {
+        Entry entry = entry(file);
+        if (entry == null) return null;
+        return entry.parts().computeIfAbsent(type + ":" + length, k -> {
+            DungeonPart part = new DungeonPart(file.getName(), type, length);
+            part.scanMarkers(entry.clipboard());
+            return part;
+        });
+    }
+
+    public static void clear() {
+        ENTRIES.clear();
+    }
+
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    private static Entry entry(File file) {
+        if (!file.exists()) return null;
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        Entry cached = ENTRIES.get(key);
+        if (cached != null && cached.lastModified() == lastModified && cached.length() == length) {
+            return cached;
+        }
+
+        Clipboard clipboard = read(file);
+        if (clipboard == null) {
+            ENTRIES.remove(key);
+            return null;
+        }
+        Entry entry = new Entry(lastModified, length, clipboard, new ConcurrentHashMap<>());
+        ENTRIES.put(key, entry);
+        return entry;
+    }
+
+    private static Clipboard read(File file) {
+        ClipboardFormat format = ClipboardFormats.findByFile(file);
+        if (format == null) {
+            Deepwither.getInstance().getLogger().warning("Unknown schematic format: " + file.getName());
+            return null;
+        }
+        try (ClipboardReader reader = format.getReader(new FileInputStream(file))) {
+            return reader.read();
+        } catch (Exception e) {
+            Deepwither.getInstance().getLogger().log(Level.SEVERE, "Failed to read schematic: " + file.getName(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.lunar_prototype.deepwither.dungeon;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.transform.BlockTransformExtent;
+import com.sk89q.worldedit.function.mask.ExistingBlockMask;
+import com.sk89q.worldedit.function.mask.Masks;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
+
+/**
+ * Schematic をtickをまたいで少しずつ貼り付ける。
+ * <p>
+ * 貼り付けは {@link #paste} で積んだ順に行い、1tickに貼る量は {@code blocksPerTick} (範囲の体積) までに抑える。
+ * 1つの Schematic は {@link #slice} で分けた範囲ごとに ForwardExtentCopy で貼るため、回転・空気無視・タイルエンティティの扱いは
+ * WorldEdit の通常の貼り付けと同じ。エンティティ (防具立て・額縁・絵画など) は最後の範囲を貼った後に Schematic 全体からまとめて写す。{@link #clear} で積んだ範囲の消去も同じ順番・同じ予算で行う。メインスレッド専用。
+ */
+public class SchematicPaster {
+
+    private static final class Job {
+        private final World world;
+        private final Clipboard clipboard; // 消去なら null
+        private final BlockState fill; // 貼り付けなら null
+        private final List<Region> slices;
+        private final BlockVector3 to;
+        private final AffineTransform transform;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int next = 0;
+
+        private Job(World world, Clipboard clipboard, BlockState fill, List<Region> slices, BlockVector3 to, int rotation) {
+            this.world = world;
+            this.clipboard = clipboard;
+            this.fill = fill;
+            this.slices = slices;
+            this.to = to;
+            this.transform = new AffineTransform().rotateY(rotation);
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final int blocksPerTick;
+    private final ArrayDeque<Job> queue = new ArrayDeque<>();
+    private boolean running = false;
+
+    public SchematicPaster(JavaPlugin plugin, int blocksPerTick) {
+        this.plugin = plugin;
+        this.blocksPerTick = Math.max(1, blocksPerTick);
+    }
+
+    public int getBlocksPerTick() {
+        return blocksPerTick;
+    }
+
+    public int getQueuedJobs() {
+        return queue.size();
+    }
+
+    /**
+     * 貼り付けを積む。全ての範囲を貼り終えた時点でメインスレッドで完了する。
+     * 途中でワールドがアンロードされた場合や {@link #cancelAll()} された場合は例外で完了する
+     */
+    public CompletableFuture<Void> paste(World world, Clipboard clipboard, List<Region> slices, BlockVector3 to, int rotation) {
+        return enqueue(new Job(world, clipboard, null, slices, to, rotation));
+    }
+
+    /**
+     * min〜max の範囲を空気で埋める処理を積む (インスタンスのワールドを使い回す時の後片付け)
+     */
+    public CompletableFuture<Void> clear(World world, BlockVector3 min, BlockVector3 max) {
+        return enqueue(new Job(world, null, BlockTypes.AIR.getDefaultState(), slice(min, max, blocksPerTick), BlockVector3.ZERO, 0));
+    }
+
+    private CompletableFuture<Void> enqueue(Job job) {
+        if (job.slices.isEmpty()) {
+            job.future.complete(null);
+            return job.future;
+        }
+        queue.add(job);
+        start();
+        return job.future;
+    }
+
+    public void cancelAll() {
+        for (Job job : queue) job.future.completeExceptionally(new CancellationException("paste cancelled"));
+        queue.clear();
+    }
+
+    private void start() {
+        if (running) return;
+        running = true;
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                int budget = blocksPerTick;
+                // 少なくとも1範囲は貼るので、予算より大きい範囲があっても止まらない
+                while (!queue.isEmpty() && budget > 0) {
+                    Job job = queue.peek();
+                    if (Bukkit.getWorld(job.world.getUID()) == null) {
+                        queue.poll();
+                        job.future.completeExceptionally(new IllegalStateException("world unloaded: " + job.world.getName()));
+                        continue;
+                    }
+
+                    Region slice = job.slices.get(job.next);
+                    try {
+                        pasteSlice(job, slice, job.next == job.slices.size() - 1);
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.SEVERE, job.fill != null
+                                ? "Failed to clear region " + slice
+                                : "Failed to paste schematic slice at " + job.to, e);
+                        queue.poll();
+                        job.future.completeExceptionally(e);
+                        continue;
+                    }
+                    budget -= (int) Math.min(Integer.MAX_VALUE, slice.getVolume());
+
+                    if (++job.next >= job.slices.size()) {
+                        queue.poll();
+                        job.future.complete(null);
+                    }
+                }
+
+                if (queue.isEmpty()) {
+                    this.cancel();
+                    running = false;
+                }
+            }
+        }.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    private void pasteSlice(Job job, Region slice, boolean last) throws Exception {
+        try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(job.world))) {
+            if (job.fill != null) {
+                editSession.setBlocks(slice, job.fill);
+                return;
+            }
+            // ClipboardHolder#createPaste と同じ組み立てで、範囲だけを slice に絞る
+            Extent source = job.transform.isIdentity() ? job.clipboard : new BlockTransformExtent(job.clipboard, job.transform);
+            ForwardExtentCopy copy = new ForwardExtentCopy(source, slice, job.clipboard.getOrigin(), editSession, job.to);
+            copy.setTransform(job.transform);
+            copy.setSourceMask(new ExistingBlockMask(job.clipboard));
+            copy.setCopyingEntities(false);
+            Operations.complete(copy);
+
+            // エンティティは範囲内のものしか写されないので、最後のブロックを貼った後に全体からまとめて写す (ブロックは写さない)
+            if (last) {
+                ForwardExtentCopy entities = new ForwardExtentCopy(source, job.clipboard.getRegion(), job.clipboard.getOrigin(), editSession, job.to);
+                entities.setTransform(job.transform);
+                entities.setSourceMask(Masks.alwaysFalse());
+                entities.setCopyingEntities(true);
+                Operations.complete(entities);
+            }
+        }
+    }
+
+    /**
+     * Schematic の範囲を、体積が blocksPerTick 以下になるようにY層 (必要ならX方向の帯) に分ける
+     */
+    public static List<Region> slice(Clipboard clipboard, int blocksPerTick) {
+        return slice(clipboard.getRegion().getMinimumPoint(), clipboard.getRegion().getMaximumPoint(), blocksPerTick);
+    }
+
+    /**
+     * min〜max の直方体を、体積が blocksPerTick 以下になるように分ける
+     */
+    public static List<Region> slice(BlockVector3 min, BlockVector3 max, int blocksPerTick) {
+        int sizeX = max.getX() - min.getX() + 1;
+        int sizeZ = max.getZ() - min.getZ() + 1;
+        long layerVolume = (long) sizeX * sizeZ;
+
+        List<Region> slices = new ArrayList<>();
+        if (layerVolume <= blocksPerTick) {
+            int layersPerSlice = (int) Math.max(1, blocksPerTick / layerVolume);
+            for (int y = min.getY(); y <= max.getY(); y += layersPerSlice) {
+                int top = Math.min(max.getY(), y + layersPerSlice - 1);
+                slices.add(new CuboidRegion(BlockVector3.at(min.getX(), y, min.getZ()), BlockVector3.at(max.getX(), top, max.getZ())));
+            }
+        } else {
+            int stripWidth = Math.max(1, blocksPerTick / sizeZ);
+            for (int y = min.getY(); y <= max.getY(); y++) {
+                for (int x = min.getX(); x <= max.getX(); x += stripWidth) {
+                    int right = Math.min(max.getX(), x + stripWidth - 1);
+                    slices.add(new CuboidRegion(BlockVector3.at(x, y, min.getZ()), BlockVector3.at(right, y, max.getZ())));
+                }
+            }
+        }
+        return slices;
+    }
+}
@@ -5,9 +5,6 @@ import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -16,8 +13,6 @@ import com.sk89q.worldedit.session.ClipboardHolder;
 import org.bukkit.Location;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 
 public class SchematicUtil {
 
@@ -45,15 +40,14 @@ public class SchematicUtil {
             return;
         }
 
-        ClipboardFormat format = ClipboardFormats.findByFile(file);
-        if (format == null) {
-            System.err.println("[SchematicUtil] Unknown format for file: " + file.getName());
+        // 同じファイルは一度だけ読み込む
+        Clipboard clipboard = SchematicCache.getClipboard(file);
+        if (clipboard == null) {
+            System.err.println("[SchematicUtil] Failed to load: " + file.getName());
             return;
         }
 
-        try (ClipboardReader reader = format.getReader(new FileInputStream(file))) {
-            Clipboard clipboard = reader.read();
-
+        try {
             // FAWEのEditSessionを作成 (高速処理用)
             try (EditSession editSession = WorldEdit.getInstance().newEditSession(BukkitAdapter.adapt(loc.getWorld()))) {
 
@@ -74,7 +68,7 @@ public class SchematicUtil {
                 Operations.complete(operation);
             }
 
-        } catch (IOException | WorldEditException e) {
+        } catch (WorldEditException e) {
             e.printStackTrace();
         }
     }
@@ -1,5 +1,7 @@
 package com.lunar_prototype.deepwither.dungeon.instance;
 
+import com.lunar_prototype.deepwither.dungeon.DungeonGenerator;
+import com.lunar_prototype.deepwither.dungeon.DungeonLayout;
 import org.bukkit.World;
 import java.util.HashSet;
 import java.util.Set;
@@ -11,6 +13,12 @@ public class DungeonInstance {
     private final Set<UUID> currentPlayers;
     private long lastEmptyTime;
 
+    // 生成内容 (ワールドを使い回す時の後片付けに使う)
+    private String dungeonType;
+    private String difficulty;
+    private DungeonGenerator generator;
+    private DungeonLayout layout;
+
     public DungeonInstance(String instanceId, World world) {
         this.instanceId = instanceId;
         this.world = world;
@@ -51,4 +59,39 @@ public class DungeonInstance {
     public long getLastEmptyTime() {
         return lastEmptyTime;
     }
+
+    /**
+     * プールから渡した時など、空になった時刻を今にする
+     */
+    public void resetEmptyTime() {
+        if (currentPlayers.isEmpty()) {
+            lastEmptyTime = System.currentTimeMillis();
+        }
+    }
+
+    public void setGenerated(String dungeonType, String difficulty, DungeonGenerator generator) {
+        this.dungeonType = dungeonType;
+        this.difficulty = difficulty;
+        this.generator = generator;
+    }
+
+    public String getDungeonType() {
+        return dungeonType;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public DungeonGenerator getGenerator() {
+        return generator;
+    }
+
+    public DungeonLayout getLayout() {
+        return layout;
+    }
+
+    public void setLayout(DungeonLayout layout) {
+        this.layout = layout;
+    }
 }
@@ -3,13 +3,13 @@ package com.lunar_prototype.deepwither.dungeon.instance;
 import com.lunar_prototype.deepwither.Deepwither;
 import com.lunar_prototype.deepwither.api.DeepwitherPartyAPI;
 import com.lunar_prototype.deepwither.dungeon.DungeonGenerator;
+import com.lunar_prototype.deepwither.dungeon.DungeonSpawnerMetrics;
+import com.lunar_prototype.deepwither.dungeon.SchematicPaster;
 import com.lunar_prototype.deepwither.util.IManager;
 import org.bukkit.*;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
 
 public class DungeonInstanceManager implements IManager {
@@ -19,6 +19,9 @@ public class DungeonInstanceManager implements IManager {
     private final Map<UUID, String> playerInstanceMap = new HashMap<>(); // Key: Player UUID, Value: World Name
 
     private BukkitTask cleanupTask;
+    private SchematicPaster paster;
+    private DungeonWorldPool pool;
+    private final DungeonSpawnerMetrics spawnerMetrics = new DungeonSpawnerMetrics();
     private static DungeonInstanceManager instance;
 
     // 定数: インスタンスが空になってから削除するまでの時間 (ミリ秒) - 例: 5分
@@ -37,6 +40,9 @@ public class DungeonInstanceManager implements IManager {
     public void init() {
         // 1分ごとにクリーンアップタスクを実行
         cleanupTask = Bukkit.getScheduler().runTaskTimer(plugin, this::cleanupInactiveInstances, 1200L, 1200L);
+        paster = new SchematicPaster(plugin, plugin.getConfig().getInt("dungeon.paste-blocks-per-tick", 8192));
+        pool = new DungeonWorldPool(plugin, paster, spawnerMetrics, plugin.getConfig().getConfigurationSection("dungeon.pool"));
+        pool.start();
         plugin.getLogger().info("DungeonInstanceManager initialized.");
     }
 
@@ -45,6 +51,13 @@ public class DungeonInstanceManager implements IManager {
         if (cleanupTask != null && !cleanupTask.isCancelled()) {
             cleanupTask.cancel();
         }
+        if (paster != null) {
+            paster.cancelAll();
+        }
+        // 以後は片付けずに削除する
+        if (pool != null) {
+            pool.shutdown();
+        }
         // 全インスタンスを強制削除
         Set<String> keys = new HashSet<>(activeInstances.keySet());
         for (String key : keys) {
@@ -56,37 +69,44 @@ public class DungeonInstanceManager implements IManager {
      * 新しいダンジョンインスタンスを生成し、ホストプレイヤーとそのパーティーを転送する
      */
     public void createDungeonInstance(Player host, String dungeonType, String difficulty) {
-        UUID hostId = host.getUniqueId();
-        String worldName = "dw_inst_" + hostId.toString().substring(0, 8) + "_" + System.currentTimeMillis();
-
-        plugin.getLogger().info("Generating dungeon instance: " + worldName + " type: " + dungeonType);
-
-        // 1. 空のワールド（Void）を作成
-        WorldCreator creator = new WorldCreator(worldName);
-        creator.type(WorldType.FLAT);
-        creator.generatorSettings("{\"layers\":[{\"block\":\"minecraft:air\",\"height\":1}],\"biome\":\"minecraft:the_void\"}");
-        creator.generateStructures(false);
+        // 1. 事前に生成済みのインスタンスがあれば、それをそのまま使う
+        DungeonInstance pooled = pool.take(dungeonType, difficulty);
+        if (pooled != null) {
+            plugin.getLogger().info("Using pre-generated dungeon instance: " + pooled.getInstanceId() + " type: " + dungeonType);
+            activeInstances.put(pooled.getInstanceId(), pooled);
+            transferParty(host, pooled.getInstanceId());
+            return;
+        }
 
-        World world = creator.createWorld();
+        // 2. 無ければ空のワールド (片付け済みのものがあれば使い回す) にその場で生成する
+        World world = pool.acquireWorld();
         if (world == null) {
             host.sendMessage(ChatColor.RED + "ワールド生成に失敗しました。");
             return;
         }
+        String worldName = world.getName();
+        plugin.getLogger().info("Generating dungeon instance: " + worldName + " type: " + dungeonType);
 
-        // ゲームルールの設定
-        world.setGameRule(GameRule.DO_MOB_SPAWNING, false);
-        world.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
-        world.setGameRule(GameRule.KEEP_INVENTORY, true); // Keep Inventory有効
-        world.setTime(18000); // 深夜
-
-        // 2. ダンジョン生成実行
-        DungeonGenerator generator = new DungeonGenerator(dungeonType,difficulty);
-        generator.generateBranching(world,0); // depth10などで生成
-
-        // 3. インスタンス管理に追加
+        // インスタンス管理に追加
         DungeonInstance dInstance = new DungeonInstance(worldName, world);
         activeInstances.put(worldName, dInstance);
 
+        // 3. ダンジョン生成実行 (貼り付けは複数tickに分けて行われる)
+        host.sendMessage(ChatColor.GRAY + "ダンジョンを生成しています...");
+        DungeonGenerator generator = new DungeonGenerator(dungeonType, difficulty, paster, spawnerMetrics);
+        dInstance.setGenerated(dungeonType, difficulty, generator);
+        generator.generateBranching(world, 0).thenAccept(layout -> {
+            dInstance.setLayout(layout);
+            // 生成中にインスタンスが閉鎖された場合は何もしない
+            if (activeInstances.get(worldName) != dInstance || !host.isOnline()) return;
+            transferParty(host, worldName);
+        });
+    }
+
+    /**
+     * ホストとそのパーティーメンバーをインスタンスへ転送する
+     */
+    private void transferParty(Player host, String worldName) {
         // 4. パーティーメンバーの転送処理
         DeepwitherPartyAPI partyApi = plugin.getPartyAPI(); // APIのインスタンスを取得
 
@@ -171,6 +191,22 @@ public class DungeonInstanceManager implements IManager {
         return activeInstances.get(instanceId);
     }
 
+    public DungeonSpawnerMetrics getSpawnerMetrics() {
+        return spawnerMetrics;
+    }
+
+    public int getActiveInstanceCount() {
+        return activeInstances.size();
+    }
+
+    public int getPooledInstanceCount() {
+        return pool.getReadyCount();
+    }
+
+    public int getIdleWorldCount() {
+        return pool.getIdleWorldCount();
+    }
+
     /**
      * 定期クリーンアップタスク
      */
@@ -194,7 +230,7 @@ public class DungeonInstanceManager implements IManager {
     }
 
     /**
-     * インスタンスのアンロードとワールド削除
+     * インスタンスを閉じる。ワールドは片付けてプールに戻す (戻せない場合は削除する)
      */
     public void unloadInstance(String worldName) {
         DungeonInstance dInstance = activeInstances.get(worldName);
@@ -210,36 +246,7 @@ public class DungeonInstanceManager implements IManager {
             }
         }
 
-        World world = dInstance.getWorld();
-        if (world != null) {
-            File worldFolder = world.getWorldFolder();
-            Bukkit.unloadWorld(world, false); // Save false
-
-            // フォルダ削除 (非同期推奨だが、ここでは簡易実装)
-            // BukkitのUnload直後はロックが残る場合があるため、少し遅延させるか、標準APIを使う
-            try {
-                deleteDirectory(worldFolder);
-                plugin.getLogger().info("Deleted world folder: " + worldFolder.getName());
-            } catch (IOException e) {
-                plugin.getLogger().warning("Failed to delete world folder: " + worldName);
-                e.printStackTrace();
-            }
-        }
-
         activeInstances.remove(worldName);
-    }
-
-    private void deleteDirectory(File file) throws IOException {
-        if (file.isDirectory()) {
-            File[] entries = file.listFiles();
-            if (entries != null) {
-                for (File entry : entries) {
-                    deleteDirectory(entry);
-                }
-            }
-        }
-        if (!file.delete()) {
-            throw new IOException("Failed to delete " + file);
-        }
+        pool.release(dInstance);
     }
 }
@@ -0,0 +1,310 @@
+package com.lunar_prototype.deepwither.dungeon.instance;
+
+import com.lunar_prototype.deepwither.Deepwither;
+import com.lunar_prototype.deepwither.dungeon.DungeonGenerator;
+import com.lunar_prototype.deepwither.dungeon.DungeonLayout;
+import com.lunar_prototype.deepwither.dungeon.DungeonSpawnerMetrics;
+import com.lunar_prototype.deepwither.dungeon.SchematicPaster;
+import org.bukkit.Bukkit;
+import org.bukkit.GameRule;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
+import org.bukkit.WorldType;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 事前に生成しておくダンジョンインスタンスのプール。
+ * <p>
+ * ダンジョン種類・難易度ごとに {@code size} 個まで、サーバーが空いている時 (平均tick時間が max-mspt 以下で、貼り付け待ちが無い時) に
+ * 1つずつ裏で生成しておき、入場時はそれを渡すだけにする。用意する種類は設定の warm と、一度でも入場された種類。
+ * 使い終わったインスタンスのワールドは削除せず、生成した範囲を空気で埋めて次の生成に使い回す。
+ * ワールドの作成 ({@link WorldCreator#createWorld()}) は、使い回せる空ワールドが無い時だけ行う。
+ */
+class DungeonWorldPool {
+
+    private static final String WORLD_PREFIX = "dw_inst_";
+
+    private final Deepwither plugin;
+    private final SchematicPaster paster;
+    private final DungeonSpawnerMetrics spawnerMetrics;
+
+    private final boolean enabled;
+    private final int size;
+    private final int maxIdleWorlds;
+    private final double maxMspt;
+    private final long checkIntervalTicks;
+
+    // "ダンジョン名:難易度" → 入場待ちのインスタンス
+    private final Map<String, Deque<DungeonInstance>> ready = new HashMap<>();
+    private final Set<String> warmKeys = new LinkedHashSet<>();
+    // 片付け済みで次の生成に使える空ワールドと、片付け中のワールド名
+    private final Deque<World> idleWorlds = new ArrayDeque<>();
+    private final Set<String> recycling = new HashSet<>();
+
+    private BukkitTask refillTask;
+    private boolean building = false;
+    private boolean closed = false;
+    private final String worldNameBase = WORLD_PREFIX + Long.toString(System.currentTimeMillis(), 36) + "_";
+    private int worldCounter = 0;
+
+    DungeonWorldPool(Deepwither plugin, SchematicPaster paster, DungeonSpawnerMetrics spawnerMetrics, ConfigurationSection config) {
+        this.plugin = plugin;
+        this.paster = paster;
+        this.spawnerMetrics = spawnerMetrics;
+        this.enabled = config == null || config.getBoolean("enabled", true);
+        this.size = config != null ? Math.max(0, config.getInt("size", 1)) : 1;
+        this.maxIdleWorlds = config != null ? Math.max(0, config.getInt("max-idle-worlds", 4)) : 4;
+        this.maxMspt = config != null ? config.getDouble("max-mspt", 35.0) : 35.0;
+        this.checkIntervalTicks = config != null ? Math.max(20L, config.getLong("check-interval-ticks", 200L)) : 200L;
+        if (config != null) {
+            for (String key : config.getStringList("warm")) {
+                String[] split = key.split(":", 2);
+                warmKeys.add(key(split[0], split.length > 1 ? split[1] : "normal"));
+            }
+        }
+    }
+
+    void start() {
+        deleteLeftoverWorlds();
+        if (!enabled || size == 0) return;
+        refillTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refill, checkIntervalTicks, checkIntervalTicks);
+    }
+
+    /**
+     * 待機中のインスタンスと空ワールドを全て削除する。以後 {@link #release} されたものは片付けずに削除する
+     */
+    void shutdown() {
+        closed = true;
+        if (refillTask != null) {
+            refillTask.cancel();
+            refillTask = null;
+        }
+        for (Deque<DungeonInstance> instances : ready.values()) {
+            for (DungeonInstance instance : instances) {
+                if (instance.getGenerator() != null) instance.getGenerator().stop();
+                deleteWorld(instance.getWorld());
+            }
+        }
+        ready.clear();
+        for (World world : idleWorlds) deleteWorld(world);
+        idleWorlds.clear();
+    }
+
+    /**
+     * 生成済みのインスタンスを取り出す。無ければ null (次から裏で用意するようになる)
+     */
+    DungeonInstance take(String dungeonType, String difficulty) {
+        String key = key(dungeonType, difficulty);
+        if (enabled && size > 0) warmKeys.add(key);
+
+        Deque<DungeonInstance> instances = ready.get(key);
+        if (instances == null) return null;
+        DungeonInstance instance;
+        while ((instance = instances.poll()) != null) {
+            if (Bukkit.getWorld(instance.getWorld().getUID()) != null) {
+                instance.resetEmptyTime();
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成に使う空ワールドを返す。片付け済みのものが無ければ新しく作る (失敗したら null)
+     */
+    World acquireWorld() {
+        World world;
+        while ((world = idleWorlds.poll()) != null) {
+            if (Bukkit.getWorld(world.getUID()) != null) return world;
+        }
+        return createVoidWorld(worldNameBase + (worldCounter++));
+    }
+
+    /**
+     * 使い終わったインスタンスを片付けて空ワールドに戻す。
+     * プールが無効・生成途中・空ワールドが上限まである場合はワールドごと削除する
+     */
+    void release(DungeonInstance instance) {
+        if (instance.getGenerator() != null) instance.getGenerator().stop();
+        World world = instance.getWorld();
+        if (world == null) return;
+
+        DungeonLayout layout = instance.getLayout();
+        if (closed || !enabled || layout == null || layout.isEmpty()
+                || idleWorlds.size() + recycling.size() >= maxIdleWorlds) {
+            deleteWorld(world);
+            return;
+        }
+
+        removeEntities(world);
+        recycling.add(world.getName());
+        paster.clear(world, layout.getMinPoint(), layout.getMaxPoint()).whenComplete((v, ex) -> {
+            recycling.remove(world.getName());
+            if (Bukkit.getWorld(world.getUID()) == null) return;
+            if (ex != null || closed) {
+                deleteWorld(world);
+                return;
+            }
+            // 片付け中に読み込まれたチャンクのエンティティも消しておく
+            removeEntities(world);
+            // 同じ UID のまま別のダンジョンが貼られるので、遮蔽物のキャッシュも捨てる
+            if (plugin.getSeekerAIEngine() != null) plugin.getSeekerAIEngine().getCoverIndex().clearWorld(world);
+            idleWorlds.add(world);
+        });
+    }
+
+    int getReadyCount() {
+        int count = 0;
+        for (Deque<DungeonInstance> instances : ready.values()) count += instances.size();
+        return count;
+    }
+
+    int getIdleWorldCount() {
+        return idleWorlds.size();
+    }
+
+    /**
+     * 空いている時に、足りない種類を1つだけ生成する
+     */
+    private void refill() {
+        if (building || paster.getQueuedJobs() > 0) return;
+        if (Bukkit.getAverageTickTime() > maxMspt) return;
+
+        for (String key : warmKeys) {
+            if (ready.computeIfAbsent(key, k -> new ArrayDeque<>()).size() < size) {
+                build(key);
+                return;
+            }
+        }
+    }
+
+    private void build(String key) {
+        String[] split = key.split(":", 2);
+        String dungeonType = split[0];
+        String difficulty = split[1];
+
+        World world = acquireWorld();
+        if (world == null) return;
+
+        building = true;
+        DungeonInstance instance = new DungeonInstance(world.getName(), world);
+        DungeonGenerator generator = new DungeonGenerator(dungeonType, difficulty, paster, spawnerMetrics);
+        instance.setGenerated(dungeonType, difficulty, generator);
+
+        generator.generateBranching(world, 0).whenComplete((layout, ex) -> {
+            building = false;
+            instance.setLayout(layout);
+            if (closed) {
+                release(instance);
+                return;
+            }
+            if (ex != null || layout == null || layout.isEmpty()) {
+                // 設定が壊れているダンジョンを何度も作り直さない
+                plugin.getLogger().warning("Failed to pre-generate dungeon " + key + ". Removed from the pool.");
+                warmKeys.remove(key);
+                release(instance);
+                return;
+            }
+            ready.computeIfAbsent(key, k -> new ArrayDeque<>()).add(instance);
+            plugin.getLogger().info("Pre-generated dungeon instance: " + world.getName() + " (" + key + ", " + layout.size() + " parts)");
+        });
+    }
+
+    /**
+     * 空のワールド (Void) を作成する
+     */
+    private World createVoidWorld(String worldName) {
+        WorldCreator creator = new WorldCreator(worldName);
+        creator.type(WorldType.FLAT);
+        creator.generatorSettings("{\"layers\":[{\"block\":\"minecraft:air\",\"height\":1}],\"biome\":\"minecraft:the_void\"}");
+        creator.generateStructures(false);
+
+        World world = creator.createWorld();
+        if (world == null) return null;
+
+        // ゲームルールの設定
+        world.setGameRule(GameRule.DO_MOB_SPAWNING, false);
+        world.setGameRule(GameRule.DO_DAYLIGHT_CYCLE, false);
+        world.setGameRule(GameRule.KEEP_INVENTORY, true); // Keep Inventory有効
+        world.setTime(18000); // 深夜
+        return world;
+    }
+
+    private void removeEntities(World world) {
+        for (Entity entity : world.getEntities()) {
+            if (!(entity instanceof Player)) entity.remove();
+        }
+    }
+
+    /**
+     * ワールドのアンロードとフォルダ削除
+     */
+    void deleteWorld(World world) {
+        if (world == null) return;
+        File worldFolder = world.getWorldFolder();
+        Bukkit.unloadWorld(world, false); // Save false
+
+        // フォルダ削除 (非同期推奨だが、ここでは簡易実装)
+        try {
+            deleteDirectory(worldFolder);
+            plugin.getLogger().info("Deleted world folder: " + worldFolder.getName());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to delete world folder: " + worldFolder.getName());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 前回の終了時に消せなかったインスタンスのワールドを削除する
+     */
+    private void deleteLeftoverWorlds() {
+        File[] folders = Bukkit.getWorldContainer().listFiles(
+                file -> file.isDirectory() && file.getName().startsWith(WORLD_PREFIX) && Bukkit.getWorld(file.getName()) == null);
+        if (folders == null) return;
+        List<String> deleted = new ArrayList<>();
+        for (File folder : folders) {
+            try {
+                deleteDirectory(folder);
+                deleted.add(folder.getName());
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to delete leftover world folder: " + folder.getName());
+            }
+        }
+        if (!deleted.isEmpty()) {
+            plugin.getLogger().info("Deleted " + deleted.size() + " leftover dungeon world folders.");
+        }
+    }
+
+    private static void deleteDirectory(File file) throws IOException {
+        if (file.isDirectory()) {
+            File[] entries = file.listFiles();
+            if (entries != null) {
+                for (File entry : entries) {
+                    deleteDirectory(entry);
+                }
+            }
+        }
+        if (!file.delete()) {
+            throw new IOException("Failed to delete " + file);
+        }
+    }
+
+    private static String key(String dungeonType, String difficulty) {
+        return dungeonType + ":" + difficulty;
+    }
+}
@@ -1,5 +1,6 @@
 package com.lunar_prototype.deepwither.listeners;
 
+import com.lunar_prototype.deepwither.ItemFingerprint;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Item;
@@ -15,7 +16,6 @@ import org.bukkit.scoreboard.Scoreboard;
 import org.bukkit.scoreboard.Team;
 
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 public class ItemGlowHandler implements Listener {
@@ -54,30 +54,38 @@ public class ItemGlowHandler implements Listener {
         }
     }
 
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onItemSpawn(ItemSpawnEvent event) {
-        Item itemEntity = event.getEntity();
-        ItemStack itemStack = itemEntity.getItemStack();
-
-        if (!itemStack.hasItemMeta()) return;
-        ItemMeta meta = itemStack.getItemMeta();
-        if (!meta.hasLore()) return;
-
-        List<String> lore = meta.getLore();
-        ChatColor targetColor = null;
+    /**
+     * レアリティに応じた発光色。要約があればそこから、無い古いアイテムは Lore から判定する
+     */
+    private ChatColor glowColorOf(ItemMeta meta) {
+        ItemFingerprint fingerprint = ItemFingerprint.read(meta.getPersistentDataContainer());
+        if (fingerprint != null) {
+            ItemFingerprint.Rarity rarity = fingerprint.getRarity();
+            return rarity != null ? rarity.getGlowColor() : null;
+        }
+        if (!meta.hasLore()) return null;
 
-        for (String line : lore) {
+        for (String line : meta.getLore()) {
             String cleanLine = ChatColor.stripColor(line);
             if (cleanLine.contains("レアリティ")) {
                 for (Map.Entry<String, ChatColor> entry : RARITY_CONFIG.entrySet()) {
                     if (cleanLine.contains(entry.getKey())) {
-                        targetColor = entry.getValue();
-                        break;
+                        return entry.getValue();
                     }
                 }
             }
-            if (targetColor != null) break;
         }
+        return null;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent event) {
+        Item itemEntity = event.getEntity();
+        ItemStack itemStack = itemEntity.getItemStack();
+
+        if (!itemStack.hasItemMeta()) return;
+        ItemMeta meta = itemStack.getItemMeta();
+        ChatColor targetColor = glowColorOf(meta);
 
         if (targetColor != null) {
             itemEntity.setGlowing(true);
@@ -1,105 +1,162 @@
 package com.lunar_prototype.deepwither.llm;
 
 import com.google.gson.Gson;
-import com.lunar_prototype.deepwither.aethelgard.LocationDetails;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
 
 /**
- * 外部のLLM推論サーバーと通信するためのクライアントクラス。
+ * 外部のLLM推論サーバー (llama.cpp の /completion 互換) と通信するためのクライアントクラス。
+ * <p>
+ * 通信は全て {@link HttpClient#sendAsync} で行い、呼び出し元のスレッドを止めない。
+ * 失敗・タイムアウト・不正な応答はいずれも null (バッチでは該当要素が null) で完了する。
  */
 public class LlmClient {
 
-    // LLMサーバーのAPIエンドポイント (llama.cppなどを想定)
-    private final String apiEndpoint = "http://localhost:9090/completion";
-    private final HttpClient httpClient;
+    /**
+     * 接続先とタイムアウト。config.yml の guild-quest.llm から読む
+     */
+    public record Settings(String endpoint, Duration connectTimeout, Duration requestTimeout, int maxTokens, double temperature) {
+
+        public static Settings fromConfig(ConfigurationSection section) {
+            if (section == null) section = new MemoryConfiguration();
+            return new Settings(
+                    section.getString("endpoint", "http://localhost:9090/completion"),
+                    Duration.ofMillis(section.getLong("connect-timeout-ms", 2000)),
+                    Duration.ofMillis(section.getLong("request-timeout-ms", 60000)),
+                    section.getInt("max-tokens", 256),
+                    section.getDouble("temperature", 0.7));
+        }
+    }
+
     private static final Gson GSON = new Gson();
 
-    public LlmClient() {
-        this.httpClient = HttpClient.newHttpClient();
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final Logger logger;
+
+    /**
+     * @param executor 応答の処理に使うスレッド (共有の非同期Executorは使わないこと)
+     */
+    public LlmClient(Settings settings, Executor executor, Logger logger) {
+        this.settings = settings;
+        this.logger = logger;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(settings.connectTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    public Settings getSettings() {
+        return settings;
     }
 
     /**
      * LLMにプロンプトを送信し、生成されたテキストを受け取ります。
-     * * @param prompt LLMに渡す指示文
-     * @return LLMが生成したテキスト。通信失敗時は null を返す
+     * @param prompt LLMに渡す指示文
+     * @return LLMが生成したテキスト。通信失敗時は null で完了する
+     */
+    public CompletableFuture<String> generateTextAsync(String prompt) {
+        return send(prompt).thenApply(body -> {
+            if (body == null) return null;
+            List<String> contents = parseLlmResponse(body);
+            return contents.isEmpty() ? null : contents.get(0);
+        });
+    }
+
+    /**
+     * 複数のプロンプトを1回のリクエストで送る (prompt に配列を渡す)。
+     * 結果は prompts と同じ順序・同じ長さのリストで、失敗した要素は null
      */
-    public String generateText(String prompt) {
+    public CompletableFuture<List<String>> generateBatchAsync(List<String> prompts) {
+        if (prompts.size() == 1) {
+            return generateTextAsync(prompts.get(0)).thenApply(Collections::singletonList);
+        }
+        return send(prompts).thenApply(body -> {
+            List<String> results = new ArrayList<>(Collections.nCopies(prompts.size(), null));
+            if (body == null) return results;
+            List<String> contents = parseLlmResponse(body);
+            for (int i = 0; i < results.size() && i < contents.size(); i++) {
+                results.set(i, contents.get(i));
+            }
+            return results;
+        });
+    }
+
+    private CompletableFuture<String> send(Object prompt) {
         // 構造体を使ってリクエストボディを構成
         Map<String, Object> requestData = Map.of(
                 "prompt", prompt,
-                "n_predict", 256,
-                "temperature", 0.7,
+                "n_predict", settings.maxTokens(),
+                "temperature", settings.temperature(),
                 "stop", List.of("<END>")
         );
 
-        String requestBody = GSON.toJson(requestData);
-
-        System.out.println("LLM Request to: " + apiEndpoint);
-        System.out.println("Request Body: " + requestBody); // 送信するJSONを確認
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(apiEndpoint))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                .build();
-
+        HttpRequest request;
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            System.out.println("LLM Response Status: " + response.statusCode());
-
-            if (response.statusCode() == 200) {
-                // デバッグ: 応答ボディ全体を表示
-                System.out.println("LLM Raw Response Body:\n" + response.body());
-                return parseLlmResponse(response.body());
-            } else {
-                System.err.println("LLM API呼び出しに失敗: ステータスコード " + response.statusCode());
-                System.err.println("応答本文: " + response.body());
-                return null;
-            }
-        } catch (IOException | InterruptedException e) {
-            System.err.println("LLMサーバーへの接続エラー: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(settings.endpoint()))
+                    .timeout(settings.requestTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(requestData)))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            logger.warning("LLMのエンドポイントが不正です: " + settings.endpoint());
+            return CompletableFuture.completedFuture(null);
         }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        logger.warning("LLMサーバーへの接続エラー: " + error.getMessage());
+                        return null;
+                    }
+                    if (response.statusCode() != 200) {
+                        logger.warning("LLM API呼び出しに失敗: ステータスコード " + response.statusCode());
+                        return null;
+                    }
+                    return response.body();
+                });
     }
 
-    private String parseLlmResponse(String responseBody) {
+    /**
+     * 応答の content を取り出す。配列 (バッチ) なら要素ごと、失敗した要素は null
+     */
+    private List<String> parseLlmResponse(String responseBody) {
+        List<String> contents = new ArrayList<>();
         try {
-            LlmResponse response = GSON.fromJson(responseBody, LlmResponse.class);
-
-            if (response != null && response.content != null) {
-                String result = response.content.trim();
-                System.out.println("LLM Parsed Content successfully.");
-                return result;
+            JsonElement root = JsonParser.parseString(responseBody);
+            if (root.isJsonArray()) {
+                JsonArray array = root.getAsJsonArray();
+                for (JsonElement element : array) contents.add(contentOf(element));
             } else {
-                System.err.println("JSONパース成功、しかし 'content' フィールドが null または空です。");
-                // デバッグ: 応答の content フィールドが null だった場合のログ
-                System.out.println("LlmResponse content field was null for body: " + responseBody);
-                return null;
+                contents.add(contentOf(root));
             }
         } catch (Exception e) {
-            System.err.println("JSON応答のパース中にエラーが発生しました。");
-            e.printStackTrace();
-            return null;
+            logger.warning("LLM応答のパース中にエラーが発生しました: " + e.getMessage());
         }
+        return contents;
     }
 
-    // ... (既存の fallbackTextGenerator メソッドは省略せず残す)
-    public String fallbackTextGenerator(LocationDetails location, String targetMob, String motivation) {
-        // 事前定義されたテンプレート（運用者が用意）を埋める
-        return String.format(
-                "【ギルドからの通達】\n" +
-                        "現在、システムエラーにより詳細な依頼文を生成できません。%sにて、%sによる%sが確認されています。緊急対応をお願いします。",
-                location, targetMob, motivation
-        );
+    private static String contentOf(JsonElement element) {
+        LlmResponse response = GSON.fromJson(element, LlmResponse.class);
+        if (response == null || response.content == null || response.content.isBlank()) return null;
+        return response.content.trim();
     }
 
     private static class LlmResponse {
@@ -109,4 +166,4 @@ public class LlmClient {
         // その他、durationやtokensなどの情報があっても無視できます
         // public int generation_duration;
     }
-}
\ No newline at end of file
+}
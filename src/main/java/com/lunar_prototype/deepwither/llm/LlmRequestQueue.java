@@ -0,0 +1,127 @@
+package com.lunar_prototype.deepwither.llm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLMへのリクエストの待ち行列。同時に投げるリクエスト数と、待たせておける数に上限を持つ。
+ * <p>
+ * 空きができた時点で待っているプロンプトを最大 {@code batchSize} 件まとめて1回のリクエストで送る。
+ * 待ち行列が一杯の時は送らずに null で完了するため、LLMが遅くても呼び出し元に仕事が溜まり続けることはない。
+ */
+public class LlmRequestQueue {
+
+    private record Job(String prompt, CompletableFuture<String> result) {}
+
+    private final LlmClient client;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int batchSize;
+
+    private final ArrayDeque<Job> waiting = new ArrayDeque<>(); // this で同期
+    private int inFlight = 0; // this で同期
+
+    // --- 計測 ---
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LlmRequestQueue(LlmClient client, int maxConcurrent, int maxQueued, int batchSize) {
+        this.client = client;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * プロンプトを待ち行列に入れる。生成されたテキスト、または失敗・満杯なら null で完了する
+     */
+    public CompletableFuture<String> submit(String prompt) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        synchronized (this) {
+            if (waiting.size() >= maxQueued && inFlight >= maxConcurrent) {
+                rejected.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+            waiting.add(new Job(prompt, result));
+        }
+        submitted.increment();
+        dispatch();
+        return result;
+    }
+
+    private void dispatch() {
+        while (true) {
+            List<Job> batch;
+            synchronized (this) {
+                if (inFlight >= maxConcurrent || waiting.isEmpty()) return;
+                batch = new ArrayList<>(Math.min(batchSize, waiting.size()));
+                while (batch.size() < batchSize && !waiting.isEmpty()) batch.add(waiting.poll());
+                inFlight++;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(List<Job> batch) {
+        requests.increment();
+        List<String> prompts = new ArrayList<>(batch.size());
+        for (Job job : batch) prompts.add(job.prompt());
+
+        client.generateBatchAsync(prompts).whenComplete((results, error) -> {
+            synchronized (this) {
+                inFlight--;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                String text = (error == null && results != null && i < results.size()) ? results.get(i) : null;
+                if (text == null) failed.increment();
+                batch.get(i).result().complete(text);
+            }
+            dispatch();
+        });
+    }
+
+    /**
+     * 待っているリクエストを全て null で完了させる (停止時)
+     */
+    public void cancelPending() {
+        List<Job> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Job job : pending) job.result().complete(null);
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+}
@@ -8,26 +8,40 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.logging.Level;
+
+/**
+ * 全体マーケット。出品は {@link MarketIndex} に載せて、ID・出品者・価格順・部分一致で引けるようにしている。
+ * 出品の参照と更新はメインスレッドで行う。
+ * <p>
+ * アイテムは market_listings.item_bytes に {@link ItemStack#serializeAsBytes()} の形式で保存し、
+ * 起動時には要約の列だけを読む (アイテムは表示・購入の時に {@link MarketListing#getItem()} で復元する)。
+ * 旧形式 (item_stack 列に BukkitObjectOutputStream の Base64) の行は起動時に一度だけ新形式へ書き換える。
+ */
 public class GlobalMarketManager implements IManager {
 
+    // 最終ログインがこれより前の出品者はメインメニューに出さない
+    private static final long ACTIVE_SELLER_MILLIS = 30L * 24 * 60 * 60 * 1000L;
+    // オフラインの出品者の最終ログインを読み直す間隔 (読み込みにディスクアクセスを伴うため)
+    private static final long LAST_PLAYED_RECHECK_MILLIS = 10L * 60 * 1000L;
+    // 旧形式の出品の書き換えに付ける書き込みキー (書き換え後の読み込みはこれだけを待つ)
+    private static final String LEGACY_MIGRATION_KEY = "market_listings:legacy";
+
     private final Deepwither plugin;
-    private final List<MarketListing> allListings = new ArrayList<>();
+    private final MarketIndex index;
+    // 出品者UUID → {最終ログイン, 確認した時刻}
+    private final Map<UUID, long[]> sellerLastPlayed = new HashMap<>();
     private final Map<UUID, Double> earnings = new HashMap<>();
     private final DatabaseManager databaseManager;
 
     public GlobalMarketManager(Deepwither plugin,DatabaseManager databaseManager) {
         this.plugin = plugin;
         this.databaseManager = databaseManager;
+        this.index = new MarketIndex();
     }
 
     @Override
@@ -40,18 +54,24 @@ public class GlobalMarketManager implements IManager {
 
     public void listItem(Player seller, ItemStack item, double price) {
         MarketListing listing = new MarketListing(seller.getUniqueId(), item.clone(), price);
-        allListings.add(listing);
+        index.add(listing);
 
-        // 非同期でDBに保存 (ラグ防止)
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> saveListingToDB(listing));
+        // DBの書き込みスレッドで保存 (シリアライズは出品時に済んでいる)
+        saveListingToDB(listing);
     }
 
     public boolean buyItem(Player buyer, MarketListing listing) {
-        if (!allListings.contains(listing)) {
+        if (!index.contains(listing)) {
             buyer.sendMessage("§cこのアイテムは既に売り切れています。");
             return false;
         }
 
+        ItemStack item = listing.getItem();
+        if (item == null) {
+            buyer.sendMessage("§cこのアイテムは現在購入できません。管理者にお問い合わせください。");
+            return false;
+        }
+
         double price = listing.getPrice();
         var econ = Deepwither.getEconomy();
 
@@ -69,11 +89,11 @@ public class GlobalMarketManager implements IManager {
         var res = econ.withdrawPlayer(buyer, price);
         if (!res.transactionSuccess()) return false;
 
-        buyer.getInventory().addItem(listing.getItem().clone());
+        buyer.getInventory().addItem(item.clone());
 
         // キャッシュとDBから削除
-        allListings.remove(listing);
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> deleteListingFromDB(listing.getId()));
+        index.remove(listing);
+        deleteListingFromDB(listing.getId());
 
         // 売上金処理
         addEarnings(listing.getSellerId(), price);
@@ -98,17 +118,12 @@ public class GlobalMarketManager implements IManager {
         // 1. メモリ上のキャッシュをリセット (再入金防止のため先に処理)
         earnings.put(uuid, 0.0);
 
-        // 2. データベースの更新 (非同期)
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            String sql = "UPDATE market_earnings SET amount = 0 WHERE uuid = ?";
-            try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql)) {
-                ps.setString(1, uuid.toString());
-                ps.executeUpdate();
-            } catch (SQLException e) {
-                plugin.getLogger().severe("売上金のDB更新中にエラーが発生しました: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+        // 2. データベースの更新 (DB書き込みスレッドへ)
+        databaseManager.write("UPDATE market_earnings SET amount = 0 WHERE uuid = ?", ps -> ps.setString(1, uuid.toString()))
+                .exceptionally(ex -> {
+                    plugin.getLogger().severe("売上金のDB更新中にエラーが発生しました: " + ex.getMessage());
+                    return null;
+                });
 
         // 3. Vaultでプレイヤーの口座に入金
         var response = Deepwither.getEconomy().depositPlayer(player, amount);
@@ -126,125 +141,182 @@ public class GlobalMarketManager implements IManager {
     // --- データベース操作 (SQLite) ---
 
     /**
-     * 部分一致によるアイテム検索
+     * 部分一致によるアイテム検索 (表示名・カスタムID・素材名)。結果は価格順
      */
     public List<MarketListing> search(String query) {
-        String lowerQuery = query.toLowerCase();
-        return allListings.stream()
-                .filter(l -> {
-                    String itemName = l.getItem().hasItemMeta() && l.getItem().getItemMeta().hasDisplayName()
-                            ? l.getItem().getItemMeta().getDisplayName()
-                            : l.getItem().getType().toString();
-                    return itemName.toLowerCase().contains(lowerQuery);
-                })
-                .collect(Collectors.toList());
+        return index.search(query);
     }
 
     /**
      * 最近ログインしたアクティブな出品者を取得
      */
     public List<OfflinePlayer> getActiveSellers() {
-        long oneMonthAgo = System.currentTimeMillis() - (30L * 24 * 60 * 60 * 1000L);
+        long now = System.currentTimeMillis();
+        long oneMonthAgo = now - ACTIVE_SELLER_MILLIS;
 
-        return allListings.stream()
-                .map(MarketListing::getSellerId)
-                .distinct()
-                .map(Bukkit::getOfflinePlayer)
-                .filter(p -> p.getLastPlayed() >= oneMonthAgo || p.isOnline())
-                .collect(Collectors.toList());
+        List<OfflinePlayer> sellers = new ArrayList<>();
+        for (UUID sellerId : index.getSellers()) {
+            if (lastPlayed(sellerId, now) >= oneMonthAgo) {
+                sellers.add(Bukkit.getOfflinePlayer(sellerId));
+            }
+        }
+        return sellers;
     }
 
+    /**
+     * 出品者の最終ログイン。オンラインなら現在時刻。
+     * 一度読んだ値は覚えておき、期限切れに見える出品者だけ一定間隔で読み直す
+     */
+    private long lastPlayed(UUID sellerId, long now) {
+        if (Bukkit.getPlayer(sellerId) != null) {
+            sellerLastPlayed.put(sellerId, new long[]{now, now});
+            return now;
+        }
+        long[] cached = sellerLastPlayed.get(sellerId);
+        if (cached != null && (cached[0] >= now - ACTIVE_SELLER_MILLIS || now - cached[1] < LAST_PLAYED_RECHECK_MILLIS)) {
+            return cached[0];
+        }
+        long lastPlayed = Bukkit.getOfflinePlayer(sellerId).getLastPlayed();
+        sellerLastPlayed.put(sellerId, new long[]{lastPlayed, now});
+        return lastPlayed;
+    }
+
+    /**
+     * 出品者の出品 (価格順)
+     */
     public List<MarketListing> getListingsByPlayer(UUID uuid) {
-        return allListings.stream()
-                .filter(l -> l.getSellerId().equals(uuid))
-                .collect(Collectors.toList());
+        return new ArrayList<>(index.getBySeller(uuid));
+    }
+
+    public MarketListing getListing(UUID listingId) {
+        return index.get(listingId);
     }
 
     private void saveListingToDB(MarketListing listing) {
-        String sql = "INSERT INTO market_listings (id, seller_uuid, item_stack, price, listed_date) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql)) {
+        String sql = """
+                INSERT INTO market_listings (id, seller_uuid, item_bytes, display_name, custom_id, material, price, listed_date)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+        databaseManager.write(sql, ps -> {
             ps.setString(1, listing.getId().toString());
             ps.setString(2, listing.getSellerId().toString());
-            ps.setString(3, serializeItem(listing.getItem())); // Base64シリアライズ
-            ps.setDouble(4, listing.getPrice());
-            ps.setLong(5, listing.getListedDate());
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+            ps.setBytes(3, listing.getItemBytes());
+            ps.setString(4, listing.getDisplayName());
+            ps.setString(5, listing.getCustomId());
+            ps.setString(6, listing.getMaterial());
+            ps.setDouble(7, listing.getPrice());
+            ps.setLong(8, listing.getListedDate());
+        });
     }
 
     private void deleteListingFromDB(UUID listingId) {
-        String sql = "DELETE FROM market_listings WHERE id = ?";
-        try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql)) {
-            ps.setString(1, listingId.toString());
-            ps.executeUpdate();
-        } catch (SQLException e) { e.printStackTrace(); }
+        databaseManager.write("DELETE FROM market_listings WHERE id = ?", ps -> ps.setString(1, listingId.toString()));
     }
 
     private void addEarnings(UUID sellerId, double amount) {
         double newTotal = earnings.getOrDefault(sellerId, 0.0) + amount;
         earnings.put(sellerId, newTotal);
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            String sql = "INSERT INTO market_earnings (uuid, amount) VALUES (?, ?) ON CONFLICT(uuid) DO UPDATE SET amount = excluded.amount";
-            try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql)) {
-                ps.setString(1, sellerId.toString());
-                ps.setDouble(2, newTotal);
-                ps.executeUpdate();
-            } catch (SQLException e) { e.printStackTrace(); }
+        String sql = "INSERT INTO market_earnings (uuid, amount) VALUES (?, ?) ON CONFLICT(uuid) DO UPDATE SET amount = excluded.amount";
+        databaseManager.write(sql, ps -> {
+            ps.setString(1, sellerId.toString());
+            ps.setDouble(2, newTotal);
         });
     }
 
     private void loadAllData() throws SQLException {
-        allListings.clear();
-        String sql = "SELECT * FROM market_listings";
-        try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        index.clear();
+        migrateLegacyListings();
+        // 書き換えを積んだ場合は、その反映だけを待ってから読む
+        databaseManager.awaitWritesFor(LEGACY_MIGRATION_KEY);
+
+        String sql = """
+                SELECT id, seller_uuid, item_bytes, display_name, custom_id, material, price, listed_date
+                FROM market_listings WHERE item_bytes IS NOT NULL""";
+        databaseManager.query(sql, null, rs -> {
             while (rs.next()) {
                 MarketListing listing = new MarketListing(
                         UUID.fromString(rs.getString("id")),
                         UUID.fromString(rs.getString("seller_uuid")),
-                        deserializeItem(rs.getString("item_stack")),
+                        rs.getBytes("item_bytes"),
+                        rs.getString("display_name"),
+                        rs.getString("custom_id"),
+                        rs.getString("material"),
                         rs.getDouble("price"),
                         rs.getLong("listed_date")
                 );
-                allListings.add(listing);
+                index.add(listing);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 旧形式 (item_stack 列の Base64) の出品を新形式に書き換える。該当する行が無ければ何もしない
+     */
+    private void migrateLegacyListings() throws SQLException {
+        String sql = "SELECT id, seller_uuid, item_stack, price, listed_date FROM market_listings WHERE item_bytes IS NULL";
+        List<MarketListing> legacy = databaseManager.query(sql, null, rs -> {
+            List<MarketListing> listings = new ArrayList<>();
+            while (rs.next()) {
+                ItemStack item = deserializeLegacyItem(rs.getString("item_stack"));
+                if (item == null || item.getType().isAir()) {
+                    plugin.getLogger().warning("[Market] 旧形式の出品を復元できませんでした: " + rs.getString("id"));
+                    continue;
+                }
+                listings.add(new MarketListing(
+                        UUID.fromString(rs.getString("id")),
+                        UUID.fromString(rs.getString("seller_uuid")),
+                        item,
+                        rs.getDouble("price"),
+                        rs.getLong("listed_date")));
             }
+            return listings;
+        });
+        if (legacy.isEmpty()) return;
+
+        List<DatabaseManager.StatementBinder> rows = new ArrayList<>(legacy.size());
+        for (MarketListing listing : legacy) {
+            rows.add(ps -> {
+                ps.setBytes(1, listing.getItemBytes());
+                ps.setString(2, listing.getDisplayName());
+                ps.setString(3, listing.getCustomId());
+                ps.setString(4, listing.getMaterial());
+                ps.setString(5, listing.getId().toString());
+            });
         }
+        databaseManager.writeBatch(LEGACY_MIGRATION_KEY, """
+                UPDATE market_listings SET item_bytes = ?, display_name = ?, custom_id = ?, material = ?, item_stack = NULL
+                WHERE id = ?""", rows)
+                .thenRun(() -> plugin.getLogger().info("[Market] 旧形式の出品 " + legacy.size() + " 件を新形式に書き換えました。"))
+                .exceptionally(ex -> {
+                    plugin.getLogger().log(Level.SEVERE, "[Market] 旧形式の出品の書き換えに失敗しました。", ex);
+                    return null;
+                });
     }
 
     private void loadEarnings() throws SQLException {
         earnings.clear();
         String sql = "SELECT * FROM market_earnings";
-        try (PreparedStatement ps = databaseManager.getConnection().prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        databaseManager.query(sql, null, rs -> {
             while (rs.next()) {
                 earnings.put(UUID.fromString(rs.getString("uuid")), rs.getDouble("amount"));
             }
-        }
+            return null;
+        });
     }
 
-    // --- アイテムのシリアライズ (SQLite保存用) ---
+    // --- 旧形式のアイテム (移行用) ---
 
-    private String serializeItem(ItemStack item) {
-        try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream);
-            dataOutput.writeObject(item);
-            dataOutput.close();
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        } catch (Exception e) { return ""; }
-    }
-
-    private ItemStack deserializeItem(String data) {
-        try {
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(Base64.getDecoder().decode(data));
-            BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream);
-            ItemStack item = (ItemStack) dataInput.readObject();
-            dataInput.close();
-            return item;
+    private ItemStack deserializeLegacyItem(String data) {
+        if (data == null || data.isEmpty()) return null;
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(data)))) {
+            return (ItemStack) dataInput.readObject();
         } catch (Exception e) { return null; }
     }
 
     // --- 以下、検索・Getter等は変更なし ---
-    public List<MarketListing> getAllListings() { return Collections.unmodifiableList(allListings); }
+    /**
+     * 全出品 (価格順、読み取り専用)
+     */
+    public Collection<MarketListing> getAllListings() { return index.getByPrice(); }
 }
\ No newline at end of file
@@ -18,7 +18,6 @@ import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 public class MarketGui implements Listener {
@@ -65,7 +64,10 @@ public class MarketGui implements Listener {
         Inventory inv = Bukkit.createInventory(null, 54, Component.text(TITLE_SHOP + seller.getName()));
 
         for (MarketListing listing : listings) {
-            ItemStack displayItem = listing.getItem().clone();
+            if (inv.firstEmpty() == -1) break; // 並びは価格順なので、入りきらない分は高い出品
+            ItemStack item = listing.getItem(); // ここで初めてアイテムを復元する
+            if (item == null) continue;
+            ItemStack displayItem = item.clone();
             ItemMeta meta = displayItem.getItemMeta();
             List<Component> lore = meta.lore();
             if (lore == null) lore = new ArrayList<>();
@@ -92,10 +94,15 @@ public class MarketGui implements Listener {
         Inventory inv = Bukkit.createInventory(null, 54, Component.text(TITLE_SEARCH));
 
         for (MarketListing listing : results) {
-            ItemStack displayItem = listing.getItem().clone();
+            if (inv.firstEmpty() == -1) break; // 安い順に入る分だけ表示する
+            ItemStack item = listing.getItem();
+            if (item == null) continue;
+            ItemStack displayItem = item.clone();
             ItemMeta meta = displayItem.getItemMeta();
             List<Component> lore = meta.hasLore() ? meta.lore() : new ArrayList<>();
 
+            meta.getPersistentDataContainer().set(LISTING_ID_KEY, PersistentDataType.STRING, listing.getId().toString());
+
             lore.add(Component.text("§8----------------"));
             lore.add(Component.text("§7出品者: " + Bukkit.getOfflinePlayer(listing.getSellerId()).getName()));
             lore.add(Component.text("§e価格: " + listing.getPrice() + " G"));
@@ -148,19 +155,13 @@ public class MarketGui implements Listener {
 
             UUID listingId = UUID.fromString(idStr);
 
-            // 全出品リストから対象のListingを検索
-            Optional<MarketListing> listingOpt = manager.getAllListings().stream()
-                    .filter(l -> l.getId().equals(listingId))
-                    .findFirst();
-
-            if (listingOpt.isEmpty()) {
+            MarketListing listing = manager.getListing(listingId);
+            if (listing == null) {
                 p.sendMessage("§c[Market] このアイテムは既に売り切れているか、取り下げられています。");
                 p.closeInventory();
                 return;
             }
 
-            MarketListing listing = listingOpt.get();
-
             // 自分の出品は買えないようにする（任意）
             if (listing.getSellerId().equals(p.getUniqueId())) {
                 p.sendMessage("§c[Market] 自分の出品を購入することはできません。");
@@ -0,0 +1,210 @@
+package com.lunar_prototype.deepwither.market;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * 出品の索引。{@link GlobalMarketManager} からメインスレッドでのみ使う。
+ * <ul>
+ *   <li>出品ID → 出品</li>
+ *   <li>出品者 → 出品 (価格順)</li>
+ *   <li>全出品 (価格順)</li>
+ *   <li>検索用テキスト → 出品、と 1〜3文字の n-gram → 検索用テキスト</li>
+ * </ul>
+ * 検索用テキストは出品の要約 (表示名・カスタムID・素材名) を正規化 (色コード除去・NFKC・小文字化) してつないだもの。
+ * 同じアイテムの出品は同じテキストになるため、n-gram の索引の大きさは出品数ではなくアイテムの種類数で決まる。
+ * 索引を作るのにアイテム本体は復元しない。
+ */
+final class MarketIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    // 価格が同じなら古い出品から
+    static final Comparator<MarketListing> BY_PRICE = Comparator
+            .comparingDouble(MarketListing::getPrice)
+            .thenComparingLong(MarketListing::getListedDate)
+            .thenComparing(MarketListing::getId);
+
+    private final Map<UUID, MarketListing> byId = new HashMap<>();
+    private final Map<UUID, NavigableSet<MarketListing>> bySeller = new HashMap<>();
+    private final NavigableSet<MarketListing> byPrice = new TreeSet<>(BY_PRICE);
+    private final Map<UUID, String> textOf = new HashMap<>();
+    private final Map<String, NavigableSet<MarketListing>> byText = new HashMap<>();
+    private final Map<String, Set<String>> textsByGram = new HashMap<>();
+
+    void add(MarketListing listing) {
+        if (byId.putIfAbsent(listing.getId(), listing) != null) return;
+        bySeller.computeIfAbsent(listing.getSellerId(), k -> new TreeSet<>(BY_PRICE)).add(listing);
+        byPrice.add(listing);
+
+        String text = searchText(listing);
+        textOf.put(listing.getId(), text);
+        NavigableSet<MarketListing> group = byText.get(text);
+        if (group == null) {
+            group = new TreeSet<>(BY_PRICE);
+            byText.put(text, group);
+            for (String gram : grams(text)) {
+                textsByGram.computeIfAbsent(gram, k -> new HashSet<>()).add(text);
+            }
+        }
+        group.add(listing);
+    }
+
+    boolean remove(MarketListing listing) {
+        MarketListing removed = byId.remove(listing.getId());
+        if (removed == null) return false;
+
+        NavigableSet<MarketListing> sellerListings = bySeller.get(removed.getSellerId());
+        if (sellerListings != null) {
+            sellerListings.remove(removed);
+            if (sellerListings.isEmpty()) bySeller.remove(removed.getSellerId());
+        }
+        byPrice.remove(removed);
+
+        String text = textOf.remove(removed.getId());
+        NavigableSet<MarketListing> group = byText.get(text);
+        if (group != null) {
+            group.remove(removed);
+            if (group.isEmpty()) {
+                byText.remove(text);
+                for (String gram : grams(text)) {
+                    Set<String> texts = textsByGram.get(gram);
+                    if (texts == null) continue;
+                    texts.remove(text);
+                    if (texts.isEmpty()) textsByGram.remove(gram);
+                }
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        byId.clear();
+        bySeller.clear();
+        byPrice.clear();
+        textOf.clear();
+        byText.clear();
+        textsByGram.clear();
+    }
+
+    MarketListing get(UUID listingId) {
+        return byId.get(listingId);
+    }
+
+    boolean contains(MarketListing listing) {
+        return byId.get(listing.getId()) == listing;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    Set<UUID> getSellers() {
+        return Collections.unmodifiableSet(bySeller.keySet());
+    }
+
+    Collection<MarketListing> getBySeller(UUID sellerId) {
+        NavigableSet<MarketListing> listings = bySeller.get(sellerId);
+        return listings == null ? List.of() : Collections.unmodifiableNavigableSet(listings);
+    }
+
+    NavigableSet<MarketListing> getByPrice() {
+        return Collections.unmodifiableNavigableSet(byPrice);
+    }
+
+    int getTextCount() {
+        return byText.size();
+    }
+
+    int getGramCount() {
+        return textsByGram.size();
+    }
+
+    /**
+     * 部分一致検索。結果は価格順
+     */
+    List<MarketListing> search(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) return new ArrayList<>(byPrice);
+
+        // クエリの n-gram を全て含むテキストに絞り込み (小さい集合から積を取る)、最後に部分一致を確かめる
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : queryGrams(normalized)) {
+            Set<String> texts = textsByGram.get(gram);
+            if (texts == null) return new ArrayList<>();
+            postings.add(texts);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<String> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+
+        List<NavigableSet<MarketListing>> groups = new ArrayList<>();
+        int total = 0;
+        for (String text : candidates) {
+            if (normalized.length() > MAX_GRAM && !text.contains(normalized)) continue;
+            NavigableSet<MarketListing> group = byText.get(text);
+            groups.add(group);
+            total += group.size();
+        }
+
+        List<MarketListing> results = new ArrayList<>(total);
+        for (NavigableSet<MarketListing> group : groups) results.addAll(group);
+        results.sort(BY_PRICE);
+        return results;
+    }
+
+    // ----------------------------------------------------
+    // --- 検索用テキスト ---
+    // ----------------------------------------------------
+
+    private static String searchText(MarketListing listing) {
+        StringBuilder text = new StringBuilder();
+        if (listing.getDisplayName() != null) text.append(normalize(listing.getDisplayName())).append('\n');
+        if (listing.getCustomId() != null) text.append(normalize(listing.getCustomId())).append('\n');
+        text.append(normalize(listing.getMaterial()));
+        return text.toString();
+    }
+
+    static String normalize(String text) {
+        StringBuilder stripped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            // 色コード (§x) は除く
+            if (c == '§' && i + 1 < text.length()) {
+                i++;
+                continue;
+            }
+            stripped.append(c);
+        }
+        return Normalizer.normalize(stripped, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * テキストの 1〜3文字の n-gram (改行をまたぐものは除く)
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            for (int n = 1; n <= MAX_GRAM && i + n <= text.length(); n++) {
+                String gram = text.substring(i, i + n);
+                if (gram.indexOf('\n') >= 0) break;
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * クエリの引き当てに使う n-gram。3文字以下ならそのもの、それより長ければ3文字ずつ
+     */
+    private static Set<String> queryGrams(String query) {
+        if (query.length() <= MAX_GRAM) return Set.of(query);
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            grams.add(query.substring(i, i + MAX_GRAM));
+        }
+        return grams;
+    }
+}
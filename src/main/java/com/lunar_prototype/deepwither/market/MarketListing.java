@@ -1,35 +1,93 @@
 package com.lunar_prototype.deepwither.market;
 
+import com.lunar_prototype.deepwither.Deepwither;
+import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
 import java.util.UUID;
 
+/**
+ * 1件の出品。
+ * <p>
+ * アイテムは {@link ItemStack#serializeAsBytes()} のバイト列で持ち、表示や購入で {@link #getItem()} が呼ばれた時に初めて復元する。
+ * 検索や一覧に使う要約 (表示名・カスタムID・素材名) は出品時に取り出してDBにも別の列で保存するため、起動時にアイテムを復元する必要はない。
+ */
 public class MarketListing {
     private final UUID id;
     private final UUID sellerId;
-    private final ItemStack item;
     private final double price;
     private final long listedDate;
 
+    // --- 要約 ---
+    private final String displayName; // 無ければ null
+    private final String customId; // カスタムアイテムでなければ null
+    private final String material;
+
+    private final byte[] itemBytes;
+    private ItemStack item; // 復元するまで null
+    private boolean broken = false;
+
     public MarketListing(UUID sellerId, ItemStack item, double price) {
-        this.id = UUID.randomUUID();
+        this(UUID.randomUUID(), sellerId, item, price, System.currentTimeMillis());
+    }
+
+    // アイテムから作る (要約を取り出し、バイト列にする)
+    public MarketListing(UUID id, UUID sellerId, ItemStack item, double price, long listedDate) {
+        this.id = id;
         this.sellerId = sellerId;
         this.item = item;
+        this.itemBytes = item.serializeAsBytes();
         this.price = price;
-        this.listedDate = System.currentTimeMillis();
+        this.listedDate = listedDate;
+
+        ItemMeta meta = item.hasItemMeta() ? item.getItemMeta() : null;
+        this.displayName = (meta != null && meta.hasDisplayName()) ? meta.getDisplayName() : null;
+        this.customId = (meta != null)
+                ? meta.getPersistentDataContainer().get(new NamespacedKey(Deepwither.getInstance(), "custom_id"), PersistentDataType.STRING)
+                : null;
+        this.material = item.getType().toString();
     }
 
-    // Configからの読み込み用コンストラクタ
-    public MarketListing(UUID id, UUID sellerId, ItemStack item, double price, long listedDate) {
+    // DBからの読み込み用コンストラクタ (アイテムは復元しない)
+    public MarketListing(UUID id, UUID sellerId, byte[] itemBytes, String displayName, String customId, String material,
+                         double price, long listedDate) {
         this.id = id;
         this.sellerId = sellerId;
-        this.item = item;
+        this.itemBytes = itemBytes;
+        this.displayName = displayName;
+        this.customId = customId;
+        this.material = material;
         this.price = price;
         this.listedDate = listedDate;
     }
 
     public UUID getId() { return id; }
     public UUID getSellerId() { return sellerId; }
-    public ItemStack getItem() { return item; }
     public double getPrice() { return price; }
     public long getListedDate() { return listedDate; }
-}
\ No newline at end of file
+    public String getDisplayName() { return displayName; }
+    public String getCustomId() { return customId; }
+    public String getMaterial() { return material; }
+    public byte[] getItemBytes() { return itemBytes; }
+
+    /**
+     * アイテムを返す (初回に復元する)。復元できなかった場合は null
+     */
+    public ItemStack getItem() {
+        if (item == null && !broken) {
+            try {
+                item = ItemStack.deserializeBytes(itemBytes);
+            } catch (RuntimeException e) {
+                broken = true;
+                Deepwither.getInstance().getLogger().warning("出品アイテムを復元できませんでした: " + id + " (" + e.getMessage() + ")");
+            }
+        }
+        return item;
+    }
+
+    public boolean isDecoded() {
+        return item != null;
+    }
+}
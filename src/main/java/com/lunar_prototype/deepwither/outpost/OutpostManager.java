@@ -1,6 +1,9 @@
 package com.lunar_prototype.deepwither.outpost;
 
+import com.lunar_prototype.deepwither.Deepwither;
+import com.lunar_prototype.deepwither.RegionMembershipService;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import java.util.concurrent.TimeUnit;
 import java.util.Random;
@@ -78,6 +81,12 @@ public class OutpostManager {
         activeEvent = new OutpostEvent(plugin, this, selectedOutpost, config.getWeights());
         activeEvent.startEvent();
 
+        // 開始時点で既にリージョン内にいるプレイヤーは、出入りの通知が来ないのでここで記録する
+        RegionMembershipService regions = Deepwither.getInstance().getRegionMembershipService();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            OutpostRegionListener.enrollIfInside(activeEvent, player, regions.getCurrentRegions(player));
+        }
+
         plugin.getLogger().info("Outpostイベントが開始されました: " + selectedOutpost.getDisplayName());
         // プレイヤーへの通知処理などをここに追加
     }
@@ -1,21 +1,16 @@
 package com.lunar_prototype.deepwither.outpost;
 
-import com.lunar_prototype.deepwither.outpost.OutpostEvent;
-import com.lunar_prototype.deepwither.outpost.OutpostManager;
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
-import com.sk89q.worldguard.WorldGuard;
-import com.sk89q.worldguard.protection.ApplicableRegionSet;
-import com.sk89q.worldguard.protection.regions.ProtectedRegion;
-import com.sk89q.worldguard.protection.regions.RegionContainer;
-import com.sk89q.worldguard.protection.regions.RegionQuery;
+import com.lunar_prototype.deepwither.RegionMembershipService;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.player.PlayerMoveEvent;
+
 import java.util.Set;
 
-public class OutpostRegionListener implements Listener {
+/**
+ * Outpost リージョンに入ったプレイヤーを参加者として記録する。
+ * リージョンの判定は {@link RegionMembershipService} が行い、出入りがあった時だけ呼ばれる。
+ */
+public class OutpostRegionListener implements RegionMembershipService.TransitionHandler {
 
     private final OutpostManager manager;
 
@@ -23,40 +18,26 @@ public class OutpostRegionListener implements Listener {
         this.manager = manager;
     }
 
-    @EventHandler
-    public void onPlayerMove(PlayerMoveEvent event) {
-        // 1. アクティブなイベントがなければ処理を終了
+    @Override
+    public void onTransition(Player player, Location to, Set<String> previous, Set<String> current) {
+        // アクティブなイベントがなければ処理を終了
         OutpostEvent activeEvent = manager.getActiveEvent();
         if (activeEvent == null) return;
 
-        Player player = event.getPlayer();
-        Location to = event.getTo();
-
-        // 2. ブロック境界を越える移動がない場合はスキップし、負荷を軽減
-        if (event.getFrom().getBlockX() == to.getBlockX() &&
-                event.getFrom().getBlockY() == to.getBlockY() &&
-                event.getFrom().getBlockZ() == to.getBlockZ()) {
-            return;
-        }
-
-        RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-
-        RegionQuery query = container.createQuery();
-        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(to));
+        enrollIfInside(activeEvent, player, current);
+        // NOTE: リージョンから出た場合の処理は不要です。一度参加者になれば、イベント終了までその状態を維持します。
+    }
 
-        String outpostRegionId = activeEvent.getOutpostRegionId();
+    /**
+     * プレイヤーがOutpostリージョン内にいれば参加者に追加する
+     */
+    public static void enrollIfInside(OutpostEvent activeEvent, Player player, Set<String> regionIds) {
+        if (!RegionMembershipService.containsMatching(regionIds, activeEvent.getOutpostRegionId())) return;
 
-        // 適用可能なリージョンを全てチェック
-        for (ProtectedRegion region : set) {
-            // 4. プレイヤーがOutpostリージョン内にいるか確認
-            if (region.getId().toLowerCase().contains(outpostRegionId)) {
-                // 5. プレイヤーがまだ参加者リストにいなければ追加
-                if (!activeEvent.getParticipants().contains(player.getUniqueId())) {
-                    activeEvent.addParticipant(player.getUniqueId());
-                    player.sendMessage("§a§l[Outpost]§f あなたは「" + activeEvent.getOutpostRegionId() + "」の§6§l参加者§fとして記録されました！");
-                }
-            }
+        // プレイヤーがまだ参加者リストにいなければ追加
+        if (!activeEvent.getParticipants().contains(player.getUniqueId())) {
+            activeEvent.addParticipant(player.getUniqueId());
+            player.sendMessage("§a§l[Outpost]§f あなたは「" + activeEvent.getOutpostRegionId() + "」の§6§l参加者§fとして記録されました！");
         }
-        // NOTE: リージョンから出た場合の処理は不要です。一度参加者になれば、イベント終了までその状態を維持します。
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,9 @@ package com.lunar_prototype.deepwither.profession;
 
 import com.lunar_prototype.deepwither.DatabaseManager;
 import com.lunar_prototype.deepwither.util.IManager;
-import java.sql.*;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -31,10 +33,8 @@ public class ProfessionDatabase implements IManager {
         PlayerProfessionData data = new PlayerProfessionData(playerId);
         String query = "SELECT profession_type, experience FROM player_professions WHERE player_id = ?";
 
-        // connection ではなく db.getConnection() を使用
-        try (PreparedStatement ps = db.getConnection().prepareStatement(query)) {
-            ps.setString(1, playerId.toString());
-            try (ResultSet rs = ps.executeQuery()) {
+        try {
+            db.query(query, ps -> ps.setString(1, playerId.toString()), rs -> {
                 while (rs.next()) {
                     try {
                         ProfessionType type = ProfessionType.valueOf(rs.getString("profession_type"));
@@ -42,7 +42,8 @@ public class ProfessionDatabase implements IManager {
                         data.addExp(type, exp);
                     } catch (IllegalArgumentException ignored) {}
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to load profession data for " + playerId, e);
         }
@@ -54,25 +55,24 @@ public class ProfessionDatabase implements IManager {
      */
     public void savePlayer(PlayerProfessionData data) {
         String query = "INSERT OR REPLACE INTO player_professions (player_id, profession_type, experience) VALUES (?, ?, ?)";
-        Connection conn = db.getConnection();
+        String playerId = data.getPlayerId().toString();
 
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
-            conn.setAutoCommit(false); // トランザクション開始
-
-            for (Map.Entry<ProfessionType, Long> entry : data.getAllExperience().entrySet()) {
-                ps.setString(1, data.getPlayerId().toString());
-                ps.setString(2, entry.getKey().name());
-                ps.setLong(3, entry.getValue());
-                ps.addBatch();
-            }
-
-            ps.executeBatch();
-            conn.commit();
-            conn.setAutoCommit(true);
-
-        } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save profession data for " + data.getPlayerId(), e);
-            try { conn.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+        // 全職業を1つの書き込みとして積む（同じトランザクションでコミットされる）
+        List<DatabaseManager.StatementBinder> rows = new ArrayList<>();
+        for (Map.Entry<ProfessionType, Long> entry : data.getAllExperience().entrySet()) {
+            String type = entry.getKey().name();
+            long exp = entry.getValue();
+            rows.add(ps -> {
+                ps.setString(1, playerId);
+                ps.setString(2, type);
+                ps.setLong(3, exp);
+            });
         }
+        if (rows.isEmpty()) return;
+
+        db.writeBatch(data.getPlayerId(), query, rows).exceptionally(ex -> {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save profession data for " + data.getPlayerId(), ex);
+            return null;
+        });
     }
 }
\ No newline at end of file
@@ -44,14 +44,21 @@ public class ProfessionManager {
         });
     }
 
+    // ログイン時の一括ロード用。呼び出し元スレッドでDBから読み込む
+    public PlayerProfessionData fetchPlayer(UUID uuid) {
+        return database.loadPlayer(uuid);
+    }
+
+    public void hydrate(UUID uuid, PlayerProfessionData data) {
+        cache.put(uuid, data);
+    }
+
     public void saveAndUnloadPlayer(Player player) {
         UUID uuid = player.getUniqueId();
         PlayerProfessionData data = cache.remove(uuid);
         if (data != null) {
-            // 非同期でDBへ保存
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                database.savePlayer(data);
-            });
+            // DBの書き込みキューに積むだけなので呼び出し元はブロックされない
+            database.savePlayer(data);
         }
     }
 
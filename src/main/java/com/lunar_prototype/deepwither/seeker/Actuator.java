@@ -3,7 +3,6 @@ package com.lunar_prototype.deepwither.seeker;
 import io.lumine.mythic.bukkit.MythicBukkit;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import org.bukkit.Location;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Mob;
 import org.bukkit.util.Vector;
 
@@ -17,6 +16,14 @@ public class Actuator {
     private static final double BETA = 8.0 / 3.0;
     private static final double DT = 0.02; // 1Tick(0.05s)より少し細かい時間刻み
 
+    private final SensorProvider sensorProvider;
+    private final SeekerSpatialIndex spatialIndex;
+
+    public Actuator(SensorProvider sensorProvider, SeekerSpatialIndex spatialIndex) {
+        this.sensorProvider = sensorProvider;
+        this.spatialIndex = spatialIndex;
+    }
+
     public void execute(ActiveMob activeMob, BanditDecision decision, Location coverLoc) {
         if (activeMob.getEntity() == null || !(activeMob.getEntity().getBukkitEntity() instanceof Mob)) {
             return;
@@ -77,7 +84,7 @@ public class Actuator {
             }
 
             if (move.strategy.equals("ESCAPE_SQUEEZE")) {
-                performEscapeSqueeze(entity,new SensorProvider().scanEnemies(entity,entity.getNearbyEntities(32, 32, 32)));
+                performEscapeSqueeze(entity, sensorProvider.scanEnemies(entity, spatialIndex.nearby(entity, 32)));
                 return;
             }
         }
@@ -273,7 +280,7 @@ public class Actuator {
     }
 
     private void handleActions(ActiveMob activeMob, BanditDecision decision) {
-        Entity entity = activeMob.getEntity().getBukkitEntity();
+        Mob entity = (Mob) activeMob.getEntity().getBukkitEntity();
         // スキルの強制発動
         if (decision.decision.use_skill != null && !decision.decision.use_skill.equalsIgnoreCase("NONE")) {
             MythicBukkit.inst().getAPIHelper().castSkill(entity, decision.decision.use_skill);
@@ -282,11 +289,7 @@ public class Actuator {
         // 音声（セリフ）の再生
         if (decision.communication.voice_line != null) {
             String message = "§7[" + activeMob.getType().getInternalName() + "] §f" + decision.communication.voice_line;
-            entity.getNearbyEntities(10, 10, 10).forEach(e -> {
-                if (e instanceof org.bukkit.entity.Player) {
-                    e.sendMessage(message);
-                }
-            });
+            spatialIndex.nearbyPlayers(entity, 10).forEach(p -> p.sendMessage(message));
         }
     }
 
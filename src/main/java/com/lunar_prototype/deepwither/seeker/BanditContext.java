@@ -3,12 +3,22 @@ package com.lunar_prototype.deepwither.seeker;
 import org.bukkit.entity.Player;
 
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * 思考1回分の入力。
+ * <p>
+ * メインスレッドの {@link SensorProvider#scan} で作られ、以後は推論スレッドから読むだけ。
+ * 推論側が Bukkit API を呼ばずに済むよう、座標・速度・視線などは値として写しておく。
+ */
 public class BanditContext {
     public EntityState entity;
     public EnvironmentState environment;
+    public SelfState self;
     public String last_action;
     public Personality personality;
+    // 12m以内にいる他の bandit（模倣学習の相手）
+    public List<UUID> nearby_peers;
 
     public static class EntityState {
         public String id;
@@ -18,6 +28,18 @@ public class BanditContext {
         public String stance;
     }
 
+    /**
+     * 自分自身の位置と現在のターゲット
+     */
+    public static class SelfState {
+        public double x, y, z;
+        public double vx, vy, vz;
+        public int ticksLived;
+        public UUID targetId;
+        // 現在のターゲットがプレイヤーならその写し。それ以外は null
+        public EnemyInfo target;
+    }
+
     public static class EnvironmentState {
         public List<EnemyInfo> nearby_enemies;
         public List<AllyInfo> nearby_allies;
@@ -25,10 +47,18 @@ public class BanditContext {
     }
 
     public static class EnemyInfo {
+        public UUID id;
+        public String name;
         public double dist;
         public String health; // "low", "mid", "high"
+        public double health_ratio;
         public String holding;
         public boolean in_sight;
+        public double x, y, z;
+        public double vx, vy, vz;
+        // 視線の向き (正規化済み)
+        public double lookX, lookY, lookZ;
+        // メインスレッド専用。推論スレッドからは触らないこと
         public Player playerInstance;
     }
 
@@ -2,9 +2,14 @@ package com.lunar_prototype.deepwither.seeker;
 
 import org.bukkit.util.Vector;
 
+import java.util.UUID;
+
 public class BanditDecision {
     public String engine_version = "v1.0";
 
+    // 切り替え先のターゲット。null なら現在のターゲットを維持する（適用はメインスレッドで行う）
+    public UUID target_id;
+
     public DecisionCore decision;
     public MovementPlan movement;
     public Communication communication;
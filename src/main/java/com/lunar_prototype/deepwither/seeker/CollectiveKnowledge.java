@@ -71,13 +71,13 @@ public class CollectiveKnowledge {
         return (profile != null) ? profile.dangerLevel : 0.0;
     }
 
-    public static BanditDecision.TacticalRole assignRole(Mob self, List<BanditContext.EnemyInfo> enemies) {
-        if (enemies.size() <= 1 && self.getNearbyEntities(8, 8, 8).size() < 2) {
+    public static BanditDecision.TacticalRole assignRole(Mob self, List<BanditContext.EnemyInfo> enemies, SeekerSpatialIndex index) {
+        if (enemies.size() <= 1 && index.nearby(self, 8).size() < 2) {
             return BanditDecision.TacticalRole.SOLO;
         }
 
         // 周囲の味方を取得
-        List<Entity> allies = self.getNearbyEntities(12, 12, 12).stream()
+        List<Entity> allies = index.nearby(self, 12).stream()
                 .filter(e -> e instanceof Mob && !e.equals(self))
                 .collect(java.util.stream.Collectors.toList());
 
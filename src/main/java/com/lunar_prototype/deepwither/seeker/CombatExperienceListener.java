@@ -19,6 +19,10 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * 戦闘イベントから bandit の脳に経験を積む。
+ * 脳は推論スレッドからも更新されるため、触る時は必ず brain で同期する。
+ */
 public class CombatExperienceListener implements Listener {
     private final SeekerAIEngine aiEngine;
 
@@ -39,7 +43,9 @@ public class CombatExperienceListener implements Listener {
             handleReward(attacker, 0.3f);
 
             getBrain(attacker).ifPresent(brain -> {
-                brain.tacticalMemory.myHits++;
+                synchronized (brain) {
+                    brain.tacticalMemory.myHits++;
+                }
             });
         }
 
@@ -51,7 +57,9 @@ public class CombatExperienceListener implements Listener {
             applyLearning(victim, 0.0f, damage, false, damager);
 
             getBrain(victim).ifPresent(brain -> {
-                brain.tacticalMemory.takenHits++;
+                synchronized (brain) {
+                    brain.tacticalMemory.takenHits++;
+                }
 
                 // 既存のPenalty処理
                 handlePenaltyAndPattern(victim, damager, 0.5f);
@@ -66,17 +74,22 @@ public class CombatExperienceListener implements Listener {
                     }
 
                     // 攻撃パターンのサンプリング (最新仕様: UUID, distance, isMiss)
-                    brain.recordAttack(p.getUniqueId(), dist, false);
+                    synchronized (brain) {
+                        brain.recordAttack(p.getUniqueId(), dist, false);
+                    }
                 }
             });
         }
     }
 
     private void handleReward(Mob mob, float amount) {
+        long ticksLived = mob.getTicksLived();
         getBrain(mob).ifPresent(brain -> {
-            brain.accumulatedReward += amount;
-            // 自己攻撃リズムの記録
-            brain.recordSelfAttack(mob.getTicksLived());
+            synchronized (brain) {
+                brain.accumulatedReward += amount;
+                // 自己攻撃リズムの記録
+                brain.recordSelfAttack(ticksLived);
+            }
         });
     }
 
@@ -85,15 +98,18 @@ public class CombatExperienceListener implements Listener {
      */
     private void handlePenaltyAndPattern(Mob mob, Entity damager, float amount) {
         getBrain(mob).ifPresent(brain -> {
-            // 失敗体験（ペナルティ）の蓄積
-            brain.accumulatedPenalty += amount;
-
             // 攻撃者がプレイヤーの場合のみ記録
-            if (damager instanceof Player player) {
-                float distance = (float) player.getLocation().distance(mob.getLocation());
-                // recordAttack(UUID, dist, isMiss)
-                // 被弾しているため isMiss は当然 false
-                brain.recordAttack(player.getUniqueId(), distance, false);
+            float distance = (damager instanceof Player player) ? (float) player.getLocation().distance(mob.getLocation()) : -1.0f;
+
+            synchronized (brain) {
+                // 失敗体験（ペナルティ）の蓄積
+                brain.accumulatedPenalty += amount;
+
+                if (distance >= 0) {
+                    // recordAttack(UUID, dist, isMiss)
+                    // 被弾しているため isMiss は当然 false
+                    brain.recordAttack(damager.getUniqueId(), distance, false);
+                }
             }
         });
     }
@@ -105,8 +121,8 @@ public class CombatExperienceListener implements Listener {
         Location playerLoc = player.getLocation();
         Vector lookDir = playerLoc.getDirection(); // プレイヤーの視線
 
-        // 8m以内のエンティティを取得
-        List<Entity> nearby = player.getNearbyEntities(8, 8, 8);
+        // 8m以内の bandit を取得
+        List<Entity> nearby = aiEngine.getSpatialIndex().nearby(player, 8);
 
         for (int i = 0; i < nearby.size(); i++) {
             Entity e = nearby.get(i);
@@ -126,14 +142,16 @@ public class CombatExperienceListener implements Listener {
                         // 回避成功報酬 (量子化版 applyLearning)
                         // 引数: mob, damageDealt, damageTaken, isEvaded, damager
                         applyLearning(mob, 0.0f, 0.0f, true, player);
-
-                        brain.tacticalMemory.avoidedHits++; // 戦術メモリ更新
                     }
 
-                    // 3. 空振りリズムの学習 (最新の recordAttack シグネチャ)
-                    // recordAttack(UUID, distance, isMiss)
-                    // このイベントは「当たっていない（振っただけ）」ので isMiss = true
-                    brain.recordAttack(playerUUID, (double) dist, true);
+                    synchronized (brain) {
+                        if (dot > 0.9f) brain.tacticalMemory.avoidedHits++; // 戦術メモリ更新
+
+                        // 3. 空振りリズムの学習 (最新の recordAttack シグネチャ)
+                        // recordAttack(UUID, distance, isMiss)
+                        // このイベントは「当たっていない（振っただけ）」ので isMiss = true
+                        brain.recordAttack(playerUUID, (double) dist, true);
+                    }
                 });
             }
         }
@@ -147,51 +165,54 @@ public class CombatExperienceListener implements Listener {
     // B. メインロジック：横槍判定（damager）を含む完全版
     public void applyLearning(Mob mob, float damageDealt, float damageTaken, boolean evaded, Entity damager) {
         Optional.ofNullable(aiEngine.getBrain(mob.getUniqueId())).ifPresent(brain -> {
-            float reward = 0.0f;
+            // ワールドの参照は脳をロックする前に済ませる
+            Entity target = mob.getTarget();
+            boolean interrupted = damageTaken > 0 && damager != null && target != null
+                    && !damager.getUniqueId().equals(target.getUniqueId());
+            List<BanditContext.EnemyInfo> enemies = aiEngine.getSensorProvider().scanEnemies(mob, aiEngine.getSpatialIndex().nearby(mob, 32));
+            float dist = (target != null) ? (float) mob.getLocation().distance(target.getLocation()) : 20.0f;
+            float hp = (float) (mob.getHealth() / mob.getAttribute(Attribute.MAX_HEALTH).getValue());
 
-            // =========================================================
-            // [動的スケーラー] 状況(信頼度・冷静さ)と疲労の相関
-            // =========================================================
-            float currentFatigue = brain.lastActionIdx >= 0 ? brain.fatigueMap[brain.lastActionIdx] : 0.0f;
-            float correlationFactor = (brain.velocityTrust * 0.5f + brain.composure * 0.5f) * (1.0f - currentFatigue);
+            synchronized (brain) {
+                float reward = 0.0f;
 
-            // 1. 基本報酬 (スケーリング適用)
-            // 予測が的中している(Trust高)時の攻撃成功は「読み勝ち」として報酬を増幅
-            reward += (damageDealt * (2.0f + 1.0f * correlationFactor));
+                // =========================================================
+                // [動的スケーラー] 状況(信頼度・冷静さ)と疲労の相関
+                // =========================================================
+                float currentFatigue = brain.lastActionIdx >= 0 ? brain.fatigueMap[brain.lastActionIdx] : 0.0f;
+                float correlationFactor = (brain.velocityTrust * 0.5f + brain.composure * 0.5f) * (1.0f - currentFatigue);
 
-            // ダメージを受けた際のペナルティは「冷静さ」が高いほど厳しく（油断への戒め）
-            reward -= (damageTaken * (1.0f + 1.0f * brain.composure));
+                // 1. 基本報酬 (スケーリング適用)
+                // 予測が的中している(Trust高)時の攻撃成功は「読み勝ち」として報酬を増幅
+                reward += (damageDealt * (2.0f + 1.0f * correlationFactor));
 
-            // 回避報酬は、予測が当たっている状態での回避なら高く評価
-            if (evaded) {
-                reward += (1.0f + 1.0f * brain.velocityTrust);
-            }
+                // ダメージを受けた際のペナルティは「冷静さ」が高いほど厳しく（油断への戒め）
+                reward -= (damageTaken * (1.0f + 1.0f * brain.composure));
+
+                // 回避報酬は、予測が当たっている状態での回避なら高く評価
+                if (evaded) {
+                    reward += (1.0f + 1.0f * brain.velocityTrust);
+                }
 
-            // 2. 横槍ペナルティ (Frustrationとの連動)
-            if (damageTaken > 0 && damager != null) {
-                Entity target = mob.getTarget();
-                if (target != null && !damager.getUniqueId().equals(target.getUniqueId())) {
+                // 2. 横槍ペナルティ (Frustrationとの連動)
+                if (interrupted) {
                     reward -= 5.0f;
                     // 苛立ち(Frustration)が溜まると冷静さが削れる
                     brain.frustration += 0.2f;
                     brain.composure = Math.max(0.0f, brain.composure - 0.1f);
                 }
-            }
-
-            // 3. 次の状態(Next State)をインデックスで取得
-            List<BanditContext.EnemyInfo> enemies = new SensorProvider().scanEnemies(mob, mob.getNearbyEntities(32, 32, 32));
-            float dist = (mob.getTarget() != null) ? (float) mob.getLocation().distance(mob.getTarget().getLocation()) : 20.0f;
-            float hp = (float) (mob.getHealth() / mob.getAttribute(Attribute.MAX_HEALTH).getValue());
 
-            int nextStateIdx = brain.qTable.packState(
-                    (float) brain.tacticalMemory.combatAdvantage,
-                    dist, hp, false, enemies.size()
-            );
+                // 3. 次の状態(Next State)をインデックスで取得
+                int nextStateIdx = brain.qTable.packState(
+                        (float) brain.tacticalMemory.combatAdvantage,
+                        dist, hp, false, enemies.size()
+                );
 
-            // 4. 量子化Q-Update
-            if (brain.lastStateIdx >= 0 && brain.lastActionIdx >= 0) {
-                // 学習時にもFatigueを渡すことで、連打されている行動のQ値の伸びを抑制
-                brain.qTable.update(brain.lastStateIdx, brain.lastActionIdx, reward, nextStateIdx, currentFatigue);
+                // 4. 量子化Q-Update
+                if (brain.lastStateIdx >= 0 && brain.lastActionIdx >= 0) {
+                    // 学習時にもFatigueを渡すことで、連打されている行動のQ値の伸びを抑制
+                    brain.qTable.update(brain.lastStateIdx, brain.lastActionIdx, reward, nextStateIdx, currentFatigue);
+                }
             }
         });
     }
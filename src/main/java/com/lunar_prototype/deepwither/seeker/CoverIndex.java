@@ -0,0 +1,421 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 隠れ場所のチャンクセクション(16x16x16)単位のキャッシュ。
+ * <p>
+ * 隠れ場所は「視線を遮るブロック」と、その水平4方向の隣のうち立てるマス (足元と頭の高さが空気で、その下が固体) の組。
+ * 地中に埋まったブロックや、隣に立てないブロックは候補に入れない (従来の全探索より候補は狭い)。
+ * 隣が読み込まれていないチャンクにある場合は立てないとみなし、そのチャンクが読み込まれた時に作り直す。
+ * 1件は セクション内座標12bit + 立てる方向4bit の char で持つ。
+ * <p>
+ * セクションは最初に参照された時に1回だけ走査し、ブロックの変化 (破壊・設置・爆発・ピストン・液体・落下・成長など) で
+ * そのブロックを見ている周囲のセクションを捨てる。WorldEdit での書き換えは {@link CoverIndexWorldEditHook} から届く。
+ * イベントで拾えない変化 (コマンドや他プラグイン) に備えて、{@value #SECTION_TTL_MILLIS}ms 経ったセクションも作り直す。
+ * <p>
+ * メインスレッド専用 ({@link #invalidateSectionLater} だけはどのスレッドからも呼べる)。
+ */
+public class CoverIndex implements Listener {
+
+    private static final long SECTION_TTL_MILLIS = 60_000L;
+    private static final char[] EMPTY = new char[0];
+
+    // 立てる方向のビット (0:+X 1:-X 2:+Z 3:-Z)
+    private static final int[] SIDE_DX = {1, -1, 0, 0};
+    private static final int[] SIDE_DZ = {0, 0, 1, -1};
+
+    private static final class Section {
+        private final char[] spots;
+        private final long scannedAt;
+
+        private Section(char[] spots, long scannedAt) {
+            this.spots = spots;
+            this.scannedAt = scannedAt;
+        }
+    }
+
+    private record SectionRef(UUID worldId, long chunkKey, int index) {
+    }
+
+    // ワールドUID -> チャンクキー -> セクション (添字は sy - ワールドの最下セクション)
+    private final Map<UUID, Map<Long, Section[]>> chunks = new HashMap<>();
+    // 別スレッドから届いたセクションの無効化。次の検索の前に反映する
+    private final Queue<SectionRef> deferred = new ConcurrentLinkedQueue<>();
+
+    // --- 計測 ---
+    private long sectionScans = 0;
+    private long invalidations = 0;
+
+    /**
+     * 遮蔽ブロックが [minX..maxX]x[minY..maxY]x[minZ..maxZ] にある隠れ場所のうち、敵 (enemyX, enemyZ) から見て
+     * 遮蔽ブロックの裏側にあるものを、(fromX, fromY, fromZ) から隠れ場所の中心までが近い順に最大 k 件返す。
+     * 結果は coverOut (遮蔽ブロック) と spotOut (隠れ場所の足元のマス) に {@link #pack} した座標で入り、件数を返す。
+     * 候補ごとのオブジェクト生成は行わない。読み込まれていないチャンクは飛ばす
+     */
+    public int nearestHidingSpots(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                  double fromX, double fromY, double fromZ, double enemyX, double enemyZ,
+                                  long[] coverOut, long[] spotOut) {
+        drainDeferred();
+        int k = Math.min(coverOut.length, spotOut.length);
+        double[] dists = new double[k];
+        int found = 0;
+
+        minY = Math.max(minY, world.getMinHeight());
+        maxY = Math.min(maxY, world.getMaxHeight() - 1);
+        if (minY > maxY || k == 0) return 0;
+
+        long now = System.currentTimeMillis();
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                if (!world.isChunkLoaded(cx, cz)) continue;
+                for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+                    char[] spots = getSection(world, cx, sy, cz, now);
+                    for (char p : spots) {
+                        int x = (cx << 4) | (p & 0xF);
+                        int z = (cz << 4) | ((p >> 4) & 0xF);
+                        int y = (sy << 4) | ((p >> 8) & 0xF);
+                        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) continue;
+
+                        double toEnemyX = enemyX - (x + 0.5), toEnemyZ = enemyZ - (z + 0.5);
+                        for (int side = 0; side < 4; side++) {
+                            if ((p & (0x1000 << side)) == 0) continue;
+                            // 敵と反対側の面だけが隠れ場所になる
+                            if (SIDE_DX[side] * toEnemyX + SIDE_DZ[side] * toEnemyZ >= 0) continue;
+
+                            int sx = x + SIDE_DX[side], sz = z + SIDE_DZ[side];
+                            double dx = sx + 0.5 - fromX, dy = y - fromY, dz = sz + 0.5 - fromZ;
+                            double dist = dx * dx + dy * dy + dz * dz;
+                            long spot = pack(sx, y, sz);
+                            if (found == k && !closer(dist, spot, dists[k - 1], spotOut[k - 1])) continue;
+
+                            // 上位 k 件を挿入ソートで保つ
+                            int i = (found < k) ? found++ : k - 1;
+                            while (i > 0 && closer(dist, spot, dists[i - 1], spotOut[i - 1])) {
+                                dists[i] = dists[i - 1];
+                                coverOut[i] = coverOut[i - 1];
+                                spotOut[i] = spotOut[i - 1];
+                                i--;
+                            }
+                            dists[i] = dist;
+                            coverOut[i] = pack(x, y, z);
+                            spotOut[i] = spot;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    // 同じ距離なら座標の小さい方を先にして、結果を走査順に依存させない
+    private static boolean closer(double dist, long spot, double otherDist, long otherSpot) {
+        return dist < otherDist || (dist == otherDist && spot < otherSpot);
+    }
+
+    // ----------------------------------------------------
+    // --- 座標の詰め方 (x 26bit, z 26bit, y 12bit) ---
+    // ----------------------------------------------------
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    // ----------------------------------------------------
+    // --- セクションの走査 ---
+    // ----------------------------------------------------
+
+    private char[] getSection(World world, int cx, int sy, int cz, long now) {
+        Map<Long, Section[]> worldChunks = chunks.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        int minSection = world.getMinHeight() >> 4;
+        Section[] column = worldChunks.computeIfAbsent(chunkKey(cx, cz),
+                k -> new Section[((world.getMaxHeight() - 1) >> 4) - minSection + 1]);
+        int index = sy - minSection;
+        Section section = column[index];
+        if (section == null || now - section.scannedAt > SECTION_TTL_MILLIS) {
+            section = new Section(scanSection(world, cx, sy, cz), now);
+            column[index] = section;
+        }
+        return section.spots;
+    }
+
+    private char[] scanSection(World world, int cx, int sy, int cz) {
+        sectionScans++;
+        int baseX = cx << 4, baseY = sy << 4, baseZ = cz << 4;
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight() - 1;
+
+        char[] buffer = null;
+        int count = 0;
+        for (int ly = 0; ly < 16; ly++) {
+            int y = baseY + ly;
+            if (y <= minY || y >= maxY) continue;
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    int x = baseX + lx, z = baseZ + lz;
+                    if (!world.getType(x, y, z).isOccluding()) continue;
+                    int sides = 0;
+                    for (int side = 0; side < 4; side++) {
+                        if (isStandable(world, x + SIDE_DX[side], y, z + SIDE_DZ[side], cx, cz)) sides |= 1 << side;
+                    }
+                    if (sides == 0) continue;
+                    if (buffer == null) buffer = new char[64];
+                    if (count == buffer.length) buffer = Arrays.copyOf(buffer, count * 2);
+                    buffer[count++] = (char) ((sides << 12) | (ly << 8) | (lz << 4) | lx);
+                }
+            }
+        }
+        return count == 0 ? EMPTY : Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * (x, y, z) に立てるか (足元と頭の高さが空気で、その下が固体)。隣のチャンクが読み込まれていなければ読み込ませずに false
+     */
+    private static boolean isStandable(World world, int x, int y, int z, int cx, int cz) {
+        if (((x >> 4) != cx || (z >> 4) != cz) && !world.isChunkLoaded(x >> 4, z >> 4)) return false;
+        if (!world.getType(x, y, z).isAir() || !world.getType(x, y + 1, z).isAir()) return false;
+        Material floor = world.getType(x, y - 1, z);
+        return floor.isSolid();
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    // ----------------------------------------------------
+    // --- 無効化 ---
+    // ----------------------------------------------------
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent e) {
+        invalidate(e.getBlock());
+        if (e instanceof BlockMultiPlaceEvent multi) {
+            for (BlockState state : multi.getReplacedBlockStates()) invalidate(state.getBlock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent e) {
+        invalidateAll(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent e) {
+        invalidateAll(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+        invalidatePiston(e.getBlock(), e.getBlocks(), e.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+        invalidatePiston(e.getBlock(), e.getBlocks(), e.getDirection());
+    }
+
+    private void invalidatePiston(Block piston, List<Block> moved, BlockFace direction) {
+        // 動くブロックの移動元・移動先と、ピストンの頭
+        invalidate(piston.getRelative(direction));
+        for (Block block : moved) {
+            invalidate(block);
+            invalidate(block.getRelative(direction));
+            invalidate(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFluidFlow(BlockFromToEvent e) {
+        invalidate(e.getToBlock());
+    }
+
+    // BlockSpreadEvent を含む
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    // 砂や砂利の落下・着地、エンダーマンなど
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+        invalidate(e.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent e) {
+        for (BlockState state : e.getBlocks()) invalidate(state.getWorld(), state.getX(), state.getY(), state.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent e) {
+        // 隣のチャンクの端のブロックは、このチャンクが無い間「立てない」と判定されているので作り直す
+        Map<Long, Section[]> worldChunks = chunks.get(e.getWorld().getUID());
+        if (worldChunks == null) return;
+        Chunk chunk = e.getChunk();
+        worldChunks.remove(chunkKey(chunk.getX() + 1, chunk.getZ()));
+        worldChunks.remove(chunkKey(chunk.getX() - 1, chunk.getZ()));
+        worldChunks.remove(chunkKey(chunk.getX(), chunk.getZ() + 1));
+        worldChunks.remove(chunkKey(chunk.getX(), chunk.getZ() - 1));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        Map<Long, Section[]> worldChunks = chunks.get(e.getWorld().getUID());
+        if (worldChunks == null) return;
+        Chunk chunk = e.getChunk();
+        worldChunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent e) {
+        clearWorld(e.getWorld());
+    }
+
+    /**
+     * ワールドの候補を全て捨てる (ダンジョンのワールドを使い回す時など)
+     */
+    public void clearWorld(World world) {
+        chunks.remove(world.getUID());
+        invalidations++;
+    }
+
+    public void invalidate(Block block) {
+        invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    private void invalidateAll(List<Block> blocks) {
+        for (Block block : blocks) invalidate(block);
+    }
+
+    /**
+     * (x, y, z) が変わった時に、それを遮蔽ブロック・隠れ場所の足元/頭/床として見ているセクションを捨てる。
+     * 水平方向は隣接1マス、上下も1マスの範囲なので、セクションの境界にあれば隣のセクションも捨てる
+     */
+    public void invalidate(World world, int x, int y, int z) {
+        Map<Long, Section[]> worldChunks = chunks.get(world.getUID());
+        if (worldChunks == null) return;
+        invalidations++;
+        int minSection = world.getMinHeight() >> 4;
+        for (int cx = (x - 1) >> 4; cx <= (x + 1) >> 4; cx++) {
+            for (int cz = (z - 1) >> 4; cz <= (z + 1) >> 4; cz++) {
+                Section[] column = worldChunks.get(chunkKey(cx, cz));
+                if (column == null) continue;
+                for (int sy = (y - 1) >> 4; sy <= (y + 1) >> 4; sy++) {
+                    int index = sy - minSection;
+                    if (index >= 0 && index < column.length) column[index] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * セクション (cx, sy, cz) を捨てる予約。どのスレッドからも呼べて、次の {@link #nearestHidingSpots} の前にメインスレッドで反映する
+     */
+    public void invalidateSectionLater(World world, int cx, int sy, int cz) {
+        deferred.add(new SectionRef(world.getUID(), chunkKey(cx, cz), sy - (world.getMinHeight() >> 4)));
+    }
+
+    private void drainDeferred() {
+        SectionRef ref;
+        while ((ref = deferred.poll()) != null) {
+            Map<Long, Section[]> worldChunks = chunks.get(ref.worldId());
+            if (worldChunks == null) continue;
+            Section[] column = worldChunks.get(ref.chunkKey());
+            if (column != null && ref.index() >= 0 && ref.index() < column.length) column[ref.index()] = null;
+            invalidations++;
+        }
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public int getCachedSectionCount() {
+        int total = 0;
+        for (Map<Long, Section[]> worldChunks : chunks.values()) {
+            for (Section[] column : worldChunks.values()) {
+                for (Section section : column) {
+                    if (section != null) total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    public long getSectionScanCount() {
+        return sectionScans;
+    }
+
+    public long getInvalidationCount() {
+        return invalidations;
+    }
+
+    public void resetStats() {
+        sectionScans = 0;
+        invalidations = 0;
+    }
+}
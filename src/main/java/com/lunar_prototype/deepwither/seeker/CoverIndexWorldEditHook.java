@@ -0,0 +1,70 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.event.extent.EditSessionEvent;
+import com.sk89q.worldedit.extent.AbstractDelegateExtent;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.eventbus.Subscribe;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import org.bukkit.World;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * WorldEdit での書き換え (コマンドや {@code SchematicPaster} の貼り付け・片付け) を {@link CoverIndex} に伝える。
+ * Bukkit のブロックイベントは飛ばないので、EditSession のエクステントを包んで書き換えたセクションを拾う
+ */
+public class CoverIndexWorldEditHook {
+
+    private final CoverIndex coverIndex;
+
+    public CoverIndexWorldEditHook(CoverIndex coverIndex) {
+        this.coverIndex = coverIndex;
+    }
+
+    public void register() {
+        WorldEdit.getInstance().getEventBus().register(this);
+    }
+
+    public void unregister() {
+        WorldEdit.getInstance().getEventBus().unregister(this);
+    }
+
+    @Subscribe
+    public void onEditSession(EditSessionEvent event) {
+        if (event.getStage() != EditSession.Stage.BEFORE_CHANGE || event.getWorld() == null) return;
+        World world = BukkitAdapter.adapt(event.getWorld());
+        event.setExtent(new InvalidatingExtent(event.getExtent(), world));
+    }
+
+    private class InvalidatingExtent extends AbstractDelegateExtent {
+
+        private final World world;
+        // この EditSession で予約済みのセクション (同じセクションを何度も積まない)
+        private final Set<Long> queued = new HashSet<>();
+
+        private InvalidatingExtent(Extent extent, World world) {
+            super(extent);
+            this.world = world;
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 location, T block) throws WorldEditException {
+            int x = location.getX(), y = location.getY(), z = location.getZ();
+            // 隣接1マスから見ているセクションも含める (CoverIndex#invalidate と同じ範囲)
+            for (int cx = (x - 1) >> 4; cx <= (x + 1) >> 4; cx++) {
+                for (int cz = (z - 1) >> 4; cz <= (z + 1) >> 4; cz++) {
+                    for (int sy = (y - 1) >> 4; sy <= (y + 1) >> 4; sy++) {
+                        if (queued.add(CoverIndex.pack(cx, sy, cz))) coverIndex.invalidateSectionLater(world, cx, sy, cz);
+                    }
+                }
+            }
+            return super.setBlock(location, block);
+        }
+    }
+}
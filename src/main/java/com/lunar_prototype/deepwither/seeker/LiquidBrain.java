@@ -3,6 +3,11 @@ package com.lunar_prototype.deepwither.seeker;
 import org.bukkit.util.Vector;
 import java.util.*;
 
+/**
+ * bandit 1体分の脳。
+ * <p>
+ * 推論スレッドとメインスレッドのリスナーの両方から更新されるため、読み書きは必ずこのインスタンスで同期すること。
+ */
 public class LiquidBrain {
     public final LiquidNeuron aggression;
     public final LiquidNeuron fear;
@@ -31,6 +36,9 @@ public class LiquidBrain {
     // 1.0なら直進すると信じる、0.0なら今の場所から動かないと疑う
     public float velocityTrust = 0.5f;
 
+    // 前回の思考で観測した敵の速度 (加速度の推定用)
+    public Vector lastObservedVelocity = new Vector(0, 0, 0);
+
     // 量子化エンジン用フィールド
     public int lastStateIdx = 0;
     public int lastActionIdx = 4; // Default: OBSERVE
@@ -1,42 +1,43 @@
 package com.lunar_prototype.deepwither.seeker;
 
-import org.bukkit.Location;
-import org.bukkit.entity.Entity;
-import org.bukkit.entity.Mob;
-import org.bukkit.entity.Player;
 import org.bukkit.util.Vector;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Seeker AI の推論本体。
+ * <p>
+ * 推論スレッドから呼ばれるため、Bukkit API は一切呼ばず {@link BanditContext} の写しだけを読む。
+ * ターゲットの切り替えは {@link BanditDecision#target_id} に書き、適用はメインスレッドに任せる。
+ * 呼び出し側は brain で同期していること。
+ */
 public class LiquidCombatEngine {
 
-    private Vector lastPlayerVelocity = new Vector(0, 0, 0);
-
     private static final String[] ACTIONS = {"ATTACK", "EVADE", "BAITING", "COUNTER", "OBSERVE", "RETREAT", "BURST_DASH", "ORBITAL_SLIDE"};
 
-    public BanditDecision think(String version, BanditContext context, LiquidBrain brain, Mob bukkitEntity) {
+    public BanditDecision think(String version, BanditContext context, LiquidBrain brain) {
         // バージョンごとの推論へ（内部は全てintとfloatで完結）
         return switch (version) {
-            case "v3" -> thinkV3Optimized(context,brain,bukkitEntity);
-            case "v2" -> thinkV2Optimized(context,brain,bukkitEntity);
-            default   -> thinkV1Optimized(context,brain,bukkitEntity);
+            case "v3" -> thinkV3Optimized(context,brain);
+            case "v2" -> thinkV2Optimized(context,brain);
+            default   -> thinkV1Optimized(context,brain);
         };
     }
 
     /**
      * thinkV1の全機能を維持しつつ、量子化とループ最適化を適用した軽量版
      */
-    private BanditDecision thinkV1Optimized(BanditContext context, LiquidBrain brain, Mob bukkitEntity) {
+    private BanditDecision thinkV1Optimized(BanditContext context, LiquidBrain brain) {
+        BanditContext.SelfState self = context.self;
+
         // 1. 基本数値の量子化 (double -> float)
         float hpStress = 1.0f - ((float) context.entity.hp_pct / 100.0f);
         float enemyDist = 20.0f;
         float currentDist = 20.0f;
         float predictedDist = 20.0f;
-        Player targetPlayer = null;
+        BanditContext.EnemyInfo targetEnemy = null;
 
         // 2. 最寄りの敵の探索 (Stream/Comparatorを廃止し、プリミティブなループへ)
         List<BanditContext.EnemyInfo> enemies = context.environment.nearby_enemies;
@@ -47,17 +48,15 @@ public class LiquidCombatEngine {
                 float d = (float) info.dist;
                 if (d < minSafeDist) {
                     minSafeDist = d;
-                    // info.playerInstance を保持 (後の計算用)
-                    if (info.playerInstance instanceof Player p) {
-                        targetPlayer = p;
-                        enemyDist = d;
-                    }
+                    // 最寄りの敵の写しを保持 (後の計算用)
+                    targetEnemy = info;
+                    enemyDist = d;
                 }
             }
         }
 
         // 3. 攻撃切迫度の計算
-        float attackImminence = (float) calculateAttackImminence(targetPlayer, (double) enemyDist, bukkitEntity);
+        float attackImminence = (float) calculateAttackImminence(targetEnemy, (double) enemyDist, self);
 
         // 4. アドレナリンと緊急度の計算 (float演算)
         float urgency = (hpStress * 0.3f) + ((float) brain.adrenaline * 0.7f);
@@ -65,18 +64,17 @@ public class LiquidCombatEngine {
         if (urgency > 1.0f) urgency = 1.0f;
 
         // 5. 予測モデルの適用 (オブジェクト生成を抑えた座標計算)
-        if (targetPlayer != null) {
+        if (targetEnemy != null) {
             // 現在の距離
-            currentDist = (float) bukkitEntity.getLocation().distance(targetPlayer.getLocation());
+            currentDist = (float) distance(self, targetEnemy);
 
             // ターゲットの未来位置予測 (0.5秒後)
-            Vector targetFuture = predictFutureLocationImproved(targetPlayer, 0.5);
+            Vector targetFuture = predictFutureLocationImproved(brain, targetEnemy, 0.5);
 
             // 自分の未来位置をスタック上の変数で計算 (new Vector().add() を回避)
-            Vector myVel = bukkitEntity.getVelocity();
-            double myFutureX = bukkitEntity.getLocation().getX() + (myVel.getX() * 10);
-            double myFutureY = bukkitEntity.getLocation().getY() + (myVel.getY() * 10);
-            double myFutureZ = bukkitEntity.getLocation().getZ() + (myVel.getZ() * 10);
+            double myFutureX = self.x + (self.vx * 10);
+            double myFutureY = self.y + (self.vy * 10);
+            double myFutureZ = self.z + (self.vz * 10);
 
             // 予測距離の計算
             double dx = targetFuture.getX() - myFutureX;
@@ -86,15 +84,15 @@ public class LiquidCombatEngine {
         }
 
         // 6. 反射(Reflex)の更新
-        float futureImminence = (float) calculateAttackImminence(targetPlayer, (double) predictedDist, bukkitEntity);
+        float futureImminence = (float) calculateAttackImminence(targetEnemy, (double) predictedDist, self);
         float imminenceDelta = Math.max(0.0f, futureImminence - attackImminence);
         brain.reflex.update(futureImminence + (imminenceDelta * 2.0f), 1.0f);
 
         // 7. 脳内状態の更新 (CollectiveKnowledgeの量子化アクセス)
         float globalFear = 0.0f;
-        if (targetPlayer != null) {
+        if (targetEnemy != null) {
             // 直接取得メソッドがあればそれを使用、なければ既存マップから
-            CollectiveKnowledge.PlayerTacticalProfile profile = CollectiveKnowledge.playerProfiles.get(targetPlayer.getUniqueId());
+            CollectiveKnowledge.PlayerTacticalProfile profile = CollectiveKnowledge.playerProfiles.get(targetEnemy.id);
             if (profile != null) {
                 globalFear = (float) profile.dangerLevel;
             }
@@ -166,32 +164,32 @@ public class LiquidCombatEngine {
         return d;
     }
 
-    private double calculateAttackImminence(Player player, double dist, Mob entity) {
-        if (player == null) return 0.0;
+    private double calculateAttackImminence(BanditContext.EnemyInfo enemy, double dist, BanditContext.SelfState self) {
+        if (enemy == null) return 0.0;
         double score = 0.0;
 
         // 武器リーチ判定 (槍などは6m)
         double weaponReach = 3.5;
-        String mainHand = player.getInventory().getItemInMainHand().getType().name().toLowerCase();
+        String mainHand = enemy.holding.toLowerCase();
         if (mainHand.contains("spear") || mainHand.contains("needle") || mainHand.contains("trident")) weaponReach = 6.0;
         score += Math.max(0, 1.0 - (dist / weaponReach)) * 0.4;
 
         // 接近速度
-        Vector relativeVelocity = player.getVelocity().subtract(entity.getVelocity());
-        Vector toEntity = entity.getLocation().toVector().subtract(player.getLocation().toVector()).normalize();
+        Vector relativeVelocity = new Vector(enemy.vx - self.vx, enemy.vy - self.vy, enemy.vz - self.vz);
+        Vector toEntity = new Vector(self.x - enemy.x, self.y - enemy.y, self.z - enemy.z).normalize();
         if (relativeVelocity.dot(toEntity) > 0.2) score += 0.3;
 
         // エイムチェック
-        if (player.getLocation().getDirection().dot(toEntity) > 0.98) score += 0.3;
+        if (new Vector(enemy.lookX, enemy.lookY, enemy.lookZ).dot(toEntity) > 0.98) score += 0.3;
 
         return Math.max(0.0, Math.min(1.0, score));
     }
 
-    private Vector predictFutureLocationImproved(Player player, double seconds) {
-        Vector currentLoc = player.getLocation().toVector();
-        Vector currentVelocity = player.getVelocity();
-        Vector acceleration = currentVelocity.clone().subtract(lastPlayerVelocity);
-        lastPlayerVelocity = currentVelocity.clone();
+    private Vector predictFutureLocationImproved(LiquidBrain brain, BanditContext.EnemyInfo enemy, double seconds) {
+        Vector currentLoc = new Vector(enemy.x, enemy.y, enemy.z);
+        Vector currentVelocity = new Vector(enemy.vx, enemy.vy, enemy.vz);
+        Vector acceleration = currentVelocity.clone().subtract(brain.lastObservedVelocity);
+        brain.lastObservedVelocity = currentVelocity.clone();
 
         double stability = 1.0 / (1.0 + acceleration.lengthSquared() * 5.0);
         stability = Math.max(0.2, stability);
@@ -204,9 +202,17 @@ public class LiquidCombatEngine {
         return currentLoc.add(predictedMovement);
     }
 
-    private BanditDecision thinkV2Optimized(BanditContext context, LiquidBrain brain, Mob bukkitEntity) {
+    private static double distance(BanditContext.SelfState self, BanditContext.EnemyInfo enemy) {
+        double dx = enemy.x - self.x;
+        double dy = enemy.y - self.y;
+        double dz = enemy.z - self.z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private BanditDecision thinkV2Optimized(BanditContext context, LiquidBrain brain) {
         // 1. 基底となるV1ロジックの呼び出し (量子化版)
-        BanditDecision d = thinkV1Optimized(context, brain, bukkitEntity);
+        BanditDecision d = thinkV1Optimized(context, brain);
+        BanditContext.SelfState self = context.self;
         d.engine_version = "v3.1-Elastic-DSR";
 
         // --- [新理論実装] 脳の構造的再編 (DSR/AM-QL) ---
@@ -222,7 +228,7 @@ public class LiquidCombatEngine {
         if (enemies.isEmpty()) return d;
 
         // --- 1. 多角的ターゲッティング (プリミティブ・ループによる最適化) ---
-        Entity currentTarget = bukkitEntity.getTarget();
+        UUID currentTargetId = self.targetId;
         BanditContext.EnemyInfo bestTargetInfo = null;
         float maxScore = -999.0f;
 
@@ -231,12 +237,10 @@ public class LiquidCombatEngine {
             float score = 0.0f;
 
             score += (20.0f - (float) enemy.dist) * 1.0f; // 距離
-            if (enemy.playerInstance instanceof Player p) {
-                float hpRatio = (float) (p.getHealth() / p.getMaxHealth());
-                score += (1.0f - hpRatio) * 15.0f; // 低HP優先
-            }
+            float hpRatio = (float) enemy.health_ratio;
+            score += (1.0f - hpRatio) * 15.0f; // 低HP優先
             if (enemy.in_sight) score += 5.0f; // 視界
-            if (currentTarget != null && enemy.playerInstance.getUniqueId().equals(currentTarget.getUniqueId())) {
+            if (currentTargetId != null && enemy.id.equals(currentTargetId)) {
                 score += 8.0f; // ターゲット維持バイアス
             }
 
@@ -248,10 +252,9 @@ public class LiquidCombatEngine {
 
         // ターゲットの切り替え判定
         if (bestTargetInfo != null) {
-            Player bestPlayer = (Player) bestTargetInfo.playerInstance;
-            if (currentTarget == null || !bestPlayer.getUniqueId().equals(currentTarget.getUniqueId())) {
-                bukkitEntity.setTarget(bestPlayer);
-                d.reasoning += " | TGT_SWITCH:" + bestPlayer.getName();
+            if (currentTargetId == null || !bestTargetInfo.id.equals(currentTargetId)) {
+                d.target_id = bestTargetInfo.id;
+                d.reasoning += " | TGT_SWITCH:" + bestTargetInfo.name;
                 if (maxScore > 25.0f && brain.lastStateIdx != -1) {
                     // 新仕様: 学習更新にも疲労度（この場合は0）を考慮
                     brain.qTable.update(brain.lastStateIdx, 0, 0.1f, brain.lastStateIdx, 0.0f);
@@ -259,26 +262,27 @@ public class LiquidCombatEngine {
             }
         }
 
-        Player target = (Player) bukkitEntity.getTarget();
+        // 切り替えた場合は切り替え先、そうでなければ現在のターゲットを相手にする
+        BanditContext.EnemyInfo target = (d.target_id != null) ? bestTargetInfo : self.target;
         if (target == null) return d;
 
         // 集合知プロファイル
-        float globalFear = (float) CollectiveKnowledge.getDangerLevel(target.getUniqueId());
-        String globalWeakness = CollectiveKnowledge.getGlobalWeakness(target.getUniqueId());
+        float globalFear = (float) CollectiveKnowledge.getDangerLevel(target.id);
+        String globalWeakness = CollectiveKnowledge.getGlobalWeakness(target.id);
 
-        float enemyDist = (float) bukkitEntity.getLocation().distance(target.getLocation());
-        LiquidBrain.AttackPattern pattern = brain.enemyPatterns.get(target.getUniqueId());
+        float enemyDist = (float) distance(self, target);
+        LiquidBrain.AttackPattern pattern = brain.enemyPatterns.get(target.id);
 
         // --- 2. 敵のパターンマッチング & 自己同期 ---
         float patternMatchScore = 0.0f;
         if (pattern != null && pattern.sampleCount > 2) {
-            long ticksSinceLast = bukkitEntity.getTicksLived() - pattern.lastAttackTick;
+            long ticksSinceLast = self.ticksLived - pattern.lastAttackTick;
             float timingScore = Math.max(0.0f, 1.0f - Math.abs(ticksSinceLast - (float) pattern.averageInterval) / 20.0f);
             float distScore = Math.max(0.0f, 1.0f - Math.abs(enemyDist - (float) pattern.preferredDist) / 2.0f);
             patternMatchScore = (timingScore * 0.5f) + (distScore * 0.5f);
         }
 
-        boolean isRecovering = (brain.selfPattern.averageInterval > 0 && (bukkitEntity.getTicksLived() - brain.selfPattern.lastAttackTick) < 15);
+        boolean isRecovering = (brain.selfPattern.averageInterval > 0 && (self.ticksLived - brain.selfPattern.lastAttackTick) < 15);
 
         // --- 3. Elastic Action Selection & 量子化状態パッキング ---
         float hpPct = (float) context.entity.hp_pct / 100.0f;
@@ -296,7 +300,7 @@ public class LiquidCombatEngine {
                     : ThreadLocalRandom.current().nextInt(ACTIONS.length);
 
             // 未来期待値計算
-            double expectation = evaluateTimeline(candidateIdx, brain, target, bukkitEntity, globalWeakness);
+            double expectation = evaluateTimeline(candidateIdx, brain, target, self, globalWeakness);
 
             // [Elastic] 活動電位疲労による期待値の動的減衰
             float fatigue = brain.fatigueMap[candidateIdx];
@@ -364,15 +368,14 @@ public class LiquidCombatEngine {
 
         brain.lastStateIdx = stateIdx;
         brain.lastActionIdx = bestAIdx;
-        applyMobilityRewards(bukkitEntity, brain, d, (double) enemyDist);
+        applyMobilityRewards(self, target, brain, d, (double) enemyDist);
 
         return d;
     }
 
-    private void applyMobilityRewards(Mob bukkitEntity, LiquidBrain brain, BanditDecision d, double currentDist) {
+    private void applyMobilityRewards(BanditContext.SelfState self, BanditContext.EnemyInfo target, LiquidBrain brain,
+                                      BanditDecision d, double currentDist) {
         if (brain.lastStateIdx < 0 || brain.lastActionIdx < 0) return;
-
-        Player target = (Player) bukkitEntity.getTarget();
         if (target == null) return;
 
         float totalProcessReward = 0.0f;
@@ -386,8 +389,8 @@ public class LiquidCombatEngine {
         float correlationFactor = (brain.velocityTrust * 0.5f + brain.composure * 0.5f) * (1.0f - currentFatigue);
 
         // 1. 背後・側面奪取 (Flanking) - 信頼度が高いほど「読み勝ち」として高評価
-        Vector toSelf = bukkitEntity.getLocation().toVector().subtract(target.getLocation().toVector()).normalize();
-        Vector targetFacing = target.getLocation().getDirection();
+        Vector toSelf = new Vector(self.x - target.x, self.y - target.y, self.z - target.z).normalize();
+        Vector targetFacing = new Vector(target.lookX, target.lookY, target.lookZ);
         float dot = (float) toSelf.dot(targetFacing);
 
         if (dot < -0.3f) {
@@ -402,7 +405,7 @@ public class LiquidCombatEngine {
         }
 
         // 2. リーチ・スペーシング (Spacing) - 冷静な距離維持を評価
-        String weakness = CollectiveKnowledge.getGlobalWeakness(target.getUniqueId());
+        String weakness = CollectiveKnowledge.getGlobalWeakness(target.id);
         if (weakness.equals("CLOSE_QUARTERS")) {
             if (currentDist < 2.5) {
                 // インファイト維持は冷静さ(Composure)をより重視
@@ -435,13 +438,14 @@ public class LiquidCombatEngine {
         }
     }
 
-    private double evaluateTimeline(int actionIdx, LiquidBrain brain, Player target, Mob self, String globalWeakness) {
+    private double evaluateTimeline(int actionIdx, LiquidBrain brain, BanditContext.EnemyInfo target,
+                                    BanditContext.SelfState self, String globalWeakness) {
         float qValue = brain.qTable.getQ(brain.lastStateIdx, actionIdx,brain.fatigueMap[brain.lastActionIdx]);
         float score = qValue;
 
         // 現在の座標と時間
-        Vector currentTargetLoc = target.getLocation().toVector();
-        long currentTick = self.getTicksLived();
+        Vector currentTargetLoc = new Vector(target.x, target.y, target.z);
+        long currentTick = self.ticksLived;
 
         // =========================================================
         // [追加] A. 予測精度の学習 (Reality Check)
@@ -468,20 +472,19 @@ public class LiquidCombatEngine {
         // =========================================================
         // [改良] B. 信頼度で補正された未来位置予測
         // =========================================================
-        Vector enemyVel = target.getVelocity();
 
         // velocityTrust を掛けることで、不規則な動きをする敵には「控えめな予測」をするようになる
         // Trustが高い(1.0) -> そのまま20ブロック先を予測 (直進読み)
         // Trustが低い(0.0) -> ほぼ現在位置を予測 (フェイント読み)
         double predictionScale = 20.0 * brain.velocityTrust;
 
-        double predX = target.getLocation().getX() + (enemyVel.getX() * predictionScale);
-        double predZ = target.getLocation().getZ() + (enemyVel.getZ() * predictionScale);
-        double predDist = Math.sqrt(Math.pow(predX - self.getLocation().getX(), 2) + Math.pow(predZ - self.getLocation().getZ(), 2));
+        double predX = target.x + (target.vx * predictionScale);
+        double predZ = target.z + (target.vz * predictionScale);
+        double predDist = Math.sqrt(Math.pow(predX - self.x, 2) + Math.pow(predZ - self.z, 2));
 
         // 次回の答え合わせのために、今の予測を保存
         if (brain.lastPredictedLocation == null) {
-            brain.lastPredictedLocation = new Vector(predX, target.getLocation().getY(), predZ);
+            brain.lastPredictedLocation = new Vector(predX, target.y, predZ);
             brain.lastPredictionTick = currentTick;
         }
 
@@ -490,17 +493,17 @@ public class LiquidCombatEngine {
         // =========================================================
 
         // 1. 【自己同期】
-        long ticksSinceLastSelf = self.getTicksLived() - brain.selfPattern.lastAttackTick;
+        long ticksSinceLastSelf = self.ticksLived - brain.selfPattern.lastAttackTick;
         float selfRhythmScore = 0.0f;
         if (brain.selfPattern.averageInterval > 0) {
             selfRhythmScore = Math.max(0.0f, 1.0f - Math.abs(ticksSinceLastSelf - (float)brain.selfPattern.averageInterval) / 20.0f);
         }
 
         // 2. 【敵の未来行動予測】
-        LiquidBrain.AttackPattern pattern = brain.enemyPatterns.get(target.getUniqueId());
+        LiquidBrain.AttackPattern pattern = brain.enemyPatterns.get(target.id);
         boolean enemyLikelyToAttack = false;
         if (pattern != null) {
-            long ticksSinceEnemyLast = self.getTicksLived() - pattern.lastAttackTick;
+            long ticksSinceEnemyLast = self.ticksLived - pattern.lastAttackTick;
             enemyLikelyToAttack = Math.abs(ticksSinceEnemyLast - (long)pattern.averageInterval) < 10;
         }
 
@@ -543,22 +546,26 @@ public class LiquidCombatEngine {
         return (double) score;
     }
 
-    private BanditDecision thinkV3Optimized(BanditContext context, LiquidBrain brain, Mob bukkitEntity) {
+    private BanditDecision thinkV3Optimized(BanditContext context, LiquidBrain brain) {
+        BanditContext.SelfState self = context.self;
         BanditDecision d = new BanditDecision();
         d.engine_version = "v3.1-System-Breaker-Quantized";
+        d.decision = new BanditDecision.DecisionCore();
+        d.movement = new BanditDecision.MovementPlan();
+        d.communication = new BanditDecision.Communication();
+        d.reasoning = "";
 
         List<BanditContext.EnemyInfo> enemies = context.environment.nearby_enemies;
         if (enemies.isEmpty()) return d;
 
         // 1. 多角的ターゲッティング (プリミティブ・ループによる最適化済み)
-        BanditContext.EnemyInfo bestTargetInfo = selectBestTargetV3(enemies, bukkitEntity.getTarget());
-        if (bestTargetInfo == null) return d;
-        Player target = (Player) bestTargetInfo.playerInstance;
-        bukkitEntity.setTarget(target);
+        BanditContext.EnemyInfo target = selectBestTargetV3(enemies, self.targetId);
+        if (target == null) return d;
+        d.target_id = target.id;
 
         // 2. 基本パラメータの量子化
         float hpStress = 1.0f - ((float) context.entity.hp_pct / 100.0f);
-        float enemyDist = (float) bestTargetInfo.dist;
+        float enemyDist = (float) target.dist;
         brain.updateTacticalAdvantage();
         float advantage = (float) brain.tacticalMemory.combatAdvantage;
 
@@ -567,15 +574,15 @@ public class LiquidCombatEngine {
 
         // 3. FOV計算の最適化 (acosを避け、ドット積を直接使用)
         // ターゲットの正面方向と自分へのベクトルの重なり具合
-        Vector targetLook = target.getLocation().getDirection().normalize();
-        Vector toSelf = bukkitEntity.getLocation().toVector().subtract(target.getLocation().toVector()).normalize();
+        Vector targetLook = new Vector(target.lookX, target.lookY, target.lookZ).normalize();
+        Vector toSelf = new Vector(self.x - target.x, self.y - target.y, self.z - target.z).normalize();
         float dotProduct = (float) targetLook.dot(toSelf);
         // dotProduct: 1.0=正面, 0.0=真横(90度), -1.0=真後ろ
 
-        String globalWeakness = CollectiveKnowledge.getGlobalWeakness(target.getUniqueId());
-        float globalFear = (float) CollectiveKnowledge.getDangerLevel(target.getUniqueId());
+        String globalWeakness = CollectiveKnowledge.getGlobalWeakness(target.id);
+        float globalFear = (float) CollectiveKnowledge.getDangerLevel(target.id);
 
-        boolean isRec = (bukkitEntity.getTicksLived() - brain.selfPattern.lastAttackTick) < 15;
+        boolean isRec = (self.ticksLived - brain.selfPattern.lastAttackTick) < 15;
 
         // 4. 量子化状態パッキング (512状態へ圧縮)
         int stateIdx = brain.qTable.packState(advantage, enemyDist, 1.0f - hpStress, isRec, enemies.size());
@@ -645,16 +652,12 @@ public class LiquidCombatEngine {
      * v3専用：多角的ターゲット選定ロジック (量子化最適化版)
      * 距離、HP、視覚、粘着バイアスを総合的に評価して最適な敵を抽出する
      */
-    private BanditContext.EnemyInfo selectBestTargetV3(List<BanditContext.EnemyInfo> enemies, Entity currentTarget) {
+    private BanditContext.EnemyInfo selectBestTargetV3(List<BanditContext.EnemyInfo> enemies, UUID currentId) {
         BanditContext.EnemyInfo bestTarget = null;
         float maxScore = -Float.MAX_VALUE;
 
-        // UUIDの取得回数を減らすため、現在のターゲットIDをキャッシュ
-        UUID currentId = (currentTarget != null) ? currentTarget.getUniqueId() : null;
-
         for (int i = 0; i < enemies.size(); i++) {
             BanditContext.EnemyInfo enemy = enemies.get(i);
-            if (!(enemy.playerInstance instanceof Player p)) continue;
 
             float score = 0.0f;
             float dist = (float) enemy.dist;
@@ -663,15 +666,14 @@ public class LiquidCombatEngine {
             score += (20.0f - dist) * 1.5f;
 
             // B. 処刑バイアス (HPが低い敵を執拗に追う)
-            // p.getHealth() / p.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue() を推奨
-            float hpRatio = (float) (p.getHealth() / p.getMaxHealth());
+            float hpRatio = (float) enemy.health_ratio;
             score += (1.0f - hpRatio) * 15.0f;
 
             // C. 視覚情報 (見えている敵を優先)
             if (enemy.in_sight) score += 5.0f;
 
             // D. 粘着バイアス (ターゲットが頻繁に変わる「迷い」を防止)
-            if (currentId != null && p.getUniqueId().equals(currentId)) {
+            if (currentId != null && enemy.id.equals(currentId)) {
                 score += 8.0f;
             }
 
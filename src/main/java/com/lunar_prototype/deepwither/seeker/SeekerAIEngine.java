@@ -1,85 +1,187 @@
 package com.lunar_prototype.deepwither.seeker;
 
+import com.lunar_prototype.deepwither.Deepwither;
+import io.lumine.mythic.bukkit.MythicBukkit;
 import io.lumine.mythic.core.mobs.ActiveMob;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Mob;
-import java.util.HashMap;
+import org.bukkit.entity.Player;
+
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
+/**
+ * Seeker AI の思考パイプライン。
+ * <p>
+ * 1. メインスレッドで周囲を走査し {@link BanditContext} に写す（Bukkit API を呼ぶのはここだけ）<br>
+ * 2. 推論スレッドで学習と推論を行う（脳の数値演算のみ）<br>
+ * 3. 次のtick以降、メインスレッドで {@link #applyCompletedDecisions()} が結果を {@link Actuator} に渡す
+ */
 public class SeekerAIEngine {
 
     private final SensorProvider sensorProvider;
     private final LiquidCombatEngine liquidEngine;
     private final Actuator actuator;
-    private final Map<UUID, LiquidBrain> brainStorage = new HashMap<>();
+    private final SeekerSpatialIndex spatialIndex = new SeekerSpatialIndex();
+    private final CoverIndex coverIndex = new CoverIndex();
+    private final Map<UUID, LiquidBrain> brainStorage = new ConcurrentHashMap<>();
+    private final SeekerMetrics metrics = new SeekerMetrics();
+
+    private final ExecutorService inferencePool;
+    // 推論中の個体（同じ個体の思考を重ねて積まない）
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    // 推論が終わり、メインスレッドでの適用を待っている判断
+    private final Queue<PendingDecision> completed = new ConcurrentLinkedQueue<>();
+
+    private record PendingDecision(UUID mobId, BanditDecision decision, Location cover) {}
 
     public SeekerAIEngine() {
-        this.sensorProvider = new SensorProvider();
+        this.sensorProvider = new SensorProvider(spatialIndex, coverIndex);
         this.liquidEngine = new LiquidCombatEngine();
-        this.actuator = new Actuator();
+        this.actuator = new Actuator(sensorProvider, spatialIndex);
+
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger threadId = new AtomicInteger();
+        this.inferencePool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Deepwither-Seeker-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
+    /**
+     * メインスレッドから呼ぶ。周囲の状況を写して推論スレッドに渡す
+     */
     public void tick(ActiveMob activeMob) {
         if (activeMob.getEntity() == null || !(activeMob.getEntity().getBukkitEntity() instanceof Mob)) return;
-        Mob bukkitMob = (Mob) activeMob.getEntity().getBukkitEntity();
         UUID uuid = activeMob.getUniqueId();
 
-        // 1. 環境感知
+        // 前回の推論がまだ終わっていなければ今回は見送る
+        if (!inFlight.add(uuid)) return;
+
+        // 1. 環境感知 (メインスレッド)
         BanditContext context = sensorProvider.scan(activeMob);
+        if (context == null) {
+            inFlight.remove(uuid);
+            return;
+        }
         Location nearestCover = sensorProvider.findNearestCoverLocation(activeMob);
 
-        // 2. 脳の取得と学習
-        LiquidBrain brain = brainStorage.computeIfAbsent(uuid, k -> new LiquidBrain(uuid));
-        observeAndLearn(activeMob, brain);
-        brain.digestExperience();
-
-        // 3. バージョン選択
-        String version = (activeMob.getLevel() >= 20) ? "v3" : (activeMob.getLevel() >= 10 ? "v2" : "v1");
-
-        // --- 推論時間の計測開始 ---
-        long startTime = System.nanoTime();
-
-        BanditDecision decision = liquidEngine.think(version, context, brain, bukkitMob);
-
-        long endTime = System.nanoTime();
-        double durationMs = (endTime - startTime) / 1_000_000.0; // ナノ秒をミリ秒に変換
-        // -----------------------
-
-        // 4. ログ出力 (推論時間を追加)
-        String uuidShort = uuid.toString().substring(0, 4);
-        // 0.05ms以下なら非常に軽量、1.0msを超え始めると最適化の検討が必要な目安です
-        System.out.println(String.format("[%s-%s][%s] Action: %s | Time: %.3fms | %s",
-                activeMob.getType().getInternalName(),
-                uuidShort,
-                decision.engine_version,
-                decision.decision.action_type,
-                durationMs,
-                decision.reasoning));
-
-        // 5. 行動実行
-        if (!bukkitMob.isDead()) {
-            actuator.execute(activeMob, decision, nearestCover);
-        } else {
-            brainStorage.remove(uuid);
+        LiquidBrain brain = getBrain(uuid);
+        int versionIndex = (activeMob.getLevel() >= 20) ? 2 : (activeMob.getLevel() >= 10 ? 1 : 0);
+        String mobType = activeMob.getType().getInternalName();
+
+        try {
+            inferencePool.execute(() -> infer(uuid, mobType, versionIndex, context, brain, nearestCover));
+        } catch (RejectedExecutionException e) {
+            // 停止処理中
+            inFlight.remove(uuid);
+        }
+    }
+
+    /**
+     * 推論スレッドで実行。学習と推論を行い、結果を適用待ちに積む
+     */
+    private void infer(UUID uuid, String mobType, int versionIndex, BanditContext context, LiquidBrain brain, Location cover) {
+        try {
+            String version = SeekerMetrics.VERSIONS[versionIndex];
+            BanditDecision decision;
+            long durationNanos;
+
+            synchronized (brain) {
+                // 2. 学習
+                observeAndLearn(context, brain);
+                brain.digestExperience();
+
+                // 3. 推論時間の計測
+                long startTime = System.nanoTime();
+                decision = liquidEngine.think(version, context, brain);
+                durationNanos = System.nanoTime() - startTime;
+            }
+
+            // 4. 計測値の記録 (文字列の組み立てはトレース対象になった時だけ行う)
+            String actionType = decision.decision != null ? decision.decision.action_type : null;
+            if (metrics.record(versionIndex, durationNanos, actionType, uuid)) {
+                metrics.trace(String.format("%tT [%s-%s][%s] Action: %s | Time: %.3fms | %s",
+                        System.currentTimeMillis(),
+                        mobType,
+                        uuid.toString().substring(0, 8),
+                        decision.engine_version,
+                        actionType,
+                        durationNanos / 1_000_000.0,
+                        decision.reasoning));
+            }
+
+            completed.add(new PendingDecision(uuid, decision, cover));
+        } catch (Throwable t) {
+            inFlight.remove(uuid);
+            Deepwither.getInstance().getLogger().log(Level.WARNING, "Seeker AI の推論に失敗しました: " + uuid, t);
+        }
+    }
+
+    /**
+     * メインスレッドから毎tick呼ぶ。推論が終わった判断を実行する
+     */
+    public void applyCompletedDecisions() {
+        PendingDecision pending;
+        while ((pending = completed.poll()) != null) {
+            UUID uuid = pending.mobId();
+            inFlight.remove(uuid);
+
+            Optional<ActiveMob> activeMob = MythicBukkit.inst().getMobManager().getActiveMob(uuid);
+            if (activeMob.isEmpty() || activeMob.get().getEntity() == null
+                    || !(activeMob.get().getEntity().getBukkitEntity() instanceof Mob bukkitMob)) {
+                continue;
+            }
+
+            // 5. 行動実行
+            if (bukkitMob.isDead()) {
+                brainStorage.remove(uuid);
+                continue;
+            }
+            try {
+                BanditDecision decision = pending.decision();
+                if (decision.target_id != null) {
+                    Player target = Bukkit.getPlayer(decision.target_id);
+                    if (target != null && target.isValid() && bukkitMob.getTarget() != target) {
+                        bukkitMob.setTarget(target);
+                    }
+                }
+                actuator.execute(activeMob.get(), decision, pending.cover());
+            } catch (Exception e) {
+                Deepwither.getInstance().getLogger().log(Level.WARNING, "Seeker AI の行動実行に失敗しました: " + uuid, e);
+            }
         }
     }
 
     /**
      * 仲間からの模倣学習 (量子化最適化版)
      * Streamを排除し、インデックスベースのQ-Table同期を行う
+     * 呼び出し側で myBrain を同期していること
      */
-    private void observeAndLearn(ActiveMob self, LiquidBrain myBrain) {
-        Mob bukkitSelf = (Mob) self.getEntity().getBukkitEntity();
+    private void observeAndLearn(BanditContext context, LiquidBrain myBrain) {
+        // 1. 周囲の仲間 (12m範囲、走査時に写したもの)
+        List<UUID> nearby = context.nearby_peers;
+        if (nearby == null) return;
 
-        // 1. 周囲のエンティティを取得 (12m範囲)
-        List<Entity> nearby = bukkitSelf.getNearbyEntities(12, 12, 12);
+        // 集合知に登録された弱点があるか確認
+        UUID targetId = context.self != null ? context.self.targetId : null;
 
         for (int i = 0; i < nearby.size(); i++) {
-            Entity e = nearby.get(i);
-            UUID peerId = e.getUniqueId();
+            UUID peerId = nearby.get(i);
 
             // brainStorage から仲間の脳を取得 (Map.get は依然必要だが、中身の演算を軽量化)
             LiquidBrain peerBrain = brainStorage.get(peerId);
@@ -103,10 +205,7 @@ public class SeekerAIEngine {
             }
 
             // --- 2. 集合知の再確認 ---
-            Entity myTarget = bukkitSelf.getTarget();
-            if (myTarget != null) {
-                UUID targetId = myTarget.getUniqueId();
-                // 集合知に登録された弱点があるか確認
+            if (targetId != null) {
                 String peerWeakness = CollectiveKnowledge.getGlobalWeakness(targetId);
                 if (!peerWeakness.equals("NONE")) {
                     // 攻略法を知ることでフラストレーション（迷い）を軽減
@@ -115,6 +214,7 @@ public class SeekerAIEngine {
             }
 
             // --- 3. 感情・リキッドパラメータの同期 ---
+            // 仲間の脳は同期せずに読む（多少古い値でも模倣には十分）
             // 冷静さ (Composure) の伝播
             float composureDiff = peerBrain.composure - myBrain.composure;
             myBrain.composure += composureDiff * 0.1f;
@@ -128,6 +228,10 @@ public class SeekerAIEngine {
 
     public void clearBrain(UUID uuid) { brainStorage.remove(uuid); }
 
+    public SeekerMetrics getMetrics() {
+        return metrics;
+    }
+
     public LiquidBrain getBrain(UUID uuid) {
         // 脳がまだない場合は作成して返す（これによってリスナー経由でも脳が初期化される）
         return brainStorage.computeIfAbsent(uuid, k -> new LiquidBrain(uuid));
@@ -137,7 +241,31 @@ public class SeekerAIEngine {
         return brainStorage.containsKey(uuid);
     }
 
+    public SensorProvider getSensorProvider() {
+        return sensorProvider;
+    }
+
+    public SeekerSpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    public CoverIndex getCoverIndex() {
+        return coverIndex;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
     public void shutdown() {
+        inferencePool.shutdown();
+        try {
+            inferencePool.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        completed.clear();
+        inFlight.clear();
         brainStorage.clear();
     }
-}
\ No newline at end of file
+}
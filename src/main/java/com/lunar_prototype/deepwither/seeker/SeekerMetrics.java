@@ -0,0 +1,244 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seeker AI の計測値。
+ * <p>
+ * 推論時間はエンジンバージョン(v1/v2/v3)ごとの固定バケットのヒストグラムに、行動は action_type ごとのカウンタに積む。
+ * 記録処理は文字列を組み立てないので、全 bandit の全思考で呼んでも負荷にならない。
+ * 個々の判断内容はトレースを有効にした時だけ、サンプリングされた分を整形してリングバッファに残す。
+ */
+public class SeekerMetrics {
+
+    public static final String[] VERSIONS = {"v1", "v2", "v3"};
+    // ヒストグラムの上限値(µs)。最後のバケットはそれ以上すべて
+    public static final long[] BUCKET_BOUNDS_MICROS = {10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000};
+    private static final int TRACE_CAPACITY = 256;
+
+    public enum TraceMode { OFF, SAMPLED, MOB }
+
+    private final Histogram[] histograms = new Histogram[VERSIONS.length];
+    private final Map<String, LongAdder> actionCounts = new ConcurrentHashMap<>();
+
+    // --- トレース設定 ---
+    private volatile TraceMode traceMode = TraceMode.OFF;
+    private volatile int sampleEvery = 100;
+    private volatile UUID traceMob;
+    private final AtomicLong decisionSeq = new AtomicLong();
+
+    // 直近のトレース（古いものから上書き）
+    private final String[] traceBuffer = new String[TRACE_CAPACITY];
+    private int traceHead = 0;
+    private int traceSize = 0;
+
+    public SeekerMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * 推論時間のバケット別集計
+     */
+    public static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MICROS.length + 1);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            long micros = nanos / 1_000L;
+            int bucket = BUCKET_BOUNDS_MICROS.length;
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                if (micros < BUCKET_BOUNDS_MICROS[i]) {
+                    bucket = i;
+                    break;
+                }
+            }
+            counts.incrementAndGet(bucket);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount(int bucket) {
+            return counts.get(bucket);
+        }
+
+        public long getTotalCount() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) total += counts.get(i);
+            return total;
+        }
+
+        public double getAverageNanos() {
+            long total = getTotalCount();
+            return total > 0 ? (double) totalNanos.sum() / total : 0.0;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * バケットの境界から見た p パーセンタイルの上限値(µs)。最後のバケットに入る場合は -1
+         */
+        public long getPercentileUpperMicros(double p) {
+            long total = getTotalCount();
+            if (total == 0) return 0;
+            long threshold = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                seen += counts.get(i);
+                if (seen >= threshold) return BUCKET_BOUNDS_MICROS[i];
+            }
+            return -1;
+        }
+
+        private void reset() {
+            for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+    }
+
+    // ----------------------------------------------------
+    // --- 記録 ---
+    // ----------------------------------------------------
+
+    /**
+     * 1回分の推論を記録する。
+     * @return この判断をトレースに残すべきなら true（呼び出し側で {@link #trace(String)} を呼ぶ）
+     */
+    public boolean record(int versionIndex, long inferenceNanos, String actionType, UUID mobId) {
+        histograms[versionIndex].record(inferenceNanos);
+        if (actionType != null) {
+            actionCounts.computeIfAbsent(actionType, k -> new LongAdder()).increment();
+        }
+
+        return switch (traceMode) {
+            case OFF -> false;
+            case SAMPLED -> decisionSeq.incrementAndGet() % sampleEvery == 0;
+            case MOB -> mobId.equals(traceMob);
+        };
+    }
+
+    public synchronized void trace(String line) {
+        traceBuffer[traceHead] = line;
+        traceHead = (traceHead + 1) % TRACE_CAPACITY;
+        if (traceSize < TRACE_CAPACITY) traceSize++;
+    }
+
+    // ----------------------------------------------------
+    // --- トレース設定 ---
+    // ----------------------------------------------------
+
+    public void traceOff() {
+        traceMode = TraceMode.OFF;
+        traceMob = null;
+    }
+
+    public void traceSampled(int every) {
+        sampleEvery = Math.max(1, every);
+        traceMob = null;
+        traceMode = TraceMode.SAMPLED;
+    }
+
+    public void traceMob(UUID mobId) {
+        traceMob = mobId;
+        traceMode = TraceMode.MOB;
+    }
+
+    public TraceMode getTraceMode() {
+        return traceMode;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public UUID getTraceMob() {
+        return traceMob;
+    }
+
+    /**
+     * 直近のトレースを古い順に最大 limit 件返す
+     */
+    public synchronized List<String> getRecentTraces(int limit) {
+        int count = Math.min(limit, traceSize);
+        List<String> result = new ArrayList<>(count);
+        int start = (traceHead - count + TRACE_CAPACITY) % TRACE_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            result.add(traceBuffer[(start + i) % TRACE_CAPACITY]);
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------
+    // --- 参照 / 出力 ---
+    // ----------------------------------------------------
+
+    public Histogram getHistogram(int versionIndex) {
+        return histograms[versionIndex];
+    }
+
+    public Map<String, Long> getActionCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        actionCounts.forEach((action, count) -> snapshot.put(action, count.sum()));
+        return snapshot;
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms) histogram.reset();
+        actionCounts.clear();
+        synchronized (this) {
+            traceHead = 0;
+            traceSize = 0;
+        }
+    }
+
+    /**
+     * 集計値と保持中のトレースをファイルに書き出す。
+     * @return 書き出したファイル
+     */
+    public File dump(File folder) throws IOException {
+        if (!folder.exists()) folder.mkdirs();
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(folder, "seeker_metrics_" + timestamp + ".log");
+
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("# Seeker AI metrics " + timestamp);
+            for (int v = 0; v < VERSIONS.length; v++) {
+                Histogram h = histograms[v];
+                out.printf("[%s] count=%d avg=%.1fus max=%.1fus%n", VERSIONS[v], h.getTotalCount(),
+                        h.getAverageNanos() / 1_000.0, h.getMaxNanos() / 1_000.0);
+                for (int i = 0; i <= BUCKET_BOUNDS_MICROS.length; i++) {
+                    String label = i < BUCKET_BOUNDS_MICROS.length
+                            ? "<" + BUCKET_BOUNDS_MICROS[i] + "us"
+                            : ">=" + BUCKET_BOUNDS_MICROS[BUCKET_BOUNDS_MICROS.length - 1] + "us";
+                    out.printf("  %-10s %d%n", label, h.getCount(i));
+                }
+            }
+            out.println("# actions");
+            getActionCounts().forEach((action, count) -> out.printf("  %-20s %d%n", action, count));
+            out.println("# traces (oldest first)");
+            for (String line : getRecentTraces(TRACE_CAPACITY)) {
+                out.println(line);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,262 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.bukkit.events.MythicMobDeathEvent;
+import io.lumine.mythic.bukkit.events.MythicMobDespawnEvent;
+import io.lumine.mythic.bukkit.events.MythicMobSpawnEvent;
+import io.lumine.mythic.core.mobs.ActiveMob;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Seeker AI (bandit) の思考スケジューラ。
+ * <p>
+ * bandit はスポーン時に20個のバケットのうち最も空いているものへ登録され、1tickにつき1バケットだけが思考する。
+ * 各個体の思考間隔は従来通り20tickのまま、1tickあたりの処理は bandit 全体の1/20 で済む。
+ * 1tickの処理時間が予算を超えた場合、残りの個体は次のtickへ繰り越す。
+ */
+public class SeekerScheduler implements Listener {
+
+    public static final int BUCKET_COUNT = 20;
+    // スポーンイベントを経由しない個体（チャンク読み込みで復元されたもの等）を拾うための再走査間隔
+    private static final long RECONCILE_INTERVAL_TICKS = 200L;
+
+    private final JavaPlugin plugin;
+    private final SeekerAIEngine aiEngine;
+    private final long budgetNanos;
+
+    // メインスレッドからのみ触るため同期は不要
+    @SuppressWarnings("unchecked")
+    private final Set<UUID>[] buckets = new Set[BUCKET_COUNT];
+    private final Map<UUID, Integer> bucketIndex = new HashMap<>();
+    // 予算切れで次のtickへ繰り越した個体（重複して積まないよう Set で持つ）
+    private final LinkedHashSet<UUID> deferred = new LinkedHashSet<>();
+    // 思考中のイベントで登録が変わっても壊れないよう、処理対象はここへ写してから回す
+    private final ArrayList<UUID> working = new ArrayList<>();
+
+    // --- 計測 ---
+    private final long[] bucketLastNanos = new long[BUCKET_COUNT];
+    private final long[] bucketMaxNanos = new long[BUCKET_COUNT];
+    private final long[] bucketTotalNanos = new long[BUCKET_COUNT];
+    private final long[] bucketRuns = new long[BUCKET_COUNT];
+    private long totalThinks = 0;
+    private long totalDeferred = 0;
+    private long overBudgetTicks = 0;
+
+    private int cursor = 0;
+    private BukkitTask tickTask;
+    private BukkitTask reconcileTask;
+
+    public SeekerScheduler(JavaPlugin plugin, SeekerAIEngine aiEngine, double budgetMillis) {
+        this.plugin = plugin;
+        this.aiEngine = aiEngine;
+        this.budgetNanos = (long) (budgetMillis * 1_000_000L);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LinkedHashSet<>();
+        }
+        // 周囲検索のインデックスには登録済みの bandit を載せる
+        aiEngine.getSpatialIndex().setBanditSource(bucketIndex::keySet);
+    }
+
+    public void start() {
+        reconcile();
+        tickTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        reconcileTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::reconcile,
+                RECONCILE_INTERVAL_TICKS, RECONCILE_INTERVAL_TICKS);
+    }
+
+    public void stop() {
+        if (tickTask != null) tickTask.cancel();
+        if (reconcileTask != null) reconcileTask.cancel();
+        for (Set<UUID> bucket : buckets) bucket.clear();
+        bucketIndex.clear();
+        deferred.clear();
+    }
+
+    public static boolean isSeekerMob(ActiveMob am) {
+        return am.getMobType().contains("bandit");
+    }
+
+    // ----------------------------------------------------
+    // --- 登録 / 解除 ---
+    // ----------------------------------------------------
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpawn(MythicMobSpawnEvent e) {
+        if (e.getMobType().getInternalName().contains("bandit")) {
+            register(e.getEntity().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(MythicMobDeathEvent e) {
+        unregister(e.getEntity().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDespawn(MythicMobDespawnEvent e) {
+        unregister(e.getMob().getUniqueId());
+    }
+
+    public void register(UUID uuid) {
+        if (bucketIndex.containsKey(uuid)) return;
+
+        // 最も空いているバケットに入れて負荷を均す
+        int target = 0;
+        for (int i = 1; i < BUCKET_COUNT; i++) {
+            if (buckets[i].size() < buckets[target].size()) target = i;
+        }
+        buckets[target].add(uuid);
+        bucketIndex.put(uuid, target);
+    }
+
+    public void unregister(UUID uuid) {
+        Integer index = bucketIndex.remove(uuid);
+        if (index == null) return;
+        buckets[index].remove(uuid);
+        deferred.remove(uuid);
+        aiEngine.clearBrain(uuid);
+    }
+
+    /**
+     * MythicMobs 側のアクティブMob一覧と登録内容を突き合わせる。
+     * 起動時とプラグインのリロード後、スポーンイベントを通らずに復元された個体の登録に使う。
+     */
+    public void reconcile() {
+        for (ActiveMob am : MythicBukkit.inst().getMobManager().getActiveMobs()) {
+            if (isSeekerMob(am)) {
+                register(am.getUniqueId());
+            }
+        }
+    }
+
+    // ----------------------------------------------------
+    // --- 実行 ---
+    // ----------------------------------------------------
+
+    private void tick() {
+        // 前のtickまでに推論が終わった分の行動を先に実行する
+        aiEngine.applyCompletedDecisions();
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int bucket = cursor;
+        cursor = (cursor + 1) % BUCKET_COUNT;
+
+        boolean overBudget = false;
+        int processed = 0;
+
+        // 1. 前のtickで予算切れになった分を先に処理。今回のバケットと合わせて処理順に並べる
+        working.clear();
+        working.addAll(deferred);
+        for (UUID uuid : buckets[bucket]) {
+            if (!deferred.contains(uuid)) working.add(uuid);
+        }
+        deferred.clear();
+
+        // 2. 予算切れになったら残りを繰り越す（詰まらないよう最低1体は処理する）
+        for (int i = 0; i < working.size(); i++) {
+            UUID uuid = working.get(i);
+            if (overBudget || (processed > 0 && System.nanoTime() >= deadline)) {
+                overBudget = true;
+                if (bucketIndex.containsKey(uuid) && deferred.add(uuid)) {
+                    totalDeferred++;
+                }
+                continue;
+            }
+            think(uuid);
+            processed++;
+        }
+        working.clear();
+
+        long elapsed = System.nanoTime() - start;
+        bucketLastNanos[bucket] = elapsed;
+        bucketTotalNanos[bucket] += elapsed;
+        bucketRuns[bucket]++;
+        if (elapsed > bucketMaxNanos[bucket]) bucketMaxNanos[bucket] = elapsed;
+        if (overBudget) overBudgetTicks++;
+    }
+
+    /**
+     * 周囲を走査して推論スレッドに渡すまで。推論と行動の実行はこの計測に含まれない
+     */
+    private void think(UUID uuid) {
+        // 思考待ちの間に解除された個体は飛ばす
+        if (uuid == null || !bucketIndex.containsKey(uuid)) return;
+
+        Optional<ActiveMob> activeMob = MythicBukkit.inst().getMobManager().getActiveMob(uuid);
+        if (activeMob.isEmpty() || activeMob.get().isDead()) {
+            unregister(uuid);
+            return;
+        }
+        aiEngine.tick(activeMob.get());
+        totalThinks++;
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public int getRegisteredCount() {
+        return bucketIndex.size();
+    }
+
+    public int getDeferredCount() {
+        return deferred.size();
+    }
+
+    public int getBucketSize(int bucket) {
+        return buckets[bucket].size();
+    }
+
+    public long getBucketLastNanos(int bucket) {
+        return bucketLastNanos[bucket];
+    }
+
+    public long getBucketMaxNanos(int bucket) {
+        return bucketMaxNanos[bucket];
+    }
+
+    public double getBucketAverageNanos(int bucket) {
+        return bucketRuns[bucket] > 0 ? (double) bucketTotalNanos[bucket] / bucketRuns[bucket] : 0.0;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public long getTotalThinks() {
+        return totalThinks;
+    }
+
+    public long getTotalDeferred() {
+        return totalDeferred;
+    }
+
+    public long getOverBudgetTicks() {
+        return overBudgetTicks;
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketLastNanos[i] = 0;
+            bucketMaxNanos[i] = 0;
+            bucketTotalNanos[i] = 0;
+            bucketRuns[i] = 0;
+        }
+        totalThinks = 0;
+        totalDeferred = 0;
+        overBudgetTicks = 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.lunar_prototype.deepwither.seeker;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Seeker AI の周囲検索用の空間インデックス。
+ * <p>
+ * オンラインのプレイヤーと登録済みの bandit だけを、ワールドごとにチャンク単位(16x16)のセルへ振り分けて持つ。
+ * tick の最初の検索時に1回だけ作り直し、同じ tick 内の検索はすべてここから返す。
+ * bandit 1体ごとに getNearbyEntities を何度も呼ぶ代わりに、サーバー全体で1tickに1回の走査で済む。
+ * <p>
+ * メインスレッド専用。座標は作り直した時点のもの。
+ */
+public class SeekerSpatialIndex {
+
+    private static final int CELL_SHIFT = 4;
+
+    private record Entry(Entity entity, double x, double y, double z, boolean player) {}
+
+    // ワールドUID -> セル座標 -> エントリ
+    private final Map<UUID, Map<Long, List<Entry>>> cells = new HashMap<>();
+    private Supplier<Collection<UUID>> banditSource = Collections::emptyList;
+    private int builtTick = -1;
+
+    // --- 計測 ---
+    private long rebuilds = 0;
+    private long queries = 0;
+    private int lastEntryCount = 0;
+
+    /**
+     * インデックスに載せる bandit の一覧を返すものを設定する
+     */
+    public void setBanditSource(Supplier<Collection<UUID>> banditSource) {
+        this.banditSource = banditSource;
+    }
+
+    private void ensureFresh() {
+        int tick = Bukkit.getCurrentTick();
+        if (tick != builtTick) {
+            rebuild();
+            builtTick = tick;
+        }
+    }
+
+    private void rebuild() {
+        cells.clear();
+        int count = 0;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            add(player, true);
+            count++;
+        }
+        for (UUID uuid : banditSource.get()) {
+            Entity entity = Bukkit.getEntity(uuid);
+            if (entity == null || !entity.isValid()) continue;
+            add(entity, false);
+            count++;
+        }
+        lastEntryCount = count;
+        rebuilds++;
+    }
+
+    private void add(Entity entity, boolean player) {
+        Location loc = entity.getLocation();
+        Entry entry = new Entry(entity, loc.getX(), loc.getY(), loc.getZ(), player);
+        long key = cellKey(loc.getBlockX() >> CELL_SHIFT, loc.getBlockZ() >> CELL_SHIFT);
+        cells.computeIfAbsent(loc.getWorld().getUID(), k -> new HashMap<>())
+                .computeIfAbsent(key, k -> new ArrayList<>())
+                .add(entry);
+    }
+
+    private static long cellKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    // ----------------------------------------------------
+    // --- 検索 ---
+    // ----------------------------------------------------
+
+    /**
+     * center を中心とした直方体内のエンティティ（center 自身を除く）。getNearbyEntities(r, r, r) の代わり
+     */
+    public List<Entity> nearby(Entity center, double radius) {
+        return query(center.getLocation(), radius, center, false);
+    }
+
+    /**
+     * center を中心とした直方体内のプレイヤー（center 自身を除く）
+     */
+    public List<Player> nearbyPlayers(Entity center, double radius) {
+        List<Entity> found = query(center.getLocation(), radius, center, true);
+        List<Player> players = new ArrayList<>(found.size());
+        for (Entity e : found) players.add((Player) e);
+        return players;
+    }
+
+    private List<Entity> query(Location center, double radius, Entity exclude, boolean playersOnly) {
+        ensureFresh();
+        queries++;
+
+        List<Entity> result = new ArrayList<>();
+        Map<Long, List<Entry>> worldCells = cells.get(center.getWorld().getUID());
+        if (worldCells == null) return result;
+
+        double x = center.getX(), y = center.getY(), z = center.getZ();
+        int minCx = (int) Math.floor(x - radius) >> CELL_SHIFT;
+        int maxCx = (int) Math.floor(x + radius) >> CELL_SHIFT;
+        int minCz = (int) Math.floor(z - radius) >> CELL_SHIFT;
+        int maxCz = (int) Math.floor(z + radius) >> CELL_SHIFT;
+
+        for (int cx = minCx; cx <= maxCx; cx++) {
+            for (int cz = minCz; cz <= maxCz; cz++) {
+                List<Entry> cell = worldCells.get(cellKey(cx, cz));
+                if (cell == null) continue;
+                for (Entry entry : cell) {
+                    if (playersOnly && !entry.player()) continue;
+                    if (entry.entity() == exclude) continue;
+                    if (Math.abs(entry.x() - x) > radius
+                            || Math.abs(entry.y() - y) > radius
+                            || Math.abs(entry.z() - z) > radius) continue;
+                    // 作り直した後に死亡・退出したものは返さない
+                    if (!entry.entity().isValid()) continue;
+                    result.add(entry.entity());
+                }
+            }
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public long getRebuildCount() {
+        return rebuilds;
+    }
+
+    public long getQueryCount() {
+        return queries;
+    }
+
+    public int getLastEntryCount() {
+        return lastEntryCount;
+    }
+
+    public void resetStats() {
+        rebuilds = 0;
+        queries = 0;
+    }
+}
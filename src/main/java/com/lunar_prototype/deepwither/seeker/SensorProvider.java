@@ -3,8 +3,8 @@ package com.lunar_prototype.deepwither.seeker;
 import io.lumine.mythic.core.mobs.ActiveMob;
 import org.bukkit.FluidCollisionMode;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.attribute.Attribute;
-import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Mob;
@@ -12,13 +12,33 @@ import org.bukkit.entity.Player;
 import org.bukkit.util.RayTraceResult;
 import org.bukkit.util.Vector;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class SensorProvider {
 
     // 周囲何ブロックまでをスキャン対象にするか
     private static final int SCAN_RADIUS = 32;
+    // 模倣学習の相手とみなす範囲
+    private static final int PEER_RADIUS = 12;
+
+    // 遮蔽物の探索範囲 (水平)
+    private static final int COVER_RADIUS = 8;
+    // 射線判定まで進める隠れ場所の数
+    private static final int COVER_CANDIDATES = 8;
+
+    private final SeekerSpatialIndex spatialIndex;
+    private final CoverIndex coverIndex;
+    // 隠れ場所の検索結果の受け皿 (メインスレッドでのみ使う)
+    private final long[] coverBuffer = new long[COVER_CANDIDATES];
+    private final long[] spotBuffer = new long[COVER_CANDIDATES];
+
+    public SensorProvider(SeekerSpatialIndex spatialIndex, CoverIndex coverIndex) {
+        this.spatialIndex = spatialIndex;
+        this.coverIndex = coverIndex;
+    }
 
     public BanditContext scan(ActiveMob activeMob) {
         BanditContext context = new BanditContext();
@@ -38,12 +58,16 @@ public class SensorProvider {
         context.environment = new BanditContext.EnvironmentState();
 
         // 敵の情報を取得
-        List<Entity> nearby = entity.getNearbyEntities(SCAN_RADIUS, SCAN_RADIUS, SCAN_RADIUS);
+        List<Entity> nearby = spatialIndex.nearby(entity, SCAN_RADIUS);
         context.environment.nearby_enemies = scanEnemies(entity, nearby);
 
         // 味方の情報を取得
         context.environment.nearby_allies = scanAllies(entity, nearby);
 
+        // 自分の位置とターゲット
+        context.self = scanSelf(entity, context.environment.nearby_enemies);
+        context.nearby_peers = scanPeers(entity, nearby);
+
         // 最寄りの遮蔽物を計算
         context.environment.nearest_cover = findNearestCover(entity,getEnemyLocation(entity));
 
@@ -55,6 +79,50 @@ public class SensorProvider {
         return context;
     }
 
+    private BanditContext.SelfState scanSelf(Mob self, List<BanditContext.EnemyInfo> enemies) {
+        BanditContext.SelfState state = new BanditContext.SelfState();
+        Location loc = self.getLocation();
+        Vector vel = self.getVelocity();
+        state.x = loc.getX();
+        state.y = loc.getY();
+        state.z = loc.getZ();
+        state.vx = vel.getX();
+        state.vy = vel.getY();
+        state.vz = vel.getZ();
+        state.ticksLived = self.getTicksLived();
+
+        LivingEntity target = self.getTarget();
+        if (target != null) {
+            state.targetId = target.getUniqueId();
+            if (target instanceof Player p) {
+                for (BanditContext.EnemyInfo info : enemies) {
+                    if (info.id.equals(state.targetId)) {
+                        state.target = info;
+                        break;
+                    }
+                }
+                // 走査範囲外のターゲットも写しておく
+                if (state.target == null) state.target = snapshotEnemy(self, p);
+            }
+        }
+        return state;
+    }
+
+    private List<UUID> scanPeers(Mob self, List<Entity> nearby) {
+        Location loc = self.getLocation();
+        List<UUID> peers = new ArrayList<>();
+        for (Entity e : nearby) {
+            if (!(e instanceof Mob)) continue;
+            Location other = e.getLocation();
+            if (Math.abs(other.getX() - loc.getX()) <= PEER_RADIUS
+                    && Math.abs(other.getY() - loc.getY()) <= PEER_RADIUS
+                    && Math.abs(other.getZ() - loc.getZ()) <= PEER_RADIUS) {
+                peers.add(e.getUniqueId());
+            }
+        }
+        return peers;
+    }
+
     private List<BanditContext.AllyInfo> scanAllies(Mob self, List<Entity> nearby) {
         return nearby.stream()
                 .filter(e -> e instanceof LivingEntity && e != self) // 自分以外の生きたエンティティ
@@ -89,35 +157,53 @@ public class SensorProvider {
     public List<BanditContext.EnemyInfo> scanEnemies(Mob self, List<Entity> nearby) {
         return nearby.stream()
                 .filter(e -> e instanceof Player)
-                .map(e -> {
-                    Player p = (Player) e; // キャスト
-                    BanditContext.EnemyInfo info = new BanditContext.EnemyInfo();
+                .map(e -> snapshotEnemy(self, (Player) e))
+                // 距離が近い順に並び替える（thinkV2で index 0 が最優先ターゲットになる）
+                .sorted(java.util.Comparator.comparingDouble(info -> info.dist))
+                .collect(Collectors.toList());
+    }
 
-                    info.playerInstance = p; // インスタンスを格納
+    private BanditContext.EnemyInfo snapshotEnemy(Mob self, Player p) {
+        BanditContext.EnemyInfo info = new BanditContext.EnemyInfo();
 
-                    double dist = self.getLocation().distance(p.getLocation());
-                    info.dist = dist;
+        info.playerInstance = p; // インスタンスを格納
+        info.id = p.getUniqueId();
+        info.name = p.getName();
 
-                    // --- LoS判定 ---
-                    // 15m以内は気配で察知、それ以上は視線が必要
-                    if (dist <= 15.0) {
-                        info.in_sight = true;
-                    } else {
-                        info.in_sight = self.hasLineOfSight(p);
-                    }
+        Location loc = p.getLocation();
+        double dist = self.getLocation().distance(loc);
+        info.dist = dist;
 
-                    info.holding = p.getInventory().getItemInMainHand().getType().name();
+        // --- LoS判定 ---
+        // 15m以内は気配で察知、それ以上は視線が必要
+        if (dist <= 15.0) {
+            info.in_sight = true;
+        } else {
+            info.in_sight = self.hasLineOfSight(p);
+        }
 
-                    // HPの割合計算 (属性値を考慮するとより正確)
-                    double maxHealth = p.getAttribute(Attribute.MAX_HEALTH).getValue();
-                    double healthPercent = p.getHealth() / maxHealth;
-                    info.health = healthPercent > 0.7 ? "high" : (healthPercent > 0.3 ? "mid" : "low");
+        info.holding = p.getInventory().getItemInMainHand().getType().name();
+
+        // HPの割合計算 (属性値を考慮するとより正確)
+        double maxHealth = p.getAttribute(Attribute.MAX_HEALTH).getValue();
+        double healthPercent = p.getHealth() / maxHealth;
+        info.health_ratio = healthPercent;
+        info.health = healthPercent > 0.7 ? "high" : (healthPercent > 0.3 ? "mid" : "low");
+
+        // 推論スレッドで使う座標・速度・視線
+        Vector vel = p.getVelocity();
+        Vector look = loc.getDirection();
+        info.x = loc.getX();
+        info.y = loc.getY();
+        info.z = loc.getZ();
+        info.vx = vel.getX();
+        info.vy = vel.getY();
+        info.vz = vel.getZ();
+        info.lookX = look.getX();
+        info.lookY = look.getY();
+        info.lookZ = look.getZ();
 
-                    return info;
-                })
-                // 距離が近い順に並び替える（thinkV2で index 0 が最優先ターゲットになる）
-                .sorted(java.util.Comparator.comparingDouble(info -> info.dist))
-                .collect(Collectors.toList());
+        return info;
     }
 
     // SeekerAIEngineから座標取得のために呼ばれる
@@ -127,14 +213,7 @@ public class SensorProvider {
             return null; // Mob（クリーチャー）でない場合は処理を中断
         }
         Mob self = (Mob) activeMob.getEntity().getBukkitEntity();
-        Block coverBlock = findBestCoverBlock(self);
-
-        if (coverBlock == null) return null;
-
-        // 敵の逆側に回り込む座標を計算して返す
-        Location enemyLoc = getEnemyLocation(self);
-        Vector directionToEnemy = enemyLoc.toVector().subtract(coverBlock.getLocation().toVector()).normalize();
-        return coverBlock.getLocation().add(directionToEnemy.multiply(-1.1));
+        return findBestCoverSpot(self);
     }
 
     // scanメソッド内でLLM用のデータを作るために呼ばれる
@@ -148,46 +227,40 @@ public class SensorProvider {
     }
 
     /**
-     * 最適な遮蔽物（ブロック）を探索するコアロジック
+     * 最適な隠れ場所を探索するコアロジック
+     * 候補は {@link CoverIndex} から、敵から見て遮蔽ブロックの裏にある立てるマスを近い順に {@value #COVER_CANDIDATES} 件取り、
+     * 射線判定して最初に安全だったマスの足元を返す
      */
-    private Block findBestCoverBlock(Mob self) {
+    private Location findBestCoverSpot(Mob self) {
         Location selfLoc = self.getLocation();
         Location enemyLoc = getEnemyLocation(self);
         if (enemyLoc == null) return null;
 
-        Block closestCover = null;
-        double minDistance = Double.MAX_VALUE;
-        int radius = 8;
-
-        for (int x = -radius; x <= radius; x++) {
-            for (int y = -1; y <= 2; y++) {
-                for (int z = -radius; z <= radius; z++) {
-                    Block block = selfLoc.clone().add(x, y, z).getBlock();
-                    if (!block.getType().isOccluding()) continue;
-
-                    Vector directionToEnemy = enemyLoc.toVector().subtract(block.getLocation().toVector()).normalize();
-                    Location hidingSpot = block.getLocation().add(directionToEnemy.multiply(-1.1));
-
-                    if (isSafeSpot(hidingSpot, enemyLoc)) {
-                        double dist = selfLoc.distance(hidingSpot);
-                        if (dist < minDistance) {
-                            minDistance = dist;
-                            closestCover = block;
-                        }
-                    }
-                }
-            }
+        World world = selfLoc.getWorld();
+        int bx = selfLoc.getBlockX(), by = selfLoc.getBlockY(), bz = selfLoc.getBlockZ();
+        int found = coverIndex.nearestHidingSpots(world,
+                bx - COVER_RADIUS, by - 1, bz - COVER_RADIUS,
+                bx + COVER_RADIUS, by + 2, bz + COVER_RADIUS,
+                selfLoc.getX(), selfLoc.getY(), selfLoc.getZ(), enemyLoc.getX(), enemyLoc.getZ(),
+                coverBuffer, spotBuffer);
+
+        for (int i = 0; i < found; i++) {
+            long cover = coverBuffer[i], spot = spotBuffer[i];
+            // キャッシュ作成後に置き換わったブロックは除く
+            if (!world.getType(CoverIndex.unpackX(cover), CoverIndex.unpackY(cover), CoverIndex.unpackZ(cover)).isOccluding()) continue;
+            int sx = CoverIndex.unpackX(spot), sy = CoverIndex.unpackY(spot), sz = CoverIndex.unpackZ(spot);
+            // 射線は体の中心の高さで見る
+            Location center = new Location(world, sx + 0.5, sy + 0.5, sz + 0.5);
+            if (isSafeSpot(center, enemyLoc)) return center.subtract(0, 0.5, 0);
         }
-        return closestCover;
+        return null;
     }
 
     private Location getEnemyLocation(Mob self) {
         if (self.getTarget() != null) return self.getTarget().getLocation();
         // ターゲットがいない場合、近くのプレイヤーを探すなどのフォールバック
-        return self.getNearbyEntities(15, 15, 15).stream()
-                .filter(e -> e instanceof org.bukkit.entity.Player)
-                .map(org.bukkit.entity.Entity::getLocation)
-                .findFirst().orElse(null);
+        List<Player> players = spatialIndex.nearbyPlayers(self, 15);
+        return players.isEmpty() ? null : players.get(0).getLocation();
     }
 
     // 実際に射線が通らないかを確認する補助メソッド
@@ -45,18 +45,21 @@ public class SocialLearningListener implements Listener {
             // ショック値を計算 (1.0fなどのリテラルを使用してfloat演算を強制)
             float shock = Math.max(0.1f, 1.0f - (dist / 15.0f));
 
-            // 恐怖(Fear)を注入: update(input: float, urgency: float)
-            // 仲間が死んだショックにより、恐怖ニューロンを急上昇させる
-            nearbyBrain.fear.update(1.0f, shock * 0.5f);
+            // 推論スレッドと同時に触らないよう脳で同期する
+            synchronized (nearbyBrain) {
+                // 恐怖(Fear)を注入: update(input: float, urgency: float)
+                // 仲間が死んだショックにより、恐怖ニューロンを急上昇させる
+                nearbyBrain.fear.update(1.0f, shock * 0.5f);
 
-            // アドレナリン(Adrenaline)を上昇
-            nearbyBrain.adrenaline = Math.min(1.0f, nearbyBrain.adrenaline + (shock * 0.3f));
+                // アドレナリン(Adrenaline)を上昇
+                nearbyBrain.adrenaline = Math.min(1.0f, nearbyBrain.adrenaline + (shock * 0.3f));
 
-            // 戦術(Tactical)ニューロンも刺激
-            nearbyBrain.tactical.update(1.0f, 0.4f);
+                // 戦術(Tactical)ニューロンも刺激
+                nearbyBrain.tactical.update(1.0f, 0.4f);
 
-            // 冷静さを失う (Composureを微減)
-            nearbyBrain.composure = Math.max(0.0f, nearbyBrain.composure - (shock * 0.2f));
+                // 冷静さを失う (Composureを微減)
+                nearbyBrain.composure = Math.max(0.0f, nearbyBrain.composure - (shock * 0.2f));
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package com.lunar_prototype.deepwither.util;
+
+import java.util.UUID;
+
+/**
+ * UUID -> long の期限付きマップ。無敵時間やクールダウンなど、数百ms〜数秒で意味を失う戦闘用タイマー向け。
+ * <p>
+ * キーは UUID の上位/下位 long、値と期限は long の配列にそのまま持つ (オープンアドレス法・線形探索)。
+ * 期限切れのエントリは {@link #get} では無いものとして扱い、{@link #sweep} で実際に取り除く。
+ * 一度でも攻撃した/された個体がサーバーの稼働中ずっと残ることはない。
+ * <p>
+ * メインスレッド専用。
+ */
+public class ExpiringTimerMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keyHigh;
+    private long[] keyLow;
+    private long[] values;
+    private long[] expiresAt;
+    private boolean[] used;
+    private int size;
+
+    // --- 計測 ---
+    private long expired = 0;
+
+    public ExpiringTimerMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        values = new long[capacity];
+        expiresAt = new long[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+
+    /**
+     * 期限内の値を返す。無いか期限切れなら def
+     */
+    public long get(UUID key, long now, long def) {
+        int slot = find(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (slot < 0 || now > expiresAt[slot]) return def;
+        return values[slot];
+    }
+
+    /**
+     * 値を設定する。expiresAt を過ぎると無いものとして扱われる
+     */
+    public void put(UUID key, long value, long expiresAt) {
+        long high = key.getMostSignificantBits(), low = key.getLeastSignificantBits();
+        int slot = find(high, low);
+        if (slot < 0) {
+            if ((size + 1) * 2 > used.length) resize(used.length * 2);
+            slot = insertionSlot(high, low);
+            used[slot] = true;
+            keyHigh[slot] = high;
+            keyLow[slot] = low;
+            size++;
+        }
+        values[slot] = value;
+        this.expiresAt[slot] = expiresAt;
+    }
+
+    public void remove(UUID key) {
+        int slot = find(key.getMostSignificantBits(), key.getLeastSignificantBits());
+        if (slot >= 0) removeAt(slot);
+    }
+
+    /**
+     * 期限切れのエントリを取り除く。取り除いた数を返す
+     */
+    public int sweep(long now) {
+        int removed = 0;
+        int i = 0;
+        while (i < used.length) {
+            // removeAt は後続のエントリを詰めるため、同じ位置をもう一度見る
+            if (used[i] && now > expiresAt[i]) {
+                removeAt(i);
+                removed++;
+            } else {
+                i++;
+            }
+        }
+        expired += removed;
+        if (size * 8 < used.length && used.length > MIN_CAPACITY) resize(Math.max(MIN_CAPACITY, used.length / 2));
+        return removed;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * これまでに期限切れで取り除いた数
+     */
+    public long getExpiredCount() {
+        return expired;
+    }
+
+    // ----------------------------------------------------
+    // --- 内部 ---
+    // ----------------------------------------------------
+
+    private int find(long high, long low) {
+        int mask = used.length - 1;
+        int slot = hash(high, low) & mask;
+        while (used[slot]) {
+            if (keyHigh[slot] == high && keyLow[slot] == low) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insertionSlot(long high, long low) {
+        int mask = used.length - 1;
+        int slot = hash(high, low) & mask;
+        while (used[slot]) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * 線形探索の列が途切れないよう、後続のエントリを空いた位置へ詰める
+     */
+    private void removeAt(int slot) {
+        int mask = used.length - 1;
+        used[slot] = false;
+        size--;
+
+        int next = (slot + 1) & mask;
+        while (used[next]) {
+            int home = hash(keyHigh[next], keyLow[next]) & mask;
+            // home が (slot, next] の外にあれば slot へ移せる
+            boolean movable = (slot <= next) ? (home <= slot || home > next) : (home <= slot && home > next);
+            if (movable) {
+                keyHigh[slot] = keyHigh[next];
+                keyLow[slot] = keyLow[next];
+                values[slot] = values[next];
+                expiresAt[slot] = expiresAt[next];
+                used[slot] = true;
+                used[next] = false;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldHigh = keyHigh, oldLow = keyLow, oldValues = values, oldExpires = expiresAt;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = insertionSlot(oldHigh[i], oldLow[i]);
+            used[slot] = true;
+            keyHigh[slot] = oldHigh[i];
+            keyLow[slot] = oldLow[i];
+            values[slot] = oldValues[i];
+            expiresAt[slot] = oldExpires[i];
+            size++;
+        }
+    }
+
+    private static int hash(long high, long low) {
+        long h = high ^ low;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return (int) h;
+    }
+}
@@ -8,19 +8,32 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+/**
+ * Google の変換API (ひらがな → 漢字かな交じり)。
+ * <p>
+ * 通信を伴うため、チャットのスレッドからは直接呼ばず {@link #convertAsync} を使うこと。
+ */
 public class GoogleImeConverter {
-    private static final String API_URL = "https://www.google.com/transliterate?langpair=ja-kana|ja&text=";
+    private static final String API_URL = "https://www.google.com/transliterate?langpair=ja-Hira|ja&text=";
+    private static final int TIMEOUT_MS = 3000;
 
-    public static String convert(String input) {
-        if (input == null || input.isEmpty() || !isRoman(input)) return input;
+    /**
+     * ひらがなの文を変換する (通信が終わるまで戻らない)。失敗時はそのまま返す
+     */
+    public static String convert(String kana) {
+        if (kana == null || kana.isEmpty()) return kana;
 
         try {
-            String encoded = URLEncoder.encode(input, StandardCharsets.UTF_8);
+            String encoded = URLEncoder.encode(kana, StandardCharsets.UTF_8);
             URL url = new URL(API_URL + encoded);
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod("GET");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
 
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
                 String response = reader.lines().collect(Collectors.joining());
@@ -34,11 +47,14 @@ public class GoogleImeConverter {
                 return result.toString();
             }
         } catch (Exception e) {
-            return input; // エラー時はそのまま返す
+            return kana; // エラー時はそのまま返す
         }
     }
 
-    private static boolean isRoman(String input) {
-        return input.matches("^[\\w\\s\\d\\.\\?\\!\\-]+$");
+    /**
+     * executor 上で {@link #convert} を行う
+     */
+    public static CompletableFuture<String> convertAsync(String kana, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> convert(kana), executor);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package com.lunar_prototype.deepwither.util;
+
+import com.lunar_prototype.deepwither.Deepwither;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * チャットのローマ字をその場で日本語にする (ローマ字 → ひらがな → 同梱辞書で漢字)。
+ * <p>
+ * 変換は全てローカルで行い、結果は発言単位の LRU キャッシュに残す。通信を待つことはないため、チャットの遅延は一定。
+ * 設定で remote を有効にすると、Google の変換APIへの問い合わせを非同期で投げ、
+ * 返ってきた結果でキャッシュを上書きする (次に同じ発言をした時から使われる)。同時に投げる数には上限がある。
+ * <p>
+ * 非同期チャットのスレッドから呼ばれる。
+ */
+public class JapaneseImeConverter implements IManager {
+
+    private static final String DICTIONARY_RESOURCE = "ime/kana-kanji.txt";
+    private static final int MAX_PENDING_REMOTE = 8;
+
+    private final Deepwither plugin;
+
+    private volatile boolean enabled = true;
+    private volatile boolean remote = false;
+    private volatile KanaKanjiDictionary dictionary = KanaKanjiDictionary.EMPTY;
+    private volatile Map<String, String> cache = createCache(2000); // 中身は cache 自身で同期
+
+    private final Set<String> pendingRemote = ConcurrentHashMap.newKeySet();
+
+    // --- 計測 ---
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder remoteRequests = new LongAdder();
+    private final LongAdder remoteDropped = new LongAdder();
+
+    public JapaneseImeConverter(Deepwither plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void init() throws Exception {
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("clan-chat.ime.enabled", true);
+        remote = config.getBoolean("clan-chat.ime.remote", false);
+        int cacheSize = Math.max(16, config.getInt("clan-chat.ime.cache-size", 2000));
+        cache = createCache(cacheSize);
+
+        try (InputStream in = plugin.getResource(DICTIONARY_RESOURCE)) {
+            if (in == null) {
+                plugin.getLogger().warning("IME辞書 " + DICTIONARY_RESOURCE + " が見つかりません。ひらがなのまま表示します。");
+                return;
+            }
+            dictionary = KanaKanjiDictionary.load(in);
+        }
+        plugin.getLogger().info("IME辞書を読み込みました (" + dictionary.size() + "語, remote=" + remote + ")");
+    }
+
+    @Override
+    public void shutdown() {
+        pendingRemote.clear();
+    }
+
+    private static Map<String, String> createCache(int maxSize) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 発言を変換する。対象外 (日本語・英語・URL) ならそのまま返す
+     */
+    public String convert(String message) {
+        if (!enabled || message == null || !RomajiConverter.isConvertible(message)) return message;
+
+        Map<String, String> cache = this.cache;
+        synchronized (cache) {
+            String cached = cache.get(message);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        String kana = RomajiConverter.toHiragana(message);
+        String converted = (kana != null) ? dictionary.convert(kana) : message;
+        synchronized (cache) {
+            cache.put(message, converted);
+        }
+
+        if (kana != null && remote) requestRemote(message, kana);
+        return converted;
+    }
+
+    private void requestRemote(String message, String kana) {
+        if (pendingRemote.size() >= MAX_PENDING_REMOTE || !pendingRemote.add(message)) {
+            remoteDropped.increment();
+            return;
+        }
+        remoteRequests.increment();
+        GoogleImeConverter.convertAsync(kana, plugin.getAsyncExecutor())
+                .whenComplete((result, error) -> {
+                    pendingRemote.remove(message);
+                    // 失敗時は kana がそのまま返るので、その場合はローカルの結果を残す
+                    if (error != null || result == null || result.isEmpty() || result.equals(kana)) return;
+                    Map<String, String> cache = this.cache;
+                    synchronized (cache) {
+                        cache.put(message, result);
+                    }
+                });
+    }
+
+    // ----------------------------------------------------
+    // --- 統計 ---
+    // ----------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRemoteEnabled() {
+        return remote;
+    }
+
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    public int getCacheSize() {
+        Map<String, String> cache = this.cache;
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getRemoteRequestCount() {
+        return remoteRequests.sum();
+    }
+
+    public long getRemoteDroppedCount() {
+        return remoteDropped.sum();
+    }
+
+    public int getPendingRemoteCount() {
+        return pendingRemote.size();
+    }
+}
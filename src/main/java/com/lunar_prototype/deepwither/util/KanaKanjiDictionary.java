@@ -0,0 +1,97 @@
+package com.lunar_prototype.deepwither.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ひらがな → 漢字/カタカナ の辞書 (読み → 表記)。
+ * <p>
+ * 「よみ&lt;TAB&gt;表記」の行を並べたテキストを読み込み、行全体で最も多くの文字を置き換えられる区切り方で置き換える。
+ * 一致しない部分はひらがなのまま残すため、助詞や送り仮名は辞書に入れなくてよい。
+ * 読み込み後は変更しないので、複数のスレッドから同時に使える。
+ */
+public final class KanaKanjiDictionary {
+
+    public static final KanaKanjiDictionary EMPTY = new KanaKanjiDictionary(Map.of(), 0);
+
+    private final Map<String, String> entries;
+    private final int maxReadingLength;
+
+    private KanaKanjiDictionary(Map<String, String> entries, int maxReadingLength) {
+        this.entries = entries;
+        this.maxReadingLength = maxReadingLength;
+    }
+
+    /**
+     * 辞書を読み込む。「#」で始まる行と空行は無視し、同じ読みは後の行で上書きする
+     */
+    public static KanaKanjiDictionary load(InputStream in) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        int maxLength = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                int tab = line.indexOf('\t');
+                if (tab <= 0 || tab == line.length() - 1) continue;
+
+                String reading = line.substring(0, tab).trim();
+                String surface = line.substring(tab + 1).trim();
+                entries.put(reading, surface);
+                maxLength = Math.max(maxLength, reading.length());
+            }
+        }
+        return new KanaKanjiDictionary(Map.copyOf(entries), maxLength);
+    }
+
+    /**
+     * 辞書にある読みを表記に置き換える。
+     * 左から貪欲に取ると先頭の短い読みが正しい区切りを潰すことがあるため、行全体で
+     * 「辞書で置き換えられる文字数が最も多く、その中で語の数が最も少ない」区切り方を選ぶ (同点なら左の長い読みを優先)
+     */
+    public String convert(String hiragana) {
+        if (entries.isEmpty()) return hiragana;
+
+        // covered[i] / segments[i]: i 文字目以降を最適に区切った時の置き換え文字数と語数。match[i]: i で使う読みの長さ (0 なら置き換えない)
+        int length = hiragana.length();
+        int[] covered = new int[length + 1];
+        int[] segments = new int[length + 1];
+        int[] match = new int[length + 1];
+        for (int i = length - 1; i >= 0; i--) {
+            covered[i] = covered[i + 1];
+            segments[i] = segments[i + 1];
+            match[i] = 0;
+            for (int len = Math.min(maxReadingLength, length - i); len > 0; len--) {
+                if (!entries.containsKey(hiragana.substring(i, i + len))) continue;
+                int c = len + covered[i + len];
+                int n = 1 + segments[i + len];
+                if (c > covered[i] || (c == covered[i] && (n < segments[i] || (n == segments[i] && match[i] == 0)))) {
+                    covered[i] = c;
+                    segments[i] = n;
+                    match[i] = len;
+                }
+            }
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            if (match[i] > 0) {
+                out.append(entries.get(hiragana.substring(i, i + match[i])));
+                i += match[i];
+            } else {
+                out.append(hiragana.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
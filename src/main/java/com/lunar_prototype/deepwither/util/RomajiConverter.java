@@ -0,0 +1,159 @@
+package com.lunar_prototype.deepwither.util;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ローマ字 → ひらがな の変換 (ヘボン式・訓令式の両方と、x で始まる小書き文字)。
+ * <p>
+ * 小文字だけを変換し、大文字の単語 (PvP など)・数字はそのまま残す。小書き文字は x で始める (l は英単語と紛れるため使わない)。
+ * 「n」は後ろが母音/y でなければ「ん」にするため、「konnichiha」も「konnnichiha」も「こんにちは」になる。
+ * 小文字の並びがローマ字として読めない場合は英語の発言とみなし null を返す。
+ */
+public final class RomajiConverter {
+
+    private static final int MAX_SYLLABLE_LENGTH = 4; // xtsu
+    private static final Map<String, String> SYLLABLES = new HashMap<>();
+    private static final Map<Character, Character> SYMBOLS = Map.of(
+            '-', 'ー', ',', '、', '.', '。', '?', '？', '!', '！', '[', '「', ']', '」', '~', '～');
+
+    static {
+        String[] vowels = {"a", "i", "u", "e", "o"};
+        define("", vowels, "あ", "い", "う", "え", "お");
+        define("k", vowels, "か", "き", "く", "け", "こ");
+        define("s", vowels, "さ", "し", "す", "せ", "そ");
+        define("t", vowels, "た", "ち", "つ", "て", "と");
+        define("n", vowels, "な", "に", "ぬ", "ね", "の");
+        define("h", vowels, "は", "ひ", "ふ", "へ", "ほ");
+        define("m", vowels, "ま", "み", "む", "め", "も");
+        define("y", vowels, "や", "い", "ゆ", "いぇ", "よ");
+        define("r", vowels, "ら", "り", "る", "れ", "ろ");
+        define("w", vowels, "わ", "うぃ", "う", "うぇ", "を");
+        define("g", vowels, "が", "ぎ", "ぐ", "げ", "ご");
+        define("z", vowels, "ざ", "じ", "ず", "ぜ", "ぞ");
+        define("d", vowels, "だ", "ぢ", "づ", "で", "ど");
+        define("b", vowels, "ば", "び", "ぶ", "べ", "ぼ");
+        define("p", vowels, "ぱ", "ぴ", "ぷ", "ぺ", "ぽ");
+        define("f", vowels, "ふぁ", "ふぃ", "ふ", "ふぇ", "ふぉ");
+        define("v", vowels, "ゔぁ", "ゔぃ", "ゔ", "ゔぇ", "ゔぉ");
+        define("j", vowels, "じゃ", "じ", "じゅ", "じぇ", "じょ");
+        define("c", vowels, "か", "し", "く", "せ", "こ");
+        define("x", vowels, "ぁ", "ぃ", "ぅ", "ぇ", "ぉ");
+
+        // 拗音
+        String[] youon = {"ya", "yi", "yu", "ye", "yo"};
+        String[] small = {"ゃ", "ぃ", "ゅ", "ぇ", "ょ"};
+        for (String[] row : new String[][]{
+                {"k", "き"}, {"s", "し"}, {"t", "ち"}, {"c", "ち"}, {"n", "に"}, {"h", "ひ"}, {"m", "み"}, {"r", "り"},
+                {"g", "ぎ"}, {"z", "じ"}, {"j", "じ"}, {"d", "ぢ"}, {"b", "び"}, {"p", "ぴ"}, {"f", "ふ"}, {"v", "ゔ"}}) {
+            for (int i = 0; i < youon.length; i++) {
+                SYLLABLES.put(row[0] + youon[i], row[1] + small[i]);
+            }
+        }
+        for (String[] row : new String[][]{{"sh", "し"}, {"ch", "ち"}}) {
+            define(row[0], vowels, row[1] + "ゃ", row[1], row[1] + "ゅ", row[1] + "ぇ", row[1] + "ょ");
+        }
+        define("th", vowels, "てゃ", "てぃ", "てゅ", "てぇ", "てょ");
+        define("dh", vowels, "でゃ", "でぃ", "でゅ", "でぇ", "でょ");
+        define("ts", vowels, "つぁ", "つぃ", "つ", "つぇ", "つぉ");
+        define("xy", vowels, "ゃ", "ぃ", "ゅ", "ぇ", "ょ");
+
+        SYLLABLES.put("xtu", "っ");
+        SYLLABLES.put("xtsu", "っ");
+        SYLLABLES.put("xwa", "ゎ");
+        SYLLABLES.put("xn", "ん");
+        SYLLABLES.put("n'", "ん");
+    }
+
+    private RomajiConverter() {
+    }
+
+    private static void define(String consonant, String[] vowels, String... kana) {
+        for (int i = 0; i < vowels.length; i++) {
+            SYLLABLES.put(consonant + vowels[i], kana[i]);
+        }
+    }
+
+    /**
+     * ひらがなに変換する。ローマ字として読めない場合は null
+     */
+    @Nullable
+    public static String toHiragana(String input) {
+        StringBuilder out = new StringBuilder(input.length());
+        int length = input.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = input.charAt(i);
+
+            if (c < 'a' || c > 'z') {
+                // 大文字で始まる単語は英単語として丸ごと残す
+                if (c >= 'A' && c <= 'Z') {
+                    int end = i;
+                    while (end < length && Character.isLetterOrDigit(input.charAt(end))) end++;
+                    out.append(input, i, end);
+                    i = end;
+                    continue;
+                }
+                Character symbol = SYMBOLS.get(c);
+                out.append(symbol != null ? symbol : c);
+                i++;
+                continue;
+            }
+
+            char next = i + 1 < length ? input.charAt(i + 1) : 0;
+
+            if (c == 'n' && !isVowel(next) && next != 'y' && next != '\'') {
+                // nn + 子音/末尾 なら2文字で「ん」、nn + 母音 なら後ろの n は次の音
+                boolean doubled = next == 'n' && !(i + 2 < length && (isVowel(input.charAt(i + 2)) || input.charAt(i + 2) == 'y'));
+                out.append('ん');
+                i += doubled ? 2 : 1;
+                continue;
+            }
+
+            // 促音 (kka → っか, tcha → っちゃ)
+            if ((c == next && isConsonant(c)) || (c == 't' && next == 'c')) {
+                out.append('っ');
+                i++;
+                continue;
+            }
+
+            String kana = null;
+            int matched = 0;
+            for (int len = Math.min(MAX_SYLLABLE_LENGTH, length - i); len > 0; len--) {
+                kana = SYLLABLES.get(input.substring(i, i + len));
+                if (kana != null) {
+                    matched = len;
+                    break;
+                }
+            }
+            if (kana == null) return null;
+
+            out.append(kana);
+            i += matched;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 変換の対象になる発言か (ASCII のみで、小文字を含む。URL は除く)
+     */
+    public static boolean isConvertible(String input) {
+        boolean hasLower = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c > 0x7E) return false;
+            if (c >= 'a' && c <= 'z') hasLower = true;
+        }
+        return hasLower && !input.contains("://");
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'i' || c == 'u' || c == 'e' || c == 'o';
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'a' && c <= 'z' && !isVowel(c) && c != 'n' && c != 'l';
+    }
+}